@@ -0,0 +1,135 @@
+/*
+ * DFetchingCertificates.java
+ * This file is part of Portecle, a multipurpose keystore and certificate tool.
+ *
+ * Copyright © 2026 The Portecle Project
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.sf.portecle;
+
+import static net.sf.portecle.FPortecle.RB;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.Window;
+import java.util.concurrent.Callable;
+
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.SwingWorker;
+import javax.swing.border.EmptyBorder;
+
+/**
+ * Modal dialog shown while certificates, or other things such as keystores, are fetched from the network, which the
+ * user may cancel at any time by pressing the cancel button.
+ */
+class DFetchingCertificates
+    extends PortecleJDialog
+{
+	/** Whether the dialog was closed by a fetching worker */
+	private boolean closedByWorker;
+
+	/**
+	 * Creates new DFetchingCertificates dialog.
+	 *
+	 * @param parent The parent window
+	 */
+	public DFetchingCertificates(Window parent)
+	{
+		this(parent, RB.getString("DFetchingCertificates.Title"),
+		    RB.getString("DFetchingCertificates.jlFetching.text"));
+	}
+
+	/**
+	 * Creates new DFetchingCertificates dialog for fetching something else than certificates.
+	 *
+	 * @param parent The parent window
+	 * @param sTitle The dialog title
+	 * @param sMessage The message shown while fetching
+	 */
+	public DFetchingCertificates(Window parent, String sTitle, String sMessage)
+	{
+		super(parent, true);
+		initComponents(sTitle, sMessage);
+	}
+
+	/**
+	 * Initialize the dialog's GUI components.
+	 *
+	 * @param sTitle The dialog title
+	 * @param sMessage The message shown while fetching
+	 */
+	private void initComponents(String sTitle, String sMessage)
+	{
+		// Fetching label
+		JLabel jlFetching = new JLabel(sMessage);
+		JPanel jpFetching = new JPanel(new FlowLayout(FlowLayout.CENTER));
+		jpFetching.add(jlFetching);
+		jpFetching.setBorder(new EmptyBorder(5, 5, 5, 5));
+
+		// Cancel button
+		JButton jbCancel = getCancelButton();
+		JPanel jpCancel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+		jpCancel.add(jbCancel);
+
+		getContentPane().add(jpFetching, BorderLayout.NORTH);
+		getContentPane().add(jpCancel, BorderLayout.SOUTH);
+
+		setTitle(sTitle);
+
+		initDialog();
+	}
+
+	/**
+	 * Get a worker that runs a fetching task and closes this dialog once done.
+	 *
+	 * @param <T> The task's result type
+	 * @param task The fetching task
+	 * @return Swing worker that runs the task
+	 */
+	public <T> SwingWorker<T, Object> getWorker(final Callable<T> task)
+	{
+		return new SwingWorker<T, Object>()
+		{
+			@Override
+			protected T doInBackground()
+			    throws Exception
+			{
+				return task.call();
+			}
+
+			@Override
+			protected void done()
+			{
+				closedByWorker = true;
+				closeDialog();
+				super.done();
+			}
+		};
+	}
+
+	/**
+	 * Get whether the dialog was closed by a fetching worker.
+	 *
+	 * @return True if the dialog was closed by a fetching worker, false otherwise
+	 */
+	public boolean isClosedByWorker()
+	{
+		return closedByWorker;
+	}
+}
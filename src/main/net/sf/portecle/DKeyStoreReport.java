@@ -32,46 +32,42 @@ import java.awt.datatransfer.Clipboard;
 import java.awt.datatransfer.StringSelection;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.OutputStreamWriter;
 import java.io.StringWriter;
-import java.security.GeneralSecurityException;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyStore;
+import java.security.KeyStoreException;
 import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
 import java.text.DateFormat;
 import java.text.MessageFormat;
 import java.util.Date;
 import java.util.Enumeration;
-import java.util.Properties;
+import java.util.List;
 
 import javax.swing.JButton;
+import javax.swing.JFileChooser;
 import javax.swing.JFrame;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTree;
 import javax.swing.ScrollPaneConstants;
 import javax.swing.ToolTipManager;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.TreeExpansionEvent;
+import javax.swing.event.TreeWillExpandListener;
+import javax.swing.filechooser.FileFilter;
 import javax.swing.tree.DefaultMutableTreeNode;
-import javax.swing.tree.TreeNode;
-import javax.swing.tree.TreePath;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.ExpandVetoException;
 import javax.swing.tree.TreeSelectionModel;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
 import net.sf.portecle.crypto.CryptoException;
-import net.sf.portecle.crypto.DigestType;
-import net.sf.portecle.crypto.DigestUtil;
 import net.sf.portecle.crypto.KeyPairUtil;
 import net.sf.portecle.crypto.KeyStoreType;
 import net.sf.portecle.crypto.X509CertUtil;
@@ -83,38 +79,6 @@ import net.sf.portecle.gui.error.DThrowable;
 class DKeyStoreReport
     extends PortecleJDialog
 {
-	/** Transformer factory for XML output */
-	private static final TransformerFactory TF_FACTORY = TransformerFactory.newInstance();
-
-	static
-	{
-		try
-		{
-			// XSLTC in J2SE 5 (why oh why doesn't it grok the "normal"
-			// transformer properties... :()
-			TF_FACTORY.setAttribute("indent-number", "2");
-		}
-		catch (IllegalArgumentException e)
-		{
-			// Ignore.
-		}
-	}
-
-	/** Transformer properties for XML output */
-	private static final Properties TF_PROPS = new Properties();
-
-	static
-	{
-		try (InputStream in = DKeyStoreReport.class.getResourceAsStream("keystore-report-xml.properties"))
-		{
-			TF_PROPS.load(in);
-		}
-		catch (IOException e)
-		{
-			throw new ExceptionInInitializerError(e);
-		}
-	}
-
 	/** Stores keystore to report on */
 	private final KeyStore m_keystore;
 
@@ -176,12 +140,27 @@ class DKeyStoreReport
 
 		jpButtons.add(jbCopyXml);
 
+		JButton jbSave = new JButton(RB.getString("DKeyStoreReport.jbSave.text"));
+		jbSave.setMnemonic(RB.getString("DKeyStoreReport.jbSave.mnemonic").charAt(0));
+		jbSave.setToolTipText(RB.getString("DKeyStoreReport.jbSave.tooltip"));
+		jbSave.addActionListener(new ActionListener()
+		{
+			@Override
+			public void actionPerformed(ActionEvent evt)
+			{
+				savePressed();
+			}
+		});
+
+		jpButtons.add(jbSave);
+
 		// Keystore report
 		JPanel jpReport = new JPanel(new BorderLayout());
 		jpReport.setBorder(new EmptyBorder(5, 5, 5, 5));
 
-		// Load tree with keystore report
-		JTree jtrReport = new JTree(createReportNodes());
+		// Load tree with keystore report; nodes below the entries are created as they are expanded
+		final DefaultTreeModel treeModel = new DefaultTreeModel(createReportNodes(), true);
+		JTree jtrReport = new JTree(treeModel);
 		// Top accommodate node icons with spare space (they are 16 pixels tall)
 		jtrReport.setRowHeight(18);
 		jtrReport.getSelectionModel().setSelectionMode(TreeSelectionModel.SINGLE_TREE_SELECTION);
@@ -189,10 +168,40 @@ class DKeyStoreReport
 		ToolTipManager.sharedInstance().registerComponent(jtrReport);
 		// Custom tree node renderer
 		jtrReport.setCellRenderer(new ReportTreeCellRend());
+		// Populate lazy nodes on expansion
+		jtrReport.addTreeWillExpandListener(new TreeWillExpandListener()
+		{
+			@Override
+			public void treeWillExpand(TreeExpansionEvent evt)
+			    throws ExpandVetoException
+			{
+				Object node = evt.getPath().getLastPathComponent();
+				if (node instanceof LazyNode)
+				{
+					try
+					{
+						if (((LazyNode) node).load())
+						{
+							treeModel.nodeStructureChanged((LazyNode) node);
+						}
+					}
+					catch (CryptoException ex)
+					{
+						DThrowable.showAndWait(DKeyStoreReport.this, null, ex);
+						throw new ExpandVetoException(evt);
+					}
+				}
+			}
 
-		// Expand all nodes in tree
-		TreeNode topNode = (TreeNode) jtrReport.getModel().getRoot();
-		expandTree(jtrReport, new TreePath(topNode));
+			@Override
+			public void treeWillCollapse(TreeExpansionEvent evt)
+			{
+				// Nothing to do
+			}
+		});
+
+		// Expand the top node to show the entries
+		jtrReport.expandRow(0);
 
 		JScrollPane jspReport = new JScrollPane(jtrReport, ScrollPaneConstants.VERTICAL_SCROLLBAR_ALWAYS,
 		    ScrollPaneConstants.HORIZONTAL_SCROLLBAR_ALWAYS);
@@ -212,29 +221,6 @@ class DKeyStoreReport
 		jbOK.requestFocusInWindow();
 	}
 
-	/**
-	 * Expand node and all sub-nodes in a JTree.
-	 *
-	 * @param tree The tree.
-	 * @param parent Path to node to expand
-	 */
-	private void expandTree(JTree tree, TreePath parent)
-	{
-		// Traverse children expending nodes
-		TreeNode node = (TreeNode) parent.getLastPathComponent();
-		if (node.getChildCount() >= 0)
-		{
-			for (Enumeration<?> en = node.children(); en.hasMoreElements();)
-			{
-				TreeNode subNode = (TreeNode) en.nextElement();
-				TreePath path = parent.pathByAddingChild(subNode);
-				expandTree(tree, path);
-			}
-		}
-
-		tree.expandPath(parent);
-	}
-
 	/**
 	 * Copy the keystore report to the clipboard.
 	 *
@@ -263,7 +249,61 @@ class DKeyStoreReport
 			StringSelection copy = new StringSelection(sKeyStoreReport);
 			clipboard.setContents(copy, copy);
 		}
-		catch (CryptoException | ParserConfigurationException | TransformerException ex)
+		catch (CryptoException | IOException ex)
+		{
+			DThrowable.showAndWait(this, null, ex);
+		}
+	}
+
+	/**
+	 * Save the keystore report to a file, in a format chosen based on the file's extension.
+	 */
+	private void savePressed()
+	{
+		JFileChooser chooser = FileChooserFactory.getKeyStoreReportFileChooser();
+		chooser.setDialogTitle(RB.getString("DKeyStoreReport.Save.Title"));
+		chooser.setMultiSelectionEnabled(false);
+
+		if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION)
+		{
+			return;
+		}
+
+		File fReport = chooser.getSelectedFile();
+		KeyStoreReportWriter.Format format = KeyStoreReportWriter.Format.valueOfFile(fReport);
+		if (format == null)
+		{
+			// No recognized extension, use the one of the chosen file filter
+			format = KeyStoreReportWriter.Format.XML;
+			FileFilter filter = chooser.getFileFilter();
+			for (KeyStoreReportWriter.Format fmt : KeyStoreReportWriter.Format.values())
+			{
+				if (filter.accept(new File("report." + fmt.getFilenameExtension())))
+				{
+					format = fmt;
+					break;
+				}
+			}
+			fReport = new File(fReport.getPath() + "." + format.getFilenameExtension());
+		}
+
+		if (fReport.isFile())
+		{
+			String sMessage = MessageFormat.format(RB.getString("FPortecle.OverWriteFile.message"), fReport.getName());
+			int iSelected = JOptionPane.showConfirmDialog(this, sMessage, RB.getString("DKeyStoreReport.Save.Title"),
+			    JOptionPane.YES_NO_OPTION);
+			if (iSelected != JOptionPane.YES_OPTION)
+			{
+				return;
+			}
+		}
+
+		try (KeyStoreReportWriter writer = KeyStoreReportWriter.getInstance(format,
+		    new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fReport), StandardCharsets.UTF_8))))
+		{
+			writer.write(m_keystore);
+		}
+		catch (CryptoException | IOException ex)
 		{
 			DThrowable.showAndWait(this, null, ex);
 		}
@@ -274,16 +314,16 @@ class DKeyStoreReport
 	 *
 	 * @return Keystore report in XML
 	 * @throws CryptoException A crypto related problem was encountered generating the keystore report
-	 * @throws ParserConfigurationException There was a serious problem creating the XML report
-	 * @throws TransformerException There was a serious problem creating the XML report
+	 * @throws IOException There was a serious problem creating the XML report
 	 */
 	private String getKeyStoreReportXml()
-	    throws CryptoException, ParserConfigurationException, TransformerException
+	    throws CryptoException, IOException
 	{
 		StringWriter xml = new StringWriter();
-		Transformer tr = TF_FACTORY.newTransformer();
-		tr.setOutputProperties(TF_PROPS);
-		tr.transform(new DOMSource(generateDocument()), new StreamResult(xml));
+		try (KeyStoreReportWriter writer = KeyStoreReportWriter.getInstance(KeyStoreReportWriter.Format.XML, xml))
+		{
+			writer.write(m_keystore);
+		}
 		return xml.toString();
 	}
 
@@ -317,72 +357,50 @@ class DKeyStoreReport
 			sbReport.append(MessageFormat.format(RB.getString("DKeyStoreReport.report.entries"), m_keystore.size()));
 			sbReport.append("\n\n");
 
-			Enumeration<String> aliases = m_keystore.aliases();
-
 			// Get information on each keystore entry
-			while (aliases.hasMoreElements())
+			try (KeyStoreReportEntry.Analyzer analyzer = KeyStoreReportEntry.analyze(m_keystore))
 			{
-				// Alias
-				String sAlias = aliases.nextElement();
-				sbReport.append(MessageFormat.format(RB.getString("DKeyStoreReport.report.alias"), sAlias));
-				sbReport.append("\n");
-
-				// Creation date
-
-				if (ksType.isEntryCreationDateUseful())
-				{
-					Date dCreation = m_keystore.getCreationDate(sAlias);
-
-					// Include time zone
-					String sCreation =
-					    DateFormat.getDateTimeInstance(DateFormat.MEDIUM, DateFormat.LONG).format(dCreation);
-					sbReport.append(MessageFormat.format(RB.getString("DKeyStoreReport.report.creation"), sCreation));
-					sbReport.append("\n");
-				}
-
-				Certificate[] certChain = null;
-
-				// Get entry type and certificates
-				if (m_keystore.isKeyEntry(sAlias))
+				boolean bSeparate = false;
+				for (KeyStoreReportEntry entry = analyzer.next(); entry != null; entry = analyzer.next())
 				{
-					certChain = m_keystore.getCertificateChain(sAlias);
-
-					if (certChain == null || certChain.length == 0)
+					if (bSeparate)
 					{
-						sbReport.append(RB.getString("DKeyStoreReport.report.key"));
 						sbReport.append("\n");
 					}
-					else
+
+					// Alias
+					sbReport.append(
+					    MessageFormat.format(RB.getString("DKeyStoreReport.report.alias"), entry.getAlias()));
+					sbReport.append("\n");
+
+					// Creation date
+					Date dCreation = entry.getCreationDate();
+					if (dCreation != null)
 					{
-						sbReport.append(RB.getString("DKeyStoreReport.report.keypair"));
+						// Include time zone in creation dates
+						sbReport.append(MessageFormat.format(RB.getString("DKeyStoreReport.report.creation"),
+						    DateUtil.formatDateTime(dCreation)));
 						sbReport.append("\n");
 					}
-				}
-				else
-				{
-					sbReport.append(RB.getString("DKeyStoreReport.report.trustcert"));
-					sbReport.append("\n");
 
-					Certificate cert = m_keystore.getCertificate(sAlias);
-					if (cert != null)
+					// Entry type
+					switch (entry.getType())
 					{
-						certChain = new Certificate[] { cert };
+						case KEY:
+							sbReport.append(RB.getString("DKeyStoreReport.report.key"));
+							break;
+						case KEY_PAIR:
+							sbReport.append(RB.getString("DKeyStoreReport.report.keypair"));
+							break;
+						default:
+							sbReport.append(RB.getString("DKeyStoreReport.report.trustcert"));
 					}
-				}
-
-				// Get information on each certificate in an entry
-				if (certChain == null || certChain.length == 0)
-				{
-					// Zero certificates
-					sbReport.append(MessageFormat.format(RB.getString("DKeyStoreReport.report.certs"), 0));
-					sbReport.append("\n\n");
-				}
-				else
-				{
-					X509Certificate[] x509CertChain = X509CertUtil.convertCertificates(certChain);
+					sbReport.append("\n");
 
-					// One or more certificates
-					int iChainLen = x509CertChain.length;
+					// Get information on each certificate in an entry
+					List<KeyStoreReportEntry.Cert> certs = entry.getCertificates();
+					int iChainLen = certs.size();
+					bSeparate = iChainLen != 0;
 					sbReport.append(MessageFormat.format(RB.getString("DKeyStoreReport.report.certs"), iChainLen));
 					sbReport.append("\n\n");
 
@@ -393,68 +411,63 @@ class DKeyStoreReport
 						    MessageFormat.format(RB.getString("DKeyStoreReport.report.cert"), iCnt + 1, iChainLen));
 						sbReport.append("\n");
 
-						X509Certificate x509Cert = x509CertChain[iCnt];
+						KeyStoreReportEntry.Cert cert = certs.get(iCnt);
 
 						// Version
-						sbReport.append(MessageFormat.format(RB.getString("DKeyStoreReport.report.version"),
-						    x509Cert.getVersion()));
+						sbReport.append(
+						    MessageFormat.format(RB.getString("DKeyStoreReport.report.version"), cert.getVersion()));
 						sbReport.append("\n");
 
 						// Subject
-						sbReport.append(MessageFormat.format(RB.getString("DKeyStoreReport.report.subject"),
-						    x509Cert.getSubjectDN()));
+						sbReport.append(
+						    MessageFormat.format(RB.getString("DKeyStoreReport.report.subject"), cert.getSubject()));
 						sbReport.append("\n");
 
 						// Issuer
-						sbReport.append(MessageFormat.format(RB.getString("DKeyStoreReport.report.issuer"),
-						    x509Cert.getIssuerDN()));
+						sbReport.append(
+						    MessageFormat.format(RB.getString("DKeyStoreReport.report.issuer"), cert.getIssuer()));
 						sbReport.append("\n");
 
 						// Serial Number
-						StringBuilder sSerialNumber = StringUtil.toHex(x509Cert.getSerialNumber(), 4, " ");
-						sbReport.append(
-						    MessageFormat.format(RB.getString("DKeyStoreReport.report.serial"), sSerialNumber));
+						sbReport.append(MessageFormat.format(RB.getString("DKeyStoreReport.report.serial"),
+						    cert.getSerialNumber()));
 						sbReport.append("\n");
 
 						// Valid From
-						Date dValidFrom = x509Cert.getNotBefore();
-						String sValidFrom =
-						    DateFormat.getDateTimeInstance(DateFormat.MEDIUM, DateFormat.MEDIUM).format(dValidFrom);
-						sbReport.append(
-						    MessageFormat.format(RB.getString("DKeyStoreReport.report.validfrom"), sValidFrom));
+						sbReport.append(MessageFormat.format(RB.getString("DKeyStoreReport.report.validfrom"),
+						    cert.getValidFrom()));
 						sbReport.append("\n");
 
 						// Valid Until
-						Date dValidTo = x509Cert.getNotAfter();
-						String sValidTo =
-						    DateFormat.getDateTimeInstance(DateFormat.MEDIUM, DateFormat.MEDIUM).format(dValidTo);
-						sbReport.append(
-						    MessageFormat.format(RB.getString("DKeyStoreReport.report.validuntil"), sValidTo));
+						sbReport.append(MessageFormat.format(RB.getString("DKeyStoreReport.report.validuntil"),
+						    cert.getValidUntil()));
 						sbReport.append("\n");
 
 						// Public Key (algorithm and key size)
-						int iKeySize = KeyPairUtil.getKeyLength(x509Cert.getPublicKey());
-						String sKeyAlg = x509Cert.getPublicKey().getAlgorithm();
+						int iKeySize = cert.getKeySize();
 						String fmtKey = (iKeySize == KeyPairUtil.UNKNOWN_KEY_SIZE)
 						    ? "DKeyStoreReport.report.pubkeynosize" : "DKeyStoreReport.report.pubkey";
-						sbReport.append(MessageFormat.format(RB.getString(fmtKey), sKeyAlg, iKeySize));
+						sbReport.append(MessageFormat.format(RB.getString(fmtKey), cert.getKeyAlgorithm(), iKeySize));
 						sbReport.append("\n");
 
 						// Signature Algorithm
 						sbReport.append(MessageFormat.format(RB.getString("DKeyStoreReport.report.sigalg"),
-						    x509Cert.getSigAlgName()));
+						    cert.getSignatureAlgorithm()));
 						sbReport.append("\n");
 
-						byte[] bCert = x509Cert.getEncoded();
+						// SHA-256 fingerprint
+						sbReport.append(MessageFormat.format(RB.getString("DKeyStoreReport.report.sha256"),
+						    cert.getSha256Fingerprint()));
+						sbReport.append("\n");
 
 						// SHA-1 fingerprint
 						sbReport.append(MessageFormat.format(RB.getString("DKeyStoreReport.report.sha1"),
-						    DigestUtil.getMessageDigest(bCert, DigestType.SHA1)));
+						    cert.getSha1Fingerprint()));
 						sbReport.append("\n");
 
 						// MD5 fingerprint
-						sbReport.append(MessageFormat.format(RB.getString("DKeyStoreReport.report.md5"),
-						    DigestUtil.getMessageDigest(bCert, DigestType.MD5)));
+						sbReport.append(
+						    MessageFormat.format(RB.getString("DKeyStoreReport.report.md5"), cert.getMd5Fingerprint()));
 						sbReport.append("\n");
 
 						if (iCnt + 1 < iChainLen)
@@ -462,336 +475,286 @@ class DKeyStoreReport
 							sbReport.append("\n");
 						}
 					}
-
-					if (aliases.hasMoreElements())
-					{
-						sbReport.append("\n");
-					}
 				}
 			}
 
 			// Return the report
 			return sbReport.toString();
 		}
-		catch (GeneralSecurityException ex)
+		catch (KeyStoreException ex)
 		{
 			throw new CryptoException(RB.getString("DKeyStoreReport.NoGenerateReport.exception.message"), ex);
 		}
 	}
 
 	/**
-	 * Generate the keystore report as an XML Document.
+	 * Create tree node with keystore report. Only the top node and entry nodes are created here; the rest are
+	 * populated lazily when expanded.
 	 *
-	 * @return The KeyStiore report as an XML Document
-	 * @throws CryptoException A crypto related problem was encountered generating the keystore report
-	 * @throws ParserConfigurationException There was a serious problem creating the XML report
+	 * @throws CryptoException A crypto related problem was encountered creating the tree node
+	 * @return The tree node
 	 */
-	private Document generateDocument()
-	    throws CryptoException, ParserConfigurationException
+	private DefaultMutableTreeNode createReportNodes()
+	    throws CryptoException
 	{
 		try
 		{
-			// Create a new document object
-			DocumentBuilderFactory docBuilderFactory = DocumentBuilderFactory.newInstance();
-			DocumentBuilder docBuilder = docBuilderFactory.newDocumentBuilder();
-			Document xmlDoc = docBuilder.newDocument();
-
-			// General keystore information
+			// Keystore type
 			KeyStoreType ksType = KeyStoreType.valueOfType(m_keystore.getType());
-			String sProvider = m_keystore.getProvider().getName();
 
-			Element keystoreElement = xmlDoc.createElement("keystore");
-			keystoreElement.setAttribute("type", ksType.getTypeName());
-			keystoreElement.setAttribute("provider", sProvider);
-			xmlDoc.appendChild(keystoreElement);
+			// Keystore provider
+			String sProvider = m_keystore.getProvider().getName();
 
-			Enumeration<String> aliases = m_keystore.aliases();
+			// Top node
+			DefaultMutableTreeNode topNode = new DefaultMutableTreeNode(
+			    MessageFormat.format(RB.getString("DKeyStoreReport.TopNodeName"), ksType.getTypeName(), sProvider));
 
-			// Get information on each keystore entry
-			while (aliases.hasMoreElements())
+			// One sub-node per entry
+			for (Enumeration<String> aliases = m_keystore.aliases(); aliases.hasMoreElements();)
 			{
 				String sAlias = aliases.nextElement();
-
-				String sCreation = null;
-				if (ksType.isEntryCreationDateUseful())
-				{
-					Date dCreation = m_keystore.getCreationDate(sAlias);
-					sCreation = DateFormat.getDateTimeInstance(DateFormat.MEDIUM, DateFormat.MEDIUM).format(dCreation);
-				}
-
-				String sEntryType;
-				Certificate[] certChain = null;
-
-				// Get entry type and certificates
-				if (m_keystore.isKeyEntry(sAlias))
-				{
-					certChain = m_keystore.getCertificateChain(sAlias);
-
-					if (certChain == null || certChain.length == 0)
-					{
-						sEntryType = "Key";
-					}
-					else
-					{
-						sEntryType = "KeyPair";
-					}
-				}
-				else
-				{
-					sEntryType = "TrustedCertificate";
-					Certificate cert = m_keystore.getCertificate(sAlias);
-					if (cert != null)
-					{
-						certChain = new Certificate[] { cert };
-					}
-				}
-
-				Element entryElement = xmlDoc.createElement("entry");
-				entryElement.setAttribute("alias", sAlias);
-
-				if (sCreation != null)
-				{
-					entryElement.setAttribute("creation_date", sCreation);
-				}
-
-				entryElement.setAttribute("type", sEntryType);
-				keystoreElement.appendChild(entryElement);
-
-				// Get information on each certificate in an entry
-				if (certChain != null)
-				{
-					X509Certificate[] x509CertChain = X509CertUtil.convertCertificates(certChain);
-
-					for (X509Certificate x509Cert : x509CertChain)
-					{
-						Element certificateElement = xmlDoc.createElement("certificate");
-						entryElement.appendChild(certificateElement);
-
-						// Get information on an individual certificate
-
-						// Version
-						Element versionNumberElement = xmlDoc.createElement("version");
-						certificateElement.appendChild(versionNumberElement);
-						versionNumberElement.appendChild(xmlDoc.createTextNode("" + x509Cert.getVersion()));
-
-						// Subject
-						Element subjectElement = xmlDoc.createElement("subject");
-						certificateElement.appendChild(subjectElement);
-						subjectElement.appendChild(xmlDoc.createTextNode(x509Cert.getSubjectDN().toString()));
-
-						// Issuer
-						Element issuerElement = xmlDoc.createElement("issuer");
-						certificateElement.appendChild(issuerElement);
-						issuerElement.appendChild(xmlDoc.createTextNode(x509Cert.getIssuerDN().toString()));
-
-						// Serial Number
-						Element serialNumberElement = xmlDoc.createElement("serial_number");
-						certificateElement.appendChild(serialNumberElement);
-						serialNumberElement.appendChild(
-						    xmlDoc.createTextNode(StringUtil.toHex(x509Cert.getSerialNumber(), 4, " ").toString()));
-
-						// Valid From
-						Date dValidFrom = x509Cert.getNotBefore();
-						String sValidFrom =
-						    DateFormat.getDateTimeInstance(DateFormat.MEDIUM, DateFormat.MEDIUM).format(dValidFrom);
-
-						Element validFromElement = xmlDoc.createElement("valid_from");
-						certificateElement.appendChild(validFromElement);
-						validFromElement.appendChild(xmlDoc.createTextNode(sValidFrom));
-
-						// Valid Until
-						Date dValidTo = x509Cert.getNotAfter();
-						String sValidTo =
-						    DateFormat.getDateTimeInstance(DateFormat.MEDIUM, DateFormat.MEDIUM).format(dValidTo);
-
-						Element validUntilElement = xmlDoc.createElement("valid_until");
-						certificateElement.appendChild(validUntilElement);
-						validUntilElement.appendChild(xmlDoc.createTextNode(sValidTo));
-
-						// Public Key (algorithm and key size)
-						int iKeySize = KeyPairUtil.getKeyLength(x509Cert.getPublicKey());
-						String sKeyAlg = x509Cert.getPublicKey().getAlgorithm();
-						if (iKeySize != KeyPairUtil.UNKNOWN_KEY_SIZE)
-						{
-							sKeyAlg = MessageFormat.format(RB.getString("DKeyStoreReport.KeyAlg"), sKeyAlg, iKeySize);
-						}
-
-						Element publicKeyAlgElement = xmlDoc.createElement("public_key_algorithm");
-						certificateElement.appendChild(publicKeyAlgElement);
-						publicKeyAlgElement.appendChild(xmlDoc.createTextNode(sKeyAlg));
-
-						// Signature Algorithm
-						Element signatureAlgElement = xmlDoc.createElement("signature_algorithm");
-						certificateElement.appendChild(signatureAlgElement);
-						signatureAlgElement.appendChild(xmlDoc.createTextNode(x509Cert.getSigAlgName()));
-
-						// Fingerprints
-						byte[] bCert = x509Cert.getEncoded();
-
-						Element sha1FingerprintElement = xmlDoc.createElement("sha1_fingerprint");
-						certificateElement.appendChild(sha1FingerprintElement);
-						sha1FingerprintElement.appendChild(
-						    xmlDoc.createTextNode(DigestUtil.getMessageDigest(bCert, DigestType.SHA1)));
-
-						Element md5FingerprintElement = xmlDoc.createElement("md5_fingerprint");
-						certificateElement.appendChild(md5FingerprintElement);
-						md5FingerprintElement.appendChild(
-						    xmlDoc.createTextNode(DigestUtil.getMessageDigest(bCert, DigestType.MD5)));
-					}
-				}
+				topNode.add(new EntryNode(m_keystore, sAlias, ksType.isEntryCreationDateUseful()));
 			}
 
-			return xmlDoc;
+			return topNode;
 		}
-		catch (GeneralSecurityException ex)
+		catch (KeyStoreException ex)
 		{
 			throw new CryptoException(RB.getString("DKeyStoreReport.NoGenerateReport.exception.message"), ex);
 		}
 	}
 
 	/**
-	 * Create tree node with keystore report.
-	 *
-	 * @throws CryptoException A crypto related problem was encountered creating the tree node
-	 * @return The tree node
+	 * Report tree node whose children are created when it is first expanded.
 	 */
-	private DefaultMutableTreeNode createReportNodes()
-	    throws CryptoException
+	private abstract static class LazyNode
+	    extends DefaultMutableTreeNode
 	{
-		try
+		/** Whether the children have been created */
+		private boolean m_bLoaded;
+
+		/**
+		 * Construct a LazyNode.
+		 *
+		 * @param userObject The node's user object
+		 */
+		protected LazyNode(Object userObject)
 		{
-			// Keystore type
-			KeyStoreType ksType = KeyStoreType.valueOfType(m_keystore.getType());
+			super(userObject, true);
+		}
 
-			// Keystore provider
-			String sProvider = m_keystore.getProvider().getName();
+		/**
+		 * Create the node's children if they have not been created yet.
+		 *
+		 * @return True if the children were created by this call, false if they already existed
+		 * @throws CryptoException A crypto related problem was encountered creating the children
+		 */
+		public boolean load()
+		    throws CryptoException
+		{
+			if (m_bLoaded)
+			{
+				return false;
+			}
+			try
+			{
+				loadChildren();
+			}
+			catch (CryptoException ex)
+			{
+				removeAllChildren();
+				throw ex;
+			}
+			m_bLoaded = true;
+			return true;
+		}
 
-			// Top node
-			DefaultMutableTreeNode topNode = new DefaultMutableTreeNode(
-			    MessageFormat.format(RB.getString("DKeyStoreReport.TopNodeName"), ksType.getTypeName(), sProvider));
+		/**
+		 * Create and add the node's children.
+		 *
+		 * @throws CryptoException A crypto related problem was encountered creating the children
+		 */
+		protected abstract void loadChildren()
+		    throws CryptoException;
+	}
 
-			// One sub-node per entry
-			Enumeration<String> aliases = m_keystore.aliases();
+	/**
+	 * Report tree node for a keystore entry.
+	 */
+	private static final class EntryNode
+	    extends LazyNode
+	{
+		/** The keystore */
+		private final KeyStore m_keystore;
+
+		/** Entry alias */
+		private final String m_sAlias;
+
+		/** Entry certificate chain, null if none */
+		private final Certificate[] m_certChain;
+
+		/** Whether to show the entry creation date */
+		private final boolean m_bCreation;
+
+		/**
+		 * Construct an EntryNode. Reads the entry's certificate chain to determine the entry type.
+		 *
+		 * @param keystore The keystore
+		 * @param sAlias Entry alias
+		 * @param bCreation Whether to show the entry creation date
+		 * @throws KeyStoreException If the entry could not be read
+		 */
+		private EntryNode(KeyStore keystore, String sAlias, boolean bCreation)
+		    throws KeyStoreException
+		{
+			super(null);
+			m_keystore = keystore;
+			m_sAlias = sAlias;
+			m_bCreation = bCreation;
 
-			// Get information on each keystore entry
-			while (aliases.hasMoreElements())
+			Certificate[] certChain = null;
+			if (keystore.isKeyEntry(sAlias))
 			{
-				// Entry alias
-				String sAlias = aliases.nextElement();
-
-				Certificate[] certChain = null;
-				DefaultMutableTreeNode entryNode;
-
-				// Entry type
-				if (m_keystore.isKeyEntry(sAlias))
+				certChain = keystore.getCertificateChain(sAlias);
+				if (certChain == null || certChain.length == 0)
 				{
-					certChain = m_keystore.getCertificateChain(sAlias);
-
-					if (certChain == null || certChain.length == 0)
-					{
-						entryNode = new DefaultMutableTreeNode(ReportTreeCellRend.Entry.getKeyInstance(sAlias));
-					}
-					else
-					{
-						entryNode = new DefaultMutableTreeNode(ReportTreeCellRend.Entry.getKeyPairInstance(sAlias));
-					}
+					setUserObject(ReportTreeCellRend.Entry.getKeyInstance(sAlias));
 				}
 				else
 				{
-					entryNode =
-					    new DefaultMutableTreeNode(ReportTreeCellRend.Entry.getTrustedCertificateInstance(sAlias));
-
-					Certificate cert = m_keystore.getCertificate(sAlias);
-					if (cert != null)
-					{
-						certChain = new Certificate[] { cert };
-					}
+					setUserObject(ReportTreeCellRend.Entry.getKeyPairInstance(sAlias));
 				}
-
-				topNode.add(entryNode);
-
-				// Creation date, if applicable
-				if (ksType.isEntryCreationDateUseful())
+			}
+			else
+			{
+				setUserObject(ReportTreeCellRend.Entry.getTrustedCertificateInstance(sAlias));
+				Certificate cert = keystore.getCertificate(sAlias);
+				if (cert != null)
 				{
-					Date dCreation = m_keystore.getCreationDate(sAlias);
-					String sCreation =
-					    DateFormat.getDateTimeInstance(DateFormat.MEDIUM, DateFormat.MEDIUM).format(dCreation);
-					entryNode.add(new DefaultMutableTreeNode(sCreation));
+					certChain = new Certificate[] { cert };
 				}
+			}
+			m_certChain = certChain;
+		}
 
-				// One or more certificates?
-				if (certChain != null && certChain.length != 0)
+		@Override
+		protected void loadChildren()
+		    throws CryptoException
+		{
+			// Creation date, if applicable
+			if (m_bCreation)
+			{
+				try
 				{
-					DefaultMutableTreeNode certsNode =
-					    new DefaultMutableTreeNode(RB.getString("DKeyStoreReport.Certificates"));
-					entryNode.add(certsNode);
-
-					// Get information on each certificate in entry
-					X509Certificate[] x509CertChain = X509CertUtil.convertCertificates(certChain);
+					Date dCreation = m_keystore.getCreationDate(m_sAlias);
+					String sCreation = DateUtil.format(dCreation, DateFormat.MEDIUM, DateFormat.MEDIUM);
+					add(new DefaultMutableTreeNode(sCreation, false));
+				}
+				catch (KeyStoreException ex)
+				{
+					throw new CryptoException(RB.getString("DKeyStoreReport.NoGenerateReport.exception.message"),
+					    ex);
+				}
+			}
 
-					int iChainLen = x509CertChain.length;
+			// One or more certificates?
+			if (m_certChain != null && m_certChain.length != 0)
+			{
+				add(new CertificatesNode(m_certChain));
+			}
+		}
+	}
 
-					for (int iCnt = 0; iCnt < iChainLen; iCnt++)
-					{
-						DefaultMutableTreeNode certNode = new DefaultMutableTreeNode(
-						    MessageFormat.format(RB.getString("DKeyStoreReport.Certificate"), iCnt + 1, iChainLen));
-						certsNode.add(certNode);
+	/**
+	 * Report tree node for the certificates of a keystore entry.
+	 */
+	private static final class CertificatesNode
+	    extends LazyNode
+	{
+		/** The certificates */
+		private final Certificate[] m_certChain;
+
+		/**
+		 * Construct a CertificatesNode.
+		 *
+		 * @param certChain The certificates
+		 */
+		private CertificatesNode(Certificate[] certChain)
+		{
+			super(RB.getString("DKeyStoreReport.Certificates"));
+			m_certChain = certChain;
+		}
 
-						X509Certificate x509Cert = x509CertChain[iCnt];
+		@Override
+		protected void loadChildren()
+		    throws CryptoException
+		{
+			X509Certificate[] x509CertChain = X509CertUtil.convertCertificates(m_certChain);
+			int iChainLen = x509CertChain.length;
+			for (int iCnt = 0; iCnt < iChainLen; iCnt++)
+			{
+				add(new CertificateNode(x509CertChain[iCnt],
+				    MessageFormat.format(RB.getString("DKeyStoreReport.Certificate"), iCnt + 1, iChainLen)));
+			}
+		}
+	}
 
-						// Version
-						certNode.add(new DefaultMutableTreeNode("" + x509Cert.getVersion()));
+	/**
+	 * Report tree node for a certificate. The certificate's fields are computed when the node is first expanded.
+	 */
+	private static final class CertificateNode
+	    extends LazyNode
+	{
+		/** The certificate */
+		private final X509Certificate m_cert;
+
+		/**
+		 * Construct a CertificateNode.
+		 *
+		 * @param cert The certificate
+		 * @param sName Node name
+		 */
+		private CertificateNode(X509Certificate cert, String sName)
+		{
+			super(sName);
+			m_cert = cert;
+		}
 
-						// Subject
-						certNode.add(new DefaultMutableTreeNode(x509Cert.getSubjectDN()));
+		@Override
+		protected void loadChildren()
+		    throws CryptoException
+		{
+			KeyStoreReportEntry.Cert cert = KeyStoreReportEntry.Cert.getInstance(m_cert);
 
-						// Issuer
-						certNode.add(new DefaultMutableTreeNode(x509Cert.getIssuerDN()));
+			// Version
+			add(new DefaultMutableTreeNode(String.valueOf(cert.getVersion()), false));
 
-						// Serial Number
-						StringBuilder sSerialNumber = StringUtil.toHex(x509Cert.getSerialNumber(), 4, " ");
-						certNode.add(new DefaultMutableTreeNode(sSerialNumber));
+			// Subject
+			add(new DefaultMutableTreeNode(cert.getSubject(), false));
 
-						// Valid From
-						Date dValidFrom = x509Cert.getNotBefore();
-						String sValidFrom =
-						    DateFormat.getDateTimeInstance(DateFormat.MEDIUM, DateFormat.MEDIUM).format(dValidFrom);
-						certNode.add(new DefaultMutableTreeNode(sValidFrom));
+			// Issuer
+			add(new DefaultMutableTreeNode(cert.getIssuer(), false));
 
-						// Valid Until
-						Date dValidTo = x509Cert.getNotAfter();
-						String sValidTo =
-						    DateFormat.getDateTimeInstance(DateFormat.MEDIUM, DateFormat.MEDIUM).format(dValidTo);
-						certNode.add(new DefaultMutableTreeNode(sValidTo));
+			// Serial Number
+			add(new DefaultMutableTreeNode(cert.getSerialNumber(), false));
 
-						// Public Key (algorithm and key size)
-						int iKeySize = KeyPairUtil.getKeyLength(x509Cert.getPublicKey());
-						String sKeyAlg = x509Cert.getPublicKey().getAlgorithm();
-						if (iKeySize != KeyPairUtil.UNKNOWN_KEY_SIZE)
-						{
-							sKeyAlg = MessageFormat.format(RB.getString("DKeyStoreReport.KeyAlg"), sKeyAlg, iKeySize);
-						}
-						certNode.add(new DefaultMutableTreeNode(sKeyAlg));
+			// Valid From
+			add(new DefaultMutableTreeNode(cert.getValidFrom(), false));
 
-						// Signature Algorithm
-						certNode.add(new DefaultMutableTreeNode(x509Cert.getSigAlgName()));
+			// Valid Until
+			add(new DefaultMutableTreeNode(cert.getValidUntil(), false));
 
-						byte[] bCert = x509Cert.getEncoded();
+			// Public Key (algorithm and key size)
+			add(new DefaultMutableTreeNode(cert.getKeyDescription(), false));
 
-						// SHA-1 fingerprint
-						certNode.add(new DefaultMutableTreeNode(DigestUtil.getMessageDigest(bCert, DigestType.SHA1)));
+			// Signature Algorithm
+			add(new DefaultMutableTreeNode(cert.getSignatureAlgorithm(), false));
 
-						// MD5 fingerprint
-						certNode.add(new DefaultMutableTreeNode(DigestUtil.getMessageDigest(bCert, DigestType.MD5)));
-					}
-				}
-			}
+			// SHA-1 fingerprint
+			add(new DefaultMutableTreeNode(cert.getSha1Fingerprint(), false));
 
-			return topNode;
-		}
-		catch (GeneralSecurityException ex)
-		{
-			throw new CryptoException(RB.getString("DKeyStoreReport.NoGenerateReport.exception.message"), ex);
+			// MD5 fingerprint
+			add(new DefaultMutableTreeNode(cert.getMd5Fingerprint(), false));
 		}
 	}
 }
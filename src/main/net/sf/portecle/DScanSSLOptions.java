@@ -0,0 +1,299 @@
+/*
+ * DScanSSLOptions.java
+ * This file is part of Portecle, a multipurpose keystore and certificate tool.
+ *
+ * Copyright © 2026 The Portecle Project
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.sf.portecle;
+
+import static net.sf.portecle.FPortecle.RB;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.GridBagConstraints;
+import java.awt.GridBagLayout;
+import java.awt.Insets;
+import java.awt.Window;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+import javax.swing.border.CompoundBorder;
+import javax.swing.border.EmptyBorder;
+import javax.swing.border.EtchedBorder;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.Document;
+
+import net.sf.portecle.gui.IntegerDocumentFilter;
+import net.sf.portecle.gui.SwingHelper;
+
+/**
+ * Modal dialog used to choose the options of an SSL/TLS capability scan: the server names to get certificates for,
+ * the maximum number of handshakes in progress at the same time, and the time limit per handshake.
+ */
+class DScanSSLOptions
+    extends PortecleJDialog
+{
+	/** Default maximum number of concurrent handshakes */
+	private static final int DEFAULT_MAX_CONCURRENT = 32;
+
+	/** Default time limit per handshake in seconds */
+	private static final int DEFAULT_TIMEOUT = 10;
+
+	/** Server names text field */
+	private JTextField m_jtfServerNames;
+
+	/** Maximum concurrent handshakes text field */
+	private JTextField m_jtfMaxConcurrent;
+
+	/** Time limit text field */
+	private JTextField m_jtfTimeout;
+
+	/** Server names chosen */
+	private List<String> m_serverNames;
+
+	/** Maximum number of concurrent handshakes chosen */
+	private int m_iMaxConcurrent;
+
+	/** Time limit per handshake in milliseconds chosen */
+	private int m_iTimeout;
+
+	/** Records whether or not correct options are entered */
+	private boolean m_bSuccess;
+
+	/**
+	 * Creates new DScanSSLOptions dialog.
+	 *
+	 * @param parent The parent window
+	 * @param sTitle The dialog's title
+	 */
+	public DScanSSLOptions(Window parent, String sTitle)
+	{
+		super(parent, sTitle, true);
+		initComponents();
+	}
+
+	/**
+	 * Initialize the dialog's GUI components.
+	 */
+	private void initComponents()
+	{
+		JLabel jlServerNames = new JLabel(RB.getString("DScanSSLOptions.jlServerNames.text"));
+		m_jtfServerNames = new JTextField(25);
+		m_jtfServerNames.setToolTipText(RB.getString("DScanSSLOptions.m_jtfServerNames.tooltip"));
+		jlServerNames.setLabelFor(m_jtfServerNames);
+
+		JLabel jlMaxConcurrent = new JLabel(RB.getString("DScanSSLOptions.jlMaxConcurrent.text"));
+		m_jtfMaxConcurrent = createIntegerField(DEFAULT_MAX_CONCURRENT, 4);
+		m_jtfMaxConcurrent.setToolTipText(RB.getString("DScanSSLOptions.m_jtfMaxConcurrent.tooltip"));
+		jlMaxConcurrent.setLabelFor(m_jtfMaxConcurrent);
+
+		JLabel jlTimeout = new JLabel(RB.getString("DScanSSLOptions.jlTimeout.text"));
+		m_jtfTimeout = createIntegerField(DEFAULT_TIMEOUT, 4);
+		m_jtfTimeout.setToolTipText(RB.getString("DScanSSLOptions.m_jtfTimeout.tooltip"));
+		jlTimeout.setLabelFor(m_jtfTimeout);
+
+		JPanel jpOptions = new JPanel(new GridBagLayout());
+		jpOptions.setBorder(new CompoundBorder(new EmptyBorder(5, 5, 5, 5), new EtchedBorder()));
+		int gridy = 0;
+
+		GridBagConstraints gbcLabel = new GridBagConstraints();
+		gbcLabel.gridx = 0;
+		gbcLabel.gridwidth = 1;
+		gbcLabel.gridheight = 1;
+		gbcLabel.insets = new Insets(5, 5, 5, 5);
+		gbcLabel.anchor = GridBagConstraints.EAST;
+
+		GridBagConstraints gbcField = new GridBagConstraints();
+		gbcField.gridx = 1;
+		gbcField.gridwidth = 1;
+		gbcField.gridheight = 1;
+		gbcField.insets = new Insets(5, 5, 5, 5);
+		gbcField.anchor = GridBagConstraints.WEST;
+
+		GridBagConstraints gbc = (GridBagConstraints) gbcLabel.clone();
+		gbc.gridy = gridy;
+		jpOptions.add(jlServerNames, gbc);
+
+		gbc = (GridBagConstraints) gbcField.clone();
+		gbc.gridy = gridy++;
+		jpOptions.add(m_jtfServerNames, gbc);
+
+		gbc = (GridBagConstraints) gbcLabel.clone();
+		gbc.gridy = gridy;
+		jpOptions.add(jlMaxConcurrent, gbc);
+
+		gbc = (GridBagConstraints) gbcField.clone();
+		gbc.gridy = gridy++;
+		jpOptions.add(m_jtfMaxConcurrent, gbc);
+
+		gbc = (GridBagConstraints) gbcLabel.clone();
+		gbc.gridy = gridy;
+		jpOptions.add(jlTimeout, gbc);
+
+		gbc = (GridBagConstraints) gbcField.clone();
+		gbc.gridy = gridy++;
+		jpOptions.add(m_jtfTimeout, gbc);
+
+		JButton jbOK = getOkButton(false);
+		JButton jbCancel = getCancelButton();
+
+		JPanel jpButtons = new JPanel(new FlowLayout(FlowLayout.CENTER));
+		jpButtons.add(jbOK);
+		jpButtons.add(jbCancel);
+
+		getContentPane().add(jpOptions, BorderLayout.CENTER);
+		getContentPane().add(jpButtons, BorderLayout.SOUTH);
+
+		getRootPane().setDefaultButton(jbOK);
+
+		initDialog();
+
+		SwingHelper.selectAndFocus(m_jtfServerNames);
+	}
+
+	/**
+	 * Create a text field accepting non-negative integers only.
+	 *
+	 * @param iValue The initial value
+	 * @param iColumns The number of columns, also the maximum length
+	 * @return The text field
+	 */
+	private static JTextField createIntegerField(int iValue, int iColumns)
+	{
+		JTextField jtf = new JTextField(String.valueOf(iValue), iColumns);
+		Document doc = jtf.getDocument();
+		if (doc instanceof AbstractDocument)
+		{
+			((AbstractDocument) doc).setDocumentFilter(new IntegerDocumentFilter(iColumns));
+		}
+		return jtf;
+	}
+
+	/**
+	 * Validate the chosen options.
+	 *
+	 * @return True if the options are valid, false otherwise
+	 */
+	private boolean validateOptions()
+	{
+		int iMaxConcurrent = validatePositive(m_jtfMaxConcurrent, "DScanSSLOptions.MaxConcurrentReq.message");
+		if (iMaxConcurrent < 1)
+		{
+			return false;
+		}
+		int iTimeout = validatePositive(m_jtfTimeout, "DScanSSLOptions.TimeoutReq.message");
+		if (iTimeout < 1)
+		{
+			return false;
+		}
+
+		List<String> serverNames = new ArrayList<>();
+		for (String sName : m_jtfServerNames.getText().trim().split("[\\s,]+"))
+		{
+			if (!sName.isEmpty())
+			{
+				serverNames.add(sName);
+			}
+		}
+
+		m_serverNames = serverNames;
+		m_iMaxConcurrent = iMaxConcurrent;
+		m_iTimeout = (int) TimeUnit.SECONDS.toMillis(iTimeout);
+		m_bSuccess = true;
+		return true;
+	}
+
+	/**
+	 * Validate that a text field contains a positive integer, telling the user if not.
+	 *
+	 * @param jtf The text field
+	 * @param sMessageKey Resource key of the message to show if the value is not valid
+	 * @return The value, or 0 if it is not valid
+	 */
+	private int validatePositive(JTextField jtf, String sMessageKey)
+	{
+		String sValue = jtf.getText().trim();
+		int iValue = 0;
+		if (!sValue.isEmpty())
+		{
+			// Non-negative and limited in length by the document filter
+			iValue = Integer.parseInt(sValue);
+		}
+		if (iValue < 1)
+		{
+			JOptionPane.showMessageDialog(this, RB.getString(sMessageKey), getTitle(), JOptionPane.WARNING_MESSAGE);
+			SwingHelper.selectAndFocus(jtf);
+		}
+		return iValue;
+	}
+
+	/**
+	 * Get the server names chosen.
+	 *
+	 * @return The server names; empty if the target's host name is to be used
+	 */
+	public List<String> getServerNames()
+	{
+		return m_serverNames;
+	}
+
+	/**
+	 * Get the maximum number of concurrent handshakes chosen.
+	 *
+	 * @return The maximum number of concurrent handshakes
+	 */
+	public int getMaxConcurrent()
+	{
+		return m_iMaxConcurrent;
+	}
+
+	/**
+	 * Get the time limit per handshake chosen.
+	 *
+	 * @return The time limit in milliseconds
+	 */
+	public int getTimeout()
+	{
+		return m_iTimeout;
+	}
+
+	/**
+	 * Have the options been entered correctly?
+	 *
+	 * @return True if they have, false otherwise
+	 */
+	public boolean isSuccessful()
+	{
+		return m_bSuccess;
+	}
+
+	@Override
+	protected void okPressed()
+	{
+		if (validateOptions())
+		{
+			super.okPressed();
+		}
+	}
+}
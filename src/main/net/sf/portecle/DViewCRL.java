@@ -38,7 +38,6 @@ import java.io.FileNotFoundException;
 import java.math.BigInteger;
 import java.security.cert.X509CRL;
 import java.security.cert.X509CRLEntry;
-import java.text.DateFormat;
 import java.text.MessageFormat;
 import java.util.Collections;
 import java.util.Date;
@@ -404,7 +403,7 @@ final class DViewCRL
 
 		// Effective Date (include time zone)
 		m_jtfEffectiveDate.setText(
-		    DateFormat.getDateTimeInstance(DateFormat.MEDIUM, DateFormat.LONG).format(effectiveDate));
+		    DateUtil.formatDateTime(effectiveDate));
 
 		if (bEffective)
 		{
@@ -423,7 +422,7 @@ final class DViewCRL
 		if (updateDate != null)
 		{
 			m_jtfNextUpdate.setText(
-			    DateFormat.getDateTimeInstance(DateFormat.MEDIUM, DateFormat.LONG).format(updateDate));
+			    DateUtil.formatDateTime(updateDate));
 
 			if (currentDate.after(updateDate))
 			{
@@ -35,12 +35,11 @@ import java.awt.Window;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
-import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
-import java.text.DateFormat;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.Map;
 import java.util.Set;
 
 import javax.swing.ImageIcon;
@@ -54,9 +53,9 @@ import javax.swing.border.CompoundBorder;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.EtchedBorder;
 
+import net.sf.portecle.crypto.CertificateInfo;
 import net.sf.portecle.crypto.CryptoException;
 import net.sf.portecle.crypto.DigestType;
-import net.sf.portecle.crypto.DigestUtil;
 import net.sf.portecle.crypto.KeyPairUtil;
 import net.sf.portecle.crypto.SignatureType;
 import net.sf.portecle.crypto.X509CertUtil;
@@ -110,6 +109,9 @@ class DViewCertificate
 	/** Certificate SHA-1 Fingerprint text field */
 	private JTextField m_jtfSHA1Fingerprint;
 
+	/** Certificate SHA-256 Fingerprint text field */
+	private JTextField m_jtfSHA256Fingerprint;
+
 	/** SSL/TLS connection protocol text field */
 	private JTextField m_jtfProtocol;
 
@@ -388,6 +390,18 @@ class DViewCertificate
 		GridBagConstraints gbc_jtfSignatureAlgorithm = (GridBagConstraints) gbcTf.clone();
 		gbc_jtfSignatureAlgorithm.gridy = gridy++;
 
+		// SHA-256 Fingerprint
+		JLabel jlSHA256Fingerprint = new JLabel(RB.getString("DViewCertificate.jlSHA256Fingerprint.text"));
+		GridBagConstraints gbc_jlSHA256Fingerprint = (GridBagConstraints) gbcLbl.clone();
+		gbc_jlSHA256Fingerprint.gridy = gridy;
+
+		m_jtfSHA256Fingerprint = new JTextField(36);
+		m_jtfSHA256Fingerprint.setEditable(false);
+		m_jtfSHA256Fingerprint.setToolTipText(RB.getString("DViewCertificate.m_jtfSHA256Fingerprint.tooltip"));
+		jlSHA256Fingerprint.setLabelFor(m_jtfSHA256Fingerprint);
+		GridBagConstraints gbc_jtfSHA256Fingerprint = (GridBagConstraints) gbcTf.clone();
+		gbc_jtfSHA256Fingerprint.gridy = gridy++;
+
 		// SHA-1 Fingerprint
 		JLabel jlSHA1Fingerprint = new JLabel(RB.getString("DViewCertificate.jlSHA1Fingerprint.text"));
 		GridBagConstraints gbc_jlSHA1Fingerprint = (GridBagConstraints) gbcLbl.clone();
@@ -504,6 +518,8 @@ class DViewCertificate
 		jpCertificate.add(m_jtfMD5Fingerprint, gbc_jtfMD5Fingerprint);
 		jpCertificate.add(jlSHA1Fingerprint, gbc_jlSHA1Fingerprint);
 		jpCertificate.add(m_jtfSHA1Fingerprint, gbc_jtfSHA1Fingerprint);
+		jpCertificate.add(jlSHA256Fingerprint, gbc_jlSHA256Fingerprint);
+		jpCertificate.add(m_jtfSHA256Fingerprint, gbc_jtfSHA256Fingerprint);
 		jpCertificate.add(jpButtons, gbc_jpButtons);
 		if (m_connectionProtocol != null)
 		{
@@ -587,6 +603,8 @@ class DViewCertificate
 		boolean bNotYetValid = currentDate.before(startDate);
 		boolean bNoLongerValid = currentDate.after(endDate);
 
+		CertificateInfo info = CertificateInfo.getInstance(cert);
+
 		// Populate the fields:
 
 		// Version
@@ -594,19 +612,19 @@ class DViewCertificate
 		m_jtfVersion.setCaretPosition(0);
 
 		// Subject
-		m_jtfSubject.setText(cert.getSubjectDN().toString());
+		m_jtfSubject.setText(info.getSubject());
 		m_jtfSubject.setCaretPosition(0);
 
 		// Issuer
-		m_jtfIssuer.setText(cert.getIssuerDN().toString());
+		m_jtfIssuer.setText(info.getIssuer());
 		m_jtfIssuer.setCaretPosition(0);
 
 		// Serial Number
-		m_jtfSerialNumber.setText(StringUtil.toHex(cert.getSerialNumber(), 4, " ").toString());
+		m_jtfSerialNumber.setText(info.getSerialNumber());
 		m_jtfSerialNumber.setCaretPosition(0);
 
 		// Valid From (include timezone)
-		m_jtfValidFrom.setText(DateFormat.getDateTimeInstance(DateFormat.MEDIUM, DateFormat.LONG).format(startDate));
+		m_jtfValidFrom.setText(DateUtil.formatDateTime(startDate));
 
 		if (bNotYetValid)
 		{
@@ -621,7 +639,7 @@ class DViewCertificate
 		m_jtfValidFrom.setCaretPosition(0);
 
 		// Valid Until (include time zone)
-		m_jtfValidUntil.setText(DateFormat.getDateTimeInstance(DateFormat.MEDIUM, DateFormat.LONG).format(endDate));
+		m_jtfValidUntil.setText(DateUtil.formatDateTime(endDate));
 
 		if (bNoLongerValid)
 		{
@@ -636,8 +654,8 @@ class DViewCertificate
 		m_jtfValidUntil.setCaretPosition(0);
 
 		// Public Key (algorithm and key size)
-		int iKeySize = KeyPairUtil.getKeyLength(cert.getPublicKey());
-		m_jtfPublicKey.setText(cert.getPublicKey().getAlgorithm());
+		int iKeySize = info.getKeySize();
+		m_jtfPublicKey.setText(info.getKeyAlgorithm());
 
 		if (iKeySize != KeyPairUtil.UNKNOWN_KEY_SIZE)
 		{
@@ -652,20 +670,14 @@ class DViewCertificate
 		m_jtfSignatureAlgorithm.setCaretPosition(0);
 
 		// Fingerprints
-		byte[] bCert;
-		try
-		{
-			bCert = cert.getEncoded();
-		}
-		catch (CertificateEncodingException ex)
-		{
-			throw new CryptoException(RB.getString("DViewCertificate.NoGetEncodedCert.exception.message"), ex);
-		}
-
-		m_jtfMD5Fingerprint.setText(DigestUtil.getMessageDigest(bCert, DigestType.MD5));
+		Map<DigestType, String> fingerprints =
+		    info.getFingerprints(DigestType.MD5, DigestType.SHA1, DigestType.SHA256);
+		m_jtfMD5Fingerprint.setText(fingerprints.get(DigestType.MD5));
 		m_jtfMD5Fingerprint.setCaretPosition(0);
-		m_jtfSHA1Fingerprint.setText(DigestUtil.getMessageDigest(bCert, DigestType.SHA1));
+		m_jtfSHA1Fingerprint.setText(fingerprints.get(DigestType.SHA1));
 		m_jtfSHA1Fingerprint.setCaretPosition(0);
+		m_jtfSHA256Fingerprint.setText(fingerprints.get(DigestType.SHA256));
+		m_jtfSHA256Fingerprint.setCaretPosition(0);
 
 		// Enable/disable extensions button
 		Set<String> critExts = cert.getCriticalExtensionOIDs();
@@ -0,0 +1,158 @@
+/*
+ * DateUtil.java
+ * This file is part of Portecle, a multipurpose keystore and certificate tool.
+ *
+ * Copyright © 2026 The Portecle Project
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.sf.portecle;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Date formatting utilities. DateFormat instances are expensive to create and not thread safe, so they are cached per
+ * thread, style or pattern, locale, and time zone.
+ */
+public final class DateUtil
+{
+	/** Per thread formatters by style or pattern, locale, and time zone */
+	private static final ThreadLocal<Map<String, DateFormat>> FORMATS = new ThreadLocal<Map<String, DateFormat>>()
+	{
+		@Override
+		protected Map<String, DateFormat> initialValue()
+		{
+			return new HashMap<>();
+		}
+	};
+
+	/**
+	 * Private to prevent construction.
+	 */
+	private DateUtil()
+	{
+		// Nothing to do
+	}
+
+	/**
+	 * Format a date and time with medium length date and long time, i.e. including time zone.
+	 *
+	 * @param date The date
+	 * @return Formatted date and time
+	 */
+	public static String formatDateTime(Date date)
+	{
+		return format(date, DateFormat.MEDIUM, DateFormat.LONG);
+	}
+
+	/**
+	 * Format a date and time with the given styles in the default locale.
+	 *
+	 * @param date The date
+	 * @param iDateStyle Date style, one of the DateFormat style constants
+	 * @param iTimeStyle Time style, one of the DateFormat style constants
+	 * @return Formatted date and time
+	 */
+	public static String format(Date date, int iDateStyle, int iTimeStyle)
+	{
+		return getDateTimeFormat(iDateStyle, iTimeStyle).format(date);
+	}
+
+	/**
+	 * Parse a date with the given SimpleDateFormat pattern in the default locale.
+	 *
+	 * @param sPattern The pattern
+	 * @param sDate The date string
+	 * @return The parsed date
+	 * @throws ParseException If the date string could not be parsed
+	 */
+	public static Date parse(String sPattern, String sDate)
+	    throws ParseException
+	{
+		DateFormat dateFormat = getPatternFormat(sPattern);
+		// Parsing a time zone changes the formatter's one, reset it for the next use
+		TimeZone timeZone = dateFormat.getTimeZone();
+		try
+		{
+			return dateFormat.parse(sDate);
+		}
+		finally
+		{
+			dateFormat.setTimeZone(timeZone);
+		}
+	}
+
+	/**
+	 * Get a cached date and time formatter for the current thread.
+	 *
+	 * @param iDateStyle Date style
+	 * @param iTimeStyle Time style
+	 * @return The formatter
+	 */
+	private static DateFormat getDateTimeFormat(int iDateStyle, int iTimeStyle)
+	{
+		Locale locale = Locale.getDefault();
+		Map<String, DateFormat> formats = FORMATS.get();
+		String sKey = getKey(iDateStyle + "/" + iTimeStyle, locale);
+		DateFormat dateFormat = formats.get(sKey);
+		if (dateFormat == null)
+		{
+			dateFormat = DateFormat.getDateTimeInstance(iDateStyle, iTimeStyle, locale);
+			formats.put(sKey, dateFormat);
+		}
+		return dateFormat;
+	}
+
+	/**
+	 * Get a cached pattern formatter for the current thread.
+	 *
+	 * @param sPattern The pattern
+	 * @return The formatter
+	 */
+	private static DateFormat getPatternFormat(String sPattern)
+	{
+		Locale locale = Locale.getDefault();
+		Map<String, DateFormat> formats = FORMATS.get();
+		String sKey = getKey("'" + sPattern, locale);
+		DateFormat dateFormat = formats.get(sKey);
+		if (dateFormat == null)
+		{
+			dateFormat = new SimpleDateFormat(sPattern, locale);
+			formats.put(sKey, dateFormat);
+		}
+		return dateFormat;
+	}
+
+	/**
+	 * Get the cache key of a formatter. The default time zone is part of the key, as formatters use the one that was
+	 * the default when they were created.
+	 *
+	 * @param sFormat Style or pattern identifier
+	 * @param locale The locale
+	 * @return Cache key
+	 */
+	private static String getKey(String sFormat, Locale locale)
+	{
+		return sFormat + "/" + locale + "/" + TimeZone.getDefault().getID();
+	}
+}
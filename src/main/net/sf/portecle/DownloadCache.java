@@ -0,0 +1,588 @@
+/*
+ * DownloadCache.java
+ * This file is part of Portecle, a multipurpose keystore and certificate tool.
+ *
+ * Copyright © 2026 The Portecle Project
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.sf.portecle;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persistent, size bounded cache of downloaded resources such as certificates and CRLs, keyed by URL. Entries are
+ * fresh until the expiration time given by the server or, for CRLs, their next update; stale entries are revalidated
+ * with a conditional GET. The least recently used entries are evicted when the cache grows too large.
+ * <p>
+ * Each entry is stored as a data file and a properties file of its validators, named after a digest of its URL.
+ * Resources that are not fetched over HTTP(S), and responses the server marks no-store, are not cached.
+ * </p>
+ */
+public final class DownloadCache
+{
+	/** Logger */
+	private static final Logger LOG = Logger.getLogger(DownloadCache.class.getCanonicalName());
+
+	/** Default maximum total size of the cached resources */
+	private static final long DEFAULT_MAX_SIZE = 64L * 1024 * 1024;
+
+	/** Data file suffix */
+	private static final String DATA_SUFFIX = ".data";
+
+	/** Metadata file suffix */
+	private static final String META_SUFFIX = ".properties";
+
+	/** Cache directory */
+	private final File m_dir;
+
+	/** Maximum total size of the cached resources */
+	private final long m_lMaxSize;
+
+	/** Entries by key, least recently used first; null until loaded; guarded by this */
+	private Map<String, Entry> m_entries;
+
+	/** Total size of the cached resources; guarded by this */
+	private long m_lSize;
+
+	/**
+	 * Construct a DownloadCache.
+	 *
+	 * @param dir Cache directory; created when needed
+	 * @param lMaxSize Maximum total size of the cached resources
+	 */
+	public DownloadCache(File dir, long lMaxSize)
+	{
+		m_dir = dir;
+		m_lMaxSize = lMaxSize;
+	}
+
+	/**
+	 * Get the default cache, in the user's cache directory.
+	 *
+	 * @return The default cache
+	 */
+	public static DownloadCache getDefault()
+	{
+		return DefaultHolder.INSTANCE;
+	}
+
+	/**
+	 * Get the default cache directory according to platform conventions.
+	 *
+	 * @return The default cache directory
+	 */
+	private static File getDefaultDirectory()
+	{
+		String sLocalAppData = System.getenv("LOCALAPPDATA");
+		if (sLocalAppData != null)
+		{
+			return new File(new File(sLocalAppData, "Portecle"), "cache");
+		}
+		String sHome = System.getProperty("user.home");
+		if (System.getProperty("os.name", "").startsWith("Mac"))
+		{
+			return new File(new File(new File(sHome, "Library"), "Caches"), "Portecle");
+		}
+		String sCacheHome = System.getenv("XDG_CACHE_HOME");
+		if (sCacheHome == null || sCacheHome.isEmpty())
+		{
+			sCacheHome = new File(sHome, ".cache").getPath();
+		}
+		return new File(sCacheHome, "portecle");
+	}
+
+	/**
+	 * Fetch the contents of an URL, from the cache if fresh there.
+	 *
+	 * @param url The URL
+	 * @return The contents
+	 * @throws IOException If an I/O error occurs
+	 */
+	public byte[] fetch(URL url)
+	    throws IOException
+	{
+		String sProtocol = url.getProtocol();
+		if (!"http".equals(sProtocol) && !"https".equals(sProtocol))
+		{
+			return NetUtil.fetch(url);
+		}
+
+		String sKey = getKey(url);
+		Entry entry = getEntry(sKey);
+
+		if (entry != null && entry.m_lExpiration > System.currentTimeMillis())
+		{
+			byte[] bContent = read(sKey);
+			if (bContent != null)
+			{
+				LOG.log(Level.FINE, "Fresh in cache: {0}", url);
+				return bContent;
+			}
+			entry = null;
+		}
+
+		NetUtil.Response response;
+		if (entry == null)
+		{
+			response = NetUtil.fetch(url, null, 0);
+		}
+		else
+		{
+			response = NetUtil.fetch(url, entry.m_sETag, entry.m_lLastModified);
+			if (response.isNotModified())
+			{
+				byte[] bContent = read(sKey);
+				if (bContent != null && response.isNoStore())
+				{
+					remove(sKey);
+					return bContent;
+				}
+				if (bContent != null)
+				{
+					entry = new Entry(url.toExternalForm(), entry.m_lSize, response.getETag(),
+					    response.getLastModified(), response.getExpiration(), response.getExpiration());
+					store(sKey, entry, null);
+					return bContent;
+				}
+				// Evicted meanwhile
+				response = NetUtil.fetch(url, null, 0);
+			}
+		}
+
+		byte[] bContent = response.getContent();
+		if (response.isNoStore())
+		{
+			LOG.log(Level.FINE, "Not caching no-store response: {0}", url);
+			remove(sKey);
+			return bContent;
+		}
+		entry = new Entry(url.toExternalForm(), bContent.length, response.getETag(), response.getLastModified(),
+		    response.getExpiration(), response.getExpiration());
+		store(sKey, entry, bContent);
+		return bContent;
+	}
+
+	/**
+	 * Store an entry; failures are logged, as the resource itself was fetched.
+	 *
+	 * @param sKey The key
+	 * @param entry The entry
+	 * @param bContent The contents, null to keep the current ones
+	 */
+	private void store(String sKey, Entry entry, byte[] bContent)
+	{
+		try
+		{
+			put(sKey, entry, bContent);
+		}
+		catch (IOException ex)
+		{
+			LOG.log(Level.WARNING, "Could not cache " + entry.m_sUrl, ex);
+		}
+	}
+
+	/**
+	 * Limit the freshness of a cached resource by an expiration time taken from its contents, such as a CRL's next
+	 * update. The resource is fresh until the earlier of this and the server given expiration time, if any; this
+	 * never extends freshness past a server given expiration, so resources the server requires to be revalidated on
+	 * every use stay stale.
+	 *
+	 * @param url The URL of the resource
+	 * @param lExpiration Expiration time from the contents
+	 */
+	public void setContentExpiration(URL url, long lExpiration)
+	{
+		String sKey = getKey(url);
+		synchronized (this)
+		{
+			Entry entry = getEntry(sKey);
+			if (entry == null)
+			{
+				return;
+			}
+			long lNewExpiration = lExpiration;
+			if (entry.m_lHttpExpiration > 0)
+			{
+				lNewExpiration = Math.min(entry.m_lHttpExpiration, lExpiration);
+			}
+			if (lNewExpiration != entry.m_lExpiration)
+			{
+				store(sKey, new Entry(entry.m_sUrl, entry.m_lSize, entry.m_sETag, entry.m_lLastModified,
+				    entry.m_lHttpExpiration, lNewExpiration), null);
+			}
+		}
+	}
+
+	/**
+	 * Get an entry, marking it as recently used.
+	 *
+	 * @param sKey The key
+	 * @return The entry, null if not cached
+	 */
+	private synchronized Entry getEntry(String sKey)
+	{
+		return getEntries().get(sKey);
+	}
+
+	/**
+	 * Store an entry, evicting least recently used ones if the cache grows too large.
+	 *
+	 * @param sKey The key
+	 * @param entry The entry
+	 * @param bContent The contents, null to keep the current ones
+	 * @throws IOException If the entry could not be written
+	 */
+	private synchronized void put(String sKey, Entry entry, byte[] bContent)
+	    throws IOException
+	{
+		Map<String, Entry> entries = getEntries();
+		if (bContent == null ? !entries.containsKey(sKey) : bContent.length > m_lMaxSize)
+		{
+			// Evicted meanwhile, or too large to cache
+			remove(sKey);
+			return;
+		}
+
+		if (!m_dir.isDirectory() && !m_dir.mkdirs())
+		{
+			throw new IOException("Could not create cache directory " + m_dir);
+		}
+
+		if (bContent != null)
+		{
+			Entry old = entries.remove(sKey);
+			if (old != null)
+			{
+				m_lSize -= old.m_lSize;
+			}
+			writeAtomically(new File(m_dir, sKey + DATA_SUFFIX), bContent);
+		}
+		writeAtomically(new File(m_dir, sKey + META_SUFFIX), entry.toProperties());
+		if (bContent != null)
+		{
+			m_lSize += entry.m_lSize;
+		}
+		entries.put(sKey, entry);
+
+		// Evict least recently used entries
+		for (Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator(); m_lSize > m_lMaxSize &&
+		    it.hasNext();)
+		{
+			Map.Entry<String, Entry> eldest = it.next();
+			if (eldest.getKey().equals(sKey))
+			{
+				continue;
+			}
+			it.remove();
+			m_lSize -= eldest.getValue().m_lSize;
+			deleteFiles(eldest.getKey());
+		}
+	}
+
+	/**
+	 * Remove an entry.
+	 *
+	 * @param sKey The key
+	 */
+	private synchronized void remove(String sKey)
+	{
+		Entry entry = getEntries().remove(sKey);
+		if (entry != null)
+		{
+			m_lSize -= entry.m_lSize;
+		}
+		deleteFiles(sKey);
+	}
+
+	/**
+	 * Read the contents of an entry.
+	 *
+	 * @param sKey The key
+	 * @return The contents, null if the entry has been evicted
+	 * @throws IOException If an I/O error occurs
+	 */
+	private byte[] read(String sKey)
+	    throws IOException
+	{
+		File fData = new File(m_dir, sKey + DATA_SUFFIX);
+		try
+		{
+			byte[] bContent = Files.readAllBytes(fData.toPath());
+			// Record use for ordering entries when loading them next time
+			if (!new File(m_dir, sKey + META_SUFFIX).setLastModified(System.currentTimeMillis()))
+			{
+				LOG.log(Level.FINE, "Could not update use time of {0}", sKey);
+			}
+			return bContent;
+		}
+		catch (NoSuchFileException ex)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Get the entries, loading them from the cache directory on first use.
+	 *
+	 * @return The entries, least recently used first
+	 */
+	private Map<String, Entry> getEntries()
+	{
+		if (m_entries != null)
+		{
+			return m_entries;
+		}
+		m_entries = new LinkedHashMap<>(16, 0.75f, true);
+		m_lSize = 0;
+
+		File[] metaFiles = m_dir.listFiles();
+		if (metaFiles == null)
+		{
+			return m_entries;
+		}
+		// Least recently used first
+		Arrays.sort(metaFiles, new Comparator<File>()
+		{
+			@Override
+			public int compare(File f1, File f2)
+			{
+				return Long.compare(f1.lastModified(), f2.lastModified());
+			}
+		});
+		for (File fMeta : metaFiles)
+		{
+			String sName = fMeta.getName();
+			if (!sName.endsWith(META_SUFFIX))
+			{
+				continue;
+			}
+			String sKey = sName.substring(0, sName.length() - META_SUFFIX.length());
+			File fData = new File(m_dir, sKey + DATA_SUFFIX);
+			Properties props = new Properties();
+			try (InputStream in = new FileInputStream(fMeta))
+			{
+				props.load(in);
+				if (fData.isFile())
+				{
+					Entry entry = Entry.fromProperties(props, fData.length());
+					m_entries.put(sKey, entry);
+					m_lSize += entry.m_lSize;
+					continue;
+				}
+			}
+			catch (IOException | RuntimeException ex)
+			{
+				LOG.log(Level.WARNING, "Discarding unreadable cache entry " + fMeta, ex);
+			}
+			deleteFiles(sKey);
+		}
+		return m_entries;
+	}
+
+	/**
+	 * Delete the files of an entry.
+	 *
+	 * @param sKey The key
+	 */
+	private void deleteFiles(String sKey)
+	{
+		for (String sSuffix : new String[] { DATA_SUFFIX, META_SUFFIX })
+		{
+			try
+			{
+				Files.deleteIfExists(new File(m_dir, sKey + sSuffix).toPath());
+			}
+			catch (IOException ex)
+			{
+				LOG.log(Level.WARNING, "Could not delete cache file " + sKey + sSuffix, ex);
+			}
+		}
+	}
+
+	/**
+	 * Write a file through a temporary file moved into place, so that readers never see partially written files.
+	 *
+	 * @param file The file
+	 * @param content Contents: a byte array or properties
+	 * @throws IOException If the file could not be written
+	 */
+	private void writeAtomically(File file, Object content)
+	    throws IOException
+	{
+		File fTemp = File.createTempFile(file.getName(), ".tmp", m_dir);
+		try
+		{
+			try (OutputStream out = new FileOutputStream(fTemp))
+			{
+				if (content instanceof byte[])
+				{
+					out.write((byte[]) content);
+				}
+				else
+				{
+					((Properties) content).store(out, null);
+				}
+			}
+			Path temp = fTemp.toPath();
+			try
+			{
+				Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException ex)
+			{
+				Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally
+		{
+			Files.deleteIfExists(fTemp.toPath());
+		}
+	}
+
+	/**
+	 * Get the key of an URL, usable as a file name.
+	 *
+	 * @param url The URL
+	 * @return The key
+	 */
+	private static String getKey(URL url)
+	{
+		try
+		{
+			MessageDigest md = MessageDigest.getInstance("SHA-256");
+			byte[] bDigest = md.digest(url.toExternalForm().getBytes(StandardCharsets.UTF_8));
+			return StringUtil.toHex(bDigest, 0, "").toString().toLowerCase(Locale.ENGLISH);
+		}
+		catch (NoSuchAlgorithmException ex)
+		{
+			// Every Java platform implementation supports SHA-256
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * Holder of the default instance, created on first use.
+	 */
+	private static final class DefaultHolder
+	{
+		/** The default instance */
+		private static final DownloadCache INSTANCE = new DownloadCache(getDefaultDirectory(), DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * Metadata of a cached resource.
+	 */
+	private static final class Entry
+	{
+		/** The URL */
+		private final String m_sUrl;
+
+		/** Size of the contents */
+		private final long m_lSize;
+
+		/** Entity tag, null if none */
+		private final String m_sETag;
+
+		/** Modification time, 0 if not known */
+		private final long m_lLastModified;
+
+		/** Expiration time given by the server, 0 if none */
+		private final long m_lHttpExpiration;
+
+		/** Time until which the resource is fresh */
+		private final long m_lExpiration;
+
+		/**
+		 * Construct an Entry.
+		 *
+		 * @param sUrl The URL
+		 * @param lSize Size of the contents
+		 * @param sETag Entity tag, null if none
+		 * @param lLastModified Modification time, 0 if not known
+		 * @param lHttpExpiration Expiration time given by the server, 0 if none
+		 * @param lExpiration Time until which the resource is fresh
+		 */
+		private Entry(String sUrl, long lSize, String sETag, long lLastModified, long lHttpExpiration,
+		    long lExpiration)
+		{
+			m_sUrl = sUrl;
+			m_lSize = lSize;
+			m_sETag = sETag;
+			m_lLastModified = lLastModified;
+			m_lHttpExpiration = lHttpExpiration;
+			m_lExpiration = lExpiration;
+		}
+
+		/**
+		 * Convert to properties.
+		 *
+		 * @return The properties
+		 */
+		private Properties toProperties()
+		{
+			Properties props = new Properties();
+			props.setProperty("url", m_sUrl);
+			if (m_sETag != null)
+			{
+				props.setProperty("etag", m_sETag);
+			}
+			props.setProperty("lastModified", String.valueOf(m_lLastModified));
+			props.setProperty("httpExpiration", String.valueOf(m_lHttpExpiration));
+			props.setProperty("expiration", String.valueOf(m_lExpiration));
+			return props;
+		}
+
+		/**
+		 * Create from properties.
+		 *
+		 * @param props The properties
+		 * @param lSize Size of the contents
+		 * @return The entry
+		 * @throws NumberFormatException If the properties are malformed
+		 */
+		private static Entry fromProperties(Properties props, long lSize)
+		{
+			return new Entry(props.getProperty("url"), lSize, props.getProperty("etag"),
+			    Long.parseLong(props.getProperty("lastModified", "0")),
+			    Long.parseLong(props.getProperty("httpExpiration", "0")),
+			    Long.parseLong(props.getProperty("expiration", "0")));
+		}
+	}
+}
@@ -0,0 +1,1313 @@
+/*
+ * ExpiryMonitor.java
+ * This file is part of Portecle, a multipurpose keystore and certificate tool.
+ *
+ * Copyright © 2026 The Portecle Project
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.sf.portecle;
+
+import static net.sf.portecle.FPortecle.RB;
+
+import java.io.BufferedReader;
+import java.io.Console;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.net.ssl.SSLSocketFactory;
+
+import net.sf.portecle.crypto.CryptoException;
+import net.sf.portecle.crypto.DigestType;
+import net.sf.portecle.crypto.DigestUtil;
+import net.sf.portecle.crypto.KeyStoreType;
+import net.sf.portecle.crypto.KeyStoreUtil;
+
+/**
+ * Periodically rescans keystore files and SSL/TLS endpoints, and reports certificates that are about to expire, have
+ * expired, or have changed. The certificates seen per target are kept in a state file, so that events are reported
+ * once rather than on every scan, also across restarts.
+ * <p>
+ * Targets are kept in a queue ordered by their next scan time, and one thread scans whatever is due. Keystore files
+ * are only parsed again if their modification time and contents have changed; expiry is otherwise evaluated from the
+ * state. Due endpoints are handshaked with together through a {@link TlsProbe}, or through a {@link TlsScanner} if
+ * their certificates are to be verified, in which case verification failures, such as certificates for other host
+ * names, are reported as errors.
+ * </p>
+ */
+public final class ExpiryMonitor
+{
+	/** Logger */
+	private static final Logger LOG = Logger.getLogger(ExpiryMonitor.class.getCanonicalName());
+
+	/** Default number of days before expiry to report certificates as expiring, for the command line */
+	private static final int DEFAULT_WARN_DAYS = 30;
+
+	/** Default time between scans in minutes, for the command line */
+	private static final long DEFAULT_INTERVAL_MINUTES = 60;
+
+	/** Default time limit in milliseconds per endpoint, for the command line */
+	private static final int DEFAULT_TIMEOUT = 10000;
+
+	/** Maximum number of endpoint handshakes in progress at the same time */
+	private static final int MAX_CONCURRENT_HANDSHAKES = 64;
+
+	/** Alert level: nothing reported */
+	private static final int ALERT_NONE = 0;
+
+	/** Alert level: expiring reported */
+	private static final int ALERT_EXPIRING = 1;
+
+	/** Alert level: expired reported */
+	private static final int ALERT_EXPIRED = 2;
+
+	/** State file */
+	private final File m_fState;
+
+	/** Time before expiry to report certificates as expiring, in milliseconds */
+	private final long m_lWarnPeriod;
+
+	/** Receiver of events */
+	private final Listener m_listener;
+
+	/** Probe for endpoints, null if verifying */
+	private final TlsProbe m_probe;
+
+	/** Scanner for endpoints, null if not verifying */
+	private final TlsScanner m_scanner;
+
+	/** Targets by identifier, guarded by this */
+	private final Map<String, Target> m_targets = new HashMap<>();
+
+	/** Targets by next scan time, guarded by this */
+	private final PriorityQueue<Target> m_queue = new PriorityQueue<>();
+
+	/** Lock held while scanning, so that a scan still in progress after a restart does not overlap a new one */
+	private final Object m_scanLock = new Object();
+
+	/** Target states by identifier; guarded by m_scanLock once scanning has started */
+	private final Map<String, TargetState> m_states = new LinkedHashMap<>();
+
+	/** Scanning thread, null if not started; guarded by this */
+	private ScheduledThreadPoolExecutor m_scheduler;
+
+	/** Next scheduled scan, null if none; guarded by this */
+	private ScheduledFuture<?> m_nextScan;
+
+	/** Time of the next scheduled scan, from {@link System#currentTimeMillis()}; guarded by this */
+	private long m_lNextScan;
+
+	/**
+	 * Construct an ExpiryMonitor, loading the state of a previous run if the state file exists.
+	 *
+	 * @param fState State file
+	 * @param iWarnDays Number of days before expiry to report certificates as expiring
+	 * @param iTimeout Time limit in milliseconds per endpoint, for connecting and handshaking
+	 * @param listener Receiver of events; called on the scanning thread
+	 * @throws IOException If the state file exists but could not be read
+	 */
+	public ExpiryMonitor(File fState, int iWarnDays, int iTimeout, Listener listener)
+	    throws IOException
+	{
+		m_fState = fState;
+		m_lWarnPeriod = TimeUnit.DAYS.toMillis(iWarnDays);
+		m_listener = listener;
+		m_probe = new TlsProbe(MAX_CONCURRENT_HANDSHAKES, iTimeout);
+		m_scanner = null;
+		loadState();
+	}
+
+	/**
+	 * Construct an ExpiryMonitor verifying endpoint certificates, loading the state of a previous run if the state
+	 * file exists.
+	 *
+	 * @param fState State file
+	 * @param iWarnDays Number of days before expiry to report certificates as expiring
+	 * @param iTimeout Time limit in milliseconds per endpoint, for connecting and handshaking
+	 * @param listener Receiver of events; called on the scanning thread
+	 * @param sslSocketFactory SSL socket factory verifying endpoint certificates, see {@link TlsContextFactory}
+	 * @throws IOException If the state file exists but could not be read
+	 */
+	public ExpiryMonitor(File fState, int iWarnDays, int iTimeout, Listener listener,
+	    SSLSocketFactory sslSocketFactory)
+	    throws IOException
+	{
+		m_fState = fState;
+		m_lWarnPeriod = TimeUnit.DAYS.toMillis(iWarnDays);
+		m_listener = listener;
+		m_probe = null;
+		// The same endpoints are handshaked with on every scan, so keep sessions for resumption; resumed sessions
+		// carry the certificates of the original handshake, so changes are seen once they expire, by default within
+		// a day
+		m_scanner = new TlsScanner(sslSocketFactory, MAX_CONCURRENT_HANDSHAKES, iTimeout, true);
+		loadState();
+	}
+
+	/**
+	 * Monitor a keystore file.
+	 *
+	 * @param fKeyStore The keystore file
+	 * @param keyStoreType The keystore type
+	 * @param cPassword The keystore password
+	 * @param lInterval Time between scans in milliseconds
+	 * @return Identifier of the target
+	 * @throws IOException If the canonical path of the file could not be determined
+	 */
+	public String addKeyStore(File fKeyStore, KeyStoreType keyStoreType, char[] cPassword, long lInterval)
+	    throws IOException
+	{
+		File fCanonical = fKeyStore.getCanonicalFile();
+		Target target = new KeyStoreTarget("keystore:" + fCanonical.getPath(), lInterval, fCanonical, keyStoreType,
+		    cPassword);
+		add(target);
+		return target.m_sId;
+	}
+
+	/**
+	 * Monitor a keystore file of unknown type. The type is found out by trying to load the file as each of the
+	 * available types in turn; the keystore so loaded is used for the first scan, rather than loading it again.
+	 *
+	 * @param fKeyStore The keystore file
+	 * @param cPassword The keystore password
+	 * @param lInterval Time between scans in milliseconds
+	 * @return Identifier of the target
+	 * @throws CryptoException If the file could not be loaded as any of the available types
+	 * @throws IOException If the file could not be read
+	 */
+	public String addKeyStore(File fKeyStore, char[] cPassword, long lInterval)
+	    throws CryptoException, IOException
+	{
+		File fCanonical = fKeyStore.getCanonicalFile();
+		byte[] bKeyStore = Files.readAllBytes(fCanonical.toPath());
+		KeyStoreType[] keyStoreTypes = KeyStoreUtil.getAvailableTypes();
+		CryptoException lastError = null;
+		for (KeyStoreType keyStoreType : keyStoreTypes)
+		{
+			KeyStore keyStore;
+			try
+			{
+				keyStore = KeyStoreUtil.loadKeyStore(bKeyStore, cPassword, keyStoreType);
+			}
+			catch (CryptoException ex)
+			{
+				LOG.log(Level.FINE, "Not a " + keyStoreType + " keystore: " + fKeyStore, ex);
+				lastError = ex;
+				continue;
+			}
+			KeyStoreTarget target = new KeyStoreTarget("keystore:" + fCanonical.getPath(), lInterval, fCanonical,
+			    keyStoreType, cPassword);
+			target.m_loadedKeyStore = keyStore;
+			target.m_sLoadedHash = DigestUtil.getMessageDigest(bKeyStore, DigestType.SHA256);
+			add(target);
+			return target.m_sId;
+		}
+		throw new CryptoException(MessageFormat.format(RB.getString("ExpiryMonitor.NoOpenKeyStore.message"),
+		    fKeyStore, Arrays.toString(keyStoreTypes)), lastError);
+	}
+
+	/**
+	 * Monitor an SSL/TLS endpoint.
+	 *
+	 * @param address The endpoint; may be unresolved, in which case it is resolved on every scan
+	 * @param lInterval Time between scans in milliseconds
+	 * @return Identifier of the target
+	 */
+	public String addEndpoint(InetSocketAddress address, long lInterval)
+	{
+		Target target = new EndpointTarget("tls:" + address.getHostString() + ":" + address.getPort(), lInterval,
+		    address);
+		add(target);
+		return target.m_sId;
+	}
+
+	/**
+	 * Stop monitoring a target. Its state is kept, so that events are not reported again should it be added back.
+	 *
+	 * @param sId Identifier of the target
+	 * @return True if the target was monitored, false otherwise
+	 */
+	public synchronized boolean remove(String sId)
+	{
+		Target target = m_targets.remove(sId);
+		if (target == null)
+		{
+			return false;
+		}
+		m_queue.remove(target);
+		return true;
+	}
+
+	/**
+	 * Start scanning. Targets are first scanned right away.
+	 */
+	public synchronized void start()
+	{
+		if (m_scheduler != null)
+		{
+			return;
+		}
+		m_scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory()
+		{
+			@Override
+			public Thread newThread(Runnable r)
+			{
+				Thread thread = new Thread(r, "ExpiryMonitor");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		// A scan still pending at shutdown must not run after a later start
+		m_scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		schedule();
+	}
+
+	/**
+	 * Stop scanning. A scan in progress is completed, a pending one is canceled.
+	 */
+	public synchronized void stop()
+	{
+		if (m_scheduler == null)
+		{
+			return;
+		}
+		if (m_nextScan != null)
+		{
+			m_nextScan.cancel(false);
+			m_nextScan = null;
+		}
+		m_scheduler.shutdown();
+		m_scheduler = null;
+	}
+
+	/**
+	 * Scan the targets that are due, that is, all of them unless scanned before, in the calling thread. Must not be
+	 * called while started.
+	 */
+	public void scanOnce()
+	{
+		synchronized (this)
+		{
+			if (m_scheduler != null)
+			{
+				throw new IllegalStateException("Monitor is started");
+			}
+		}
+		scanDue();
+	}
+
+	/**
+	 * Add a target to be scanned right away.
+	 *
+	 * @param target The target
+	 */
+	private synchronized void add(Target target)
+	{
+		Target old = m_targets.put(target.m_sId, target);
+		if (old != null)
+		{
+			m_queue.remove(old);
+		}
+		target.m_lNextRun = System.currentTimeMillis();
+		m_queue.add(target);
+		schedule();
+	}
+
+	/**
+	 * Schedule the next scan for when the first target in the queue is due, unless one is scheduled by then already.
+	 */
+	private synchronized void schedule()
+	{
+		Target first = m_queue.peek();
+		if (m_scheduler == null || first == null)
+		{
+			return;
+		}
+		if (m_nextScan != null)
+		{
+			if (m_lNextScan <= first.m_lNextRun)
+			{
+				return;
+			}
+			m_nextScan.cancel(false);
+		}
+		long lDelay = Math.max(0, first.m_lNextRun - System.currentTimeMillis());
+		m_lNextScan = first.m_lNextRun;
+		m_nextScan = m_scheduler.schedule(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				scanDue();
+			}
+		}, lDelay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Scan the targets that are due, and schedule the next scan.
+	 */
+	private void scanDue()
+	{
+		synchronized (m_scanLock)
+		{
+			List<Target> due = new ArrayList<>();
+			synchronized (this)
+			{
+				m_nextScan = null;
+				long lNow = System.currentTimeMillis();
+				while (!m_queue.isEmpty() && m_queue.peek().m_lNextRun <= lNow)
+				{
+					due.add(m_queue.poll());
+				}
+			}
+
+			boolean bChanged = false;
+			try
+			{
+				List<EndpointTarget> endpoints = new ArrayList<>();
+				for (Target target : due)
+				{
+					if (target instanceof EndpointTarget)
+					{
+						endpoints.add((EndpointTarget) target);
+					}
+					else
+					{
+						bChanged |= scan((KeyStoreTarget) target);
+					}
+				}
+				if (!endpoints.isEmpty())
+				{
+					bChanged |= scan(endpoints);
+				}
+			}
+			catch (RuntimeException ex)
+			{
+				LOG.log(Level.WARNING, "Scan failed", ex);
+			}
+
+			if (bChanged)
+			{
+				try
+				{
+					saveState();
+				}
+				catch (IOException ex)
+				{
+					LOG.log(Level.WARNING, "Could not save state to " + m_fState, ex);
+				}
+			}
+
+			synchronized (this)
+			{
+				long lNow = System.currentTimeMillis();
+				for (Target target : due)
+				{
+					// Unless removed or replaced meanwhile
+					if (m_targets.get(target.m_sId) == target)
+					{
+						target.m_lNextRun = lNow + target.m_lInterval;
+						m_queue.add(target);
+					}
+				}
+				schedule();
+			}
+		}
+	}
+
+	/**
+	 * Scan a keystore target.
+	 *
+	 * @param target The target
+	 * @return True if the state changed, false otherwise
+	 */
+	private boolean scan(KeyStoreTarget target)
+	{
+		TargetState state = getState(target.m_sId);
+		File fKeyStore = target.m_fKeyStore;
+
+		// The keystore loaded when the target was added is only for the first scan
+		KeyStore loadedKeyStore = target.m_loadedKeyStore;
+		String sLoadedHash = target.m_sLoadedHash;
+		target.m_loadedKeyStore = null;
+		target.m_sLoadedHash = null;
+
+		long lModified = fKeyStore.lastModified();
+		long lSize = fKeyStore.length();
+		boolean bChanged = false;
+
+		if (state.m_lModified != lModified || state.m_lSize != lSize || state.m_sHash == null)
+		{
+			try
+			{
+				String sHash = DigestUtil.getMessageDigest(Files.readAllBytes(fKeyStore.toPath()), DigestType.SHA256);
+				if (!sHash.equals(state.m_sHash))
+				{
+					KeyStore keyStore = loadedKeyStore;
+					if (keyStore == null || !sHash.equals(sLoadedHash))
+					{
+						keyStore = KeyStoreUtil.loadKeyStore(fKeyStore, target.m_cPassword, target.m_keyStoreType);
+					}
+					Map<String, X509Certificate> certs = new LinkedHashMap<>();
+					for (Enumeration<String> aliases = keyStore.aliases(); aliases.hasMoreElements();)
+					{
+						String sAlias = aliases.nextElement();
+						Certificate cert = keyStore.getCertificate(sAlias);
+						if (cert instanceof X509Certificate)
+						{
+							certs.put(sAlias, (X509Certificate) cert);
+						}
+					}
+					update(target.m_sId, state, certs);
+					state.m_sHash = sHash;
+				}
+				state.m_lModified = lModified;
+				state.m_lSize = lSize;
+				bChanged = true;
+				bChanged |= setError(target.m_sId, state, null);
+			}
+			catch (IOException | CryptoException | KeyStoreException ex)
+			{
+				// Expiry of what was there before is still reported
+				bChanged |= setError(target.m_sId, state, ex);
+			}
+		}
+		else
+		{
+			bChanged |= setError(target.m_sId, state, null);
+		}
+
+		return bChanged | checkExpiry(target.m_sId, state);
+	}
+
+	/**
+	 * Scan endpoint targets together.
+	 *
+	 * @param targets The targets
+	 * @return True if any state changed, false otherwise
+	 */
+	private boolean scan(List<EndpointTarget> targets)
+	{
+		List<InetSocketAddress> addresses = new ArrayList<>(targets.size());
+		for (EndpointTarget target : targets)
+		{
+			addresses.add(target.m_address);
+		}
+
+		List<TlsScanner.Result> results;
+		try
+		{
+			results = (m_scanner == null) ? m_probe.probe(addresses) : m_scanner.scan(addresses);
+		}
+		catch (IOException ex)
+		{
+			LOG.log(Level.WARNING, "Could not scan endpoints", ex);
+			return false;
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			return false;
+		}
+
+		boolean bChanged = false;
+		for (int i = 0; i < targets.size(); i++)
+		{
+			String sId = targets.get(i).m_sId;
+			TlsScanner.Result result = results.get(i);
+			TargetState state = getState(sId);
+			if (!result.isSuccess())
+			{
+				// Expiry of what was there before is still reported
+				bChanged |= setError(sId, state, result.getError());
+				bChanged |= checkExpiry(sId, state);
+				continue;
+			}
+			Map<String, X509Certificate> certs = new LinkedHashMap<>();
+			X509Certificate[] chain = result.getCertificates();
+			for (int j = 0; j < chain.length; j++)
+			{
+				certs.put(String.valueOf(j), chain[j]);
+			}
+			try
+			{
+				bChanged |= update(sId, state, certs);
+				bChanged |= setError(sId, state, null);
+			}
+			catch (CryptoException ex)
+			{
+				bChanged |= setError(sId, state, ex);
+			}
+			bChanged |= checkExpiry(sId, state);
+		}
+		return bChanged;
+	}
+
+	/**
+	 * Get the state of a target, creating an empty one if necessary.
+	 *
+	 * @param sId Identifier of the target
+	 * @return The state
+	 */
+	private TargetState getState(String sId)
+	{
+		TargetState state = m_states.get(sId);
+		if (state == null)
+		{
+			state = new TargetState();
+			m_states.put(sId, state);
+		}
+		return state;
+	}
+
+	/**
+	 * Update the state of a target with the certificates found in it, reporting changed and removed ones. Nothing is
+	 * reported when a target is scanned for the first time.
+	 *
+	 * @param sId Identifier of the target
+	 * @param state The state
+	 * @param certs Certificates by name: alias for keystores, position in chain for endpoints
+	 * @return True if the state changed, false otherwise
+	 * @throws CryptoException If a certificate fingerprint could not be computed
+	 */
+	private boolean update(String sId, TargetState state, Map<String, X509Certificate> certs)
+	    throws CryptoException
+	{
+		boolean bFirst = !state.m_bScanned;
+		boolean bChanged = bFirst;
+		state.m_bScanned = true;
+
+		Map<String, CertState> old = state.m_certs;
+		Map<String, CertState> current = new LinkedHashMap<>();
+		for (Map.Entry<String, X509Certificate> entry : certs.entrySet())
+		{
+			String sName = entry.getKey();
+			X509Certificate cert = entry.getValue();
+			String sFingerprint = DigestUtil.getFingerprint(cert, DigestType.SHA256);
+			CertState certState = old.get(sName);
+			if (certState == null || !certState.m_sFingerprint.equals(sFingerprint))
+			{
+				certState = new CertState(sFingerprint, cert.getNotAfter().getTime(), ALERT_NONE);
+				bChanged = true;
+				if (!bFirst)
+				{
+					fire(new Event(Event.Type.CHANGED, sId, sName, cert.getSubjectX500Principal().getName(),
+					    cert.getNotAfter(), null));
+				}
+			}
+			current.put(sName, certState);
+		}
+		for (Map.Entry<String, CertState> entry : old.entrySet())
+		{
+			if (!current.containsKey(entry.getKey()))
+			{
+				bChanged = true;
+				fire(new Event(Event.Type.REMOVED, sId, entry.getKey(), null, new Date(entry.getValue().m_lNotAfter),
+				    null));
+			}
+		}
+		state.m_certs = current;
+		return bChanged;
+	}
+
+	/**
+	 * Report certificates of a target that have started to expire or have expired since last reported.
+	 *
+	 * @param sId Identifier of the target
+	 * @param state The state
+	 * @return True if the state changed, false otherwise
+	 */
+	private boolean checkExpiry(String sId, TargetState state)
+	{
+		long lNow = System.currentTimeMillis();
+		boolean bChanged = false;
+		for (Map.Entry<String, CertState> entry : state.m_certs.entrySet())
+		{
+			CertState certState = entry.getValue();
+			int iAlert = ALERT_NONE;
+			Event.Type type = null;
+			if (certState.m_lNotAfter <= lNow)
+			{
+				iAlert = ALERT_EXPIRED;
+				type = Event.Type.EXPIRED;
+			}
+			else if (certState.m_lNotAfter - lNow <= m_lWarnPeriod)
+			{
+				iAlert = ALERT_EXPIRING;
+				type = Event.Type.EXPIRING;
+			}
+			if (iAlert > certState.m_iAlert)
+			{
+				certState.m_iAlert = iAlert;
+				bChanged = true;
+				fire(new Event(type, sId, entry.getKey(), null, new Date(certState.m_lNotAfter), null));
+			}
+		}
+		return bChanged;
+	}
+
+	/**
+	 * Set the error state of a target, reporting new errors.
+	 *
+	 * @param sId Identifier of the target
+	 * @param state The state
+	 * @param error The error, null if there is none
+	 * @return True if the state changed, false otherwise
+	 */
+	private boolean setError(String sId, TargetState state, Exception error)
+	{
+		String sError = (error == null) ? null : error.toString();
+		if (sError == null ? state.m_sError == null : sError.equals(state.m_sError))
+		{
+			return false;
+		}
+		state.m_sError = sError;
+		if (error != null)
+		{
+			fire(new Event(Event.Type.ERROR, sId, null, null, null, error));
+		}
+		return true;
+	}
+
+	/**
+	 * Report an event to the listener.
+	 *
+	 * @param event The event
+	 */
+	private void fire(Event event)
+	{
+		try
+		{
+			m_listener.expiryEvent(event);
+		}
+		catch (RuntimeException ex)
+		{
+			LOG.log(Level.WARNING, "Listener failed", ex);
+		}
+	}
+
+	/**
+	 * Load the state file, if it exists.
+	 *
+	 * @throws IOException If the state file exists but could not be read
+	 */
+	private void loadState()
+	    throws IOException
+	{
+		if (!m_fState.exists())
+		{
+			return;
+		}
+		Properties props = new Properties();
+		try (InputStream in = new FileInputStream(m_fState))
+		{
+			props.load(in);
+		}
+		try
+		{
+			for (int i = 0; props.containsKey("target." + i + ".id"); i++)
+			{
+				String sPrefix = "target." + i + ".";
+				TargetState state = new TargetState();
+				state.m_bScanned = Boolean.parseBoolean(props.getProperty(sPrefix + "scanned"));
+				state.m_lModified = Long.parseLong(props.getProperty(sPrefix + "modified", "0"));
+				state.m_lSize = Long.parseLong(props.getProperty(sPrefix + "size", "-1"));
+				state.m_sHash = props.getProperty(sPrefix + "hash");
+				state.m_sError = props.getProperty(sPrefix + "error");
+				for (int j = 0; props.containsKey(sPrefix + "cert." + j + ".name"); j++)
+				{
+					String sCertPrefix = sPrefix + "cert." + j + ".";
+					state.m_certs.put(props.getProperty(sCertPrefix + "name"),
+					    new CertState(props.getProperty(sCertPrefix + "fingerprint"),
+					        Long.parseLong(props.getProperty(sCertPrefix + "notAfter")),
+					        Integer.parseInt(props.getProperty(sCertPrefix + "alert"))));
+				}
+				m_states.put(props.getProperty(sPrefix + "id"), state);
+			}
+		}
+		catch (NumberFormatException ex)
+		{
+			throw new IOException("Malformed state file " + m_fState, ex);
+		}
+	}
+
+	/**
+	 * Save the state file. It is written to a temporary file first and then moved into place, so that an interrupted
+	 * write does not lose the previous state.
+	 *
+	 * @throws IOException If the state file could not be written
+	 */
+	private void saveState()
+	    throws IOException
+	{
+		Properties props = new Properties();
+		int i = 0;
+		for (Map.Entry<String, TargetState> entry : m_states.entrySet())
+		{
+			TargetState state = entry.getValue();
+			if (!state.m_bScanned && state.m_sError == null)
+			{
+				continue;
+			}
+			String sPrefix = "target." + i++ + ".";
+			props.setProperty(sPrefix + "id", entry.getKey());
+			props.setProperty(sPrefix + "scanned", String.valueOf(state.m_bScanned));
+			props.setProperty(sPrefix + "modified", String.valueOf(state.m_lModified));
+			props.setProperty(sPrefix + "size", String.valueOf(state.m_lSize));
+			if (state.m_sHash != null)
+			{
+				props.setProperty(sPrefix + "hash", state.m_sHash);
+			}
+			if (state.m_sError != null)
+			{
+				props.setProperty(sPrefix + "error", state.m_sError);
+			}
+			int j = 0;
+			for (Map.Entry<String, CertState> certEntry : state.m_certs.entrySet())
+			{
+				String sCertPrefix = sPrefix + "cert." + j++ + ".";
+				CertState certState = certEntry.getValue();
+				props.setProperty(sCertPrefix + "name", certEntry.getKey());
+				props.setProperty(sCertPrefix + "fingerprint", certState.m_sFingerprint);
+				props.setProperty(sCertPrefix + "notAfter", String.valueOf(certState.m_lNotAfter));
+				props.setProperty(sCertPrefix + "alert", String.valueOf(certState.m_iAlert));
+			}
+		}
+
+		File fDir = m_fState.getAbsoluteFile().getParentFile();
+		// Temporary file prefixes must be at least three characters long
+		File fTemp = File.createTempFile("." + m_fState.getName() + ".", ".tmp", fDir);
+		try
+		{
+			try (OutputStream out = new FileOutputStream(fTemp))
+			{
+				props.store(out, "Portecle expiry monitor state");
+			}
+			try
+			{
+				Files.move(fTemp.toPath(), m_fState.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				    StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException ex)
+			{
+				Files.move(fTemp.toPath(), m_fState.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally
+		{
+			Files.deleteIfExists(fTemp.toPath());
+		}
+	}
+
+	/**
+	 * Run a monitor from the command line, printing events on standard output. See the
+	 * <code>ExpiryMonitor.usage</code> resource for the arguments.
+	 *
+	 * @param args Command line arguments
+	 * @return Exit status: 0 on success, 1 if run once and anything was reported as expiring, expired, or could not
+	 *         be scanned, 2 on usage errors
+	 */
+	/* package private */static int runCommandLine(String[] args)
+	{
+		File fState = new File(System.getProperty("user.home"), ".portecle-monitor");
+		int iWarnDays = DEFAULT_WARN_DAYS;
+		long lInterval = TimeUnit.MINUTES.toMillis(DEFAULT_INTERVAL_MINUTES);
+		int iTimeout = DEFAULT_TIMEOUT;
+		boolean bOnce = false;
+		boolean bVerify = false;
+		List<String> targets = new ArrayList<>();
+
+		try
+		{
+			for (int i = 0; i < args.length; i++)
+			{
+				switch (args[i])
+				{
+					case "-state":
+						fState = new File(args[++i]);
+						break;
+					case "-warndays":
+						iWarnDays = Integer.parseInt(args[++i]);
+						break;
+					case "-interval":
+						lInterval = TimeUnit.MINUTES.toMillis(Long.parseLong(args[++i]));
+						break;
+					case "-timeout":
+						iTimeout = (int) TimeUnit.SECONDS.toMillis(Integer.parseInt(args[++i]));
+						break;
+					case "-once":
+						bOnce = true;
+						break;
+					case "-verify":
+						bVerify = true;
+						break;
+					default:
+						if (args[i].startsWith("-"))
+						{
+							throw new IllegalArgumentException(args[i]);
+						}
+						targets.add(args[i]);
+				}
+			}
+		}
+		catch (ArrayIndexOutOfBoundsException | IllegalArgumentException ex)
+		{
+			System.err.println(RB.getString("ExpiryMonitor.usage"));
+			return 2;
+		}
+		if (targets.isEmpty() || iWarnDays < 0 || lInterval < 1 || iTimeout < 1)
+		{
+			System.err.println(RB.getString("ExpiryMonitor.usage"));
+			return 2;
+		}
+
+		final AtomicBoolean alerted = new AtomicBoolean();
+		ExpiryMonitor monitor;
+		try
+		{
+			Listener listener = new Listener()
+			{
+				@Override
+				public void expiryEvent(Event event)
+				{
+					if (event.getType() == Event.Type.EXPIRING || event.getType() == Event.Type.EXPIRED ||
+					    event.getType() == Event.Type.ERROR)
+					{
+						alerted.set(true);
+					}
+					System.out.println(event);
+				}
+			};
+			if (bVerify)
+			{
+				monitor = new ExpiryMonitor(fState, iWarnDays, iTimeout, listener,
+				    TlsContextFactory.getSocketFactory(TlsContextFactory.Verification.DEFAULT, null));
+			}
+			else
+			{
+				monitor = new ExpiryMonitor(fState, iWarnDays, iTimeout, listener);
+			}
+
+			BufferedReader stdin = null;
+			for (String sTarget : targets)
+			{
+				File fKeyStore = new File(sTarget);
+				if (!fKeyStore.isFile())
+				{
+					// Anything but an existing file is an endpoint, for example [::1]:443
+					monitor.addEndpoint(TlsScanner.parseTarget(sTarget, TlsScanner.DEFAULT_PORT), lInterval);
+					continue;
+				}
+
+				String sPrompt = MessageFormat.format(RB.getString("ExpiryMonitor.Password.message"), fKeyStore);
+				char[] cPassword;
+				Console console = System.console();
+				if (console != null)
+				{
+					cPassword = console.readPassword("%s", sPrompt);
+				}
+				else
+				{
+					// For example piped in; one password per line
+					if (stdin == null)
+					{
+						stdin = new BufferedReader(new InputStreamReader(System.in));
+					}
+					System.err.print(sPrompt);
+					String sPassword = stdin.readLine();
+					cPassword = (sPassword == null) ? null : sPassword.toCharArray();
+				}
+				if (cPassword == null)
+				{
+					return 2;
+				}
+
+				monitor.addKeyStore(fKeyStore, cPassword, lInterval);
+			}
+		}
+		catch (CryptoException | GeneralSecurityException | IOException | IllegalArgumentException ex)
+		{
+			System.err.println(ex.getLocalizedMessage());
+			return 2;
+		}
+
+		if (bOnce)
+		{
+			monitor.scanOnce();
+			return alerted.get() ? 1 : 0;
+		}
+
+		monitor.start();
+		try
+		{
+			// Scanning runs on a daemon thread; keep running until killed
+			new CountDownLatch(1).await();
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+		}
+		finally
+		{
+			monitor.stop();
+		}
+		return 0;
+	}
+
+	/**
+	 * Receiver of monitor events.
+	 */
+	public interface Listener
+	{
+		/**
+		 * Receive an event.
+		 *
+		 * @param event The event
+		 */
+		void expiryEvent(Event event);
+	}
+
+	/**
+	 * Monitor event.
+	 */
+	public static final class Event
+	{
+		/**
+		 * Event types.
+		 */
+		public enum Type
+		{
+			/** A certificate expires within the warning period */
+			EXPIRING,
+			/** A certificate has expired */
+			EXPIRED,
+			/** A certificate was added or replaced */
+			CHANGED,
+			/** A certificate was removed */
+			REMOVED,
+			/** A target could not be scanned */
+			ERROR
+		}
+
+		/** Event type */
+		private final Type m_type;
+
+		/** Identifier of the target */
+		private final String m_sTargetId;
+
+		/** Name of the certificate: alias for keystores, position in chain for endpoints */
+		private final String m_sName;
+
+		/** Subject of the certificate */
+		private final String m_sSubject;
+
+		/** Expiry time of the certificate */
+		private final Date m_notAfter;
+
+		/** Reason the target could not be scanned */
+		private final Exception m_error;
+
+		/**
+		 * Construct an Event.
+		 *
+		 * @param type Event type
+		 * @param sTargetId Identifier of the target
+		 * @param sName Name of the certificate, null for errors
+		 * @param sSubject Subject of the certificate, null if not known
+		 * @param notAfter Expiry time of the certificate, null for errors
+		 * @param error Reason the target could not be scanned, null for other than errors
+		 */
+		private Event(Type type, String sTargetId, String sName, String sSubject, Date notAfter, Exception error)
+		{
+			m_type = type;
+			m_sTargetId = sTargetId;
+			m_sName = sName;
+			m_sSubject = sSubject;
+			m_notAfter = notAfter;
+			m_error = error;
+		}
+
+		/**
+		 * Get the event type.
+		 *
+		 * @return Event type
+		 */
+		public Type getType()
+		{
+			return m_type;
+		}
+
+		/**
+		 * Get the identifier of the target.
+		 *
+		 * @return Identifier of the target
+		 */
+		public String getTargetId()
+		{
+			return m_sTargetId;
+		}
+
+		/**
+		 * Get the name of the certificate: alias for keystores, position in chain for endpoints.
+		 *
+		 * @return Name of the certificate, null for errors
+		 */
+		public String getName()
+		{
+			return m_sName;
+		}
+
+		/**
+		 * Get the subject of the certificate.
+		 *
+		 * @return Subject of the certificate, null if not known
+		 */
+		public String getSubject()
+		{
+			return m_sSubject;
+		}
+
+		/**
+		 * Get the expiry time of the certificate.
+		 *
+		 * @return Expiry time of the certificate, null for errors
+		 */
+		public Date getNotAfter()
+		{
+			return (m_notAfter == null) ? null : (Date) m_notAfter.clone();
+		}
+
+		/**
+		 * Get the reason the target could not be scanned.
+		 *
+		 * @return Reason, null for other than errors
+		 */
+		public Exception getError()
+		{
+			return m_error;
+		}
+
+		@Override
+		public String toString()
+		{
+			StringBuilder sb = new StringBuilder();
+			sb.append(m_type).append(' ').append(m_sTargetId);
+			if (m_sName != null)
+			{
+				sb.append(" [").append(m_sName).append(']');
+			}
+			if (m_sSubject != null)
+			{
+				sb.append(' ').append(m_sSubject);
+			}
+			if (m_notAfter != null)
+			{
+				sb.append(' ').append(DateUtil.formatDateTime(m_notAfter));
+			}
+			if (m_error != null)
+			{
+				sb.append(": ").append(m_error);
+			}
+			return sb.toString();
+		}
+	}
+
+	/**
+	 * A monitored target.
+	 */
+	private abstract static class Target
+	    implements Comparable<Target>
+	{
+		/** Identifier */
+		final String m_sId;
+
+		/** Time between scans in milliseconds */
+		final long m_lInterval;
+
+		/** Time of the next scan, from {@link System#currentTimeMillis()}; guarded by the monitor */
+		long m_lNextRun;
+
+		/**
+		 * Construct a Target.
+		 *
+		 * @param sId Identifier
+		 * @param lInterval Time between scans in milliseconds
+		 */
+		private Target(String sId, long lInterval)
+		{
+			if (lInterval < 1)
+			{
+				throw new IllegalArgumentException("Interval must be >= 1");
+			}
+			m_sId = sId;
+			m_lInterval = lInterval;
+		}
+
+		@Override
+		public int compareTo(Target other)
+		{
+			return Long.compare(m_lNextRun, other.m_lNextRun);
+		}
+	}
+
+	/**
+	 * A monitored keystore file.
+	 */
+	private static final class KeyStoreTarget
+	    extends Target
+	{
+		/** The keystore file */
+		private final File m_fKeyStore;
+
+		/** The keystore type */
+		private final KeyStoreType m_keyStoreType;
+
+		/** The keystore password */
+		private final char[] m_cPassword;
+
+		/** Keystore loaded when the target was added, null once scanned; used by the scanning thread only */
+		private KeyStore m_loadedKeyStore;
+
+		/** SHA-256 digest of the file contents the loaded keystore was loaded from */
+		private String m_sLoadedHash;
+
+		/**
+		 * Construct a KeyStoreTarget.
+		 *
+		 * @param sId Identifier
+		 * @param lInterval Time between scans in milliseconds
+		 * @param fKeyStore The keystore file
+		 * @param keyStoreType The keystore type
+		 * @param cPassword The keystore password
+		 */
+		private KeyStoreTarget(String sId, long lInterval, File fKeyStore, KeyStoreType keyStoreType,
+		    char[] cPassword)
+		{
+			super(sId, lInterval);
+			m_fKeyStore = fKeyStore;
+			m_keyStoreType = keyStoreType;
+			m_cPassword = (cPassword == null) ? null : cPassword.clone();
+		}
+	}
+
+	/**
+	 * A monitored SSL/TLS endpoint.
+	 */
+	private static final class EndpointTarget
+	    extends Target
+	{
+		/** The endpoint */
+		private final InetSocketAddress m_address;
+
+		/**
+		 * Construct an EndpointTarget.
+		 *
+		 * @param sId Identifier
+		 * @param lInterval Time between scans in milliseconds
+		 * @param address The endpoint
+		 */
+		private EndpointTarget(String sId, long lInterval, InetSocketAddress address)
+		{
+			super(sId, lInterval);
+			m_address = address;
+		}
+	}
+
+	/**
+	 * State of a target as of its last scan.
+	 */
+	private static final class TargetState
+	{
+		/** Whether the target has been scanned */
+		private boolean m_bScanned;
+
+		/** Modification time of a keystore file */
+		private long m_lModified;
+
+		/** Size of a keystore file */
+		private long m_lSize = -1;
+
+		/** SHA-256 digest of a keystore file */
+		private String m_sHash;
+
+		/** Last error, null if the last scan succeeded */
+		private String m_sError;
+
+		/** Certificates by name */
+		private Map<String, CertState> m_certs = new LinkedHashMap<>();
+	}
+
+	/**
+	 * State of a certificate.
+	 */
+	private static final class CertState
+	{
+		/** SHA-256 fingerprint */
+		private final String m_sFingerprint;
+
+		/** Expiry time, from {@link Date#getTime()} */
+		private final long m_lNotAfter;
+
+		/** Highest alert level reported */
+		private int m_iAlert;
+
+		/**
+		 * Construct a CertState.
+		 *
+		 * @param sFingerprint SHA-256 fingerprint
+		 * @param lNotAfter Expiry time
+		 * @param iAlert Highest alert level reported
+		 */
+		private CertState(String sFingerprint, long lNotAfter, int iAlert)
+		{
+			m_sFingerprint = sFingerprint;
+			m_lNotAfter = lNotAfter;
+			m_iAlert = iAlert;
+		}
+	}
+}
@@ -47,7 +47,6 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.MalformedURLException;
-import java.net.Socket;
 import java.net.URI;
 import java.net.URL;
 import java.security.GeneralSecurityException;
@@ -64,21 +63,21 @@ import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.prefs.Preferences;
 
-import javax.net.SocketFactory;
-import javax.net.ssl.SSLContext;
-import javax.net.ssl.SSLSession;
-import javax.net.ssl.SSLSocket;
-import javax.net.ssl.SSLSocketFactory;
-import javax.net.ssl.X509TrustManager;
 import javax.swing.Action;
 import javax.swing.DefaultCellEditor;
 import javax.swing.ImageIcon;
@@ -97,24 +96,31 @@ import javax.swing.JPopupMenu;
 import javax.swing.JScrollPane;
 import javax.swing.JSeparator;
 import javax.swing.JTable;
+import javax.swing.JTextArea;
+import javax.swing.JTextField;
 import javax.swing.JToolBar;
 import javax.swing.KeyStroke;
 import javax.swing.ListSelectionModel;
 import javax.swing.LookAndFeel;
+import javax.swing.RowFilter;
 import javax.swing.ScrollPaneConstants;
 import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
+import javax.swing.Timer;
 import javax.swing.UIManager;
 import javax.swing.UnsupportedLookAndFeelException;
 import javax.swing.WindowConstants;
 import javax.swing.border.BevelBorder;
 import javax.swing.border.CompoundBorder;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 import javax.swing.table.TableCellEditor;
 import javax.swing.table.TableColumn;
+import javax.swing.table.TableRowSorter;
 
 import org.bouncycastle.openssl.PEMEncryptor;
 import org.bouncycastle.openssl.PEMParser;
@@ -123,7 +129,9 @@ import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
 import org.bouncycastle.openssl.jcajce.JcePEMEncryptorBuilder;
 import org.bouncycastle.pkcs.PKCS10CertificationRequest;
 
+import net.sf.portecle.crypto.ChainCompleter;
 import net.sf.portecle.crypto.CryptoException;
+import net.sf.portecle.crypto.DigestUtil;
 import net.sf.portecle.crypto.KeyPairType;
 import net.sf.portecle.crypto.KeyStoreType;
 import net.sf.portecle.crypto.KeyStoreUtil;
@@ -180,6 +188,9 @@ public class FPortecle
 	/** Default keystore table width - dictates height of this frame */
 	private static final int DEFAULT_TABLE_HEIGHT = 400;
 
+	/** Delay in milliseconds after typing in the search field before searching */
+	private static final int SEARCH_DELAY = 300;
+
 	/** Number of recent files to hold in the file menu */
 	private static final int RECENT_FILES_LENGTH = 4;
 
@@ -197,6 +208,12 @@ public class FPortecle
 	/** The last directory accessed by the application */
 	private final LastDir m_lastDir = new LastDir();
 
+	/**
+	 * Responses of keystores opened from HTTP(S) URLs, for revalidating them when opened again; guarded by itself. Kept
+	 * in memory only, as keystores may contain private keys.
+	 */
+	private final Map<String, NetUtil.Response> m_keyStoreUrlResponses = new HashMap<>();
+
 	/** Use CA certificates keystore file? */
 	private boolean m_bUseCaCerts;
 
@@ -209,9 +226,6 @@ public class FPortecle
 	/** KeystoreWrapper object containing the current keystore */
 	private KeyStoreWrapper m_keyStoreWrap;
 
-	/** The PRNG, cached for performance reasons */
-	private SecureRandom m_rnd;
-
 	/** Frame for Help System */
 	private FHelp m_fHelp;
 
@@ -237,6 +251,9 @@ public class FPortecle
 	/** Change keystore Type menu Tools menu */
 	private JMenu m_jmChangeKeyStoreType;
 
+	/** Find by Fingerprint menu item of Tools menu */
+	private JMenuItem m_jmiFindFingerprint;
+
 	/** JKS menu item in Change Keystore Type menu */
 	private JMenuItem m_jmiChangeKeyStoreTypeJks;
 
@@ -290,6 +307,12 @@ public class FPortecle
 	/** Keystore entries table */
 	private KeyStoreTable m_jtKeyStore;
 
+	/** Keystore entries search text field */
+	private JTextField m_jtfSearch;
+
+	/** Timer delaying searches while the search text is being typed */
+	private Timer m_searchTimer;
+
 	// //////////////////////////////////////////////////////////
 	// Status bar controls
 	// //////////////////////////////////////////////////////////
@@ -450,6 +473,22 @@ public class FPortecle
 		    new StatusBarChangeHandler((String) m_openKeyStoreFileAction.getValue(Action.LONG_DESCRIPTION), this));
 		m_jmrfFile.add(jmiOpenKeyStoreFile);
 
+		JMenuItem jmiOpenKeyStoreUrl = new JMenuItem(RB.getString("FPortecle.jmiOpenKeyStoreUrl.text"),
+		    RB.getString("FPortecle.jmiOpenKeyStoreUrl.mnemonic").charAt(0));
+		jmiOpenKeyStoreUrl.setIcon(new ImageIcon(getResImage("FPortecle.jmiOpenKeyStoreUrl.image")));
+		jmiOpenKeyStoreUrl.setToolTipText(null);
+		m_jmrfFile.add(jmiOpenKeyStoreUrl);
+		jmiOpenKeyStoreUrl.addActionListener(new ActionListener()
+		{
+			@Override
+			protected void act()
+			{
+				openKeyStoreUrl();
+			}
+		});
+		jmiOpenKeyStoreUrl.addChangeListener(
+		    new StatusBarChangeHandler(RB.getString("FPortecle.jmiOpenKeyStoreUrl.statusbar"), this));
+
 		if (EXPERIMENTAL)
 		{
 			JMenuItem jmiOpenKeyStorePkcs11 = new JMenuItem(RB.getString("FPortecle.jmiOpenKeyStorePkcs11.text"),
@@ -713,6 +752,21 @@ public class FPortecle
 		    new StatusBarChangeHandler((String) m_keyStoreReportAction.getValue(Action.LONG_DESCRIPTION), this));
 		jmTools.add(jmiKeyStoreReport);
 
+		m_jmiFindFingerprint = new JMenuItem(RB.getString("FPortecle.m_jmiFindFingerprint.text"),
+		    RB.getString("FPortecle.m_jmiFindFingerprint.mnemonic").charAt(0));
+		m_jmiFindFingerprint.setEnabled(false);
+		jmTools.add(m_jmiFindFingerprint);
+		m_jmiFindFingerprint.addActionListener(new ActionListener()
+		{
+			@Override
+			protected void act()
+			{
+				findFingerprint();
+			}
+		});
+		m_jmiFindFingerprint.addChangeListener(
+		    new StatusBarChangeHandler(RB.getString("FPortecle.m_jmiFindFingerprint.statusbar"), this));
+
 		jmTools.addSeparator();
 
 		JMenuItem jmiOptions = new JMenuItem(RB.getString("FPortecle.jmiOptions.text"),
@@ -745,6 +799,20 @@ public class FPortecle
 		    new StatusBarChangeHandler((String) m_examineCertSSLAction.getValue(Action.LONG_DESCRIPTION), this));
 		jmExamine.add(jmiExamineCertSSL);
 
+		JMenuItem jmiScanSSL = new JMenuItem(RB.getString("FPortecle.jmiScanSSL.text"),
+		    RB.getString("FPortecle.jmiScanSSL.mnemonic").charAt(0));
+		jmExamine.add(jmiScanSSL);
+		jmiScanSSL.addActionListener(new ActionListener()
+		{
+			@Override
+			protected void act()
+			{
+				scanSSL();
+			}
+		});
+		jmiScanSSL.addChangeListener(
+		    new StatusBarChangeHandler(RB.getString("FPortecle.jmiScanSSL.statusbar"), this));
+
 		JMenuItem jmiExamineCsr = new JMenuItem(m_examineCsrAction);
 		jmiExamineCsr.setToolTipText(null);
 		jmiExamineCsr.addChangeListener(
@@ -1185,6 +1253,68 @@ public class FPortecle
 		getContentPane().add(jtbToolBar, BorderLayout.NORTH);
 	}
 
+	/**
+	 * Create the keystore entries search panel. The search is run when Enter is pressed, or after a short delay
+	 * when typing stops.
+	 *
+	 * @return The search panel
+	 */
+	private JPanel createSearchPanel()
+	{
+		JLabel jlSearch = new JLabel(RB.getString("FPortecle.jlSearch.text"));
+		jlSearch.setDisplayedMnemonic(RB.getString("FPortecle.jlSearch.mnemonic").charAt(0));
+
+		m_jtfSearch = new JTextField();
+		m_jtfSearch.setToolTipText(RB.getString("FPortecle.m_jtfSearch.tooltip"));
+		m_jtfSearch.setEnabled(false);
+		jlSearch.setLabelFor(m_jtfSearch);
+
+		m_searchTimer = new Timer(SEARCH_DELAY, new ActionListener()
+		{
+			@Override
+			protected void act()
+			{
+				searchKeyStore();
+			}
+		});
+		m_searchTimer.setRepeats(false);
+
+		m_jtfSearch.addActionListener(new ActionListener()
+		{
+			@Override
+			protected void act()
+			{
+				m_searchTimer.stop();
+				searchKeyStore();
+			}
+		});
+		m_jtfSearch.getDocument().addDocumentListener(new DocumentListener()
+		{
+			@Override
+			public void insertUpdate(DocumentEvent evt)
+			{
+				m_searchTimer.restart();
+			}
+
+			@Override
+			public void removeUpdate(DocumentEvent evt)
+			{
+				m_searchTimer.restart();
+			}
+
+			@Override
+			public void changedUpdate(DocumentEvent evt)
+			{
+				m_searchTimer.restart();
+			}
+		});
+
+		JPanel jpSearch = new JPanel(new BorderLayout(5, 5));
+		jpSearch.add(jlSearch, BorderLayout.WEST);
+		jpSearch.add(m_jtfSearch, BorderLayout.CENTER);
+		return jpSearch;
+	}
+
 	/**
 	 * Initialize FPortecle frame's keystore content table GUI components.
 	 */
@@ -1238,9 +1368,21 @@ public class FPortecle
 		}
 
 		// Make the table sortable
-		m_jtKeyStore.setAutoCreateRowSorter(true);
+		TableRowSorter<KeyStoreTableModel> sorter = new TableRowSorter<>(ksModel);
+		m_jtKeyStore.setRowSorter(sorter);
+		// ...and filterable by search
+		sorter.setRowFilter(new RowFilter<KeyStoreTableModel, Integer>()
+		{
+			@Override
+			public boolean include(Entry<? extends KeyStoreTableModel, ? extends Integer> entry)
+			{
+				return entry.getModel().isSearchMatch(entry.getIdentifier());
+			}
+		});
 		// ...and sort it by alias by default
-		m_jtKeyStore.getRowSorter().toggleSortOrder(1);
+		sorter.toggleSortOrder(1);
+		// ...keeping updated rows in order, too
+		sorter.setSortsOnUpdates(true);
 
 		// Get usual double click edit start out of the way - we want double click to show the
 		// entry, even in editable columns. In-place edit can be invoked with F2.
@@ -1273,6 +1415,7 @@ public class FPortecle
 		}
 
 		m_jpKeyStoreTable.add(jspKeyStoreTable, BorderLayout.CENTER);
+		m_jpKeyStoreTable.add(createSearchPanel(), BorderLayout.NORTH);
 		m_jpKeyStoreTable.setBorder(new EmptyBorder(3, 3, 3, 3));
 
 		// Add mouse listeners to show pop-up menus when table entries are clicked upon; maybeShowPopup for
@@ -1776,7 +1919,7 @@ public class FPortecle
 
 		// Update the frame's components and title
 		selectedAlias = sAlias;
-		updateControls();
+		updateEntries(sAlias);
 		updateTitle();
 
 		// Display success message
@@ -1972,6 +2115,193 @@ public class FPortecle
 		}
 	}
 
+	/**
+	 * Open a keystore from an URL.
+	 *
+	 * @return True if a keystore is opened, false otherwise
+	 */
+	private boolean openKeyStoreUrl()
+	{
+		// Does the current keystore contain unsaved changes?
+		if (needSave())
+		{
+			// Yes - ask the user if it should be saved
+			int iWantSave = wantSave();
+
+			if ((iWantSave == JOptionPane.YES_OPTION && !saveKeyStore()) || iWantSave == JOptionPane.CANCEL_OPTION)
+			{
+				return false;
+			}
+		}
+
+		String sUrl = JOptionPane.showInputDialog(this, RB.getString("FPortecle.OpenKeyStoreUrl.message"),
+		    RB.getString("FPortecle.OpenKeyStoreUrl.Title"), JOptionPane.QUESTION_MESSAGE);
+		if (sUrl == null || sUrl.trim().isEmpty())
+		{
+			return false;
+		}
+
+		try
+		{
+			return openKeyStoreUrl(new URL(sUrl.trim()));
+		}
+		catch (MalformedURLException ex)
+		{
+			DThrowable.showAndWait(this, null, ex);
+			return false;
+		}
+	}
+
+	/**
+	 * Open the keystore at the supplied URL. The keystore has no file; saving it asks for one.
+	 *
+	 * @param url The keystore URL
+	 * @return True if a keystore is opened, false otherwise
+	 */
+	private boolean openKeyStoreUrl(URL url)
+	{
+		// Get the user to enter the keystore's password
+		DGetPassword dGetPassword = new DGetPassword(this,
+		    MessageFormat.format(RB.getString("FPortecle.GetKeyStorePassword.Title"), url));
+		dGetPassword.setLocationRelativeTo(this);
+		SwingHelper.showAndWait(dGetPassword);
+		char[] cPassword = dGetPassword.getPassword();
+
+		if (cPassword == null)
+		{
+			return false;
+		}
+
+		try
+		{
+			// Fetch the keystore once for all types, in the background
+			final URL keyStoreUrl = url;
+			Callable<byte[]> fetch = new Callable<byte[]>()
+			{
+				@Override
+				public byte[] call()
+				    throws IOException
+				{
+					return fetchKeyStore(keyStoreUrl);
+				}
+			};
+			byte[] bKeyStore = fetchInBackground(RB.getString("FPortecle.FetchingKeyStore.Title"),
+			    RB.getString("FPortecle.FetchingKeyStore.message"), fetch);
+
+			// Load the keystore - try to open as each of the allowed types in turn until successful
+			KeyStore openedKeyStore = null;
+
+			// Types
+			KeyStoreType[] keyStoreTypes = KeyStoreUtil.getAvailableTypes();
+
+			// Exceptions
+			CryptoException[] cexs = new CryptoException[keyStoreTypes.length];
+
+			// Tried types
+			StringBuilder tried = new StringBuilder();
+
+			for (int iCnt = 0; iCnt < keyStoreTypes.length; iCnt++)
+			{
+				tried.append(", ").append(keyStoreTypes[iCnt]);
+				try
+				{
+					openedKeyStore = KeyStoreUtil.loadKeyStore(bKeyStore, cPassword, keyStoreTypes[iCnt]);
+					break; // Success
+				}
+				catch (CryptoException cex)
+				{
+					cexs[iCnt] = cex;
+				}
+			}
+
+			if (openedKeyStore == null)
+			{
+				// None of the types worked - show each of the errors?
+				if (tried.length() > 2)
+				{
+					tried.delete(0, 2); // Chop leading ", "
+				}
+				int iSelected = SwingHelper.showConfirmDialog(this,
+				    MessageFormat.format(RB.getString("FPortecle.NoOpenKeyStoreFile.message"), url, tried),
+				    RB.getString("FPortecle.OpenKeyStoreUrl.Title"));
+				if (iSelected == JOptionPane.YES_OPTION)
+				{
+					for (CryptoException cex : cexs)
+					{
+						DThrowable.showAndWait(this, null, cex);
+					}
+				}
+
+				return false;
+			}
+
+			// Create a keystore wrapper for the keystore
+			m_keyStoreWrap = new KeyStoreWrapper(openedKeyStore, null, cPassword);
+
+			// Update the frame's components and title
+			selectedAlias = null;
+			updateControls();
+			updateTitle();
+
+			return true;
+		}
+		catch (CancellationException ex)
+		{
+			return false;
+		}
+		catch (IOException ex)
+		{
+			JOptionPane.showMessageDialog(this, MessageFormat.format(RB.getString("FPortecle.NoRead.message"), url),
+			    RB.getString("FPortecle.OpenKeyStoreUrl.Title"), JOptionPane.WARNING_MESSAGE);
+			return false;
+		}
+		catch (Exception ex)
+		{
+			DThrowable.showAndWait(this, null, ex);
+			return false;
+		}
+	}
+
+	/**
+	 * Fetch a keystore from an URL. Keystores fetched from HTTP(S) URLs before are revalidated, and only downloaded
+	 * again if they have changed.
+	 *
+	 * @param url The keystore URL
+	 * @return The keystore contents
+	 * @throws IOException If the keystore could not be fetched
+	 */
+	private byte[] fetchKeyStore(URL url)
+	    throws IOException
+	{
+		String sKey = url.toExternalForm();
+		NetUtil.Response previous;
+		synchronized (m_keyStoreUrlResponses)
+		{
+			previous = m_keyStoreUrlResponses.get(sKey);
+		}
+
+		NetUtil.Response response = (previous == null) ? NetUtil.fetch(url, null, 0)
+		    : NetUtil.fetch(url, previous.getETag(), previous.getLastModified());
+		if (response.isNotModified())
+		{
+			return previous.getContent();
+		}
+
+		synchronized (m_keyStoreUrlResponses)
+		{
+			if (!response.isNoStore() && (response.getETag() != null || response.getLastModified() != 0))
+			{
+				m_keyStoreUrlResponses.put(sKey, response);
+			}
+			else
+			{
+				// Not to be kept, or nothing to revalidate with
+				m_keyStoreUrlResponses.remove(sKey);
+			}
+		}
+		return response.getContent();
+	}
+
 	/**
 	 * Open a PKCS #11 keystore.
 	 *
@@ -2345,10 +2675,11 @@ public class FPortecle
 	}
 
 	/**
-	 * Let the user examine the contents of a certificate file from a SSL connection.
+	 * Let the user examine the contents of a certificate file from a SSL connection. The connection is made in a
+	 * background thread, and the certificates are shown once received.
 	 *
 	 * @param ia socket address for the SSL connection to examine
-	 * @return True if the user was able to examine the certificate, false otherwise
+	 * @return True if the connection was started, false otherwise
 	 */
 	private boolean examineCertSSL(InetSocketAddress ia)
 	{
@@ -2362,102 +2693,61 @@ public class FPortecle
 		}
 
 		// TODO: options from user
-		boolean bVerifyCerts = false;
-		int timeOut = 10000;
-
-		// Get the certificates received from the connection
-		X509Certificate[] certs = null;
-		String protocol = null;
-		String cipherSuite = null;
-		SSLSocket ss = null;
-		Socket socket = null;
+		final int timeOut = 10000;
 
-		try
+		final InetSocketAddress target = ia;
+		SwingWorker<TlsScanner.Result, Object> worker = new SwingWorker<TlsScanner.Result, Object>()
 		{
-
-			SSLSocketFactory sf;
-			if (bVerifyCerts)
-			{
-				sf = (SSLSocketFactory) SSLSocketFactory.getDefault();
-			}
-			else
+			@Override
+			protected TlsScanner.Result doInBackground()
+			    throws IOException
 			{
-				// @@@TODO: cache all this?
-				SSLContext sc = SSLContext.getInstance("SSL");
-				X509TrustManager[] tm = { new X509TrustManager()
-				{
-					@Override
-					public void checkClientTrusted(X509Certificate[] chain, String authType)
-					{
-						// Trust anything
-					}
-
-					@Override
-					public void checkServerTrusted(X509Certificate[] chain, String authType)
-					{
-						// Trust anything
-					}
-
-					@Override
-					public X509Certificate[] getAcceptedIssuers()
-					{
-						return new X509Certificate[0];
-					}
-				} };
-				if (m_rnd == null)
-				{
-					m_rnd = new SecureRandom();
-				}
-				sc.init(null, tm, m_rnd);
-				sf = sc.getSocketFactory();
+				// Get the certificates received from the connection; not verifying them, so the handshake can be
+				// aborted as soon as they are received
+				return new TlsProbe(1, timeOut).probe(target);
 			}
 
-			// Go through a regular SocketFactory in order to be able to:
-			// - control connection timeouts before connecting, and
-			// - be able to use a host(String), port based method; otherwise apparently no SNI
-
-			socket = SocketFactory.getDefault().createSocket();
-			socket.setSoTimeout(timeOut);
-			socket.connect(ia, timeOut);
-			ss = (SSLSocket) sf.createSocket(socket, ia.getHostString(), ia.getPort(), false);
-
-			SSLSession sess = ss.getSession();
-			// TODO: fails with GNU Classpath: https://gcc.gnu.org/bugzilla/show_bug.cgi?id=29692
-			certs = (X509Certificate[]) sess.getPeerCertificates();
-			protocol = sess.getProtocol();
-			cipherSuite = sess.getCipherSuite();
-			sess.invalidate();
-		}
-		catch (Exception e)
-		{
-			DThrowable.showAndWait(this, null, e);
-			return false;
-		}
-		finally
-		{
-			if (ss != null && !ss.isClosed())
+			@Override
+			protected void done()
 			{
+				TlsScanner.Result result;
 				try
 				{
-					ss.close();
-				}
-				catch (IOException e)
-				{
-					DThrowable.showAndWait(this, null, e);
+					result = get();
 				}
-			}
-			if (socket != null && !socket.isClosed())
-			{
-				try
+				catch (InterruptedException e)
 				{
-					socket.close();
+					DThrowable.showAndWait(FPortecle.this, null, e);
+					return;
 				}
-				catch (IOException e)
+				catch (ExecutionException e)
 				{
-					DThrowable.showAndWait(this, null, e);
+					DThrowable.showAndWait(FPortecle.this, null, e.getCause());
+					return;
 				}
+				showCertSSL(target, result);
 			}
+		};
+		worker.execute();
+		return true;
+	}
+
+	/**
+	 * Show the certificates received from a SSL connection.
+	 *
+	 * @param ia socket address of the SSL connection
+	 * @param result the connection result
+	 */
+	private void showCertSSL(InetSocketAddress ia, TlsScanner.Result result)
+	{
+		if (!result.isSuccess())
+		{
+			DThrowable.showAndWait(this, null, result.getError());
+			return;
 		}
+		X509Certificate[] certs = result.getCertificates();
+		String protocol = result.getProtocol();
+		String cipherSuite = result.getCipherSuite();
 
 		// Check what we got
 
@@ -2471,15 +2761,148 @@ public class FPortecle
 				        ia.getHostName() + ":" + ia.getPort()), certs, protocol, cipherSuite);
 				dViewCertificate.setLocationRelativeTo(this);
 				SwingHelper.showAndWait(dViewCertificate);
-				return true;
 			}
-			return false;
 		}
 		catch (CryptoException ex)
 		{
 			DThrowable.showAndWait(this, null, ex);
+		}
+	}
+
+	/**
+	 * Let the user find out the protocols, cipher suites, and certificates a SSL/TLS server supports. The server is
+	 * scanned in a background thread, and a report is shown once done.
+	 *
+	 * @return True if the scan was started, false otherwise
+	 */
+	private boolean scanSSL()
+	{
+		DGetHostPort d = new DGetHostPort(this, RB.getString("FPortecle.ScanSSL.Title"), null);
+		d.setLocationRelativeTo(this);
+		SwingHelper.showAndWait(d);
+		final InetSocketAddress ia = d.getHostPort();
+		if (ia == null)
+		{
+			return false;
+		}
+
+		DScanSSLOptions dOptions = new DScanSSLOptions(this, RB.getString("FPortecle.ScanSSL.Title"));
+		dOptions.setLocationRelativeTo(this);
+		SwingHelper.showAndWait(dOptions);
+		if (!dOptions.isSuccessful())
+		{
 			return false;
 		}
+		final List<String> serverNames = dOptions.getServerNames();
+		final int iMaxConcurrent = dOptions.getMaxConcurrent();
+		final int timeOut = dOptions.getTimeout();
+
+		SwingWorker<TlsCapabilityScanner.Capabilities, Object> worker =
+		    new SwingWorker<TlsCapabilityScanner.Capabilities, Object>()
+		    {
+			    @Override
+			    protected TlsCapabilityScanner.Capabilities doInBackground()
+			        throws GeneralSecurityException, IOException
+			    {
+				    return new TlsCapabilityScanner(iMaxConcurrent, timeOut).scan(ia, serverNames);
+			    }
+
+			    @Override
+			    protected void done()
+			    {
+				    try
+				    {
+					    showScanSSL(get());
+				    }
+				    catch (InterruptedException e)
+				    {
+					    DThrowable.showAndWait(FPortecle.this, null, e);
+				    }
+				    catch (ExecutionException e)
+				    {
+					    DThrowable.showAndWait(FPortecle.this, null, e.getCause());
+				    }
+			    }
+		    };
+		worker.execute();
+		return true;
+	}
+
+	/**
+	 * Show the report of a SSL/TLS capability scan.
+	 *
+	 * @param capabilities The scanned capabilities
+	 */
+	private void showScanSSL(TlsCapabilityScanner.Capabilities capabilities)
+	{
+		StringBuilder sbReport = new StringBuilder();
+
+		sbReport.append(RB.getString("FPortecle.ScanSSL.protocols")).append('\n');
+		if (capabilities.getProtocols().isEmpty())
+		{
+			StringBuilder sbTested = new StringBuilder();
+			for (String sProtocol : capabilities.getTestedProtocols())
+			{
+				if (sbTested.length() != 0)
+				{
+					sbTested.append(", ");
+				}
+				sbTested.append(sProtocol);
+			}
+			sbReport.append('\t').append(
+			    MessageFormat.format(RB.getString("FPortecle.ScanSSL.noProtocols"), sbTested)).append('\n');
+		}
+		for (String sProtocol : capabilities.getProtocols())
+		{
+			sbReport.append('\t').append(sProtocol).append('\n');
+			for (String sCipherSuite : capabilities.getCipherSuites(sProtocol))
+			{
+				sbReport.append("\t\t").append(sCipherSuite).append('\n');
+			}
+		}
+
+		String[] untestableProtocols = capabilities.getUntestableProtocols();
+		List<String> untestableCipherSuites = capabilities.getUntestableCipherSuites();
+		if (untestableProtocols.length != 0 || !untestableCipherSuites.isEmpty())
+		{
+			sbReport.append('\n').append(RB.getString("FPortecle.ScanSSL.untestable")).append('\n');
+			for (String sProtocol : untestableProtocols)
+			{
+				sbReport.append('\t').append(sProtocol).append('\n');
+			}
+			for (String sCipherSuite : untestableCipherSuites)
+			{
+				sbReport.append('\t').append(sCipherSuite).append('\n');
+			}
+		}
+
+		sbReport.append('\n').append(RB.getString("FPortecle.ScanSSL.chains")).append('\n');
+		for (Map.Entry<String, TlsScanner.Result> entry : capabilities.getChains().entrySet())
+		{
+			TlsScanner.Result result = entry.getValue();
+			sbReport.append('\t').append(entry.getKey()).append(": ");
+			if (result.isSuccess())
+			{
+				sbReport.append(result.getCertificates()[0].getSubjectX500Principal());
+			}
+			else
+			{
+				sbReport.append(result.getError());
+			}
+			sbReport.append('\n');
+		}
+
+		sbReport.append('\n').append(
+		    MessageFormat.format(RB.getString("FPortecle.ScanSSL.elapsed"), capabilities.getElapsed()));
+
+		JTextArea jtaReport = new JTextArea(sbReport.toString(), 20, 60);
+		jtaReport.setEditable(false);
+		jtaReport.setTabSize(4);
+		jtaReport.setCaretPosition(0);
+		InetSocketAddress ia = capabilities.getTarget();
+		JOptionPane.showMessageDialog(this, new JScrollPane(jtaReport),
+		    MessageFormat.format(RB.getString("FPortecle.ScanSSLResult.Title"), ia.getHostName() + ":" + ia.getPort()),
+		    JOptionPane.INFORMATION_MESSAGE);
 	}
 
 	/**
@@ -2825,6 +3248,95 @@ public class FPortecle
 		}
 	}
 
+	/**
+	 * Check whether or not a trust path exists between a certificate and the trusted certificates in keystores. If not,
+	 * intermediate certificates missing from the keystores are fetched in a background thread from the CA issuers
+	 * locations of the certificates, see {@link #fetchCertificates(Callable)}.
+	 *
+	 * @param keyStores The keystores
+	 * @param cert The certificate
+	 * @return The trust chain, or null if trust could not be established
+	 * @throws CancellationException If the user canceled fetching certificates
+	 * @throws Exception If there is a problem establishing trust
+	 */
+	private X509Certificate[] establishTrust(final KeyStore[] keyStores, final X509Certificate cert)
+	    throws Exception
+	{
+		X509Certificate[] trustChain = X509CertUtil.establishTrust(keyStores, cert);
+		if (trustChain != null || !ChainCompleter.hasCaIssuers(cert))
+		{
+			return trustChain;
+		}
+		return fetchCertificates(new Callable<X509Certificate[]>()
+		{
+			@Override
+			public X509Certificate[] call()
+			    throws CryptoException
+			{
+				return X509CertUtil.establishTrust(keyStores, cert, new ChainCompleter());
+			}
+		});
+	}
+
+	/**
+	 * Run a task fetching certificates from the network in a background thread, showing a cancelable progress dialog
+	 * until it is done.
+	 *
+	 * @param <T> The task's result type
+	 * @param task The task
+	 * @return The task's result
+	 * @throws CancellationException If the user canceled the task
+	 * @throws Exception If the task failed
+	 */
+	private <T> T fetchCertificates(Callable<T> task)
+	    throws Exception
+	{
+		return fetchInBackground(RB.getString("DFetchingCertificates.Title"),
+		    RB.getString("DFetchingCertificates.jlFetching.text"), task);
+	}
+
+	/**
+	 * Run a task fetching something from the network in a background thread, showing a cancelable progress dialog
+	 * until it is done.
+	 *
+	 * @param <T> The task's result type
+	 * @param sTitle Title of the progress dialog
+	 * @param sMessage Message of the progress dialog
+	 * @param task The task
+	 * @return The task's result
+	 * @throws CancellationException If the user canceled the task
+	 * @throws Exception If the task failed
+	 */
+	private <T> T fetchInBackground(String sTitle, String sMessage, Callable<T> task)
+	    throws Exception
+	{
+		DFetchingCertificates dFetchingCertificates = new DFetchingCertificates(this, sTitle, sMessage);
+		SwingWorker<T, Object> worker = dFetchingCertificates.getWorker(task);
+		worker.execute();
+
+		dFetchingCertificates.setLocationRelativeTo(this);
+		SwingHelper.showAndWait(dFetchingCertificates);
+
+		if (!dFetchingCertificates.isClosedByWorker())
+		{
+			worker.cancel(true);
+			throw new CancellationException();
+		}
+
+		try
+		{
+			return worker.get();
+		}
+		catch (ExecutionException ex)
+		{
+			if (ex.getCause() instanceof Exception)
+			{
+				throw (Exception) ex.getCause();
+			}
+			throw ex;
+		}
+	}
+
 	/**
 	 * Let the user import a CA reply into the selected key pair entry.
 	 *
@@ -2888,6 +3400,28 @@ public class FPortecle
 				}
 			}
 
+			// Fetch intermediates missing from a PKCS #7 reply, up to a certificate in the keystores
+			X509Certificate topCert = certs[certs.length - 1];
+			if (certs.length > 1 && !topCert.getIssuerX500Principal().equals(topCert.getSubjectX500Principal()) &&
+			    ChainCompleter.hasCaIssuers(topCert))
+			{
+				final X509Certificate[] replyCerts = certs;
+				final List<X509Certificate> anchors = new ArrayList<>(X509CertUtil.extractCertificates(keyStore));
+				if (m_bUseCaCerts)
+				{
+					anchors.addAll(X509CertUtil.extractCertificates(m_caCertsKeyStore));
+				}
+				certs = fetchCertificates(new Callable<X509Certificate[]>()
+				{
+					@Override
+					public X509Certificate[] call()
+					    throws CryptoException
+					{
+						return new ChainCompleter().complete(replyCerts, anchors);
+					}
+				});
+			}
+
 			// Holds the new certificate chain for the entry should the import succeed
 			X509Certificate[] newCertChain;
 
@@ -2955,7 +3489,7 @@ public class FPortecle
 					compKeyStores = new KeyStore[] { keyStore };
 				}
 
-				X509Certificate[] trustChain = X509CertUtil.establishTrust(compKeyStores, certs[0]);
+				X509Certificate[] trustChain = establishTrust(compKeyStores, certs[0]);
 
 				if (trustChain == null)
 				{
@@ -2999,7 +3533,7 @@ public class FPortecle
 			m_keyStoreWrap.setEntryPassword(sAlias, cPassword);
 
 			// Update the frame's components and title
-			updateControls();
+			updateEntries(sAlias);
 			updateTitle();
 
 			m_lastDir.updateLastDir(fCertFile);
@@ -3010,6 +3544,11 @@ public class FPortecle
 
 			return true;
 		}
+		catch (CancellationException ex)
+		{
+			// User canceled fetching certificates
+			return false;
+		}
 		catch (Exception ex)
 		{
 			DThrowable.showAndWait(this, null, ex);
@@ -3085,7 +3624,7 @@ public class FPortecle
 			m_keyStoreWrap.setEntryPassword(sAlias, new char[0]);
 
 			// Update the frame's components and title
-			updateControls();
+			updateEntries(sAlias);
 			updateTitle();
 
 			// Display success message
@@ -3180,7 +3719,7 @@ public class FPortecle
 				compKeyStores = new KeyStore[] { keyStore };
 			}
 
-			if (X509CertUtil.establishTrust(compKeyStores, trustCert) == null)
+			if (establishTrust(compKeyStores, trustCert) == null)
 			{
 				// Tell the user what is happening
 				JOptionPane.showMessageDialog(this, RB.getString("FPortecle.NoTrustPathCertConfirm.message"),
@@ -3223,7 +3762,7 @@ public class FPortecle
 
 			// Update the frame's components and title
 			selectedAlias = sAlias;
-			updateControls();
+			updateEntries(sAlias);
 			updateTitle();
 
 			m_lastDir.updateLastDir(fCertFile);
@@ -3234,6 +3773,11 @@ public class FPortecle
 
 			return true;
 		}
+		catch (CancellationException ex)
+		{
+			// User canceled fetching certificates
+			return false;
+		}
 		catch (Exception ex)
 		{
 			DThrowable.showAndWait(this, null, ex);
@@ -3405,7 +3949,7 @@ public class FPortecle
 
 			// Update the frame's components and title
 			selectedAlias = sAlias;
-			updateControls();
+			updateEntries(sAlias);
 			updateTitle();
 
 			// Display success message
@@ -3953,7 +4497,7 @@ public class FPortecle
 		}
 
 		// Update the frame's components and title
-		updateControls();
+		updateEntries(sAlias);
 		updateTitle();
 
 		return true;
@@ -5061,7 +5605,7 @@ public class FPortecle
 
 			// ...and update the frame's components and title
 			selectedAlias = sAlias;
-			updateControls();
+			updateEntries(sAlias);
 			updateTitle();
 
 			// Display success message
@@ -5122,7 +5666,7 @@ public class FPortecle
 
 			// ...and update the frame's components and title
 			selectedAlias = sAlias;
-			updateControls();
+			updateEntries(sAlias);
 			updateTitle();
 
 			// Display success message
@@ -5162,6 +5706,97 @@ public class FPortecle
 		}
 	}
 
+	/**
+	 * Let the user enter a certificate fingerprint, and select the keystore entry whose certificate has it.
+	 *
+	 * @return True if a matching entry was selected, false otherwise
+	 */
+	private boolean findFingerprint()
+	{
+		assert m_keyStoreWrap != null;
+		assert m_keyStoreWrap.getKeyStore() != null;
+
+		String sFingerprint = JOptionPane.showInputDialog(this, RB.getString("FPortecle.FindFingerprint.message"),
+		    RB.getString("FPortecle.FindFingerprint.Title"), JOptionPane.QUESTION_MESSAGE);
+		if (sFingerprint == null || sFingerprint.trim().isEmpty())
+		{
+			return false;
+		}
+
+		if (DigestUtil.normalizeFingerprint(sFingerprint) == null)
+		{
+			JOptionPane.showMessageDialog(this,
+			    MessageFormat.format(RB.getString("FPortecle.InvalidFingerprint.message"), sFingerprint.trim()),
+			    RB.getString("FPortecle.FindFingerprint.Title"), JOptionPane.WARNING_MESSAGE);
+			return false;
+		}
+
+		KeyStoreTableModel model = (KeyStoreTableModel) m_jtKeyStore.getModel();
+		String sAlias;
+		try
+		{
+			sAlias = model.findAlias(sFingerprint);
+		}
+		catch (CryptoException ex)
+		{
+			DThrowable.showAndWait(this, null, ex);
+			return false;
+		}
+
+		int iRow = (sAlias == null) ? -1 : model.getRowIndex(sAlias);
+		if (iRow == -1)
+		{
+			JOptionPane.showMessageDialog(this,
+			    MessageFormat.format(RB.getString("FPortecle.FingerprintNotFound.message"), sFingerprint.trim()),
+			    RB.getString("FPortecle.FindFingerprint.Title"), JOptionPane.INFORMATION_MESSAGE);
+			return false;
+		}
+
+		int iViewRow = m_jtKeyStore.convertRowIndexToView(iRow);
+		if (iViewRow == -1)
+		{
+			// The entry is hidden by the search filter; clear the search to show it
+			m_jtfSearch.setText("");
+			m_searchTimer.stop();
+			searchKeyStore();
+			iViewRow = m_jtKeyStore.convertRowIndexToView(iRow);
+		}
+		iRow = iViewRow;
+
+		m_jtKeyStore.setRowSelectionInterval(iRow, iRow);
+		m_jtKeyStore.scrollRectToVisible(m_jtKeyStore.getCellRect(iRow, 0, true));
+		return true;
+	}
+
+	/**
+	 * Filter the keystore entries table by the search text, keeping the selected entry selected if it matches.
+	 */
+	private void searchKeyStore()
+	{
+		if (m_keyStoreWrap == null)
+		{
+			return;
+		}
+
+		String sAlias = selectedAlias;
+		((KeyStoreTableModel) m_jtKeyStore.getModel()).setSearch(m_jtfSearch.getText());
+
+		if (sAlias != null)
+		{
+			int iRow = ((KeyStoreTableModel) m_jtKeyStore.getModel()).getRowIndex(sAlias);
+			if (iRow != -1)
+			{
+				iRow = m_jtKeyStore.convertRowIndexToView(iRow);
+			}
+			if (iRow != -1)
+			{
+				m_jtKeyStore.setRowSelectionInterval(iRow, iRow);
+				m_jtKeyStore.scrollRectToVisible(m_jtKeyStore.getCellRect(iRow, 0, true));
+			}
+		}
+		setDefaultStatusBarText();
+	}
+
 	/**
 	 * Let the user see the certificate details of the selected keystore entry.
 	 *
@@ -5255,7 +5890,7 @@ public class FPortecle
 
 		// Update the frame's components and title
 		selectedAlias = null;
-		updateControls();
+		updateEntries(sAlias);
 		updateTitle();
 
 		return true;
@@ -5395,17 +6030,57 @@ public class FPortecle
 
 		// Update the frame's components and title
 		selectedAlias = newAlias;
-		updateControls();
+		updateEntries(oldAlias, newAlias);
 		updateTitle();
 
 		return true;
 	}
 
+	/**
+	 * Update the keystore entries table rows of the given entries after they have been added, changed, or removed,
+	 * and the rest of the application's controls. Cheaper than {@link #updateControls()} as only the given rows are
+	 * updated, and the table's sort order and scroll position are kept.
+	 *
+	 * @param sAliases The aliases of the changed entries
+	 */
+	private void updateEntries(String... sAliases)
+	{
+		// keystore must have been loaded
+		assert m_keyStoreWrap != null;
+		assert m_keyStoreWrap.getKeyStore() != null;
+
+		KeyStoreTableModel model = (KeyStoreTableModel) m_jtKeyStore.getModel();
+		try
+		{
+			for (String sAlias : sAliases)
+			{
+				model.updateEntry(m_keyStoreWrap.getKeyStore(), sAlias);
+			}
+		}
+		catch (KeyStoreException ex)
+		{
+			DThrowable.showAndWait(this, null, ex);
+		}
+
+		updateControls(false);
+	}
+
 	/**
 	 * Update the application's controls dependent on the state of its keystore (e.g. if changes to keystore are saved
-	 * disable save tool bar button).
+	 * disable save tool bar button). Reloads the keystore entries table.
 	 */
 	private void updateControls()
+	{
+		updateControls(true);
+	}
+
+	/**
+	 * Update the application's controls dependent on the state of its keystore (e.g. if changes to keystore are saved
+	 * disable save tool bar button).
+	 *
+	 * @param bReloadTable Whether to reload the keystore entries table
+	 */
+	private void updateControls(boolean bReloadTable)
 	{
 		// keystore must have been loaded
 		assert m_keyStoreWrap != null;
@@ -5419,6 +6094,8 @@ public class FPortecle
 		m_importKeyPairAction.setEnabled(true);
 		m_setKeyStorePassAction.setEnabled(true);
 		m_keyStoreReportAction.setEnabled(true);
+		m_jmiFindFingerprint.setEnabled(true);
+		m_jtfSearch.setEnabled(true);
 
 		// Show default status bar display
 		setDefaultStatusBarText();
@@ -5427,14 +6104,17 @@ public class FPortecle
 		KeyStore keyStore = m_keyStoreWrap.getKeyStore();
 		KeyStoreType ksType = m_keyStoreWrap.getKeyStoreType();
 
-		try
-		{
-			// Update keystore entries table
-			((KeyStoreTableModel) m_jtKeyStore.getModel()).load(keyStore);
-		}
-		catch (KeyStoreException ex)
+		if (bReloadTable)
 		{
-			DThrowable.showAndWait(this, null, ex);
+			try
+			{
+				// Update keystore entries table
+				((KeyStoreTableModel) m_jtKeyStore.getModel()).load(keyStore);
+			}
+			catch (KeyStoreException ex)
+			{
+				DThrowable.showAndWait(this, null, ex);
+			}
 		}
 
 		// Enable entry password changing only for applicable keystore types
@@ -5498,6 +6178,7 @@ public class FPortecle
 				if (selectedAlias.equals(m_jtKeyStore.getValueAt(i, 1)))
 				{
 					m_jtKeyStore.setRowSelectionInterval(i, i);
+					m_jtKeyStore.scrollRectToVisible(m_jtKeyStore.getCellRect(i, 0, true));
 					break;
 				}
 			}
@@ -5578,15 +6259,23 @@ public class FPortecle
 			String sType = KeyStoreType.valueOfType(ksLoaded.getType()).toString();
 			String sProv = ksLoaded.getProvider().getName();
 
+			String sStatus;
 			if (iSize == 1)
 			{
-				setStatusBarText(MessageFormat.format(RB.getString("FPortecle.entry.statusbar"), sType, sProv));
+				sStatus = MessageFormat.format(RB.getString("FPortecle.entry.statusbar"), sType, sProv);
 			}
 			else
 			{
-				setStatusBarText(
-				    MessageFormat.format(RB.getString("FPortecle.entries.statusbar"), sType, sProv, iSize));
+				sStatus = MessageFormat.format(RB.getString("FPortecle.entries.statusbar"), sType, sProv, iSize);
+			}
+
+			KeyStoreTableModel model = (KeyStoreTableModel) m_jtKeyStore.getModel();
+			if (model.isSearching())
+			{
+				sStatus = MessageFormat.format(RB.getString("FPortecle.search.statusbar"), sStatus,
+				    model.getSearchMatchCount());
 			}
+			setStatusBarText(sStatus);
 		}
 	}
 
@@ -6438,13 +7127,13 @@ public class FPortecle
 	    implements Runnable
 	{
 
-		/** File or host:port to open initially */
+		/** File, keystore URL, or host:port to open initially */
 		private final Object m_obj;
 
 		/**
 		 * Construct CreateAndShowGui.
 		 *
-		 * @param obj File or host:port to open initially (supply null if none)
+		 * @param obj File, keystore URL, or host:port to open initially (supply null if none)
 		 */
 		public CreateAndShowGui(Object obj)
 		{
@@ -6468,12 +7157,17 @@ public class FPortecle
 			{
 				fPortecle.examineCertSSL((InetSocketAddress) m_obj);
 			}
+			else if (m_obj instanceof URL)
+			{
+				fPortecle.openKeyStoreUrl((URL) m_obj);
+			}
 		}
 	}
 
 	/**
-	 * Start the Portecle application. Takes one optional argument - the location of a keystore file to open upon
-	 * startup.
+	 * Start the Portecle application. Takes one optional argument - the location of a keystore file, or a keystore
+	 * URL, to open upon startup. With <code>-monitor</code> as the first argument, runs the certificate expiry monitor
+	 * on the command line instead, see {@link ExpiryMonitor}.
 	 *
 	 * @param args the command line arguments
 	 */
@@ -6534,6 +7228,12 @@ public class FPortecle
 			}
 		}
 
+		// Certificate expiry monitor, without GUI
+		if (args.length != 0 && args[0].equals("-monitor"))
+		{
+			System.exit(ExpiryMonitor.runCommandLine(Arrays.copyOfRange(args, 1, args.length)));
+		}
+
 		// If arguments have been supplied, treat the first one that's not "-open" (web start passes that when
 		// opening associated files) as a keystore/certificate etc file
 		Object toOpen = null;
@@ -6547,6 +7247,17 @@ public class FPortecle
 					int port = Integer.parseInt(arg.substring(arg.indexOf(":") + 1));
 					toOpen = new InetSocketAddress(host, port);
 				}
+				else if (arg.matches("^(?i)(https?|file):.+"))
+				{
+					try
+					{
+						toOpen = new URL(arg);
+					}
+					catch (MalformedURLException ex)
+					{
+						toOpen = new File(arg);
+					}
+				}
 				else
 				{
 					toOpen = new File(arg);
@@ -73,6 +73,15 @@ import net.sf.portecle.gui.FileExtFilter;
 	/** File extensions for certificate revocation list files */
 	/* package private */static final String[] CRL_EXTS = { "crl" };
 
+	/** File extension for XML keystore report files */
+	private static final String XML_REPORT_EXT = KeyStoreReportWriter.Format.XML.getFilenameExtension();
+
+	/** File extension for JSON keystore report files */
+	private static final String JSON_REPORT_EXT = KeyStoreReportWriter.Format.JSON.getFilenameExtension();
+
+	/** File extension for CSV keystore report files */
+	private static final String CSV_REPORT_EXT = KeyStoreReportWriter.Format.CSV.getFilenameExtension();
+
 	/** Description for X.509 certificate files */
 	private static final String X509_FILE_DESC =
 	    MessageFormat.format(RB.getString("FileChooseFactory.X509Files"), toWildcards(X509_EXTS));
@@ -113,6 +122,18 @@ import net.sf.portecle.gui.FileExtFilter;
 	private static final String CERT_FILE_DESC =
 	    MessageFormat.format(RB.getString("FileChooseFactory.CertificateFiles"), toWildcards(CERT_EXTS));
 
+	/** Description for XML keystore report files */
+	private static final String XML_REPORT_FILE_DESC = MessageFormat.format(
+	    RB.getString("FileChooseFactory.XmlReportFiles"), toWildcards(new String[] { XML_REPORT_EXT }));
+
+	/** Description for JSON keystore report files */
+	private static final String JSON_REPORT_FILE_DESC = MessageFormat.format(
+	    RB.getString("FileChooseFactory.JsonReportFiles"), toWildcards(new String[] { JSON_REPORT_EXT }));
+
+	/** Description for CSV keystore report files */
+	private static final String CSV_REPORT_FILE_DESC = MessageFormat.format(
+	    RB.getString("FileChooseFactory.CsvReportFiles"), toWildcards(new String[] { CSV_REPORT_EXT }));
+
 	/** Filename filter pattern for getDefaultFile() */
 	private static final Pattern FILENAME_FILTER = Pattern.compile("[^\\p{L}_\\-]+");
 
@@ -357,6 +378,23 @@ import net.sf.portecle.gui.FileExtFilter;
 		return chooser;
 	}
 
+	/**
+	 * Get a JFileChooser filtered for keystore report files.
+	 *
+	 * @return JFileChooser object
+	 */
+	public static JFileChooser getKeyStoreReportFileChooser()
+	{
+		JFileChooser chooser = new JFileChooser();
+		FileExtFilter xmlFilter = new FileExtFilter(XML_REPORT_EXT, XML_REPORT_FILE_DESC);
+		chooser.addChoosableFileFilter(xmlFilter);
+		chooser.addChoosableFileFilter(new FileExtFilter(JSON_REPORT_EXT, JSON_REPORT_FILE_DESC));
+		chooser.addChoosableFileFilter(new FileExtFilter(CSV_REPORT_EXT, CSV_REPORT_FILE_DESC));
+		chooser.setFileFilter(xmlFilter);
+		chooser.setFileView(new PortecleFileView());
+		return chooser;
+	}
+
 	/**
 	 * Gets a default file based on the base name and extension, filtering uncomfortable characters.
 	 *
@@ -0,0 +1,620 @@
+/*
+ * KeyStoreReportEntry.java
+ * This file is part of Portecle, a multipurpose keystore and certificate tool.
+ *
+ * Copyright © 2026 The Portecle Project
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.sf.portecle;
+
+import static net.sf.portecle.FPortecle.RB;
+
+import java.io.Closeable;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.text.DateFormat;
+import java.text.MessageFormat;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import net.sf.portecle.crypto.CertificateInfo;
+import net.sf.portecle.crypto.CryptoException;
+import net.sf.portecle.crypto.DigestType;
+import net.sf.portecle.crypto.KeyPairUtil;
+import net.sf.portecle.crypto.KeyStoreType;
+import net.sf.portecle.crypto.X509CertUtil;
+
+/**
+ * Immutable summary of a keystore entry for keystore reports. Entries of a keystore are analyzed in parallel, one task
+ * per alias, and handed out in alias order as they are needed.
+ */
+final class KeyStoreReportEntry
+{
+	/**
+	 * Keystore entry types.
+	 */
+	enum Type
+	{
+		/** Key entry */
+		KEY("Key"),
+		/** Key pair entry */
+		KEY_PAIR("KeyPair"),
+		/** Trusted certificate entry */
+		TRUSTED_CERTIFICATE("TrustedCertificate");
+
+		/** Entry type name in reports */
+		private final String m_sReportName;
+
+		/**
+		 * Construct a Type.
+		 *
+		 * @param sReportName Entry type name in reports
+		 */
+		private Type(String sReportName)
+		{
+			m_sReportName = sReportName;
+		}
+
+		/**
+		 * Get the entry type name used in reports.
+		 *
+		 * @return Entry type name
+		 */
+		public String getReportName()
+		{
+			return m_sReportName;
+		}
+	}
+
+	/** Entry alias */
+	private final String m_sAlias;
+
+	/** Entry type */
+	private final Type m_type;
+
+	/** Entry creation date, null if not applicable */
+	private final Date m_dCreation;
+
+	/** Formatted entry creation date, null if not applicable */
+	private final String m_sCreation;
+
+	/** Summaries of the entry's certificates */
+	private final Cert[] m_certs;
+
+	/**
+	 * Construct a KeyStoreReportEntry.
+	 *
+	 * @param sAlias Entry alias
+	 * @param type Entry type
+	 * @param dCreation Entry creation date, null if not applicable
+	 * @param certs Summaries of the entry's certificates
+	 */
+	private KeyStoreReportEntry(String sAlias, Type type, Date dCreation, Cert[] certs)
+	{
+		m_sAlias = sAlias;
+		m_type = type;
+		m_dCreation = (dCreation == null) ? null : new Date(dCreation.getTime());
+		m_sCreation = (dCreation == null) ? null : DateUtil.format(dCreation, DateFormat.MEDIUM, DateFormat.MEDIUM);
+		m_certs = certs;
+	}
+
+	/**
+	 * Start analyzing the entries of a keystore. Entries are read from the keystore lazily in the calling thread as the
+	 * analyzer is advanced, and the per entry work (certificate encoding, fingerprints, key sizes, date formatting) is
+	 * distributed to a pool of worker threads. Only a bounded window of entries is in flight at a time, so memory use
+	 * does not grow with the size of the keystore.
+	 *
+	 * @param keyStore The keystore
+	 * @return Entry analyzer; must be closed after use
+	 * @throws CryptoException A crypto related problem was encountered reading the keystore
+	 */
+	public static Analyzer analyze(KeyStore keyStore)
+	    throws CryptoException
+	{
+		try
+		{
+			return new Analyzer(keyStore);
+		}
+		catch (GeneralSecurityException ex)
+		{
+			throw new CryptoException(RB.getString("DKeyStoreReport.NoGenerateReport.exception.message"), ex);
+		}
+	}
+
+	/**
+	 * Get the entry alias.
+	 *
+	 * @return Entry alias
+	 */
+	public String getAlias()
+	{
+		return m_sAlias;
+	}
+
+	/**
+	 * Get the entry type.
+	 *
+	 * @return Entry type
+	 */
+	public Type getType()
+	{
+		return m_type;
+	}
+
+	/**
+	 * Get the entry creation date.
+	 *
+	 * @return Entry creation date, null if not applicable
+	 */
+	public Date getCreationDate()
+	{
+		return (m_dCreation == null) ? null : new Date(m_dCreation.getTime());
+	}
+
+	/**
+	 * Get the formatted entry creation date.
+	 *
+	 * @return Formatted entry creation date, null if not applicable
+	 */
+	public String getCreation()
+	{
+		return m_sCreation;
+	}
+
+	/**
+	 * Get the summaries of the entry's certificates.
+	 *
+	 * @return Certificate summaries, empty if the entry has no certificates
+	 */
+	public List<Cert> getCertificates()
+	{
+		return Collections.unmodifiableList(Arrays.asList(m_certs));
+	}
+
+	/**
+	 * Bounded, in order analysis of the entries of a keystore. Tasks for the next entries are submitted as earlier
+	 * entries are taken, keeping a fixed size window of entries in flight.
+	 */
+	static final class Analyzer
+	    implements Closeable
+	{
+		/** Number of entries in flight per worker thread */
+		private static final int WINDOW_PER_THREAD = 2;
+
+		/** The keystore */
+		private final KeyStore m_keyStore;
+
+		/** Whether entry creation dates are included */
+		private final boolean m_bCreation;
+
+		/** Keystore aliases not yet read */
+		private final Enumeration<String> m_aliases;
+
+		/** Worker threads, null if entries are analyzed in the calling thread */
+		private final ExecutorService m_executor;
+
+		/** Maximum number of entries in flight */
+		private final int m_iWindow;
+
+		/** Entries in flight, in alias order */
+		private final Deque<Future<KeyStoreReportEntry>> m_inFlight = new ArrayDeque<>();
+
+		/**
+		 * Construct an Analyzer.
+		 *
+		 * @param keyStore The keystore
+		 * @throws GeneralSecurityException If the keystore could not be read
+		 */
+		private Analyzer(KeyStore keyStore)
+		    throws GeneralSecurityException
+		{
+			m_keyStore = keyStore;
+			m_bCreation = KeyStoreType.valueOfType(keyStore.getType()).isEntryCreationDateUseful();
+			m_aliases = keyStore.aliases();
+
+			int iThreads = Math.min(keyStore.size(), Runtime.getRuntime().availableProcessors());
+			if (iThreads < 2)
+			{
+				// Not worth the thread overhead
+				m_executor = null;
+				m_iWindow = 1;
+			}
+			else
+			{
+				m_executor = Executors.newFixedThreadPool(iThreads);
+				m_iWindow = iThreads * WINDOW_PER_THREAD;
+			}
+		}
+
+		/**
+		 * Get the next analyzed entry, waiting for its analysis to finish if necessary.
+		 *
+		 * @return Next entry summary in the keystore's alias order, null if there are no more entries
+		 * @throws CryptoException A crypto related problem was encountered analyzing the keystore
+		 */
+		public KeyStoreReportEntry next()
+		    throws CryptoException
+		{
+			try
+			{
+				if (m_executor == null)
+				{
+					return m_aliases.hasMoreElements() ? readTask().call() : null;
+				}
+
+				while (m_inFlight.size() < m_iWindow && m_aliases.hasMoreElements())
+				{
+					m_inFlight.add(m_executor.submit(readTask()));
+				}
+				Future<KeyStoreReportEntry> future = m_inFlight.poll();
+				return (future == null) ? null : future.get();
+			}
+			catch (GeneralSecurityException ex)
+			{
+				throw new CryptoException(RB.getString("DKeyStoreReport.NoGenerateReport.exception.message"), ex);
+			}
+			catch (InterruptedException ex)
+			{
+				Thread.currentThread().interrupt();
+				throw new CryptoException(RB.getString("DKeyStoreReport.NoGenerateReport.exception.message"), ex);
+			}
+			catch (ExecutionException ex)
+			{
+				if (ex.getCause() instanceof CryptoException)
+				{
+					throw (CryptoException) ex.getCause();
+				}
+				throw new CryptoException(RB.getString("DKeyStoreReport.NoGenerateReport.exception.message"),
+				    ex.getCause());
+			}
+		}
+
+		/**
+		 * Read the next keystore entry into an analysis task. Keystore implementations are not guaranteed to be thread
+		 * safe, so all keystore access happens here in the calling thread.
+		 *
+		 * @return Analysis task
+		 * @throws GeneralSecurityException If the keystore could not be read
+		 */
+		private AnalyzeTask readTask()
+		    throws GeneralSecurityException
+		{
+			String sAlias = m_aliases.nextElement();
+
+			Date dCreation = m_bCreation ? m_keyStore.getCreationDate(sAlias) : null;
+
+			Type type;
+			Certificate[] certChain = null;
+
+			if (m_keyStore.isKeyEntry(sAlias))
+			{
+				certChain = m_keyStore.getCertificateChain(sAlias);
+				type = (certChain == null || certChain.length == 0) ? Type.KEY : Type.KEY_PAIR;
+			}
+			else
+			{
+				type = Type.TRUSTED_CERTIFICATE;
+				Certificate cert = m_keyStore.getCertificate(sAlias);
+				if (cert != null)
+				{
+					certChain = new Certificate[] { cert };
+				}
+			}
+
+			return new AnalyzeTask(sAlias, type, dCreation, certChain);
+		}
+
+		/**
+		 * Stop analyzing, discarding entries in flight.
+		 */
+		@Override
+		public void close()
+		{
+			if (m_executor != null)
+			{
+				m_executor.shutdownNow();
+			}
+			m_inFlight.clear();
+		}
+	}
+
+	/**
+	 * Task analyzing a single keystore entry.
+	 */
+	private static final class AnalyzeTask
+	    implements Callable<KeyStoreReportEntry>
+	{
+		/** Entry alias */
+		private final String m_sAlias;
+
+		/** Entry type */
+		private final Type m_type;
+
+		/** Entry creation date, null if not applicable */
+		private final Date m_dCreation;
+
+		/** Entry certificate chain, null if none */
+		private final Certificate[] m_certChain;
+
+		/**
+		 * Construct an AnalyzeTask.
+		 *
+		 * @param sAlias Entry alias
+		 * @param type Entry type
+		 * @param dCreation Entry creation date, null if not applicable
+		 * @param certChain Entry certificate chain, null if none
+		 */
+		private AnalyzeTask(String sAlias, Type type, Date dCreation, Certificate[] certChain)
+		{
+			m_sAlias = sAlias;
+			m_type = type;
+			m_dCreation = dCreation;
+			m_certChain = certChain;
+		}
+
+		@Override
+		public KeyStoreReportEntry call()
+		    throws CryptoException
+		{
+			Cert[] certs;
+			if (m_certChain == null)
+			{
+				certs = new Cert[0];
+			}
+			else
+			{
+				X509Certificate[] x509CertChain = X509CertUtil.convertCertificates(m_certChain);
+				certs = new Cert[x509CertChain.length];
+				for (int iCnt = 0; iCnt < x509CertChain.length; iCnt++)
+				{
+					certs[iCnt] = new Cert(x509CertChain[iCnt]);
+				}
+			}
+			return new KeyStoreReportEntry(m_sAlias, m_type, m_dCreation, certs);
+		}
+	}
+
+	/**
+	 * Immutable summary of a certificate in a keystore entry.
+	 */
+	static final class Cert
+	{
+		/** Version */
+		private final int m_iVersion;
+
+		/** Subject */
+		private final String m_sSubject;
+
+		/** Issuer */
+		private final String m_sIssuer;
+
+		/** Formatted serial number */
+		private final String m_sSerialNumber;
+
+		/** Formatted start of validity */
+		private final String m_sValidFrom;
+
+		/** Formatted end of validity */
+		private final String m_sValidUntil;
+
+		/** Public key algorithm */
+		private final String m_sKeyAlg;
+
+		/** Public key size, KeyPairUtil.UNKNOWN_KEY_SIZE if unknown */
+		private final int m_iKeySize;
+
+		/** Signature algorithm */
+		private final String m_sSigAlg;
+
+		/** MD5 fingerprint */
+		private final String m_sMd5;
+
+		/** SHA-1 fingerprint */
+		private final String m_sSha1;
+
+		/** SHA-256 fingerprint */
+		private final String m_sSha256;
+
+		/**
+		 * Construct a Cert, computing the summary of a certificate.
+		 *
+		 * @param cert The certificate
+		 * @throws CryptoException If the certificate could not be encoded or a fingerprint could not be computed
+		 */
+		private Cert(X509Certificate cert)
+		    throws CryptoException
+		{
+			CertificateInfo info = CertificateInfo.getInstance(cert);
+
+			m_iVersion = cert.getVersion();
+			m_sSubject = info.getSubject();
+			m_sIssuer = info.getIssuer();
+			m_sSerialNumber = info.getSerialNumber();
+			m_sValidFrom = DateUtil.format(cert.getNotBefore(), DateFormat.MEDIUM, DateFormat.MEDIUM);
+			m_sValidUntil = DateUtil.format(cert.getNotAfter(), DateFormat.MEDIUM, DateFormat.MEDIUM);
+			m_sKeyAlg = info.getKeyAlgorithm();
+			m_iKeySize = info.getKeySize();
+			m_sSigAlg = cert.getSigAlgName();
+
+			Map<DigestType, String> fingerprints =
+			    info.getFingerprints(DigestType.MD5, DigestType.SHA1, DigestType.SHA256);
+			m_sMd5 = fingerprints.get(DigestType.MD5);
+			m_sSha1 = fingerprints.get(DigestType.SHA1);
+			m_sSha256 = fingerprints.get(DigestType.SHA256);
+		}
+
+		/**
+		 * Compute the summary of a certificate.
+		 *
+		 * @param cert The certificate
+		 * @return The certificate summary
+		 * @throws CryptoException If the certificate could not be encoded or a fingerprint could not be computed
+		 */
+		public static Cert getInstance(X509Certificate cert)
+		    throws CryptoException
+		{
+			return new Cert(cert);
+		}
+
+		/**
+		 * Get the version.
+		 *
+		 * @return Version
+		 */
+		public int getVersion()
+		{
+			return m_iVersion;
+		}
+
+		/**
+		 * Get the subject.
+		 *
+		 * @return Subject
+		 */
+		public String getSubject()
+		{
+			return m_sSubject;
+		}
+
+		/**
+		 * Get the issuer.
+		 *
+		 * @return Issuer
+		 */
+		public String getIssuer()
+		{
+			return m_sIssuer;
+		}
+
+		/**
+		 * Get the formatted serial number.
+		 *
+		 * @return Serial number
+		 */
+		public String getSerialNumber()
+		{
+			return m_sSerialNumber;
+		}
+
+		/**
+		 * Get the formatted start of validity.
+		 *
+		 * @return Start of validity
+		 */
+		public String getValidFrom()
+		{
+			return m_sValidFrom;
+		}
+
+		/**
+		 * Get the formatted end of validity.
+		 *
+		 * @return End of validity
+		 */
+		public String getValidUntil()
+		{
+			return m_sValidUntil;
+		}
+
+		/**
+		 * Get the public key algorithm.
+		 *
+		 * @return Public key algorithm
+		 */
+		public String getKeyAlgorithm()
+		{
+			return m_sKeyAlg;
+		}
+
+		/**
+		 * Get the public key size.
+		 *
+		 * @return Public key size, KeyPairUtil.UNKNOWN_KEY_SIZE if unknown
+		 */
+		public int getKeySize()
+		{
+			return m_iKeySize;
+		}
+
+		/**
+		 * Get the public key algorithm, with the key size if known.
+		 *
+		 * @return Public key description
+		 */
+		public String getKeyDescription()
+		{
+			if (m_iKeySize == KeyPairUtil.UNKNOWN_KEY_SIZE)
+			{
+				return m_sKeyAlg;
+			}
+			return MessageFormat.format(RB.getString("DKeyStoreReport.KeyAlg"), m_sKeyAlg, m_iKeySize);
+		}
+
+		/**
+		 * Get the signature algorithm.
+		 *
+		 * @return Signature algorithm
+		 */
+		public String getSignatureAlgorithm()
+		{
+			return m_sSigAlg;
+		}
+
+		/**
+		 * Get the MD5 fingerprint.
+		 *
+		 * @return MD5 fingerprint
+		 */
+		public String getMd5Fingerprint()
+		{
+			return m_sMd5;
+		}
+
+		/**
+		 * Get the SHA-1 fingerprint.
+		 *
+		 * @return SHA-1 fingerprint
+		 */
+		public String getSha1Fingerprint()
+		{
+			return m_sSha1;
+		}
+
+		/**
+		 * Get the SHA-256 fingerprint.
+		 *
+		 * @return SHA-256 fingerprint
+		 */
+		public String getSha256Fingerprint()
+		{
+			return m_sSha256;
+		}
+	}
+}
@@ -0,0 +1,646 @@
+/*
+ * KeyStoreReportWriter.java
+ * This file is part of Portecle, a multipurpose keystore and certificate tool.
+ *
+ * Copyright © 2026 The Portecle Project
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.sf.portecle;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.security.KeyStore;
+import java.util.List;
+import java.util.Locale;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import net.sf.portecle.crypto.CryptoException;
+import net.sf.portecle.crypto.KeyStoreType;
+
+/**
+ * Streaming keystore report writer. Entries are written out one at a time from their summaries, without building a
+ * document tree of the whole report in memory.
+ */
+abstract class KeyStoreReportWriter
+    implements Closeable
+{
+	/**
+	 * Keystore report output formats.
+	 */
+	enum Format
+	{
+		/** XML, see keystore.dtd */
+		XML("xml"),
+		/** JSON */
+		JSON("json"),
+		/** Comma separated values, one row per certificate */
+		CSV("csv");
+
+		/** Filename extension */
+		private final String m_sExt;
+
+		/**
+		 * Construct a Format.
+		 *
+		 * @param sExt Filename extension
+		 */
+		private Format(String sExt)
+		{
+			m_sExt = sExt;
+		}
+
+		/**
+		 * Get the filename extension of the format.
+		 *
+		 * @return Filename extension
+		 */
+		public String getFilenameExtension()
+		{
+			return m_sExt;
+		}
+
+		/**
+		 * Get the format corresponding to a file's extension.
+		 *
+		 * @param file The file
+		 * @return The format, or null if the file's extension is not recognized
+		 */
+		public static Format valueOfFile(File file)
+		{
+			String sName = file.getName().toLowerCase(Locale.ENGLISH);
+			for (Format format : values())
+			{
+				if (sName.endsWith("." + format.m_sExt))
+				{
+					return format;
+				}
+			}
+			return null;
+		}
+	}
+
+	/** Public identifier of the XML report DTD */
+	private static final String DTD_PUBLIC_ID = "-//Portecle//DTD KeyStore Report 1.0//EN";
+
+	/** System identifier of the XML report DTD */
+	private static final String DTD_SYSTEM_ID = "http://portecle.sourceforge.net/xml/keystore.dtd";
+
+	/** Names of the per certificate report fields, in output order */
+	private static final String[] CERT_FIELDS = { "version", "subject", "issuer", "serial_number",
+	    "valid_from", "valid_until", "public_key_algorithm", "signature_algorithm", "md5_fingerprint",
+	    "sha1_fingerprint", "sha256_fingerprint" };
+
+	/** Writer to write the report to */
+	protected final Writer m_out;
+
+	/**
+	 * Construct a KeyStoreReportWriter.
+	 *
+	 * @param out Writer to write the report to
+	 */
+	protected KeyStoreReportWriter(Writer out)
+	{
+		m_out = out;
+	}
+
+	/**
+	 * Get a report writer for the given format.
+	 *
+	 * @param format The report format
+	 * @param out Writer to write the report to; closed when the report writer is closed
+	 * @return The report writer
+	 * @throws IOException If the report writer could not be created
+	 */
+	public static KeyStoreReportWriter getInstance(Format format, Writer out)
+	    throws IOException
+	{
+		switch (format)
+		{
+			case XML:
+				return new XmlWriter(out);
+			case JSON:
+				return new JsonWriter(out);
+			case CSV:
+				return new CsvWriter(out);
+			default:
+				throw new IllegalArgumentException("Unsupported report format: " + format);
+		}
+	}
+
+	/**
+	 * Write a report on the contents of a keystore.
+	 *
+	 * @param keyStore The keystore
+	 * @throws CryptoException A crypto related problem was encountered generating the keystore report
+	 * @throws IOException If an I/O error occurs
+	 */
+	public void write(KeyStore keyStore)
+	    throws CryptoException, IOException
+	{
+		String sType = KeyStoreType.valueOfType(keyStore.getType()).getTypeName();
+		String sProvider = keyStore.getProvider().getName();
+
+		startReport(sType, sProvider);
+
+		// Entries are analyzed in parallel and written out in alias order as soon as each is ready
+		try (KeyStoreReportEntry.Analyzer analyzer = KeyStoreReportEntry.analyze(keyStore))
+		{
+			for (KeyStoreReportEntry entry = analyzer.next(); entry != null; entry = analyzer.next())
+			{
+				startEntry(entry.getAlias(), entry.getCreation(), entry.getType().getReportName());
+
+				List<KeyStoreReportEntry.Cert> certs = entry.getCertificates();
+				for (int iCnt = 0; iCnt < certs.size(); iCnt++)
+				{
+					writeCertificate(iCnt, getCertificateValues(certs.get(iCnt)));
+				}
+
+				endEntry();
+			}
+		}
+
+		endReport();
+		m_out.flush();
+	}
+
+	/**
+	 * Get the report field values of a certificate, in <code>CERT_FIELDS</code> order.
+	 *
+	 * @param cert The certificate summary
+	 * @return The field values
+	 */
+	private static String[] getCertificateValues(KeyStoreReportEntry.Cert cert)
+	{
+		return new String[] { String.valueOf(cert.getVersion()), cert.getSubject(), cert.getIssuer(),
+		    cert.getSerialNumber(), cert.getValidFrom(), cert.getValidUntil(), cert.getKeyDescription(),
+		    cert.getSignatureAlgorithm(), cert.getMd5Fingerprint(), cert.getSha1Fingerprint(),
+		    cert.getSha256Fingerprint() };
+	}
+
+	/**
+	 * Write the start of the report.
+	 *
+	 * @param sType Keystore type name
+	 * @param sProvider Keystore provider name
+	 * @throws IOException If an I/O error occurs
+	 */
+	protected abstract void startReport(String sType, String sProvider)
+	    throws IOException;
+
+	/**
+	 * Write the start of a keystore entry.
+	 *
+	 * @param sAlias Entry alias
+	 * @param sCreation Formatted entry creation date, null if not applicable
+	 * @param sEntryType Entry type name
+	 * @throws IOException If an I/O error occurs
+	 */
+	protected abstract void startEntry(String sAlias, String sCreation, String sEntryType)
+	    throws IOException;
+
+	/**
+	 * Write a certificate of the current entry.
+	 *
+	 * @param iIndex Index of the certificate in the entry's certificate chain
+	 * @param values Certificate field values, in <code>CERT_FIELDS</code> order
+	 * @throws IOException If an I/O error occurs
+	 */
+	protected abstract void writeCertificate(int iIndex, String[] values)
+	    throws IOException;
+
+	/**
+	 * Write the end of the current keystore entry.
+	 *
+	 * @throws IOException If an I/O error occurs
+	 */
+	protected abstract void endEntry()
+	    throws IOException;
+
+	/**
+	 * Write the end of the report.
+	 *
+	 * @throws IOException If an I/O error occurs
+	 */
+	protected abstract void endReport()
+	    throws IOException;
+
+	/**
+	 * Close the report writer and the underlying writer.
+	 *
+	 * @throws IOException If an I/O error occurs
+	 */
+	@Override
+	public void close()
+	    throws IOException
+	{
+		m_out.close();
+	}
+
+	/**
+	 * XML keystore report writer.
+	 */
+	private static class XmlWriter
+	    extends KeyStoreReportWriter
+	{
+		/** Indentation unit */
+		private static final String INDENT = "  ";
+
+		/** StAX writer */
+		private final XMLStreamWriter m_xml;
+
+		/**
+		 * Construct an XmlWriter.
+		 *
+		 * @param out Writer to write the report to
+		 * @throws IOException If the XML writer could not be created
+		 */
+		private XmlWriter(Writer out)
+		    throws IOException
+		{
+			super(out);
+			try
+			{
+				m_xml = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
+			}
+			catch (XMLStreamException ex)
+			{
+				throw new IOException(ex);
+			}
+		}
+
+		@Override
+		protected void startReport(String sType, String sProvider)
+		    throws IOException
+		{
+			try
+			{
+				m_xml.writeStartDocument("UTF-8", "1.0");
+				m_xml.writeCharacters("\n");
+				m_xml.writeDTD("<!DOCTYPE keystore PUBLIC \"" + DTD_PUBLIC_ID + "\" \"" + DTD_SYSTEM_ID + "\">");
+				m_xml.writeCharacters("\n");
+				m_xml.writeStartElement("keystore");
+				m_xml.writeAttribute("type", sType);
+				m_xml.writeAttribute("provider", sProvider);
+			}
+			catch (XMLStreamException ex)
+			{
+				throw new IOException(ex);
+			}
+		}
+
+		@Override
+		protected void startEntry(String sAlias, String sCreation, String sEntryType)
+		    throws IOException
+		{
+			try
+			{
+				m_xml.writeCharacters("\n" + INDENT);
+				m_xml.writeStartElement("entry");
+				m_xml.writeAttribute("alias", sAlias);
+				if (sCreation != null)
+				{
+					m_xml.writeAttribute("creation_date", sCreation);
+				}
+				m_xml.writeAttribute("type", sEntryType);
+			}
+			catch (XMLStreamException ex)
+			{
+				throw new IOException(ex);
+			}
+		}
+
+		@Override
+		protected void writeCertificate(int iIndex, String[] values)
+		    throws IOException
+		{
+			try
+			{
+				m_xml.writeCharacters("\n" + INDENT + INDENT);
+				m_xml.writeStartElement("certificate");
+				for (int i = 0; i < CERT_FIELDS.length; i++)
+				{
+					m_xml.writeCharacters("\n" + INDENT + INDENT + INDENT);
+					m_xml.writeStartElement(CERT_FIELDS[i]);
+					m_xml.writeCharacters(values[i]);
+					m_xml.writeEndElement();
+				}
+				m_xml.writeCharacters("\n" + INDENT + INDENT);
+				m_xml.writeEndElement();
+			}
+			catch (XMLStreamException ex)
+			{
+				throw new IOException(ex);
+			}
+		}
+
+		@Override
+		protected void endEntry()
+		    throws IOException
+		{
+			try
+			{
+				m_xml.writeCharacters("\n" + INDENT);
+				m_xml.writeEndElement();
+				// Entries can be large; don't let the StAX writer hold on to them
+				m_xml.flush();
+			}
+			catch (XMLStreamException ex)
+			{
+				throw new IOException(ex);
+			}
+		}
+
+		@Override
+		protected void endReport()
+		    throws IOException
+		{
+			try
+			{
+				m_xml.writeCharacters("\n");
+				m_xml.writeEndElement();
+				m_xml.writeEndDocument();
+				m_xml.flush();
+			}
+			catch (XMLStreamException ex)
+			{
+				throw new IOException(ex);
+			}
+			m_out.write('\n');
+		}
+	}
+
+	/**
+	 * JSON keystore report writer.
+	 */
+	private static class JsonWriter
+	    extends KeyStoreReportWriter
+	{
+		/** Whether the current entry is the first one in the report */
+		private boolean m_bFirstEntry = true;
+
+		/**
+		 * Construct a JsonWriter.
+		 *
+		 * @param out Writer to write the report to
+		 */
+		private JsonWriter(Writer out)
+		{
+			super(out);
+		}
+
+		@Override
+		protected void startReport(String sType, String sProvider)
+		    throws IOException
+		{
+			m_out.write("{\n  \"type\": ");
+			writeString(sType);
+			m_out.write(",\n  \"provider\": ");
+			writeString(sProvider);
+			m_out.write(",\n  \"entries\": [");
+		}
+
+		@Override
+		protected void startEntry(String sAlias, String sCreation, String sEntryType)
+		    throws IOException
+		{
+			m_out.write(m_bFirstEntry ? "\n    {\n" : ",\n    {\n");
+			m_bFirstEntry = false;
+
+			m_out.write("      \"alias\": ");
+			writeString(sAlias);
+			if (sCreation != null)
+			{
+				m_out.write(",\n      \"creation_date\": ");
+				writeString(sCreation);
+			}
+			m_out.write(",\n      \"type\": ");
+			writeString(sEntryType);
+			m_out.write(",\n      \"certificates\": [");
+		}
+
+		@Override
+		protected void writeCertificate(int iIndex, String[] values)
+		    throws IOException
+		{
+			m_out.write(iIndex == 0 ? "\n        {" : ",\n        {");
+			for (int i = 0; i < CERT_FIELDS.length; i++)
+			{
+				m_out.write(i == 0 ? "\n          \"" : ",\n          \"");
+				m_out.write(CERT_FIELDS[i]);
+				m_out.write("\": ");
+				writeString(values[i]);
+			}
+			m_out.write("\n        }");
+		}
+
+		@Override
+		protected void endEntry()
+		    throws IOException
+		{
+			m_out.write("\n      ]\n    }");
+		}
+
+		@Override
+		protected void endReport()
+		    throws IOException
+		{
+			m_out.write(m_bFirstEntry ? "]\n}\n" : "\n  ]\n}\n");
+		}
+
+		/**
+		 * Write a quoted and escaped JSON string.
+		 *
+		 * @param sValue The string
+		 * @throws IOException If an I/O error occurs
+		 */
+		private void writeString(String sValue)
+		    throws IOException
+		{
+			m_out.write('"');
+			for (int i = 0, len = sValue.length(); i < len; i++)
+			{
+				char c = sValue.charAt(i);
+				switch (c)
+				{
+					case '"':
+						m_out.write("\\\"");
+						break;
+					case '\\':
+						m_out.write("\\\\");
+						break;
+					case '\n':
+						m_out.write("\\n");
+						break;
+					case '\r':
+						m_out.write("\\r");
+						break;
+					case '\t':
+						m_out.write("\\t");
+						break;
+					default:
+						if (c < 0x20)
+						{
+							m_out.write(String.format("\\u%04x", (int) c));
+						}
+						else
+						{
+							m_out.write(c);
+						}
+				}
+			}
+			m_out.write('"');
+		}
+	}
+
+	/**
+	 * CSV (RFC 4180) keystore report writer. Writes one row per certificate, and one row for entries without
+	 * certificates.
+	 */
+	private static class CsvWriter
+	    extends KeyStoreReportWriter
+	{
+		/** Record separator */
+		private static final String CRLF = "\r\n";
+
+		/** Alias of the current entry */
+		private String m_sAlias;
+
+		/** Creation date of the current entry */
+		private String m_sCreation;
+
+		/** Type of the current entry */
+		private String m_sEntryType;
+
+		/** Whether a row has been written for the current entry */
+		private boolean m_bEntryWritten;
+
+		/**
+		 * Construct a CsvWriter.
+		 *
+		 * @param out Writer to write the report to
+		 */
+		private CsvWriter(Writer out)
+		{
+			super(out);
+		}
+
+		@Override
+		protected void startReport(String sType, String sProvider)
+		    throws IOException
+		{
+			m_out.write("alias,type,creation_date,certificate");
+			for (String sField : CERT_FIELDS)
+			{
+				m_out.write(',');
+				m_out.write(sField);
+			}
+			m_out.write(CRLF);
+		}
+
+		@Override
+		protected void startEntry(String sAlias, String sCreation, String sEntryType)
+		{
+			m_sAlias = sAlias;
+			m_sCreation = sCreation;
+			m_sEntryType = sEntryType;
+			m_bEntryWritten = false;
+		}
+
+		@Override
+		protected void writeCertificate(int iIndex, String[] values)
+		    throws IOException
+		{
+			writeEntryColumns();
+			m_out.write(',');
+			m_out.write(String.valueOf(iIndex + 1));
+			for (String sValue : values)
+			{
+				m_out.write(',');
+				writeField(sValue);
+			}
+			m_out.write(CRLF);
+			m_bEntryWritten = true;
+		}
+
+		@Override
+		protected void endEntry()
+		    throws IOException
+		{
+			if (!m_bEntryWritten)
+			{
+				writeEntryColumns();
+				m_out.write(',');
+				for (int i = 0; i < CERT_FIELDS.length; i++)
+				{
+					m_out.write(',');
+				}
+				m_out.write(CRLF);
+			}
+		}
+
+		@Override
+		protected void endReport()
+		{
+			// Nothing to do
+		}
+
+		/**
+		 * Write the entry columns of a row.
+		 *
+		 * @throws IOException If an I/O error occurs
+		 */
+		private void writeEntryColumns()
+		    throws IOException
+		{
+			writeField(m_sAlias);
+			m_out.write(',');
+			writeField(m_sEntryType);
+			m_out.write(',');
+			if (m_sCreation != null)
+			{
+				writeField(m_sCreation);
+			}
+		}
+
+		/**
+		 * Write a field, quoting it if necessary.
+		 *
+		 * @param sValue The field value
+		 * @throws IOException If an I/O error occurs
+		 */
+		private void writeField(String sValue)
+		    throws IOException
+		{
+			if (sValue.indexOf(',') == -1 && sValue.indexOf('"') == -1 && sValue.indexOf('\n') == -1 &&
+			    sValue.indexOf('\r') == -1)
+			{
+				m_out.write(sValue);
+			}
+			else
+			{
+				m_out.write('"');
+				m_out.write(sValue.replace("\"", "\"\""));
+				m_out.write('"');
+			}
+		}
+	}
+}
@@ -0,0 +1,504 @@
+/*
+ * KeyStoreSearchIndex.java
+ * This file is part of Portecle, a multipurpose keystore and certificate tool.
+ *
+ * Copyright © 2026 The Portecle Project
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.sf.portecle;
+
+import java.io.IOException;
+import java.security.cert.X509Certificate;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.security.auth.x500.X500Principal;
+
+import org.bouncycastle.asn1.x500.AttributeTypeAndValue;
+import org.bouncycastle.asn1.x500.RDN;
+import org.bouncycastle.asn1.x509.Extension;
+
+import net.sf.portecle.crypto.ExtensionValue;
+import net.sf.portecle.crypto.NameUtil;
+import net.sf.portecle.crypto.X509Ext;
+
+/**
+ * Inverted index over the aliases and certificate attributes of keystore entries.
+ * <p>
+ * Each attribute value is indexed as a whole and word by word, both under its field name and under no field. A query
+ * consists of whitespace separated terms, all of which an entry must match. A term is either a prefix of an indexed
+ * value or word, optionally qualified with a field name as in <code>san:example.com</code>, or an expiry range as in
+ * <code>expires&lt;2027-01-01</code>, <code>expires&gt;2026-06-30</code>, or <code>expires&lt;30d</code> for
+ * days from now. Terms are case insensitive. Malformed expiry terms match nothing.
+ * </p>
+ * <p>
+ * Fields: <code>alias</code>, <code>subject</code>, <code>issuer</code>, <code>san</code> (subject alternative
+ * names), <code>serial</code> (hex), <code>ku</code> (key usage), and <code>eku</code> (extended key usage).
+ * </p>
+ */
+class KeyStoreSearchIndex
+{
+	/** Logger */
+	private static final Logger LOG = Logger.getLogger(KeyStoreSearchIndex.class.getCanonicalName());
+
+	/** Indexed field names */
+	private static final Set<String> FIELDS =
+	    new HashSet<>(Arrays.asList("alias", "subject", "issuer", "san", "serial", "ku", "eku"));
+
+	/** Separator of field name and value in index keys; values indexed under no field have an empty field name */
+	private static final char FIELD_SEPARATOR = '\0';
+
+	/** Word separators within attribute values */
+	private static final Pattern WORD_SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+	/** Expiry range term */
+	private static final Pattern EXPIRES_TERM = Pattern.compile("expires([<>])(?:(\\d+)d|(\\d{4}-\\d{2}-\\d{2}))");
+
+	/** Date format of expiry range terms */
+	private static final String EXPIRES_DATE_FORMAT = "yyyy-MM-dd";
+
+	/** Aliases by index key, i.e. field name, separator, and value or word */
+	private final TreeMap<String, Set<String>> m_postings = new TreeMap<>();
+
+	/** Aliases by certificate expiry time */
+	private final TreeMap<Long, Set<String>> m_expiries = new TreeMap<>();
+
+	/** Index keys of each alias, for removal */
+	private final Map<String, Set<String>> m_keys = new HashMap<>();
+
+	/** Certificate expiry time of each alias, for removal */
+	private final Map<String, Long> m_expiry = new HashMap<>();
+
+	/**
+	 * Add or replace an entry in the index.
+	 *
+	 * @param sAlias The entry alias
+	 * @param cert The entry's leaf certificate, null if none
+	 */
+	public void put(String sAlias, X509Certificate cert)
+	{
+		remove(sAlias);
+
+		Set<String> keys = new HashSet<>();
+		addKeys(keys, "alias", sAlias);
+
+		if (cert != null)
+		{
+			addNameKeys(keys, "subject", cert.getSubjectX500Principal());
+			addNameKeys(keys, "issuer", cert.getIssuerX500Principal());
+			addKeys(keys, "serial", cert.getSerialNumber().toString(16));
+			addExtensionKeys(keys, "san", cert, Extension.subjectAlternativeName.getId());
+			addExtensionKeys(keys, "ku", cert, Extension.keyUsage.getId());
+			addExtensionKeys(keys, "eku", cert, Extension.extendedKeyUsage.getId());
+
+			Long lExpiry = cert.getNotAfter().getTime();
+			m_expiry.put(sAlias, lExpiry);
+			addAlias(m_expiries, lExpiry, sAlias);
+		}
+
+		for (String sKey : keys)
+		{
+			addAlias(m_postings, sKey, sAlias);
+		}
+		m_keys.put(sAlias, keys);
+	}
+
+	/**
+	 * Remove an entry from the index.
+	 *
+	 * @param sAlias The entry alias
+	 */
+	public void remove(String sAlias)
+	{
+		Set<String> keys = m_keys.remove(sAlias);
+		if (keys != null)
+		{
+			for (String sKey : keys)
+			{
+				removeAlias(m_postings, sKey, sAlias);
+			}
+		}
+		Long lExpiry = m_expiry.remove(sAlias);
+		if (lExpiry != null)
+		{
+			removeAlias(m_expiries, lExpiry, sAlias);
+		}
+	}
+
+	/**
+	 * Is an entry in the index?
+	 *
+	 * @param sAlias The entry alias
+	 * @return True if it is, false otherwise
+	 */
+	public boolean contains(String sAlias)
+	{
+		return m_keys.containsKey(sAlias);
+	}
+
+	/**
+	 * Get the indexed aliases.
+	 *
+	 * @return Unmodifiable set of aliases
+	 */
+	public Set<String> getAliases()
+	{
+		return Collections.unmodifiableSet(m_keys.keySet());
+	}
+
+	/**
+	 * Find the entries matching a query.
+	 *
+	 * @param sQuery The query
+	 * @return Aliases of the matching entries; all indexed aliases if the query has no terms
+	 */
+	public Set<String> search(String sQuery)
+	{
+		String[] terms = sQuery.trim().toLowerCase(Locale.ENGLISH).split("\\s+");
+		if (terms.length == 1 && terms[0].isEmpty())
+		{
+			return new HashSet<>(m_keys.keySet());
+		}
+
+		List<Collection<Set<String>>> matches = new ArrayList<>(terms.length);
+		for (String sTerm : terms)
+		{
+			Collection<Set<String>> termMatches = getTermMatches(sTerm);
+			if (termMatches.isEmpty())
+			{
+				return new HashSet<>();
+			}
+			matches.add(termMatches);
+		}
+
+		// Intersect, starting from the term with the fewest matches
+		Collections.sort(matches, new Comparator<Collection<Set<String>>>()
+		{
+			@Override
+			public int compare(Collection<Set<String>> c1, Collection<Set<String>> c2)
+			{
+				return Integer.compare(countAliases(c1), countAliases(c2));
+			}
+		});
+		Set<String> result = new HashSet<>();
+		for (Set<String> aliases : matches.get(0))
+		{
+			result.addAll(aliases);
+		}
+		for (int i = 1, len = matches.size(); i < len && !result.isEmpty(); i++)
+		{
+			result = intersect(result, matches.get(i));
+		}
+		return result;
+	}
+
+	/**
+	 * Get the alias sets matching a query term.
+	 *
+	 * @param sTerm The lower case query term
+	 * @return Matching alias sets, empty if none
+	 */
+	private Collection<Set<String>> getTermMatches(String sTerm)
+	{
+		Matcher m = EXPIRES_TERM.matcher(sTerm);
+		if (m.matches())
+		{
+			long lLimit;
+			if (m.group(2) != null)
+			{
+				lLimit = System.currentTimeMillis() + TimeUnit.DAYS.toMillis(Long.parseLong(m.group(2)));
+			}
+			else
+			{
+				try
+				{
+					lLimit = DateUtil.parse(EXPIRES_DATE_FORMAT, m.group(3)).getTime();
+				}
+				catch (ParseException ex)
+				{
+					return Collections.emptyList();
+				}
+			}
+			return m.group(1).equals("<") ? m_expiries.headMap(lLimit, false).values()
+			    : m_expiries.tailMap(lLimit, false).values();
+		}
+		if (sTerm.startsWith("expires<") || sTerm.startsWith("expires>"))
+		{
+			return Collections.emptyList();
+		}
+
+		String sField = "";
+		String sValue = sTerm;
+		int iColon = sTerm.indexOf(':');
+		if (iColon > 0 && FIELDS.contains(sTerm.substring(0, iColon)))
+		{
+			sField = sTerm.substring(0, iColon);
+			sValue = sTerm.substring(iColon + 1);
+		}
+		if ("serial".equals(sField))
+		{
+			sValue = normalizeSerial(sValue);
+		}
+
+		String sPrefix = sField + FIELD_SEPARATOR + sValue;
+		NavigableMap<String, Set<String>> range =
+		    m_postings.subMap(sPrefix, true, sPrefix + Character.MAX_VALUE, false);
+		return range.values();
+	}
+
+	/**
+	 * Intersect aliases with the union of alias sets, iterating over whichever side is expected to be cheaper.
+	 *
+	 * @param aliases The aliases
+	 * @param aliasSets The alias sets
+	 * @return The aliases contained in any of the alias sets
+	 */
+	private static Set<String> intersect(Set<String> aliases, Collection<Set<String>> aliasSets)
+	{
+		Set<String> result = new HashSet<>();
+		if ((long) aliases.size() * aliasSets.size() < countAliases(aliasSets))
+		{
+			for (String sAlias : aliases)
+			{
+				for (Set<String> aliasSet : aliasSets)
+				{
+					if (aliasSet.contains(sAlias))
+					{
+						result.add(sAlias);
+						break;
+					}
+				}
+			}
+		}
+		else
+		{
+			for (Set<String> aliasSet : aliasSets)
+			{
+				for (String sAlias : aliasSet)
+				{
+					if (aliases.contains(sAlias))
+					{
+						result.add(sAlias);
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Count the aliases in alias sets, possibly counting some more than once.
+	 *
+	 * @param aliasSets The alias sets
+	 * @return Number of aliases
+	 */
+	private static int countAliases(Collection<Set<String>> aliasSets)
+	{
+		int iCount = 0;
+		for (Set<String> aliases : aliasSets)
+		{
+			iCount += aliases.size();
+		}
+		return iCount;
+	}
+
+	/**
+	 * Add the index keys of a distinguished name's attribute values.
+	 *
+	 * @param keys Index keys to add to
+	 * @param sField The field name
+	 * @param name The distinguished name
+	 */
+	private static void addNameKeys(Set<String> keys, String sField, X500Principal name)
+	{
+		for (RDN rdn : NameUtil.getParsedName(name).getX500Name().getRDNs())
+		{
+			for (AttributeTypeAndValue atv : rdn.getTypesAndValues())
+			{
+				addKeys(keys, sField, atv.getValue().toString());
+			}
+		}
+	}
+
+	/**
+	 * Add the index keys of a certificate extension's decoded values.
+	 *
+	 * @param keys Index keys to add to
+	 * @param sField The field name
+	 * @param cert The certificate
+	 * @param sOid The extension object identifier
+	 */
+	private static void addExtensionKeys(Set<String> keys, String sField, X509Certificate cert, String sOid)
+	{
+		byte[] bValue = cert.getExtensionValue(sOid);
+		if (bValue == null)
+		{
+			return;
+		}
+		try
+		{
+			ExtensionValue value = new X509Ext(sOid, bValue, false).getDecodedValue();
+			addExtensionValueKeys(keys, sField, value);
+		}
+		catch (IOException | ParseException | RuntimeException ex)
+		{
+			// Not searchable, but does not prevent searching the rest
+			LOG.log(Level.FINE, "Could not decode extension " + sOid + " for indexing", ex);
+		}
+	}
+
+	/**
+	 * Add the index keys of the leaf values of a decoded extension value tree, and of the object identifiers in it.
+	 *
+	 * @param keys Index keys to add to
+	 * @param sField The field name
+	 * @param value The decoded extension value
+	 */
+	private static void addExtensionValueKeys(Set<String> keys, String sField, ExtensionValue value)
+	{
+		if (value.getOid() != null)
+		{
+			addKeys(keys, sField, value.getOid());
+		}
+		List<ExtensionValue> children = value.getChildren();
+		if (children.isEmpty())
+		{
+			String sValue = value.getValue();
+			if (sValue != null)
+			{
+				for (String sLine : sValue.split("\n"))
+				{
+					addKeys(keys, sField, sLine.trim());
+				}
+			}
+			return;
+		}
+		for (ExtensionValue child : children)
+		{
+			addExtensionValueKeys(keys, sField, child);
+		}
+	}
+
+	/**
+	 * Add the index keys of a value: the whole value and each of its words, with and without the field name.
+	 *
+	 * @param keys Index keys to add to
+	 * @param sField The field name
+	 * @param sValue The value
+	 */
+	private static void addKeys(Set<String> keys, String sField, String sValue)
+	{
+		String sLower = sValue.toLowerCase(Locale.ENGLISH);
+		if ("serial".equals(sField))
+		{
+			sLower = normalizeSerial(sLower);
+		}
+		if (sLower.isEmpty())
+		{
+			return;
+		}
+		addKey(keys, sField, sLower);
+		for (String sWord : WORD_SEPARATORS.split(sLower))
+		{
+			if (!sWord.isEmpty())
+			{
+				addKey(keys, sField, sWord);
+			}
+		}
+	}
+
+	/**
+	 * Add an index key with and without the field name.
+	 *
+	 * @param keys Index keys to add to
+	 * @param sField The field name
+	 * @param sToken The value or word
+	 */
+	private static void addKey(Set<String> keys, String sField, String sToken)
+	{
+		keys.add(sField + FIELD_SEPARATOR + sToken);
+		keys.add(FIELD_SEPARATOR + sToken);
+	}
+
+	/**
+	 * Normalize a hex serial number: separators and leading zeros are dropped.
+	 *
+	 * @param sSerial The lower case serial number
+	 * @return Normalized serial number
+	 */
+	private static String normalizeSerial(String sSerial)
+	{
+		String sHex = sSerial.replaceAll("[\\s:]", "");
+		int i = 0;
+		while (i < sHex.length() - 1 && sHex.charAt(i) == '0')
+		{
+			i++;
+		}
+		return sHex.substring(i);
+	}
+
+	/**
+	 * Add an alias to the set of a key, creating the set if necessary.
+	 *
+	 * @param map The map of alias sets
+	 * @param key The key
+	 * @param sAlias The alias
+	 */
+	private static <K> void addAlias(Map<K, Set<String>> map, K key, String sAlias)
+	{
+		Set<String> aliases = map.get(key);
+		if (aliases == null)
+		{
+			aliases = new HashSet<>(2);
+			map.put(key, aliases);
+		}
+		aliases.add(sAlias);
+	}
+
+	/**
+	 * Remove an alias from the set of a key, removing the set if it becomes empty.
+	 *
+	 * @param map The map of alias sets
+	 * @param key The key
+	 * @param sAlias The alias
+	 */
+	private static <K> void removeAlias(Map<K, Set<String>> map, K key, String sAlias)
+	{
+		Set<String> aliases = map.get(key);
+		if (aliases != null && aliases.remove(sAlias) && aliases.isEmpty())
+		{
+			map.remove(key);
+		}
+	}
+}
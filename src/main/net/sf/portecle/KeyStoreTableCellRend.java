@@ -25,7 +25,6 @@ package net.sf.portecle;
 import static net.sf.portecle.FPortecle.RB;
 
 import java.awt.Component;
-import java.text.DateFormat;
 import java.util.Date;
 
 import javax.swing.ImageIcon;
@@ -88,7 +87,7 @@ class KeyStoreTableCellRend
 		else if (value instanceof Date)
 		{
 			// Include time zone
-			cell.setText(DateFormat.getDateTimeInstance(DateFormat.MEDIUM, DateFormat.LONG).format((Date) value));
+			cell.setText(DateUtil.formatDateTime((Date) value));
 		}
 		else if (value != null)
 		{
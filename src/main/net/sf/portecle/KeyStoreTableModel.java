@@ -24,11 +24,22 @@ package net.sf.portecle;
 
 import java.security.KeyStore;
 import java.security.KeyStoreException;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.swing.table.AbstractTableModel;
 
+import net.sf.portecle.crypto.CryptoException;
+import net.sf.portecle.crypto.DigestType;
+import net.sf.portecle.crypto.DigestUtil;
 import net.sf.portecle.crypto.KeyStoreType;
 
 /**
@@ -54,12 +65,33 @@ class KeyStoreTableModel
 	/** Column classes */
 	private static final Class<?>[] COLUMN_CLASSES = { String.class, String.class, Date.class };
 
-	/** Holds the table data */
-	private Object[][] m_data;
+	/** Holds the table data, one array of column values per row */
+	private List<Object[]> m_data;
+
+	/** Row index of each alias in the table data */
+	private Map<String, Integer> m_rowIndex;
 
 	/** Parent Portecle object */
 	private final FPortecle portecle;
 
+	/** Keystore the cached entry metadata belongs to */
+	private KeyStore m_keyStore;
+
+	/** Cached entry metadata, keyed by alias */
+	private Map<String, EntryInfo> m_cache = new HashMap<>();
+
+	/** Fingerprint (upper case hex without separators) to alias index per digest type, built on first search */
+	private final Map<DigestType, Map<String, String>> m_fingerprintIndex = new EnumMap<>(DigestType.class);
+
+	/** Search index of the cached entries, built on first search and then kept up to date; null if not built */
+	private KeyStoreSearchIndex m_searchIndex;
+
+	/** Current search query, null if none */
+	private String m_sSearch;
+
+	/** Aliases of the entries matching the current search query, null if there is no query */
+	private Set<String> m_searchMatches;
+
 	/**
 	 * Construct a new KeyStoreTableModel.
 	 *
@@ -67,12 +99,15 @@ class KeyStoreTableModel
 	 */
 	public KeyStoreTableModel(FPortecle portecle)
 	{
-		m_data = new Object[0][getColumnCount()];
+		m_data = new ArrayList<>();
+		m_rowIndex = new HashMap<>();
 		this.portecle = portecle;
 	}
 
 	/**
-	 * Load the KeyStoreTableModel with the entries from a keystore.
+	 * Load the KeyStoreTableModel with the entries from a keystore. Entry metadata is cached per alias, so reloading
+	 * the same keystore reads only the entries that are new; entries changed since should be refreshed with
+	 * {@link #updateEntry(KeyStore, String)}.
 	 *
 	 * @param keyStore The keystore
 	 * @throws KeyStoreException A problem is encountered accessing the keystore's entries
@@ -80,11 +115,24 @@ class KeyStoreTableModel
 	public void load(KeyStore keyStore)
 	    throws KeyStoreException
 	{
+		// Cached metadata is only valid for the keystore it was read from
+		if (keyStore != m_keyStore)
+		{
+			m_cache.clear();
+			m_searchIndex = null;
+			m_keyStore = keyStore;
+		}
+
 		// Does the keystore support creation dates?
 		boolean cdSupport = KeyStoreType.valueOfType(keyStore.getType()).isEntryCreationDateUseful();
 
 		// Create one table row for each keystore entry
-		m_data = new Object[keyStore.size()][getColumnCount()];
+		int iSize = keyStore.size();
+		List<Object[]> data = new ArrayList<>(iSize);
+		Map<String, Integer> rowIndex = new HashMap<>(iSize * 4 / 3 + 1);
+
+		// Entries no longer in the keystore are dropped from the cache
+		Map<String, EntryInfo> cache = new HashMap<>(iSize * 4 / 3 + 1);
 
 		// Iterate through the aliases, retrieving the keystore entries and populating the table model
 		int iCnt = 0;
@@ -92,37 +140,275 @@ class KeyStoreTableModel
 		{
 			String sAlias = en.nextElement();
 
-			// Populate the type column - it is set with an integer but a custom cell renderer will cause a
-			// suitable icon to be displayed
-			if (keyStore.isCertificateEntry(sAlias))
+			EntryInfo info = m_cache.remove(sAlias);
+			if (info == null)
 			{
-				m_data[iCnt][0] = TRUST_CERT_ENTRY;
+				info = new EntryInfo(keyStore, sAlias, cdSupport);
+				if (m_searchIndex != null)
+				{
+					m_searchIndex.put(sAlias, info.getCertificate());
+				}
 			}
-			else if (keyStore.isKeyEntry(sAlias) && keyStore.getCertificateChain(sAlias) != null &&
-			    keyStore.getCertificateChain(sAlias).length != 0)
+			cache.put(sAlias, info);
+
+			rowIndex.put(sAlias, iCnt);
+			data.add(getRow(sAlias, info));
+
+			iCnt++;
+		}
+
+		// What is left in the old cache is no longer in the keystore
+		if (m_searchIndex != null)
+		{
+			for (String sAlias : m_cache.keySet())
 			{
-				m_data[iCnt][0] = KEY_PAIR_ENTRY;
+				m_searchIndex.remove(sAlias);
 			}
-			else
+		}
+
+		m_data = data;
+		m_rowIndex = rowIndex;
+		m_cache = cache;
+		m_fingerprintIndex.clear();
+		refreshSearch();
+
+		fireTableDataChanged();
+	}
+
+	/**
+	 * Update the table row of a single keystore entry after it has been added, changed, or removed, firing a row
+	 * inserted, updated, or deleted event accordingly. Other rows are left untouched, which preserves the table's
+	 * sort order and selection.
+	 *
+	 * @param keyStore The keystore
+	 * @param sAlias The entry alias
+	 * @throws KeyStoreException A problem is encountered accessing the keystore's entries
+	 */
+	public void updateEntry(KeyStore keyStore, String sAlias)
+	    throws KeyStoreException
+	{
+		if (keyStore != m_keyStore)
+		{
+			load(keyStore);
+			return;
+		}
+
+		m_cache.remove(sAlias);
+		m_fingerprintIndex.clear();
+		Integer iRow = m_rowIndex.get(sAlias);
+
+		if (keyStore.containsAlias(sAlias))
+		{
+			// The keystore may store the alias in a different case than the one it was given in
+			String sStoredAlias = sAlias;
+			if (iRow == null)
 			{
-				m_data[iCnt][0] = KEY_ENTRY;
+				sStoredAlias = getStoredAlias(keyStore, sAlias);
+				m_cache.remove(sStoredAlias);
+				iRow = m_rowIndex.get(sStoredAlias);
 			}
 
-			// Populate the alias column
-			m_data[iCnt][1] = sAlias;
+			boolean cdSupport = KeyStoreType.valueOfType(keyStore.getType()).isEntryCreationDateUseful();
+			EntryInfo info = new EntryInfo(keyStore, sStoredAlias, cdSupport);
+			m_cache.put(sStoredAlias, info);
+			if (m_searchIndex != null)
+			{
+				m_searchIndex.put(sStoredAlias, info.getCertificate());
+				refreshSearch();
+			}
 
-			// Populate the modified date column
-			if (cdSupport)
+			if (iRow == null)
 			{
-				m_data[iCnt][2] = keyStore.getCreationDate(sAlias);
+				int iNewRow = m_data.size();
+				m_data.add(getRow(sStoredAlias, info));
+				m_rowIndex.put(sStoredAlias, iNewRow);
+				fireTableRowsInserted(iNewRow, iNewRow);
 			}
+			else
+			{
+				m_data.set(iRow, getRow(sStoredAlias, info));
+				fireTableRowsUpdated(iRow, iRow);
+			}
+		}
+		else if (iRow != null)
+		{
+			int iDelRow = iRow;
+			m_data.remove(iDelRow);
+			m_rowIndex.remove(sAlias);
+			if (m_searchIndex != null)
+			{
+				m_searchIndex.remove(sAlias);
+				refreshSearch();
+			}
+			for (int i = iDelRow, len = m_data.size(); i < len; i++)
+			{
+				m_rowIndex.put((String) m_data.get(i)[1], i);
+			}
+			fireTableRowsDeleted(iDelRow, iDelRow);
+		}
+	}
 
-			iCnt++;
+	/**
+	 * Get the alias of an entry the way the keystore stores it.
+	 *
+	 * @param keyStore The keystore
+	 * @param sAlias The entry alias, possibly in a different case than in the keystore
+	 * @return The stored alias
+	 * @throws KeyStoreException A problem is encountered accessing the keystore's entries
+	 */
+	private static String getStoredAlias(KeyStore keyStore, String sAlias)
+	    throws KeyStoreException
+	{
+		for (Enumeration<String> en = keyStore.aliases(); en.hasMoreElements();)
+		{
+			String sStoredAlias = en.nextElement();
+			if (sStoredAlias.equalsIgnoreCase(sAlias))
+			{
+				return sStoredAlias;
+			}
 		}
+		return sAlias;
+	}
+
+	/**
+	 * Get the column values of a table row.
+	 *
+	 * @param sAlias The entry alias
+	 * @param info The entry metadata
+	 * @return The column values
+	 */
+	private static Object[] getRow(String sAlias, EntryInfo info)
+	{
+		// The type column is set with a string but a custom cell renderer will cause a suitable icon to be
+		// displayed
+		return new Object[] { info.getType(), sAlias, info.getCreationDate() };
+	}
 
+	/**
+	 * Filter the entries by a search query, see {@link KeyStoreSearchIndex} for the syntax. The search index is built
+	 * on the first search, and kept up to date incrementally as entries are loaded, updated, and removed. Filtering
+	 * itself is left to the table's row filter, which consults {@link #isSearchMatch(int)}.
+	 *
+	 * @param sQuery The query, null or blank to show all entries
+	 */
+	public void setSearch(String sQuery)
+	{
+		m_sSearch = (sQuery == null || sQuery.trim().isEmpty()) ? null : sQuery;
+		refreshSearch();
 		fireTableDataChanged();
 	}
 
+	/**
+	 * Does an entry match the current search query?
+	 *
+	 * @param iRow The row position
+	 * @return True if it does or there is no query, false otherwise
+	 */
+	public boolean isSearchMatch(int iRow)
+	{
+		return m_searchMatches == null || m_searchMatches.contains(m_data.get(iRow)[1]);
+	}
+
+	/**
+	 * Is there a current search query?
+	 *
+	 * @return True if there is, false otherwise
+	 */
+	public boolean isSearching()
+	{
+		return m_sSearch != null;
+	}
+
+	/**
+	 * Get the number of entries matching the current search query.
+	 *
+	 * @return Number of matching entries, or number of all entries if there is no query
+	 */
+	public int getSearchMatchCount()
+	{
+		return (m_searchMatches == null) ? m_data.size() : m_searchMatches.size();
+	}
+
+	/**
+	 * Re-evaluate the current search query, building the search index if necessary.
+	 */
+	private void refreshSearch()
+	{
+		if (m_sSearch == null)
+		{
+			m_searchMatches = null;
+			return;
+		}
+		if (m_searchIndex == null)
+		{
+			m_searchIndex = new KeyStoreSearchIndex();
+			for (Map.Entry<String, EntryInfo> entry : m_cache.entrySet())
+			{
+				m_searchIndex.put(entry.getKey(), entry.getValue().getCertificate());
+			}
+		}
+		m_searchMatches = m_searchIndex.search(m_sSearch);
+	}
+
+	/**
+	 * Get the table data row of an entry.
+	 *
+	 * @param sAlias The entry alias
+	 * @return The row index, -1 if there is no such entry
+	 */
+	public int getRowIndex(String sAlias)
+	{
+		Integer iRow = m_rowIndex.get(sAlias);
+		return (iRow == null) ? -1 : iRow;
+	}
+
+	/**
+	 * Find the entry whose leaf certificate has the given fingerprint. The fingerprint may be in any notation accepted
+	 * by {@link DigestUtil#normalizeFingerprint(String)}; its length determines the digest type. An index of the
+	 * loaded entries' fingerprints is built on the first search per digest type and reused until the entries change.
+	 *
+	 * @param sFingerprint The fingerprint
+	 * @return The alias of the matching entry, or null if none matches or the fingerprint is not recognized
+	 * @throws CryptoException If a fingerprint could not be computed
+	 */
+	public String findAlias(String sFingerprint)
+	    throws CryptoException
+	{
+		String sHex = DigestUtil.normalizeFingerprint(sFingerprint);
+		if (sHex == null)
+		{
+			return null;
+		}
+		return getFingerprintIndex(DigestType.valueOfLength(sHex.length() / 2)).get(sHex);
+	}
+
+	/**
+	 * Get the fingerprint to alias index of a digest type, building it if necessary.
+	 *
+	 * @param digestType The digest type
+	 * @return The index
+	 * @throws CryptoException If a fingerprint could not be computed
+	 */
+	private Map<String, String> getFingerprintIndex(DigestType digestType)
+	    throws CryptoException
+	{
+		Map<String, String> index = m_fingerprintIndex.get(digestType);
+		if (index == null)
+		{
+			index = new HashMap<>(m_cache.size() * 4 / 3 + 1);
+			for (Map.Entry<String, EntryInfo> entry : m_cache.entrySet())
+			{
+				String sFingerprint = entry.getValue().getFingerprint(digestType);
+				if (sFingerprint != null)
+				{
+					index.put(sFingerprint.replace(":", ""), entry.getKey());
+				}
+			}
+			m_fingerprintIndex.put(digestType, index);
+		}
+		return index;
+	}
+
 	/**
 	 * Get the number of columns in the table.
 	 *
@@ -142,7 +428,7 @@ class KeyStoreTableModel
 	@Override
 	public int getRowCount()
 	{
-		return m_data.length;
+		return m_data.size();
 	}
 
 	/**
@@ -167,7 +453,7 @@ class KeyStoreTableModel
 	@Override
 	public Object getValueAt(int iRow, int iCol)
 	{
-		return m_data[iRow][iCol];
+		return m_data.get(iRow)[iCol];
 	}
 
 	@Override
@@ -175,7 +461,7 @@ class KeyStoreTableModel
 	{
 		if (isCellEditable(rowIndex, columnIndex))
 		{
-			portecle.renameEntry(m_data[rowIndex][columnIndex].toString(), value.toString(), true);
+			portecle.renameEntry(m_data.get(rowIndex)[columnIndex].toString(), value.toString(), true);
 		}
 	}
 
@@ -209,6 +495,101 @@ class KeyStoreTableModel
 		// Key-only entries are not renameable - we do a remove-store operation but the KeyStore API won't
 		// allow us to store a PrivateKey without associated certificate chain.
 		// TODO: Maybe it'd work for other Key types? Need testing material.
-		return !KEY_ENTRY.equals(m_data[iRow][0]);
+		return !KEY_ENTRY.equals(m_data.get(iRow)[0]);
+	}
+
+	/**
+	 * Metadata of a keystore entry, read once and cached by the table model.
+	 */
+	private static final class EntryInfo
+	{
+		/** Entry type, one of the *_ENTRY constants */
+		private final String m_sType;
+
+		/** Entry creation date, null if not supported by the keystore type */
+		private final Date m_dCreation;
+
+		/** Leaf certificate, null if none */
+		private final X509Certificate m_cert;
+
+		/**
+		 * Construct an EntryInfo by reading an entry from a keystore.
+		 *
+		 * @param keyStore The keystore
+		 * @param sAlias The entry alias
+		 * @param cdSupport Whether the keystore supports creation dates
+		 * @throws KeyStoreException A problem is encountered accessing the entry
+		 */
+		private EntryInfo(KeyStore keyStore, String sAlias, boolean cdSupport)
+		    throws KeyStoreException
+		{
+			Certificate cert = null;
+
+			if (keyStore.isCertificateEntry(sAlias))
+			{
+				m_sType = TRUST_CERT_ENTRY;
+				cert = keyStore.getCertificate(sAlias);
+			}
+			else
+			{
+				Certificate[] certChain = keyStore.isKeyEntry(sAlias) ? keyStore.getCertificateChain(sAlias) : null;
+				if (certChain != null && certChain.length != 0)
+				{
+					m_sType = KEY_PAIR_ENTRY;
+					cert = certChain[0];
+				}
+				else
+				{
+					m_sType = KEY_ENTRY;
+				}
+			}
+
+			m_cert = (cert instanceof X509Certificate) ? (X509Certificate) cert : null;
+			m_dCreation = cdSupport ? keyStore.getCreationDate(sAlias) : null;
+		}
+
+		/**
+		 * Get the entry type.
+		 *
+		 * @return One of the *_ENTRY constants
+		 */
+		public String getType()
+		{
+			return m_sType;
+		}
+
+		/**
+		 * Get the entry creation date.
+		 *
+		 * @return Creation date, null if not supported by the keystore type
+		 */
+		public Date getCreationDate()
+		{
+			return (m_dCreation == null) ? null : new Date(m_dCreation.getTime());
+		}
+
+		/**
+		 * Get the leaf certificate.
+		 *
+		 * @return Certificate, null if the entry has no X.509 certificate
+		 */
+		public X509Certificate getCertificate()
+		{
+			return m_cert;
+		}
+
+		/**
+		 * Get a fingerprint of the leaf certificate. Fingerprints are computed on first use and cached with the
+		 * certificate.
+		 *
+		 * @param digestType The message digest algorithm
+		 * @return Fingerprint, null if the entry has no X.509 certificate
+		 * @throws CryptoException If the fingerprint could not be computed
+		 */
+		public String getFingerprint(DigestType digestType)
+		    throws CryptoException
+		{
+			return (m_cert == null) ? null : DigestUtil.getFingerprint(m_cert, digestType);
+		}
 	}
 }
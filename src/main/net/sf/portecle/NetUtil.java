@@ -21,21 +21,30 @@
 
 package net.sf.portecle;
 
-import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Networking utilities.
+ * <p>
+ * Responses are read completely and their streams closed, so that HTTP connections are kept alive and reused for
+ * subsequent requests to the same server. Conditional GETs revalidate responses kept by {@link DownloadCache}.
+ * </p>
  *
  * @author Ville Skyttä
  */
@@ -44,11 +53,14 @@ public final class NetUtil
 	/** Logger */
 	private static final Logger LOG = Logger.getLogger(NetUtil.class.getCanonicalName());
 
-	// TODO: make this configurable
-	private static final int CONNECT_TIMEOUT = 10000;
+	/** Connect timeout in milliseconds */
+	private static final AtomicInteger CONNECT_TIMEOUT = new AtomicInteger(10000);
 
-	// TODO: make this configurable
-	private static final int READ_TIMEOUT = 20000;
+	/** Read timeout in milliseconds */
+	private static final AtomicInteger READ_TIMEOUT = new AtomicInteger(20000);
+
+	/** Buffer size for reading responses */
+	private static final int BUFFER_SIZE = 16384;
 
 	/**
 	 * Private to prevent construction.
@@ -59,45 +71,227 @@ public final class NetUtil
 	}
 
 	/**
-	 * Open an input stream to a GET(-like) operation on an URL.
+	 * Get the connect timeout.
+	 *
+	 * @return Connect timeout in milliseconds
+	 */
+	public static int getConnectTimeout()
+	{
+		return CONNECT_TIMEOUT.get();
+	}
+
+	/**
+	 * Set the connect timeout.
+	 *
+	 * @param iTimeout Connect timeout in milliseconds, 0 for none
+	 */
+	public static void setConnectTimeout(int iTimeout)
+	{
+		if (iTimeout < 0)
+		{
+			throw new IllegalArgumentException("Timeout must be >= 0");
+		}
+		CONNECT_TIMEOUT.set(iTimeout);
+	}
+
+	/**
+	 * Get the read timeout.
+	 *
+	 * @return Read timeout in milliseconds
+	 */
+	public static int getReadTimeout()
+	{
+		return READ_TIMEOUT.get();
+	}
+
+	/**
+	 * Set the read timeout.
+	 *
+	 * @param iTimeout Read timeout in milliseconds, 0 for none
+	 */
+	public static void setReadTimeout(int iTimeout)
+	{
+		if (iTimeout < 0)
+		{
+			throw new IllegalArgumentException("Timeout must be >= 0");
+		}
+		READ_TIMEOUT.set(iTimeout);
+	}
+
+	/**
+	 * Open an input stream to a GET(-like) operation on an URL. The response is fetched completely, see
+	 * {@link #fetch(URL)}.
 	 *
 	 * @param url The URL
-	 * @return Input stream to the URL connection
+	 * @return Input stream to the response
 	 * @throws IOException If an I/O error occurs
 	 */
 	public static InputStream openGetStream(URL url)
 	    throws IOException
 	{
-		URLConnection conn = url.openConnection();
+		return new ByteArrayInputStream(fetch(url));
+	}
 
-		conn.setConnectTimeout(CONNECT_TIMEOUT);
-		conn.setReadTimeout(READ_TIMEOUT);
+	/**
+	 * Fetch the contents of an URL with a GET(-like) operation. Responses are not kept here; see {@link DownloadCache}
+	 * for caching and revalidation.
+	 *
+	 * @param url The URL
+	 * @return The contents
+	 * @throws IOException If an I/O error occurs
+	 */
+	public static byte[] fetch(URL url)
+	    throws IOException
+	{
+		return fetch(url, null, 0).getContent();
+	}
 
-		// TODO: User-Agent?
+	/**
+	 * Fetch the contents of an URL with a GET(-like) operation, conditionally on them having been modified if
+	 * validators of a previous HTTP response are given.
+	 *
+	 * @param url The URL
+	 * @param sETag Entity tag of the previous response, null if none
+	 * @param lLastModified Modification time of the previous response, 0 if not known
+	 * @return The response
+	 * @throws IOException If an I/O error occurs
+	 */
+	public static Response fetch(URL url, String sETag, long lLastModified)
+	    throws IOException
+	{
+		URLConnection conn = openConnection(url);
+		if (!(conn instanceof HttpURLConnection))
+		{
+			return new Response(readFully(conn), null, 0, 0, false);
+		}
 
-		return conn.getInputStream();
+		HttpURLConnection httpConn = (HttpURLConnection) conn;
+		boolean bConditional = false;
+		if (sETag != null)
+		{
+			httpConn.setRequestProperty("If-None-Match", sETag);
+			bConditional = true;
+		}
+		if (lLastModified != 0)
+		{
+			httpConn.setIfModifiedSince(lLastModified);
+			bConditional = true;
+		}
+
+		byte[] bContent;
+		try
+		{
+			if (bConditional && httpConn.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED)
+			{
+				// Consume the (empty) body so that the connection can be reused
+				readFully(httpConn);
+				LOG.log(Level.FINE, "Not modified: {0}", url);
+				// Validators may be updated; keep the previous ones otherwise
+				String sNewETag = httpConn.getHeaderField("ETag");
+				long lNewLastModified = httpConn.getLastModified();
+				return new Response(null, (sNewETag == null) ? sETag : sNewETag,
+				    (lNewLastModified == 0) ? lLastModified : lNewLastModified, getExpiration(httpConn),
+				    hasCacheDirective(httpConn, "no-store"));
+			}
+			bContent = readFully(httpConn);
+		}
+		catch (IOException e)
+		{
+			discardErrorStream(httpConn);
+			throw e;
+		}
+
+		return new Response(bContent, httpConn.getHeaderField("ETag"), httpConn.getLastModified(),
+		    getExpiration(httpConn), hasCacheDirective(httpConn, "no-store"));
+	}
+
+	/**
+	 * Get the time until which a HTTP response is fresh, from its Cache-Control max-age directive or Expires header.
+	 * Responses with a no-cache or no-store directive are stale immediately.
+	 *
+	 * @param conn The connection
+	 * @return Expiration time, 0 if the server gave none
+	 */
+	private static long getExpiration(HttpURLConnection conn)
+	{
+		long lNow = System.currentTimeMillis();
+		if (hasCacheDirective(conn, "no-cache") || hasCacheDirective(conn, "no-store"))
+		{
+			return lNow;
+		}
+		for (String sDirective : getCacheDirectives(conn))
+		{
+			if (sDirective.startsWith("max-age="))
+			{
+				try
+				{
+					return lNow + 1000L * Long.parseLong(sDirective.substring(8).trim());
+				}
+				catch (NumberFormatException e)
+				{
+					// Fall back to Expires
+					break;
+				}
+			}
+		}
+		return conn.getExpiration();
+	}
+
+	/**
+	 * Does a HTTP response have a Cache-Control directive?
+	 *
+	 * @param conn The connection
+	 * @param sDirective The directive name, in lower case
+	 * @return True if the directive is present, with or without an argument, false otherwise
+	 */
+	private static boolean hasCacheDirective(HttpURLConnection conn, String sDirective)
+	{
+		for (String sPresent : getCacheDirectives(conn))
+		{
+			if (sPresent.equals(sDirective) || sPresent.startsWith(sDirective + "="))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Get the Cache-Control directives of a HTTP response.
+	 *
+	 * @param conn The connection
+	 * @return The directives, trimmed and in lower case
+	 */
+	private static String[] getCacheDirectives(HttpURLConnection conn)
+	{
+		String sCacheControl = conn.getHeaderField("Cache-Control");
+		if (sCacheControl == null)
+		{
+			return new String[0];
+		}
+		String[] directives = sCacheControl.split(",");
+		for (int i = 0; i < directives.length; i++)
+		{
+			directives[i] = directives[i].trim().toLowerCase(Locale.ENGLISH);
+		}
+		return directives;
 	}
 
 	/**
-	 * Open an input stream to a POST(-like) operation on an URL.
+	 * Open an input stream to a POST(-like) operation on an URL. The response is read completely.
 	 *
 	 * @param url The URL
 	 * @param content Content to POST
 	 * @param contentType Content type
-	 * @return Input stream to the URL connection
+	 * @return Input stream to the response
 	 * @throws IOException If an I/O error occurs
 	 */
 	public static InputStream openPostStream(URL url, byte[] content, String contentType)
 	    throws IOException
 	{
-		URLConnection conn = url.openConnection();
+		URLConnection conn = openConnection(url);
 		conn.setDoOutput(true);
 
-		conn.setConnectTimeout(CONNECT_TIMEOUT);
-		conn.setReadTimeout(READ_TIMEOUT);
-
-		// TODO: User-Agent?
-
 		if (contentType != null)
 		{
 			conn.setRequestProperty("Content-Type", contentType);
@@ -105,12 +299,23 @@ public final class NetUtil
 
 		conn.setRequestProperty("Content-Length", String.valueOf(content.length));
 
-		try (OutputStream out = conn.getOutputStream())
+		try
 		{
-			out.write(content);
-		}
+			try (OutputStream out = conn.getOutputStream())
+			{
+				out.write(content);
+			}
 
-		return conn.getInputStream();
+			return new ByteArrayInputStream(readFully(conn));
+		}
+		catch (IOException e)
+		{
+			if (conn instanceof HttpURLConnection)
+			{
+				discardErrorStream((HttpURLConnection) conn);
+			}
+			throw e;
+		}
 	}
 
 	/**
@@ -133,15 +338,7 @@ public final class NetUtil
 		try (InputStream in = openGetStream(url))
 		{
 			tempFile = File.createTempFile("portecle", null);
-			try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tempFile)))
-			{
-				byte[] buf = new byte[2048];
-				int n;
-				while ((n = in.read(buf)) != -1)
-				{
-					out.write(buf, 0, n);
-				}
-			}
+			Files.copy(in, tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
 		}
 		catch (IOException e)
 		{
@@ -157,6 +354,85 @@ public final class NetUtil
 		return tempFile.toURI().toURL();
 	}
 
+	/**
+	 * Open a connection to an URL with the configured timeouts.
+	 *
+	 * @param url The URL
+	 * @return The connection
+	 * @throws IOException If an I/O error occurs
+	 */
+	private static URLConnection openConnection(URL url)
+	    throws IOException
+	{
+		URLConnection conn = url.openConnection();
+
+		conn.setConnectTimeout(CONNECT_TIMEOUT.get());
+		conn.setReadTimeout(READ_TIMEOUT.get());
+
+		// TODO: User-Agent?
+
+		return conn;
+	}
+
+	/**
+	 * Read the response of a connection completely, and close its stream.
+	 *
+	 * @param conn The connection
+	 * @return The response
+	 * @throws IOException If an I/O error occurs
+	 */
+	private static byte[] readFully(URLConnection conn)
+	    throws IOException
+	{
+		try (InputStream in = conn.getInputStream())
+		{
+			return readFully(in, conn.getContentLength());
+		}
+	}
+
+	/**
+	 * Read a stream completely.
+	 *
+	 * @param in The stream
+	 * @param iLength Expected length, -1 if not known
+	 * @return The contents
+	 * @throws IOException If an I/O error occurs
+	 */
+	private static byte[] readFully(InputStream in, int iLength)
+	    throws IOException
+	{
+		// The expected length comes from the peer, so it only limits the initial buffer size
+		ByteArrayOutputStream out =
+		    new ByteArrayOutputStream((iLength > 0) ? Math.min(iLength, BUFFER_SIZE) : BUFFER_SIZE);
+		byte[] buf = new byte[BUFFER_SIZE];
+		int n;
+		while ((n = in.read(buf)) != -1)
+		{
+			out.write(buf, 0, n);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Read and discard the error response of a connection, so that the connection can be reused.
+	 *
+	 * @param conn The connection
+	 */
+	private static void discardErrorStream(HttpURLConnection conn)
+	{
+		try (InputStream err = conn.getErrorStream())
+		{
+			if (err != null)
+			{
+				readFully(err, -1);
+			}
+		}
+		catch (IOException e)
+		{
+			LOG.log(Level.FINE, "Could not read error response", e);
+		}
+	}
+
 	/**
 	 * Creates a URL pointing to a URL, URI or a File object.
 	 *
@@ -181,4 +457,104 @@ public final class NetUtil
 			return (URL) obj;
 		}
 	}
+
+	/**
+	 * Response of a GET(-like) operation.
+	 */
+	public static final class Response
+	{
+		/** The contents, null if not modified */
+		private final byte[] m_bContent;
+
+		/** Entity tag, null if none */
+		private final String m_sETag;
+
+		/** Modification time, 0 if not known */
+		private final long m_lLastModified;
+
+		/** Expiration time, 0 if none given */
+		private final long m_lExpiration;
+
+		/** Whether the response must not be stored */
+		private final boolean m_bNoStore;
+
+		/**
+		 * Construct a Response.
+		 *
+		 * @param bContent The contents, null if not modified
+		 * @param sETag Entity tag, null if none
+		 * @param lLastModified Modification time, 0 if not known
+		 * @param lExpiration Expiration time, 0 if none given
+		 * @param bNoStore Whether the response must not be stored
+		 */
+		private Response(byte[] bContent, String sETag, long lLastModified, long lExpiration, boolean bNoStore)
+		{
+			m_bContent = bContent;
+			m_sETag = sETag;
+			m_lLastModified = lLastModified;
+			m_lExpiration = lExpiration;
+			m_bNoStore = bNoStore;
+		}
+
+		/**
+		 * Was the response not modified since the previous one?
+		 *
+		 * @return True if not modified, false otherwise
+		 */
+		public boolean isNotModified()
+		{
+			return m_bContent == null;
+		}
+
+		/**
+		 * Get the contents.
+		 *
+		 * @return The contents, null if not modified
+		 */
+		public byte[] getContent()
+		{
+			return m_bContent;
+		}
+
+		/**
+		 * Get the entity tag.
+		 *
+		 * @return Entity tag, null if none
+		 */
+		public String getETag()
+		{
+			return m_sETag;
+		}
+
+		/**
+		 * Get the modification time.
+		 *
+		 * @return Modification time, 0 if not known
+		 */
+		public long getLastModified()
+		{
+			return m_lLastModified;
+		}
+
+		/**
+		 * Get the time until which the response is fresh. Responses the server requires to be revalidated on every
+		 * use expire at the time they were received.
+		 *
+		 * @return Expiration time, 0 if none given
+		 */
+		public long getExpiration()
+		{
+			return m_lExpiration;
+		}
+
+		/**
+		 * Must the response not be stored, per a Cache-Control no-store directive?
+		 *
+		 * @return True if the response must not be stored, false otherwise
+		 */
+		public boolean isNoStore()
+		{
+			return m_bNoStore;
+		}
+	}
 }
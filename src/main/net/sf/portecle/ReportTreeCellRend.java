@@ -110,7 +110,7 @@ class ReportTreeCellRend
 			else if (iLevel == 2)
 			{
 				// PKCS #12 keystores will not have a created node
-				if (iIndex == 0 && node.getChildCount() == 0)
+				if (iIndex == 0 && !node.getAllowsChildren())
 				{
 					icon = new ImageIcon(getClass().getResource(RB.getString("ReportTreeCellRend.Created.image")));
 					cell.setToolTipText(RB.getString("ReportTreeCellRend.Created.tooltip"));
@@ -24,7 +24,6 @@ package net.sf.portecle;
 
 import java.awt.Component;
 import java.awt.Font;
-import java.text.DateFormat;
 import java.util.Date;
 
 import javax.swing.JLabel;
@@ -79,7 +78,7 @@ class RevokedCertsTableCellRend
 		else
 		{
 			// Include time zone
-			cell.setText(DateFormat.getDateTimeInstance(DateFormat.MEDIUM, DateFormat.LONG).format((Date) value));
+			cell.setText(DateUtil.formatDateTime((Date) value));
 		}
 
 		cell.setBorder(new EmptyBorder(0, 5, 0, 5));
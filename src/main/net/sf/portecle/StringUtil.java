@@ -33,31 +33,32 @@ import org.bouncycastle.asn1.ASN1Integer;
  */
 public class StringUtil
 {
+	/** Upper case hex digits by nibble value */
+	private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
 	/**
 	 * Convert the supplied object to hex characters sub-divided by spaces every given number of characters, and
-	 * left-padded with zeros to fill group size.
+	 * left-padded with zeros to fill group size. Byte arrays are converted in full, including leading zero bytes.
 	 *
 	 * @param obj Object (byte array, BigInteger, ASN1Integer)
-	 * @param groupSize number of characters to group hex characters by
+	 * @param groupSize number of characters to group hex characters by, 0 for no grouping
 	 * @param separator grouping separator
 	 * @return Hex string
 	 * @throws IllegalArgumentException if obj is not a BigInteger, byte array, or an ASN1Integer, or groupSize &lt; 0
 	 */
 	public static StringBuilder toHex(Object obj, int groupSize, String separator)
 	{
-		if (groupSize < 0)
+		if (obj instanceof byte[])
 		{
-			throw new IllegalArgumentException("Group size must be >= 0");
+			byte[] bytes = (byte[]) obj;
+			return toHex(bytes, 0, bytes.length, groupSize, separator);
 		}
+
 		BigInteger bigInt;
 		if (obj instanceof BigInteger)
 		{
 			bigInt = (BigInteger) obj;
 		}
-		else if (obj instanceof byte[])
-		{
-			bigInt = new BigInteger(1, (byte[]) obj);
-		}
 		else if (obj instanceof ASN1Integer)
 		{
 			bigInt = ((ASN1Integer) obj).getValue();
@@ -68,34 +69,87 @@ public class StringUtil
 			    "Don't know how to convert " + obj.getClass().getName() + " to a hex string");
 		}
 
-		// Convert to hex
-
-		StringBuilder sb = new StringBuilder(bigInt.toString(16).toUpperCase(Locale.ENGLISH));
+		String sDigits = bigInt.toString(16).toUpperCase(Locale.ENGLISH);
+		return writeHex(null, 0, sDigits, sDigits.length(), groupSize, separator);
+	}
 
-		// Left-pad if asked and necessary
+	/**
+	 * Convert a range of the supplied byte array to hex characters sub-divided by separators every given number of
+	 * characters, and left-padded with zeros to fill group size.
+	 *
+	 * @param bytes byte array
+	 * @param offset index of the first byte to convert
+	 * @param length number of bytes to convert
+	 * @param groupSize number of characters to group hex characters by, 0 for no grouping
+	 * @param separator grouping separator
+	 * @return Hex string
+	 * @throws IllegalArgumentException if groupSize &lt; 0
+	 * @throws IndexOutOfBoundsException if the range is not within the array
+	 */
+	public static StringBuilder toHex(byte[] bytes, int offset, int length, int groupSize, String separator)
+	{
+		if (offset < 0 || length < 0 || offset > bytes.length - length)
+		{
+			throw new IndexOutOfBoundsException("Range [" + offset + ", " + (offset + length) +
+			    ") out of bounds for length " + bytes.length);
+		}
+		return writeHex(bytes, offset, null, length * 2, groupSize, separator);
+	}
 
-		if (groupSize != 0)
+	/**
+	 * Write hex characters, left-padded with zeros and sub-divided by separators, into a pre-sized buffer in one pass.
+	 * The characters come either from a byte array via a lookup table, or from a ready made string of hex digits.
+	 *
+	 * @param bytes byte array, or null to use <code>sDigits</code>
+	 * @param offset index of the first byte to convert
+	 * @param sDigits hex digits, used if <code>bytes</code> is null
+	 * @param nDigits number of hex digits to write, excluding padding
+	 * @param groupSize number of characters to group hex characters by, 0 for no grouping
+	 * @param separator grouping separator
+	 * @return Hex string
+	 * @throws IllegalArgumentException if groupSize &lt; 0
+	 */
+	private static StringBuilder writeHex(byte[] bytes, int offset, String sDigits, int nDigits, int groupSize,
+	    String separator)
+	{
+		if (groupSize < 0)
 		{
-			int len = groupSize - (sb.length() % groupSize);
-			if (len != groupSize)
-			{
-				for (int i = 0; i < len; i++)
-				{
-					sb.insert(0, '0');
-				}
-			}
+			throw new IllegalArgumentException("Group size must be >= 0");
 		}
 
-		// Place separator at every groupSize characters
+		// Left-pad to fill the first group, and place separator between groups
 
-		if (sb.length() > groupSize && !separator.isEmpty())
+		int nPad = (groupSize == 0) ? 0 : (groupSize - nDigits % groupSize) % groupSize;
+		int nTotal = nPad + nDigits;
+		int nSeps = (groupSize == 0 || nTotal == 0) ? 0 : (nTotal - 1) / groupSize;
+		int sepLen = separator.length();
+
+		char[] out = new char[nTotal + nSeps * sepLen];
+		int pos = 0;
+		for (int i = 0; i < nTotal; i++)
 		{
-			for (int i = groupSize; i < sb.length(); i += groupSize + separator.length())
+			if (i != 0 && groupSize != 0 && i % groupSize == 0)
+			{
+				separator.getChars(0, sepLen, out, pos);
+				pos += sepLen;
+			}
+
+			int digit = i - nPad;
+			if (digit < 0)
+			{
+				out[pos++] = '0';
+			}
+			else if (bytes == null)
+			{
+				out[pos++] = sDigits.charAt(digit);
+			}
+			else
 			{
-				sb.insert(i, separator);
+				int b = bytes[offset + (digit >> 1)];
+				out[pos++] = HEX_DIGITS[((digit & 1) == 0) ? (b >> 4) & 0xF : b & 0xF];
 			}
 		}
 
-		return sb;
+		return new StringBuilder(out.length + 16).append(out);
 	}
 }
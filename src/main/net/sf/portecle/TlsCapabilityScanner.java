@@ -0,0 +1,383 @@
+/*
+ * TlsCapabilityScanner.java
+ * This file is part of Portecle, a multipurpose keystore and certificate tool.
+ *
+ * Copyright © 2026 The Portecle Project
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.sf.portecle;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
+
+/**
+ * Enumerates the protocol versions and cipher suites an SSL/TLS server accepts, and the certificate chains it serves
+ * for different server names. Every combination is tried with a handshake of its own; the handshakes are multiplexed
+ * by a {@link TlsProbe} and aborted as soon as the server's certificate chain has been received, so a full scan takes
+ * a few round trips rather than one handshake after another.
+ * <p>
+ * All protocols and cipher suites this Java runtime supports are tried, not only those enabled by default, so that
+ * servers still accepting legacy ones can be found. Those the runtime refuses to offer, for example because they are
+ * disabled with the <code>jdk.tls.disabledAlgorithms</code> security property, cannot be tried; they are reported as
+ * not testable locally.
+ * </p>
+ */
+public final class TlsCapabilityScanner
+{
+	/** The probe to handshake with */
+	private final TlsProbe m_probe;
+
+	/**
+	 * Construct a TlsCapabilityScanner.
+	 *
+	 * @param iMaxConcurrent Maximum number of handshakes in progress at the same time
+	 * @param iTimeout Time limit in milliseconds per handshake, for connecting and handshaking
+	 */
+	public TlsCapabilityScanner(int iMaxConcurrent, int iTimeout)
+	{
+		m_probe = new TlsProbe(iMaxConcurrent, iTimeout);
+	}
+
+	/**
+	 * Scan a target.
+	 *
+	 * @param target The target
+	 * @param serverNames Server names to get the certificate chains for; if empty, the target's host name is used
+	 * @return The capabilities
+	 * @throws GeneralSecurityException If an SSL context could not be set up
+	 * @throws IOException If the target could not be resolved or a selector could not be opened
+	 */
+	public Capabilities scan(InetSocketAddress target, Collection<String> serverNames)
+	    throws GeneralSecurityException, IOException
+	{
+		long lStart = System.nanoTime();
+
+		// Resolve once for all handshakes
+		InetSocketAddress address = target;
+		if (target.isUnresolved())
+		{
+			address = new InetSocketAddress(target.getHostString(), target.getPort());
+			if (address.isUnresolved())
+			{
+				throw new UnknownHostException(target.getHostString());
+			}
+		}
+
+		Set<String> names = new LinkedHashSet<>(serverNames);
+		if (names.isEmpty())
+		{
+			names.add(target.getHostString());
+		}
+		String sServerName = names.iterator().next();
+
+		// Find out what can be offered to the server, per protocol
+		SSLParameters supported =
+		    TlsContextFactory.getContext(TlsContextFactory.Verification.TRUST_ALL, null).getSupportedSSLParameters();
+		List<String> protocolList = new ArrayList<>();
+		List<String> untestableProtocols = new ArrayList<>();
+		for (String sProtocol : supported.getProtocols())
+		{
+			// Only a client hello format, not a protocol to negotiate
+			if ("SSLv2Hello".equals(sProtocol))
+			{
+				continue;
+			}
+			if (isOffered(sProtocol, null))
+			{
+				protocolList.add(sProtocol);
+			}
+			else
+			{
+				untestableProtocols.add(sProtocol);
+			}
+		}
+		String[] protocols = protocolList.toArray(new String[protocolList.size()]);
+
+		List<String> candidateSuites = new ArrayList<>();
+		for (String sCipherSuite : supported.getCipherSuites())
+		{
+			// Signaling cipher suite values do not select anything
+			if (!sCipherSuite.endsWith("_SCSV"))
+			{
+				candidateSuites.add(sCipherSuite);
+			}
+		}
+		Map<String, List<String>> offeredSuites = new LinkedHashMap<>();
+		Set<String> untestableSuites = new LinkedHashSet<>(candidateSuites);
+		for (String sProtocol : protocols)
+		{
+			List<String> suites = new ArrayList<>();
+			for (String sCipherSuite : candidateSuites)
+			{
+				if (isOffered(sProtocol, sCipherSuite))
+				{
+					suites.add(sCipherSuite);
+				}
+			}
+			offeredSuites.put(sProtocol, suites);
+			untestableSuites.removeAll(suites);
+		}
+
+		// First round: which protocols are accepted at all, and the chains per server name
+		List<TlsProbe.Request> requests = new ArrayList<>(protocols.length + names.size());
+		for (String sProtocol : protocols)
+		{
+			requests.add(new TlsProbe.Request(address, sServerName, new String[] { sProtocol }, null));
+		}
+		for (String sName : names)
+		{
+			requests.add(new TlsProbe.Request(address, sName, null, null));
+		}
+		List<TlsScanner.Result> results = m_probe.probeAll(requests);
+
+		Map<String, TlsScanner.Result> chains = new LinkedHashMap<>();
+		int i = protocols.length;
+		for (String sName : names)
+		{
+			chains.put(sName, results.get(i++));
+		}
+
+		// Second round: which cipher suites are accepted with each accepted protocol
+		requests.clear();
+		for (int iProtocol = 0; iProtocol < protocols.length; iProtocol++)
+		{
+			if (!results.get(iProtocol).isSuccess())
+			{
+				continue;
+			}
+			for (String sCipherSuite : offeredSuites.get(protocols[iProtocol]))
+			{
+				requests.add(new TlsProbe.Request(address, sServerName, new String[] { protocols[iProtocol] },
+				    new String[] { sCipherSuite }));
+			}
+		}
+		List<TlsScanner.Result> suiteResults = m_probe.probeAll(requests);
+
+		Map<String, List<String>> cipherSuites = new LinkedHashMap<>();
+		for (int iProtocol = 0; iProtocol < protocols.length; iProtocol++)
+		{
+			if (results.get(iProtocol).isSuccess())
+			{
+				cipherSuites.put(protocols[iProtocol], new ArrayList<String>());
+			}
+		}
+		for (i = 0; i < requests.size(); i++)
+		{
+			TlsScanner.Result result = suiteResults.get(i);
+			if (result.isSuccess())
+			{
+				List<String> accepted = cipherSuites.get(result.getProtocol());
+				if (accepted != null && !accepted.contains(result.getCipherSuite()))
+				{
+					accepted.add(result.getCipherSuite());
+				}
+			}
+		}
+
+		long lElapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lStart);
+		return new Capabilities(target, protocols, cipherSuites, chains,
+		    untestableProtocols.toArray(new String[untestableProtocols.size()]),
+		    new ArrayList<>(untestableSuites), lElapsed);
+	}
+
+	/**
+	 * Find out whether this Java runtime offers a protocol, or a cipher suite with a protocol, by producing a client
+	 * hello locally. Protocols and cipher suites that are disabled, or cipher suites that are not applicable to the
+	 * protocol, are not offered.
+	 *
+	 * @param sProtocol The protocol
+	 * @param sCipherSuite The cipher suite, null for the protocol's default cipher suites
+	 * @return True if offered, false otherwise
+	 * @throws GeneralSecurityException If an SSL context could not be set up
+	 */
+	private static boolean isOffered(String sProtocol, String sCipherSuite)
+	    throws GeneralSecurityException
+	{
+		SSLEngine engine = TlsContextFactory.createEngine(TlsContextFactory.Verification.TRUST_ALL,
+		    new String[] { sProtocol }, null, -1);
+		if (sCipherSuite != null)
+		{
+			engine.setEnabledCipherSuites(new String[] { sCipherSuite });
+		}
+		try
+		{
+			engine.beginHandshake();
+			engine.wrap(ByteBuffer.allocate(0), ByteBuffer.allocate(engine.getSession().getPacketBufferSize()));
+			return true;
+		}
+		catch (SSLException ex)
+		{
+			// Nothing appropriate to offer
+			return false;
+		}
+	}
+
+	/**
+	 * Capabilities of a server.
+	 */
+	public static final class Capabilities
+	{
+		/** The target */
+		private final InetSocketAddress m_target;
+
+		/** Tried protocols */
+		private final String[] m_testedProtocols;
+
+		/** Accepted cipher suites by accepted protocol */
+		private final Map<String, List<String>> m_cipherSuites;
+
+		/** Handshake results by server name */
+		private final Map<String, TlsScanner.Result> m_chains;
+
+		/** Supported protocols this Java runtime refuses to offer */
+		private final String[] m_untestableProtocols;
+
+		/** Supported cipher suites this Java runtime refuses to offer with any tried protocol */
+		private final List<String> m_untestableCipherSuites;
+
+		/** Time taken in milliseconds */
+		private final long m_lElapsed;
+
+		/**
+		 * Construct a Capabilities.
+		 *
+		 * @param target The target
+		 * @param testedProtocols Tried protocols
+		 * @param cipherSuites Accepted cipher suites by accepted protocol
+		 * @param chains Handshake results by server name
+		 * @param untestableProtocols Supported protocols this Java runtime refuses to offer
+		 * @param untestableCipherSuites Supported cipher suites this Java runtime refuses to offer with any tried
+		 *            protocol
+		 * @param lElapsed Time taken in milliseconds
+		 */
+		private Capabilities(InetSocketAddress target, String[] testedProtocols,
+		    Map<String, List<String>> cipherSuites, Map<String, TlsScanner.Result> chains,
+		    String[] untestableProtocols, List<String> untestableCipherSuites, long lElapsed)
+		{
+			m_target = target;
+			m_testedProtocols = testedProtocols;
+			m_cipherSuites = cipherSuites;
+			m_chains = chains;
+			m_untestableProtocols = untestableProtocols;
+			m_untestableCipherSuites = untestableCipherSuites;
+			m_lElapsed = lElapsed;
+		}
+
+		/**
+		 * Get the target.
+		 *
+		 * @return The target
+		 */
+		public InetSocketAddress getTarget()
+		{
+			return m_target;
+		}
+
+		/**
+		 * Get the tried protocols.
+		 *
+		 * @return Tried protocols
+		 */
+		public String[] getTestedProtocols()
+		{
+			return m_testedProtocols.clone();
+		}
+
+		/**
+		 * Get the accepted protocols.
+		 *
+		 * @return Accepted protocols, in the order they were tried
+		 */
+		public Set<String> getProtocols()
+		{
+			return Collections.unmodifiableSet(m_cipherSuites.keySet());
+		}
+
+		/**
+		 * Get the cipher suites accepted with a protocol.
+		 *
+		 * @param sProtocol The protocol
+		 * @return Accepted cipher suites, empty if the protocol was not accepted
+		 */
+		public List<String> getCipherSuites(String sProtocol)
+		{
+			List<String> cipherSuites = m_cipherSuites.get(sProtocol);
+			if (cipherSuites == null)
+			{
+				return Collections.emptyList();
+			}
+			return Collections.unmodifiableList(cipherSuites);
+		}
+
+		/**
+		 * Get the handshake results, including the certificate chains, by server name.
+		 *
+		 * @return Handshake results by server name
+		 */
+		public Map<String, TlsScanner.Result> getChains()
+		{
+			return Collections.unmodifiableMap(m_chains);
+		}
+
+		/**
+		 * Get the protocols that could not be tried because this Java runtime refuses to offer them.
+		 *
+		 * @return Protocols not testable locally
+		 */
+		public String[] getUntestableProtocols()
+		{
+			return m_untestableProtocols.clone();
+		}
+
+		/**
+		 * Get the cipher suites that could not be tried because this Java runtime refuses to offer them with any of
+		 * the tried protocols.
+		 *
+		 * @return Cipher suites not testable locally
+		 */
+		public List<String> getUntestableCipherSuites()
+		{
+			return Collections.unmodifiableList(m_untestableCipherSuites);
+		}
+
+		/**
+		 * Get the time taken.
+		 *
+		 * @return Time taken in milliseconds
+		 */
+		public long getElapsed()
+		{
+			return m_lElapsed;
+		}
+	}
+}
@@ -0,0 +1,331 @@
+/*
+ * TlsContextFactory.java
+ * This file is part of Portecle, a multipurpose keystore and certificate tool.
+ *
+ * Copyright © 2026 The Portecle Project
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.sf.portecle;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+/**
+ * Cached SSL contexts for connecting to SSL/TLS servers. Creating and initializing an SSL context is expensive, and
+ * sessions can only be resumed through the context they were established with, so contexts are created once per
+ * verification mode and protocol set and then shared.
+ * <p>
+ * When verifying, server certificates are also checked to be for the host connected to, the way HTTPS clients check
+ * them.
+ * </p>
+ */
+public final class TlsContextFactory
+{
+	/**
+	 * Server certificate verification modes.
+	 */
+	public enum Verification
+	{
+		/** Verify server certificates with the default trust managers, and that they are for the host connected to */
+		DEFAULT,
+		/** Do not verify server certificates, so that any certificate can be examined */
+		TRUST_ALL
+	}
+
+	/** Endpoint identification algorithm used when verifying */
+	private static final String ENDPOINT_IDENTIFICATION = "HTTPS";
+
+	/** Contexts by verification mode and protocol set, guarded by itself */
+	private static final Map<String, Context> CONTEXTS = new HashMap<>();
+
+	/**
+	 * Private to prevent construction.
+	 */
+	private TlsContextFactory()
+	{
+		// Nothing to do
+	}
+
+	/**
+	 * Get an SSL context, creating and caching it if necessary.
+	 *
+	 * @param verification Server certificate verification mode
+	 * @param protocols Protocols to enable, null for the defaults
+	 * @return The SSL context
+	 * @throws GeneralSecurityException If an SSL context could not be set up
+	 */
+	public static SSLContext getContext(Verification verification, String[] protocols)
+	    throws GeneralSecurityException
+	{
+		return getCachedContext(verification, protocols).m_sslContext;
+	}
+
+	/**
+	 * Get an SSL socket factory whose sockets have the given protocols enabled.
+	 *
+	 * @param verification Server certificate verification mode
+	 * @param protocols Protocols to enable, null for the defaults
+	 * @return The socket factory
+	 * @throws GeneralSecurityException If an SSL context could not be set up
+	 */
+	public static SSLSocketFactory getSocketFactory(Verification verification, String[] protocols)
+	    throws GeneralSecurityException
+	{
+		return getCachedContext(verification, protocols).m_socketFactory;
+	}
+
+	/**
+	 * Create a client mode SSL engine with the given protocols enabled.
+	 *
+	 * @param verification Server certificate verification mode
+	 * @param protocols Protocols to enable, null for the defaults
+	 * @param sHost Server host name, for server name indication and session resumption
+	 * @param iPort Server port
+	 * @return The SSL engine
+	 * @throws GeneralSecurityException If an SSL context could not be set up
+	 */
+	public static SSLEngine createEngine(Verification verification, String[] protocols, String sHost, int iPort)
+	    throws GeneralSecurityException
+	{
+		SSLEngine engine = getContext(verification, protocols).createSSLEngine(sHost, iPort);
+		engine.setUseClientMode(true);
+		if (protocols != null)
+		{
+			engine.setEnabledProtocols(protocols);
+		}
+		if (verification == Verification.DEFAULT)
+		{
+			SSLParameters params = engine.getSSLParameters();
+			params.setEndpointIdentificationAlgorithm(ENDPOINT_IDENTIFICATION);
+			engine.setSSLParameters(params);
+		}
+		return engine;
+	}
+
+	/**
+	 * Get a cached context, creating it if necessary.
+	 *
+	 * @param verification Server certificate verification mode
+	 * @param protocols Protocols to enable, null for the defaults
+	 * @return The context
+	 * @throws GeneralSecurityException If an SSL context could not be set up
+	 */
+	private static Context getCachedContext(Verification verification, String[] protocols)
+	    throws GeneralSecurityException
+	{
+		String[] sortedProtocols = null;
+		if (protocols != null)
+		{
+			sortedProtocols = protocols.clone();
+			Arrays.sort(sortedProtocols);
+		}
+		String sKey = verification + "/" + (sortedProtocols == null ? "" : Arrays.toString(sortedProtocols));
+
+		synchronized (CONTEXTS)
+		{
+			Context context = CONTEXTS.get(sKey);
+			if (context == null)
+			{
+				context = new Context(verification, sortedProtocols);
+				CONTEXTS.put(sKey, context);
+			}
+			return context;
+		}
+	}
+
+	/**
+	 * An SSL context and its socket factory.
+	 */
+	private static final class Context
+	{
+		/** The SSL context */
+		private final SSLContext m_sslContext;
+
+		/** Socket factory enabling the context's protocols, and endpoint identification when verifying */
+		private final SSLSocketFactory m_socketFactory;
+
+		/**
+		 * Construct a Context.
+		 *
+		 * @param verification Server certificate verification mode
+		 * @param protocols Protocols to enable, null for the defaults
+		 * @throws GeneralSecurityException If the SSL context could not be set up
+		 */
+		private Context(Verification verification, String[] protocols)
+		    throws GeneralSecurityException
+		{
+			m_sslContext = SSLContext.getInstance("TLS");
+			TrustManager[] tm = null;
+			if (verification == Verification.TRUST_ALL)
+			{
+				tm = new TrustManager[] { new TrustAllManager() };
+			}
+			m_sslContext.init(null, tm, new SecureRandom());
+			SSLSocketFactory socketFactory = m_sslContext.getSocketFactory();
+			boolean bIdentifyEndpoint = verification == Verification.DEFAULT;
+			m_socketFactory = (protocols == null && !bIdentifyEndpoint) ? socketFactory
+			    : new ConfiguringSocketFactory(socketFactory, protocols, bIdentifyEndpoint);
+		}
+	}
+
+	/**
+	 * Trust manager that trusts anything.
+	 */
+	private static final class TrustAllManager
+	    implements X509TrustManager
+	{
+		@Override
+		public void checkClientTrusted(X509Certificate[] chain, String authType)
+		{
+			// Trust anything
+		}
+
+		@Override
+		public void checkServerTrusted(X509Certificate[] chain, String authType)
+		{
+			// Trust anything
+		}
+
+		@Override
+		public X509Certificate[] getAcceptedIssuers()
+		{
+			return new X509Certificate[0];
+		}
+	}
+
+	/**
+	 * SSL socket factory that enables a set of protocols, and optionally endpoint identification, on the sockets it
+	 * creates.
+	 */
+	private static final class ConfiguringSocketFactory
+	    extends SSLSocketFactory
+	{
+		/** Socket factory to delegate to */
+		private final SSLSocketFactory m_delegate;
+
+		/** Protocols to enable, null for the defaults */
+		private final String[] m_protocols;
+
+		/** Whether to enable endpoint identification */
+		private final boolean m_bIdentifyEndpoint;
+
+		/**
+		 * Construct a ConfiguringSocketFactory.
+		 *
+		 * @param delegate Socket factory to delegate to
+		 * @param protocols Protocols to enable, null for the defaults
+		 * @param bIdentifyEndpoint Whether to enable endpoint identification
+		 */
+		private ConfiguringSocketFactory(SSLSocketFactory delegate, String[] protocols, boolean bIdentifyEndpoint)
+		{
+			m_delegate = delegate;
+			m_protocols = protocols;
+			m_bIdentifyEndpoint = bIdentifyEndpoint;
+		}
+
+		/**
+		 * Enable the protocols and endpoint identification on a socket.
+		 *
+		 * @param socket The socket
+		 * @return The socket
+		 */
+		private Socket configure(Socket socket)
+		{
+			SSLSocket sslSocket = (SSLSocket) socket;
+			if (m_protocols != null)
+			{
+				sslSocket.setEnabledProtocols(m_protocols);
+			}
+			if (m_bIdentifyEndpoint)
+			{
+				SSLParameters params = sslSocket.getSSLParameters();
+				params.setEndpointIdentificationAlgorithm(ENDPOINT_IDENTIFICATION);
+				sslSocket.setSSLParameters(params);
+			}
+			return socket;
+		}
+
+		@Override
+		public String[] getDefaultCipherSuites()
+		{
+			return m_delegate.getDefaultCipherSuites();
+		}
+
+		@Override
+		public String[] getSupportedCipherSuites()
+		{
+			return m_delegate.getSupportedCipherSuites();
+		}
+
+		@Override
+		public Socket createSocket()
+		    throws IOException
+		{
+			return configure(m_delegate.createSocket());
+		}
+
+		@Override
+		public Socket createSocket(Socket socket, String sHost, int iPort, boolean bAutoClose)
+		    throws IOException
+		{
+			return configure(m_delegate.createSocket(socket, sHost, iPort, bAutoClose));
+		}
+
+		@Override
+		public Socket createSocket(String sHost, int iPort)
+		    throws IOException
+		{
+			return configure(m_delegate.createSocket(sHost, iPort));
+		}
+
+		@Override
+		public Socket createSocket(String sHost, int iPort, InetAddress localAddress, int iLocalPort)
+		    throws IOException
+		{
+			return configure(m_delegate.createSocket(sHost, iPort, localAddress, iLocalPort));
+		}
+
+		@Override
+		public Socket createSocket(InetAddress address, int iPort)
+		    throws IOException
+		{
+			return configure(m_delegate.createSocket(address, iPort));
+		}
+
+		@Override
+		public Socket createSocket(InetAddress address, int iPort, InetAddress localAddress, int iLocalPort)
+		    throws IOException
+		{
+			return configure(m_delegate.createSocket(address, iPort, localAddress, iLocalPort));
+		}
+	}
+}
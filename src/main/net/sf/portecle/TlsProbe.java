@@ -0,0 +1,670 @@
+/*
+ * TlsProbe.java
+ * This file is part of Portecle, a multipurpose keystore and certificate tool.
+ *
+ * Copyright © 2026 The Portecle Project
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.sf.portecle;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.security.GeneralSecurityException;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSession;
+
+/**
+ * Retrieves the certificate chains of SSL/TLS servers with non-blocking handshakes multiplexed on the calling thread.
+ * Each handshake is aborted as soon as the server's certificate chain has been received, without waiting for the
+ * rest of the handshake, and without verifying the chain.
+ * <p>
+ * Results are the same as those of {@link TlsScanner}, whose blocking handshakes run to completion. As handshakes
+ * are not completed, no sessions are established for later resumption.
+ * </p>
+ * <p>
+ * Host names of unresolved targets are looked up on helper threads, so that a slow lookup does not hold up the
+ * other handshakes; the time limit per target covers the lookup.
+ * </p>
+ */
+public final class TlsProbe
+{
+	/** Logger */
+	private static final Logger LOG = Logger.getLogger(TlsProbe.class.getCanonicalName());
+
+	/** Resolver thread number, for thread names */
+	private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+	/** Maximum number of handshakes in progress at the same time */
+	private final int m_iMaxConcurrent;
+
+	/** Time limit in milliseconds per target */
+	private final int m_iTimeout;
+
+	/**
+	 * Construct a TlsProbe.
+	 *
+	 * @param iMaxConcurrent Maximum number of handshakes in progress at the same time
+	 * @param iTimeout Time limit in milliseconds per target, for connecting and handshaking
+	 */
+	public TlsProbe(int iMaxConcurrent, int iTimeout)
+	{
+		if (iMaxConcurrent < 1)
+		{
+			throw new IllegalArgumentException("Maximum concurrency must be >= 1");
+		}
+		if (iTimeout < 1)
+		{
+			throw new IllegalArgumentException("Timeout must be >= 1");
+		}
+		m_iMaxConcurrent = iMaxConcurrent;
+		m_iTimeout = iTimeout;
+	}
+
+	/**
+	 * Probe a single target.
+	 *
+	 * @param target The target
+	 * @return The probe result
+	 * @throws IOException If a selector could not be opened
+	 */
+	public TlsScanner.Result probe(InetSocketAddress target)
+	    throws IOException
+	{
+		List<InetSocketAddress> targets = new ArrayList<>(1);
+		targets.add(target);
+		return probe(targets).get(0);
+	}
+
+	/**
+	 * Probe targets.
+	 *
+	 * @param targets The targets
+	 * @return The probe results, in target order
+	 * @throws IOException If a selector could not be opened
+	 */
+	public List<TlsScanner.Result> probe(Collection<InetSocketAddress> targets)
+	    throws IOException
+	{
+		List<Request> requests = new ArrayList<>(targets.size());
+		for (InetSocketAddress target : targets)
+		{
+			requests.add(new Request(target));
+		}
+		return probeAll(requests);
+	}
+
+	/**
+	 * Probe targets with handshakes constrained by requests.
+	 *
+	 * @param requests The requests
+	 * @return The probe results, in request order
+	 * @throws IOException If a selector could not be opened
+	 */
+	public synchronized List<TlsScanner.Result> probeAll(Collection<Request> requests)
+	    throws IOException
+	{
+		TlsScanner.Result[] results = new TlsScanner.Result[requests.size()];
+		Deque<Handshake> pending = new ArrayDeque<>(requests.size());
+		int i = 0;
+		for (Request request : requests)
+		{
+			pending.add(new Handshake(i++, request));
+		}
+
+		// Handshakes whose targets have been resolved by the resolver threads
+		Queue<Handshake> resolved = new ConcurrentLinkedQueue<>();
+		ExecutorService resolver = null;
+		try (Selector selector = Selector.open())
+		{
+			List<Handshake> active = new ArrayList<>(Math.min(m_iMaxConcurrent, requests.size()));
+			while (!pending.isEmpty() || !active.isEmpty())
+			{
+				// Start handshakes up to the concurrency limit
+				while (active.size() < m_iMaxConcurrent && !pending.isEmpty())
+				{
+					Handshake handshake = pending.poll();
+					if (resolver == null && handshake.m_request.m_target.isUnresolved())
+					{
+						resolver = Executors.newFixedThreadPool(m_iMaxConcurrent, new ThreadFactory()
+						{
+							@Override
+							public Thread newThread(Runnable r)
+							{
+								Thread thread =
+								    new Thread(r, "portecle-tls-resolve-" + THREAD_NUMBER.incrementAndGet());
+								thread.setDaemon(true);
+								return thread;
+							}
+						});
+					}
+					handshake.start(selector, resolver, resolved);
+					if (handshake.isDone())
+					{
+						results[handshake.m_iIndex] = handshake.finish();
+					}
+					else
+					{
+						active.add(handshake);
+					}
+				}
+				if (active.isEmpty())
+				{
+					continue;
+				}
+
+				// Wait for I/O until the earliest deadline
+				long lNow = System.nanoTime();
+				long lWait = Long.MAX_VALUE;
+				for (Handshake handshake : active)
+				{
+					lWait = Math.min(lWait, handshake.m_lDeadline - lNow);
+				}
+				selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(lWait)));
+
+				for (Iterator<SelectionKey> it = selector.selectedKeys().iterator(); it.hasNext();)
+				{
+					SelectionKey key = it.next();
+					it.remove();
+					((Handshake) key.attachment()).ready(key);
+				}
+
+				// Connect to targets resolved meanwhile
+				Handshake handshake;
+				while ((handshake = resolved.poll()) != null)
+				{
+					if (!handshake.isDone())
+					{
+						handshake.connect(selector, handshake.m_resolvedTarget);
+					}
+				}
+
+				// Collect finished and timed out handshakes
+				lNow = System.nanoTime();
+				for (Iterator<Handshake> it = active.iterator(); it.hasNext();)
+				{
+					handshake = it.next();
+					if (!handshake.isDone() && lNow - handshake.m_lDeadline >= 0)
+					{
+						handshake.fail(new SocketTimeoutException("Timed out after " + m_iTimeout + " ms"));
+					}
+					if (handshake.isDone())
+					{
+						results[handshake.m_iIndex] = handshake.finish();
+						it.remove();
+					}
+				}
+			}
+		}
+		finally
+		{
+			if (resolver != null)
+			{
+				// Lookups of timed out targets cannot be interrupted, but their results are no longer needed
+				resolver.shutdownNow();
+			}
+		}
+
+		List<TlsScanner.Result> resultList = new ArrayList<>(results.length);
+		for (TlsScanner.Result result : results)
+		{
+			resultList.add(result);
+		}
+		return resultList;
+	}
+
+	/**
+	 * A handshake to probe a target with.
+	 */
+	public static final class Request
+	{
+		/** The target */
+		private final InetSocketAddress m_target;
+
+		/** Server name to indicate */
+		private final String m_sServerName;
+
+		/** Protocols to enable, null for the defaults */
+		private final String[] m_protocols;
+
+		/** Cipher suites to enable, null for the defaults */
+		private final String[] m_cipherSuites;
+
+		/**
+		 * Construct a Request for a default handshake, indicating the target's host name.
+		 *
+		 * @param target The target
+		 */
+		public Request(InetSocketAddress target)
+		{
+			this(target, target.getHostString(), null, null);
+		}
+
+		/**
+		 * Construct a Request.
+		 *
+		 * @param target The target
+		 * @param sServerName Server name to indicate; IP addresses are not indicated
+		 * @param protocols Protocols to enable, null for the defaults
+		 * @param cipherSuites Cipher suites to enable, null for the defaults
+		 */
+		public Request(InetSocketAddress target, String sServerName, String[] protocols, String[] cipherSuites)
+		{
+			m_target = target;
+			m_sServerName = sServerName;
+			m_protocols = protocols == null ? null : protocols.clone();
+			m_cipherSuites = cipherSuites == null ? null : cipherSuites.clone();
+		}
+
+		/**
+		 * Get the target.
+		 *
+		 * @return The target
+		 */
+		public InetSocketAddress getTarget()
+		{
+			return m_target;
+		}
+
+		/**
+		 * Get the server name to indicate.
+		 *
+		 * @return The server name
+		 */
+		public String getServerName()
+		{
+			return m_sServerName;
+		}
+	}
+
+	/**
+	 * State of the handshake with one target.
+	 */
+	private final class Handshake
+	{
+		/** Index of the request */
+		private final int m_iIndex;
+
+		/** The request */
+		private final Request m_request;
+
+		/** The target, resolved by a resolver thread */
+		private volatile InetSocketAddress m_resolvedTarget;
+
+		/** Start time, from {@link System#nanoTime()} */
+		private long m_lStart;
+
+		/** Deadline, from {@link System#nanoTime()} */
+		private long m_lDeadline;
+
+		/** The channel */
+		private SocketChannel m_channel;
+
+		/** The channel's selection key */
+		private SelectionKey m_key;
+
+		/** The SSL engine */
+		private SSLEngine m_engine;
+
+		/** Outgoing network data */
+		private ByteBuffer m_netOut;
+
+		/** Incoming network data */
+		private ByteBuffer m_netIn;
+
+		/** Incoming application data, not expected during the handshake */
+		private ByteBuffer m_appIn;
+
+		/** Captured server certificate chain, null if not captured */
+		private X509Certificate[] m_certs;
+
+		/** Negotiated protocol */
+		private String m_sProtocol;
+
+		/** Negotiated cipher suite */
+		private String m_sCipherSuite;
+
+		/** Reason the handshake failed, null if it has not failed */
+		private Exception m_error;
+
+		/**
+		 * Construct a Handshake.
+		 *
+		 * @param iIndex Index of the request
+		 * @param request The request
+		 */
+		private Handshake(int iIndex, Request request)
+		{
+			m_iIndex = iIndex;
+			m_request = request;
+		}
+
+		/**
+		 * Start the handshake, connecting right away if the target is resolved, or after resolving it otherwise.
+		 *
+		 * @param selector Selector to register the channel with
+		 * @param resolver Executor to resolve the target with if it is unresolved
+		 * @param resolved Queue to add the handshake to once the target has been resolved; the selector is woken up
+		 *            after adding
+		 */
+		private void start(final Selector selector, ExecutorService resolver, final Queue<Handshake> resolved)
+		{
+			m_lStart = System.nanoTime();
+			m_lDeadline = m_lStart + TimeUnit.MILLISECONDS.toNanos(m_iTimeout);
+			final InetSocketAddress target = m_request.m_target;
+			if (!target.isUnresolved())
+			{
+				connect(selector, target);
+				return;
+			}
+			resolver.execute(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					// Left unresolved if the lookup fails, which fails connecting
+					m_resolvedTarget = new InetSocketAddress(target.getHostString(), target.getPort());
+					resolved.add(Handshake.this);
+					selector.wakeup();
+				}
+			});
+		}
+
+		/**
+		 * Start connecting.
+		 *
+		 * @param selector Selector to register the channel with
+		 * @param address Address to connect to
+		 */
+		private void connect(Selector selector, InetSocketAddress address)
+		{
+			try
+			{
+				// Host and port for SNI
+				m_engine = TlsContextFactory.createEngine(TlsContextFactory.Verification.TRUST_ALL,
+				    m_request.m_protocols, m_request.m_sServerName, address.getPort());
+				if (m_request.m_cipherSuites != null)
+				{
+					m_engine.setEnabledCipherSuites(m_request.m_cipherSuites);
+				}
+				SSLSession session = m_engine.getSession();
+				// Kept ready for writing to the channel; nothing pending while empty
+				m_netOut = ByteBuffer.allocate(session.getPacketBufferSize());
+				m_netOut.flip();
+				m_netIn = ByteBuffer.allocate(session.getPacketBufferSize());
+				m_appIn = ByteBuffer.allocate(session.getApplicationBufferSize());
+
+				m_channel = SocketChannel.open();
+				m_channel.configureBlocking(false);
+				if (m_channel.connect(address))
+				{
+					m_key = m_channel.register(selector, 0, this);
+					m_engine.beginHandshake();
+					handshake();
+				}
+				else
+				{
+					m_key = m_channel.register(selector, SelectionKey.OP_CONNECT, this);
+				}
+			}
+			catch (GeneralSecurityException | IOException | RuntimeException ex)
+			{
+				fail(ex);
+			}
+		}
+
+		/**
+		 * Handle a selected key.
+		 *
+		 * @param key The key
+		 */
+		private void ready(SelectionKey key)
+		{
+			if (isDone())
+			{
+				return;
+			}
+			try
+			{
+				if (key.isConnectable())
+				{
+					m_channel.finishConnect();
+					m_engine.beginHandshake();
+				}
+				else if (key.isReadable())
+				{
+					if (m_channel.read(m_netIn) == -1)
+					{
+						throw new EOFException("Connection closed by server during handshake");
+					}
+				}
+				handshake();
+			}
+			catch (IOException | RuntimeException ex)
+			{
+				fail(ex);
+			}
+		}
+
+		/**
+		 * Advance the handshake as far as possible without blocking, and register interest in what it needs next.
+		 *
+		 * @throws IOException If an I/O or SSL problem occurs
+		 */
+		private void handshake()
+		    throws IOException
+		{
+			// Pending outgoing data first
+			if (!flush())
+			{
+				return;
+			}
+
+			while (!isDone())
+			{
+				HandshakeStatus status = m_engine.getHandshakeStatus();
+				switch (status)
+				{
+					case NEED_TASK:
+						Runnable task;
+						while ((task = m_engine.getDelegatedTask()) != null)
+						{
+							task.run();
+						}
+						captureIfReceived();
+						break;
+					case NEED_WRAP:
+						// Flushed, so empty
+						m_netOut.clear();
+						m_engine.wrap(ByteBuffer.allocate(0), m_netOut);
+						m_netOut.flip();
+						if (!flush())
+						{
+							return;
+						}
+						break;
+					case NEED_UNWRAP:
+						m_netIn.flip();
+						SSLEngineResult unwrapResult;
+						try
+						{
+							unwrapResult = m_engine.unwrap(m_netIn, m_appIn);
+						}
+						finally
+						{
+							m_netIn.compact();
+						}
+						captureIfReceived();
+						if (unwrapResult.getStatus() == SSLEngineResult.Status.BUFFER_UNDERFLOW)
+						{
+							m_key.interestOps(SelectionKey.OP_READ);
+							return;
+						}
+						if (unwrapResult.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW)
+						{
+							m_appIn = ByteBuffer.allocate(m_appIn.capacity() * 2);
+						}
+						break;
+					default:
+						// Finished before the chain was seen in the handshake session
+						capture(m_engine.getSession());
+						return;
+				}
+			}
+		}
+
+		/**
+		 * Capture the server certificate chain if it has been received, which ends the handshake early.
+		 */
+		private void captureIfReceived()
+		{
+			SSLSession session = m_engine.getHandshakeSession();
+			if (session == null)
+			{
+				return;
+			}
+			try
+			{
+				session.getPeerCertificates();
+			}
+			catch (SSLPeerUnverifiedException ex)
+			{
+				// Not received yet
+				return;
+			}
+			capture(session);
+		}
+
+		/**
+		 * Write pending outgoing data, that is, whatever remains in the outgoing buffer.
+		 *
+		 * @return True if everything was written, false if the rest has to wait until the channel is writable
+		 * @throws IOException If an I/O problem occurs
+		 */
+		private boolean flush()
+		    throws IOException
+		{
+			if (m_netOut.hasRemaining())
+			{
+				m_channel.write(m_netOut);
+				if (m_netOut.hasRemaining())
+				{
+					m_key.interestOps(SelectionKey.OP_WRITE);
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Capture the server certificate chain and session parameters, completing the handshake.
+		 *
+		 * @param session The handshake session
+		 */
+		private void capture(SSLSession session)
+		{
+			try
+			{
+				Certificate[] peerCerts = session.getPeerCertificates();
+				X509Certificate[] certs = new X509Certificate[peerCerts.length];
+				for (int i = 0; i < peerCerts.length; i++)
+				{
+					certs[i] = (X509Certificate) peerCerts[i];
+				}
+				m_certs = certs;
+				m_sProtocol = session.getProtocol();
+				m_sCipherSuite = session.getCipherSuite();
+			}
+			catch (IOException | RuntimeException ex)
+			{
+				fail(ex);
+			}
+		}
+
+		/**
+		 * Fail the handshake.
+		 *
+		 * @param error The reason
+		 */
+		private void fail(Exception error)
+		{
+			if (m_error == null && m_certs == null)
+			{
+				m_error = error;
+			}
+		}
+
+		/**
+		 * Is the handshake done?
+		 *
+		 * @return True if the chain was captured or the handshake failed, false otherwise
+		 */
+		private boolean isDone()
+		{
+			return m_certs != null || m_error != null;
+		}
+
+		/**
+		 * Release the handshake's resources and get its result.
+		 *
+		 * @return The result
+		 */
+		private TlsScanner.Result finish()
+		{
+			if (m_channel != null)
+			{
+				try
+				{
+					// Closing the channel also cancels its key
+					m_channel.close();
+				}
+				catch (IOException ex)
+				{
+					LOG.log(Level.FINE, "Could not close channel", ex);
+				}
+			}
+			long lElapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - m_lStart);
+			return new TlsScanner.Result(m_request.m_target, m_certs, m_sProtocol, m_sCipherSuite, m_error, lElapsed);
+		}
+	}
+}
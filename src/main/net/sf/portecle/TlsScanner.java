@@ -0,0 +1,588 @@
+/*
+ * TlsScanner.java
+ * This file is part of Portecle, a multipurpose keystore and certificate tool.
+ *
+ * Copyright © 2026 The Portecle Project
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.sf.portecle;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.security.GeneralSecurityException;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.net.SocketFactory;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Retrieves the certificate chains, protocols, and cipher suites of SSL/TLS servers. Targets are handshaked with
+ * concurrently on a bounded number of threads, each within a time limit covering connecting and handshaking.
+ * <p>
+ * By default, server certificates are not verified, so that any certificate can be examined. A different socket
+ * factory, for example one trusting a test server's certificate, can be passed in.
+ * </p>
+ * <p>
+ * Sessions are invalidated after each handshake by default, so that every scan sees what the server currently
+ * serves. Scanners that repeatedly check the same servers can instead keep sessions for resumption, which makes
+ * repeated handshakes considerably cheaper. TLS 1.3 servers send the tickets to resume sessions with after the
+ * handshake, so such scanners wait briefly for them before closing the connection.
+ * </p>
+ */
+public final class TlsScanner
+{
+	/** Logger */
+	private static final Logger LOG = Logger.getLogger(TlsScanner.class.getCanonicalName());
+
+	/** Default SSL/TLS port */
+	public static final int DEFAULT_PORT = 443;
+
+	/** Time in milliseconds to wait for session tickets after a TLS 1.3 handshake, when keeping sessions */
+	private static final int SESSION_TICKET_WAIT = 200;
+
+	/** Scanner thread number, for thread names */
+	private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+	/** SSL socket factory */
+	private final SSLSocketFactory m_sslSocketFactory;
+
+	/** Maximum number of concurrent handshakes */
+	private final int m_iParallelism;
+
+	/** Time limit in milliseconds per target */
+	private final int m_iTimeout;
+
+	/** Whether to keep sessions for resumption */
+	private final boolean m_bResumeSessions;
+
+	/**
+	 * Construct a TlsScanner that does not verify server certificates.
+	 *
+	 * @param iParallelism Maximum number of concurrent handshakes
+	 * @param iTimeout Time limit in milliseconds per target, for connecting and handshaking
+	 * @throws GeneralSecurityException If an SSL context could not be set up
+	 */
+	public TlsScanner(int iParallelism, int iTimeout)
+	    throws GeneralSecurityException
+	{
+		this(TlsContextFactory.getSocketFactory(TlsContextFactory.Verification.TRUST_ALL, null), iParallelism,
+		    iTimeout, false);
+	}
+
+	/**
+	 * Construct a TlsScanner.
+	 *
+	 * @param sslSocketFactory SSL socket factory to layer connections with
+	 * @param iParallelism Maximum number of concurrent handshakes
+	 * @param iTimeout Time limit in milliseconds per target, for connecting and handshaking
+	 */
+	public TlsScanner(SSLSocketFactory sslSocketFactory, int iParallelism, int iTimeout)
+	{
+		this(sslSocketFactory, iParallelism, iTimeout, false);
+	}
+
+	/**
+	 * Construct a TlsScanner.
+	 *
+	 * @param sslSocketFactory SSL socket factory to layer connections with, see {@link TlsContextFactory}
+	 * @param iParallelism Maximum number of concurrent handshakes
+	 * @param iTimeout Time limit in milliseconds per target, for connecting and handshaking
+	 * @param bResumeSessions Whether to keep sessions for resumption by later handshakes with the same servers
+	 */
+	public TlsScanner(SSLSocketFactory sslSocketFactory, int iParallelism, int iTimeout, boolean bResumeSessions)
+	{
+		if (iParallelism < 1)
+		{
+			throw new IllegalArgumentException("Parallelism must be >= 1");
+		}
+		if (iTimeout < 1)
+		{
+			throw new IllegalArgumentException("Timeout must be >= 1");
+		}
+		m_sslSocketFactory = sslSocketFactory;
+		m_iParallelism = iParallelism;
+		m_iTimeout = iTimeout;
+		m_bResumeSessions = bResumeSessions;
+	}
+
+	/**
+	 * Parse a target in host, host:port, or [IPv6 address]:port form. The host name is not resolved.
+	 *
+	 * @param sTarget The target
+	 * @param iDefaultPort Port to use if the target does not specify one
+	 * @return The target address
+	 * @throws IllegalArgumentException If the target is malformed
+	 */
+	public static InetSocketAddress parseTarget(String sTarget, int iDefaultPort)
+	{
+		String sHost = sTarget.trim();
+		int iPort = iDefaultPort;
+
+		if (sHost.startsWith("["))
+		{
+			int iBracket = sHost.indexOf(']');
+			if (iBracket == -1)
+			{
+				throw new IllegalArgumentException("Malformed target: " + sTarget);
+			}
+			String sRest = sHost.substring(iBracket + 1);
+			if (sRest.startsWith(":"))
+			{
+				iPort = parsePort(sRest.substring(1), sTarget);
+			}
+			else if (!sRest.isEmpty())
+			{
+				throw new IllegalArgumentException("Malformed target: " + sTarget);
+			}
+			sHost = sHost.substring(1, iBracket);
+		}
+		else
+		{
+			// One colon separates host and port; more make a bare IPv6 address
+			int iColon = sHost.indexOf(':');
+			if (iColon != -1 && iColon == sHost.lastIndexOf(':'))
+			{
+				iPort = parsePort(sHost.substring(iColon + 1), sTarget);
+				sHost = sHost.substring(0, iColon);
+			}
+		}
+
+		if (sHost.isEmpty())
+		{
+			throw new IllegalArgumentException("Malformed target: " + sTarget);
+		}
+		return InetSocketAddress.createUnresolved(sHost, iPort);
+	}
+
+	/**
+	 * Parse targets, one per non-blank line or separated by whitespace or commas.
+	 *
+	 * @param sTargets The targets
+	 * @param iDefaultPort Port to use for targets that do not specify one
+	 * @return The target addresses
+	 * @throws IllegalArgumentException If a target is malformed
+	 */
+	public static List<InetSocketAddress> parseTargets(String sTargets, int iDefaultPort)
+	{
+		List<InetSocketAddress> targets = new ArrayList<>();
+		for (String sTarget : sTargets.split("[\\s,]+"))
+		{
+			if (!sTarget.isEmpty())
+			{
+				targets.add(parseTarget(sTarget, iDefaultPort));
+			}
+		}
+		return targets;
+	}
+
+	/**
+	 * Parse a port number.
+	 *
+	 * @param sPort The port number
+	 * @param sTarget The target the port number is part of, for error messages
+	 * @return The port number
+	 * @throws IllegalArgumentException If the port number is not valid
+	 */
+	private static int parsePort(String sPort, String sTarget)
+	{
+		try
+		{
+			int iPort = Integer.parseInt(sPort);
+			if (iPort >= 1 && iPort <= 65535)
+			{
+				return iPort;
+			}
+		}
+		catch (NumberFormatException ex)
+		{
+			// Fall through
+		}
+		throw new IllegalArgumentException("Malformed port in target: " + sTarget);
+	}
+
+	/**
+	 * Scan a single target.
+	 *
+	 * @param target The target
+	 * @return The scan result
+	 * @throws InterruptedException If interrupted while waiting for the scan to finish
+	 */
+	public Result scan(InetSocketAddress target)
+	    throws InterruptedException
+	{
+		List<InetSocketAddress> targets = new ArrayList<>(1);
+		targets.add(target);
+		return scan(targets).get(0);
+	}
+
+	/**
+	 * Scan targets. At most the configured number of handshakes are in progress at any time.
+	 *
+	 * @param targets The targets
+	 * @return The scan results, in target order
+	 * @throws InterruptedException If interrupted while waiting for the scans to finish; scans in progress are
+	 *             aborted
+	 */
+	public List<Result> scan(Collection<InetSocketAddress> targets)
+	    throws InterruptedException
+	{
+		List<Result> results = new ArrayList<>(targets.size());
+		if (targets.isEmpty())
+		{
+			return results;
+		}
+
+		ThreadFactory threadFactory = new ThreadFactory()
+		{
+			@Override
+			public Thread newThread(Runnable r)
+			{
+				Thread thread = new Thread(r, "portecle-tls-scan-" + THREAD_NUMBER.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+		ExecutorService executor =
+		    Executors.newFixedThreadPool(Math.min(m_iParallelism, targets.size()), threadFactory);
+		ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(threadFactory);
+		try
+		{
+			List<Future<Result>> futures = new ArrayList<>(targets.size());
+			for (InetSocketAddress target : targets)
+			{
+				futures.add(executor.submit(new ScanTask(target, watchdog)));
+			}
+
+			for (Future<Result> future : futures)
+			{
+				try
+				{
+					results.add(future.get());
+				}
+				catch (ExecutionException ex)
+				{
+					// ScanTask catches everything it expects; anything else is a bug
+					throw new IllegalStateException(ex.getCause());
+				}
+			}
+		}
+		finally
+		{
+			executor.shutdownNow();
+			watchdog.shutdownNow();
+		}
+		return results;
+	}
+
+	/**
+	 * Close a socket, logging failures.
+	 *
+	 * @param socket The socket, may be null
+	 */
+	private static void closeQuietly(Socket socket)
+	{
+		if (socket != null && !socket.isClosed())
+		{
+			try
+			{
+				socket.close();
+			}
+			catch (IOException ex)
+			{
+				LOG.log(Level.FINE, "Could not close socket", ex);
+			}
+		}
+	}
+
+	/**
+	 * Handshake with one target.
+	 */
+	private final class ScanTask
+	    implements Callable<Result>
+	{
+		/** The target */
+		private final InetSocketAddress m_target;
+
+		/** Executor for closing the connection when the time limit is reached */
+		private final ScheduledExecutorService m_watchdog;
+
+		/** The plain socket, closed by the watchdog if still open at the time limit */
+		private volatile Socket m_socket;
+
+		/** Whether the time limit was reached */
+		private volatile boolean m_bTimedOut;
+
+		/**
+		 * Construct a ScanTask.
+		 *
+		 * @param target The target
+		 * @param watchdog Executor for closing the connection when the time limit is reached
+		 */
+		private ScanTask(InetSocketAddress target, ScheduledExecutorService watchdog)
+		{
+			m_target = target;
+			m_watchdog = watchdog;
+		}
+
+		@Override
+		public Result call()
+		{
+			long lStart = System.nanoTime();
+			SSLSocket ss = null;
+			ScheduledFuture<?> timeout = m_watchdog.schedule(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					m_bTimedOut = true;
+					closeQuietly(m_socket);
+				}
+			}, m_iTimeout, TimeUnit.MILLISECONDS);
+			try
+			{
+				// Resolve here rather than in the caller's thread; unresolved addresses cannot be connected to
+				InetSocketAddress address = m_target.isUnresolved()
+				    ? new InetSocketAddress(m_target.getHostString(), m_target.getPort()) : m_target;
+
+				// Go through a regular SocketFactory in order to be able to:
+				// - control connection timeouts before connecting, and
+				// - be able to use a host(String), port based method; otherwise apparently no SNI
+				Socket socket = SocketFactory.getDefault().createSocket();
+				m_socket = socket;
+				// The watchdog may have gone off while resolving, before there was a socket for it to close
+				int iRemaining = (int) (m_iTimeout - elapsed(lStart));
+				if (m_bTimedOut || iRemaining < 1)
+				{
+					throw new SocketTimeoutException("Timed out after " + m_iTimeout + " ms");
+				}
+				socket.setSoTimeout(iRemaining);
+				socket.connect(address, iRemaining);
+				ss = (SSLSocket) m_sslSocketFactory.createSocket(socket, m_target.getHostString(),
+				    m_target.getPort(), true);
+				ss.startHandshake();
+
+				SSLSession sess = ss.getSession();
+				Certificate[] peerCerts = sess.getPeerCertificates();
+				X509Certificate[] certs = new X509Certificate[peerCerts.length];
+				for (int i = 0; i < peerCerts.length; i++)
+				{
+					certs[i] = (X509Certificate) peerCerts[i];
+				}
+				Result result = new Result(m_target, certs, sess.getProtocol(), sess.getCipherSuite(), null,
+				    elapsed(lStart));
+				if (!m_bResumeSessions)
+				{
+					sess.invalidate();
+				}
+				else if ("TLSv1.3".equals(sess.getProtocol()))
+				{
+					readSessionTickets(ss, lStart);
+				}
+				return result;
+			}
+			catch (Exception ex)
+			{
+				Exception error = ex;
+				if (m_bTimedOut)
+				{
+					// Report the timeout rather than the socket closed under the handshake
+					error = new SocketTimeoutException("Timed out after " + m_iTimeout + " ms");
+					error.initCause(ex);
+				}
+				return new Result(m_target, null, null, null, error, elapsed(lStart));
+			}
+			finally
+			{
+				timeout.cancel(false);
+				closeQuietly(ss);
+				closeQuietly(m_socket);
+			}
+		}
+
+		/**
+		 * Read the session tickets sent after a TLS 1.3 handshake, waiting for them briefly within the time limit.
+		 * Tickets are processed while reading; nothing else is expected.
+		 *
+		 * @param ss The socket
+		 * @param lStart Start time, from {@link System#nanoTime()}
+		 */
+		private void readSessionTickets(SSLSocket ss, long lStart)
+		{
+			int iWait = (int) Math.min(SESSION_TICKET_WAIT, m_iTimeout - elapsed(lStart));
+			if (iWait < 1)
+			{
+				return;
+			}
+			try
+			{
+				ss.setSoTimeout(iWait);
+				ss.getInputStream().read();
+			}
+			catch (IOException ex)
+			{
+				// Usually the wait timing out; whatever tickets arrived meanwhile have been kept
+				LOG.log(Level.FINEST, "Stopped waiting for session tickets", ex);
+			}
+		}
+
+		/**
+		 * Get the elapsed time.
+		 *
+		 * @param lStart Start time, from {@link System#nanoTime()}
+		 * @return Elapsed time in milliseconds
+		 */
+		private long elapsed(long lStart)
+		{
+			return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lStart);
+		}
+	}
+
+	/**
+	 * Result of scanning one target.
+	 */
+	public static final class Result
+	{
+		/** The target */
+		private final InetSocketAddress m_target;
+
+		/** Server certificate chain, null if the scan failed */
+		private final X509Certificate[] m_certs;
+
+		/** Negotiated protocol, null if the scan failed */
+		private final String m_sProtocol;
+
+		/** Negotiated cipher suite, null if the scan failed */
+		private final String m_sCipherSuite;
+
+		/** Reason the scan failed, null if it succeeded */
+		private final Exception m_error;
+
+		/** Time taken in milliseconds */
+		private final long m_lElapsed;
+
+		/**
+		 * Construct a Result.
+		 *
+		 * @param target The target
+		 * @param certs Server certificate chain, null if the scan failed
+		 * @param sProtocol Negotiated protocol, null if the scan failed
+		 * @param sCipherSuite Negotiated cipher suite, null if the scan failed
+		 * @param error Reason the scan failed, null if it succeeded
+		 * @param lElapsed Time taken in milliseconds
+		 */
+		/* package private */Result(InetSocketAddress target, X509Certificate[] certs, String sProtocol,
+		    String sCipherSuite, Exception error, long lElapsed)
+		{
+			m_target = target;
+			m_certs = certs;
+			m_sProtocol = sProtocol;
+			m_sCipherSuite = sCipherSuite;
+			m_error = error;
+			m_lElapsed = lElapsed;
+		}
+
+		/**
+		 * Get the target.
+		 *
+		 * @return The target
+		 */
+		public InetSocketAddress getTarget()
+		{
+			return m_target;
+		}
+
+		/**
+		 * Did the scan succeed?
+		 *
+		 * @return True if it did, false otherwise
+		 */
+		public boolean isSuccess()
+		{
+			return m_error == null;
+		}
+
+		/**
+		 * Get the server certificate chain.
+		 *
+		 * @return Certificate chain, null if the scan failed
+		 */
+		public X509Certificate[] getCertificates()
+		{
+			return (m_certs == null) ? null : m_certs.clone();
+		}
+
+		/**
+		 * Get the negotiated protocol.
+		 *
+		 * @return Protocol, null if the scan failed
+		 */
+		public String getProtocol()
+		{
+			return m_sProtocol;
+		}
+
+		/**
+		 * Get the negotiated cipher suite.
+		 *
+		 * @return Cipher suite, null if the scan failed
+		 */
+		public String getCipherSuite()
+		{
+			return m_sCipherSuite;
+		}
+
+		/**
+		 * Get the reason the scan failed.
+		 *
+		 * @return The exception, null if the scan succeeded
+		 */
+		public Exception getError()
+		{
+			return m_error;
+		}
+
+		/**
+		 * Get the time taken.
+		 *
+		 * @return Time taken in milliseconds
+		 */
+		public long getElapsed()
+		{
+			return m_lElapsed;
+		}
+	}
+}
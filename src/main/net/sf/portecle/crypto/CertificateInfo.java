@@ -0,0 +1,289 @@
+/*
+ * CertificateInfo.java
+ * This file is part of Portecle, a multipurpose keystore and certificate tool.
+ *
+ * Copyright © 2026 The Portecle Project
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.sf.portecle.crypto;
+
+import static net.sf.portecle.FPortecle.RB;
+
+import java.io.ByteArrayInputStream;
+import java.lang.ref.WeakReference;
+import java.security.PublicKey;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import net.sf.portecle.StringUtil;
+
+/**
+ * Cached information of an X.509 certificate: its DER encoding, fingerprints, and commonly displayed metadata. The
+ * information is created once per certificate and kept for as long as the certificate is in use, so that browsing,
+ * reporting, and matching do not repeatedly encode and digest the same certificates. Only the encoding is computed
+ * when the information is created; fingerprints and metadata are computed when first asked for.
+ */
+public final class CertificateInfo
+{
+	/** Information by certificate; values must not refer to their keys */
+	private static final Map<X509Certificate, CertificateInfo> CACHE =
+	    Collections.synchronizedMap(new WeakHashMap<X509Certificate, CertificateInfo>());
+
+	/** DER encoding */
+	private final byte[] m_bEncoded;
+
+	/** The certificate, for computing metadata; weak so that the cache entry can be discarded */
+	private final WeakReference<X509Certificate> m_cert;
+
+	/** Subject distinguished name, null until computed; guarded by this */
+	private String m_sSubject;
+
+	/** Issuer distinguished name, null until computed; guarded by this */
+	private String m_sIssuer;
+
+	/** Serial number as hex, null until computed; guarded by this */
+	private String m_sSerialNumber;
+
+	/** Public key algorithm, null until computed; guarded by this */
+	private String m_sKeyAlg;
+
+	/** Public key size, valid once the key algorithm has been computed; guarded by this */
+	private int m_iKeySize;
+
+	/** Fingerprints computed so far, guarded by this */
+	private final Map<DigestType, String> m_fingerprints = new EnumMap<>(DigestType.class);
+
+	/**
+	 * Construct a CertificateInfo. Only the encoding is computed up front, the rest of the information is computed on
+	 * first use.
+	 *
+	 * @param cert The certificate
+	 * @throws CryptoException If the certificate could not be encoded
+	 */
+	private CertificateInfo(X509Certificate cert)
+	    throws CryptoException
+	{
+		try
+		{
+			m_bEncoded = cert.getEncoded();
+		}
+		catch (CertificateEncodingException ex)
+		{
+			throw new CryptoException(RB.getString("NoDerEncode.exception.message"), ex);
+		}
+		m_cert = new WeakReference<>(cert);
+	}
+
+	/**
+	 * Get the information of a certificate, creating and caching it if necessary.
+	 *
+	 * @param cert The certificate
+	 * @return The certificate information
+	 * @throws CryptoException If the certificate could not be encoded
+	 */
+	public static CertificateInfo getInstance(X509Certificate cert)
+	    throws CryptoException
+	{
+		CertificateInfo info = CACHE.get(cert);
+		if (info == null)
+		{
+			info = new CertificateInfo(cert);
+			CACHE.put(cert, info);
+		}
+		return info;
+	}
+
+	/**
+	 * Get the DER encoding.
+	 *
+	 * @return The DER encoding
+	 */
+	public byte[] getEncoded()
+	{
+		return m_bEncoded.clone();
+	}
+
+	/**
+	 * Does this certificate have the same DER encoding as another one?
+	 *
+	 * @param other The other certificate's information
+	 * @return True if it does, false otherwise
+	 */
+	public boolean isEncodingEqual(CertificateInfo other)
+	{
+		return other == this || Arrays.equals(m_bEncoded, other.m_bEncoded);
+	}
+
+	/**
+	 * Get the subject distinguished name.
+	 *
+	 * @return Subject
+	 * @throws CryptoException If the certificate could not be decoded again
+	 */
+	public synchronized String getSubject()
+	    throws CryptoException
+	{
+		if (m_sSubject == null)
+		{
+			m_sSubject = getCertificate().getSubjectX500Principal().toString();
+		}
+		return m_sSubject;
+	}
+
+	/**
+	 * Get the issuer distinguished name.
+	 *
+	 * @return Issuer
+	 * @throws CryptoException If the certificate could not be decoded again
+	 */
+	public synchronized String getIssuer()
+	    throws CryptoException
+	{
+		if (m_sIssuer == null)
+		{
+			m_sIssuer = getCertificate().getIssuerX500Principal().toString();
+		}
+		return m_sIssuer;
+	}
+
+	/**
+	 * Get the serial number as hex grouped by four characters.
+	 *
+	 * @return Serial number
+	 * @throws CryptoException If the certificate could not be decoded again
+	 */
+	public synchronized String getSerialNumber()
+	    throws CryptoException
+	{
+		if (m_sSerialNumber == null)
+		{
+			m_sSerialNumber = StringUtil.toHex(getCertificate().getSerialNumber(), 4, " ").toString();
+		}
+		return m_sSerialNumber;
+	}
+
+	/**
+	 * Get the public key algorithm.
+	 *
+	 * @return Key algorithm
+	 * @throws CryptoException If the certificate could not be decoded again
+	 */
+	public synchronized String getKeyAlgorithm()
+	    throws CryptoException
+	{
+		initKeyInfo();
+		return m_sKeyAlg;
+	}
+
+	/**
+	 * Get the public key size.
+	 *
+	 * @return Key size, or {@link KeyPairUtil#UNKNOWN_KEY_SIZE}
+	 * @throws CryptoException If the certificate could not be decoded again
+	 */
+	public synchronized int getKeySize()
+	    throws CryptoException
+	{
+		initKeyInfo();
+		return m_iKeySize;
+	}
+
+	/**
+	 * Compute the public key algorithm and size if not done yet. Must be called with this locked.
+	 *
+	 * @throws CryptoException If the certificate could not be decoded again
+	 */
+	private void initKeyInfo()
+	    throws CryptoException
+	{
+		if (m_sKeyAlg == null)
+		{
+			PublicKey publicKey = getCertificate().getPublicKey();
+			m_iKeySize = KeyPairUtil.getKeyLength(publicKey);
+			m_sKeyAlg = publicKey.getAlgorithm();
+		}
+	}
+
+	/**
+	 * Get the certificate for computing metadata. If it has been discarded meanwhile, it is decoded again from the
+	 * encoding.
+	 *
+	 * @return The certificate
+	 * @throws CryptoException If the certificate could not be decoded again
+	 */
+	private X509Certificate getCertificate()
+	    throws CryptoException
+	{
+		X509Certificate cert = m_cert.get();
+		if (cert == null)
+		{
+			try
+			{
+				CertificateFactory cf = CertificateFactory.getInstance(X509CertUtil.X509_CERT_TYPE);
+				cert = (X509Certificate) cf.generateCertificate(new ByteArrayInputStream(m_bEncoded));
+			}
+			catch (CertificateException ex)
+			{
+				throw new CryptoException(RB.getString("NoLoadCertificate.exception.message"), ex);
+			}
+		}
+		return cert;
+	}
+
+	/**
+	 * Get a fingerprint, computing it if necessary.
+	 *
+	 * @param digestType The message digest algorithm
+	 * @return The fingerprint
+	 * @throws CryptoException If there was a problem generating the message digest
+	 */
+	public String getFingerprint(DigestType digestType)
+	    throws CryptoException
+	{
+		return getFingerprints(digestType).get(digestType);
+	}
+
+	/**
+	 * Get fingerprints, computing the missing ones in one pass over the encoding.
+	 *
+	 * @param digestTypes The message digest algorithms
+	 * @return The fingerprints by algorithm; may contain additional, previously computed ones
+	 * @throws CryptoException If there was a problem generating the message digests
+	 */
+	public synchronized Map<DigestType, String> getFingerprints(DigestType... digestTypes)
+	    throws CryptoException
+	{
+		Set<DigestType> missing = EnumSet.noneOf(DigestType.class);
+		Collections.addAll(missing, digestTypes);
+		missing.removeAll(m_fingerprints.keySet());
+		if (!missing.isEmpty())
+		{
+			m_fingerprints.putAll(
+			    DigestUtil.getMessageDigests(m_bEncoded, missing.toArray(new DigestType[missing.size()])));
+		}
+		return Collections.unmodifiableMap(new EnumMap<>(m_fingerprints));
+	}
+}
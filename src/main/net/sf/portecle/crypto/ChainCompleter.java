@@ -0,0 +1,588 @@
+/*
+ * ChainCompleter.java
+ * This file is part of Portecle, a multipurpose keystore and certificate tool.
+ *
+ * Copyright © 2026 The Portecle Project
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.sf.portecle.crypto;
+
+import static net.sf.portecle.FPortecle.RB;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.security.cert.X509Certificate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.sf.portecle.DownloadCache;
+
+/**
+ * Completes certificate chains that lack intermediate certificates by fetching the missing issuers from the CA issuers
+ * locations in the certificates' Authority Information Access extensions.
+ * <p>
+ * Chains are built upwards from the end entity certificate, preferring certificates already at hand, until a
+ * self-signed certificate or a given trust anchor is reached. Only when no issuer at hand verifies the topmost
+ * certificate are its CA issuers locations fetched. Locations are fetched once per completion however many chains
+ * refer to them, concurrently across hosts with a limit per host, and through the {@link DownloadCache}, so issuers
+ * shared by many chains are downloaded once. Fetched certificates are used only if they verify the certificate they
+ * were fetched for.
+ * </p>
+ */
+public final class ChainCompleter
+{
+	/** Logger */
+	private static final Logger LOG = Logger.getLogger(ChainCompleter.class.getCanonicalName());
+
+	/** Default maximum number of issuers fetched per chain */
+	public static final int DEFAULT_MAX_DEPTH = 5;
+
+	/** Default maximum number of concurrent fetches per host */
+	public static final int DEFAULT_MAX_PER_HOST = 2;
+
+	/** Default maximum number of concurrent fetches */
+	public static final int DEFAULT_MAX_CONCURRENT = 8;
+
+	/** Fetcher thread number, for thread names */
+	private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+	/** Cache to fetch through */
+	private final DownloadCache m_cache;
+
+	/** Maximum number of issuers fetched per chain */
+	private final int m_iMaxDepth;
+
+	/** Maximum number of concurrent fetches per host */
+	private final int m_iMaxPerHost;
+
+	/** Maximum number of concurrent fetches */
+	private final int m_iMaxConcurrent;
+
+	/**
+	 * Construct a ChainCompleter with the default limits, fetching through the default download cache.
+	 */
+	public ChainCompleter()
+	{
+		this(DownloadCache.getDefault(), DEFAULT_MAX_DEPTH, DEFAULT_MAX_PER_HOST, DEFAULT_MAX_CONCURRENT);
+	}
+
+	/**
+	 * Construct a ChainCompleter.
+	 *
+	 * @param cache Cache to fetch through
+	 * @param iMaxDepth Maximum number of issuers fetched per chain
+	 * @param iMaxPerHost Maximum number of concurrent fetches per host
+	 * @param iMaxConcurrent Maximum number of concurrent fetches
+	 */
+	public ChainCompleter(DownloadCache cache, int iMaxDepth, int iMaxPerHost, int iMaxConcurrent)
+	{
+		if (iMaxDepth < 0)
+		{
+			throw new IllegalArgumentException("Maximum depth must be >= 0");
+		}
+		if (iMaxPerHost < 1)
+		{
+			throw new IllegalArgumentException("Maximum fetches per host must be >= 1");
+		}
+		if (iMaxConcurrent < 1)
+		{
+			throw new IllegalArgumentException("Maximum concurrent fetches must be >= 1");
+		}
+		m_cache = cache;
+		m_iMaxDepth = iMaxDepth;
+		m_iMaxPerHost = iMaxPerHost;
+		m_iMaxConcurrent = iMaxConcurrent;
+	}
+
+	/**
+	 * Does a certificate have CA issuers locations its issuer could be fetched from?
+	 *
+	 * @param cert The certificate
+	 * @return True if it does, false otherwise
+	 */
+	public static boolean hasCaIssuers(X509Certificate cert)
+	{
+		return !getCaIssuersUris(cert).isEmpty();
+	}
+
+	/**
+	 * Complete a certificate chain.
+	 *
+	 * @param certs The certificates of the chain, in any order
+	 * @param anchors Trust anchors; building stops at these, and they are used as issuers without fetching
+	 * @return The chain from the end entity certificate upwards, as far as it could be built; ends with a self-signed
+	 *         certificate or a trust anchor if completion succeeded
+	 * @throws CryptoException If there was a problem verifying certificates, or if interrupted
+	 */
+	public X509Certificate[] complete(X509Certificate[] certs, Collection<X509Certificate> anchors)
+	    throws CryptoException
+	{
+		List<X509Certificate[]> chains = new ArrayList<>(1);
+		chains.add(certs);
+		return completeAll(chains, anchors).get(0);
+	}
+
+	/**
+	 * Complete a number of certificate chains together, sharing the fetched issuers between them.
+	 *
+	 * @param chains The certificates of each chain, in any order
+	 * @param anchors Trust anchors; building stops at these, and they are used as issuers without fetching
+	 * @return The chains from the end entity certificates upwards, as far as they could be built, in chain order
+	 * @throws CryptoException If there was a problem verifying certificates, or if interrupted
+	 */
+	public List<X509Certificate[]> completeAll(List<X509Certificate[]> chains, Collection<X509Certificate> anchors)
+	    throws CryptoException
+	{
+		Set<X509Certificate> anchorSet = new LinkedHashSet<>(anchors);
+
+		List<Path> paths = new ArrayList<>(chains.size());
+		for (X509Certificate[] certs : chains)
+		{
+			paths.add(new Path(certs));
+		}
+
+		// Fetched certificates by location, each location fetched at most once
+		Map<String, List<X509Certificate>> fetched = new ConcurrentHashMap<>();
+
+		ExecutorService executor = null;
+		try
+		{
+			while (true)
+			{
+				// Extend with the certificates at hand as far as possible, then fetch for what remains
+				List<Path> pending = new ArrayList<>();
+				Map<String, Queue<String>> toFetch = new LinkedHashMap<>();
+				for (Path path : paths)
+				{
+					if (path.m_bDone || extendLocally(path, anchorSet, fetched))
+					{
+						continue;
+					}
+					if (path.m_iFetched >= m_iMaxDepth)
+					{
+						path.m_bDone = true;
+						continue;
+					}
+					pending.add(path);
+					for (String sUri : getCaIssuersUris(path.getTop()))
+					{
+						if (!fetched.containsKey(sUri))
+						{
+							queueFetch(toFetch, sUri);
+						}
+					}
+				}
+				if (pending.isEmpty())
+				{
+					break;
+				}
+
+				if (!toFetch.isEmpty())
+				{
+					if (executor == null)
+					{
+						executor = createExecutor();
+					}
+					fetch(executor, toFetch, fetched);
+				}
+
+				// Take the first fetched issuer verifying the topmost certificate
+				for (Path path : pending)
+				{
+					X509Certificate top = path.getTop();
+					X509Certificate issuer = null;
+					for (String sUri : getCaIssuersUris(top))
+					{
+						List<X509Certificate> candidates = fetched.get(sUri);
+						if (candidates != null && (issuer = findIssuer(path, top, candidates)) != null)
+						{
+							break;
+						}
+					}
+					if (issuer == null)
+					{
+						path.m_bDone = true;
+					}
+					else
+					{
+						path.m_certs.add(issuer);
+						path.m_iFetched++;
+					}
+				}
+			}
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new CryptoException(RB.getString("NoCompleteChain.exception.message"), ex);
+		}
+		finally
+		{
+			if (executor != null)
+			{
+				executor.shutdownNow();
+			}
+		}
+
+		List<X509Certificate[]> completed = new ArrayList<>(paths.size());
+		for (Path path : paths)
+		{
+			completed.add(path.m_certs.toArray(new X509Certificate[path.m_certs.size()]));
+		}
+		return completed;
+	}
+
+	/**
+	 * Extend a path with the certificates at hand: its own, the trust anchors, and those fetched so far.
+	 *
+	 * @param path The path
+	 * @param anchors Trust anchors
+	 * @param fetched Fetched certificates by location
+	 * @return True if the path reached a self-signed certificate or a trust anchor, false if an issuer is missing
+	 * @throws CryptoException If there was a problem verifying certificates
+	 */
+	private static boolean extendLocally(Path path, Set<X509Certificate> anchors,
+	    Map<String, List<X509Certificate>> fetched)
+	    throws CryptoException
+	{
+		while (true)
+		{
+			X509Certificate top = path.getTop();
+			if (isSelfSigned(top) || anchors.contains(top))
+			{
+				path.m_bDone = true;
+				return true;
+			}
+
+			X509Certificate issuer = findIssuer(path, top, path.m_available);
+			if (issuer == null)
+			{
+				issuer = findIssuer(path, top, anchors);
+			}
+			if (issuer == null)
+			{
+				for (List<X509Certificate> candidates : fetched.values())
+				{
+					if ((issuer = findIssuer(path, top, candidates)) != null)
+					{
+						break;
+					}
+				}
+			}
+			if (issuer == null)
+			{
+				return false;
+			}
+			path.m_certs.add(issuer);
+		}
+	}
+
+	/**
+	 * Find the issuer of a certificate among candidates.
+	 *
+	 * @param path The path the certificate tops; certificates already in it are not considered, to avoid loops
+	 * @param cert The certificate
+	 * @param candidates The candidate issuers
+	 * @return The first candidate whose subject is the certificate's issuer and that verifies it, null if none
+	 * @throws CryptoException If there was a problem verifying the certificate
+	 */
+	private static X509Certificate findIssuer(Path path, X509Certificate cert, Collection<X509Certificate> candidates)
+	    throws CryptoException
+	{
+		for (X509Certificate candidate : candidates)
+		{
+			if (cert.getIssuerX500Principal().equals(candidate.getSubjectX500Principal()) &&
+			    !path.m_certs.contains(candidate) && X509CertUtil.verifyCertificate(cert, candidate))
+			{
+				return candidate;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Is a certificate self-signed?
+	 *
+	 * @param cert The certificate
+	 * @return True if the certificate's subject is its issuer and it verifies itself
+	 * @throws CryptoException If there was a problem verifying the certificate
+	 */
+	private static boolean isSelfSigned(X509Certificate cert)
+	    throws CryptoException
+	{
+		return cert.getIssuerX500Principal().equals(cert.getSubjectX500Principal()) &&
+		    X509CertUtil.verifyCertificate(cert, cert);
+	}
+
+	/**
+	 * Get the CA issuers locations of a certificate.
+	 *
+	 * @param cert The certificate
+	 * @return The locations, empty if there are none or the extension could not be decoded
+	 */
+	private static List<String> getCaIssuersUris(X509Certificate cert)
+	{
+		try
+		{
+			return X509Ext.getCaIssuersUris(cert);
+		}
+		catch (IOException ex)
+		{
+			LOG.log(Level.FINE, "Could not decode authority information access", ex);
+			return Collections.emptyList();
+		}
+	}
+
+	/**
+	 * Queue a location for fetching, grouped by host.
+	 *
+	 * @param toFetch Queued locations by host
+	 * @param sUri The location
+	 */
+	private static void queueFetch(Map<String, Queue<String>> toFetch, String sUri)
+	{
+		String sHost;
+		try
+		{
+			sHost = new URL(sUri).getHost();
+		}
+		catch (MalformedURLException ex)
+		{
+			// For example LDAP; nothing to group by, and fetching will fail and be logged
+			sHost = "";
+		}
+		Queue<String> queue = toFetch.get(sHost);
+		if (queue == null)
+		{
+			queue = new ArrayDeque<>();
+			toFetch.put(sHost, queue);
+		}
+		if (!queue.contains(sUri))
+		{
+			queue.add(sUri);
+		}
+	}
+
+	/**
+	 * Create an executor for fetching.
+	 *
+	 * @return The executor
+	 */
+	private ExecutorService createExecutor()
+	{
+		return Executors.newFixedThreadPool(m_iMaxConcurrent, new ThreadFactory()
+		{
+			@Override
+			public Thread newThread(Runnable r)
+			{
+				Thread thread = new Thread(r, "portecle-aia-fetch-" + THREAD_NUMBER.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Fetch queued locations and wait for them. Each host's queue is drained by at most the per host limit of
+	 * fetchers, so no host sees more concurrent requests than that.
+	 *
+	 * @param executor The executor to fetch with
+	 * @param toFetch Queued locations by host
+	 * @param fetched Map to put the fetched certificates in by location; failed locations are put in with no
+	 *            certificates
+	 * @throws InterruptedException If interrupted while waiting
+	 */
+	private void fetch(ExecutorService executor, Map<String, Queue<String>> toFetch,
+	    Map<String, List<X509Certificate>> fetched)
+	    throws InterruptedException
+	{
+		List<Fetcher> fetchers = new ArrayList<>();
+		for (Queue<String> queue : toFetch.values())
+		{
+			int iFetchers = Math.min(queue.size(), m_iMaxPerHost);
+			for (int i = 0; i < iFetchers; i++)
+			{
+				fetchers.add(new Fetcher(queue, fetched));
+			}
+		}
+		executor.invokeAll(fetchers);
+	}
+
+	/**
+	 * Fetch the certificates at a location.
+	 *
+	 * @param sUri The location
+	 * @return The certificates, empty if they could not be fetched or loaded
+	 */
+	private List<X509Certificate> fetch(String sUri)
+	{
+		try
+		{
+			byte[] bContent = m_cache.fetch(new URL(sUri));
+			List<Exception> exceptions = new ArrayList<>();
+			X509Certificate[] certs = X509CertUtil.loadCertificates(bContent, exceptions);
+			if (certs != null)
+			{
+				return Arrays.asList(certs);
+			}
+			LOG.log(Level.FINE, "Could not load certificates from " + sUri, exceptions.get(0));
+		}
+		catch (IOException ex)
+		{
+			LOG.log(Level.FINE, "Could not fetch " + sUri, ex);
+		}
+		return Collections.emptyList();
+	}
+
+	/**
+	 * Fetches locations from a host's queue until it is empty.
+	 */
+	private final class Fetcher
+	    implements Callable<Void>
+	{
+		/** The host's queued locations, guarded by itself */
+		private final Queue<String> m_queue;
+
+		/** Map to put the fetched certificates in by location */
+		private final Map<String, List<X509Certificate>> m_fetched;
+
+		/**
+		 * Construct a Fetcher.
+		 *
+		 * @param queue The host's queued locations
+		 * @param fetched Map to put the fetched certificates in by location
+		 */
+		private Fetcher(Queue<String> queue, Map<String, List<X509Certificate>> fetched)
+		{
+			m_queue = queue;
+			m_fetched = fetched;
+		}
+
+		@Override
+		public Void call()
+		{
+			while (!Thread.currentThread().isInterrupted())
+			{
+				String sUri;
+				synchronized (m_queue)
+				{
+					sUri = m_queue.poll();
+				}
+				if (sUri == null)
+				{
+					break;
+				}
+				m_fetched.put(sUri, fetch(sUri));
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * A chain being built.
+	 */
+	private static final class Path
+	{
+		/** Certificates of the chain as given, available as issuers */
+		private final List<X509Certificate> m_available;
+
+		/** The chain built so far, from the end entity certificate upwards */
+		private final List<X509Certificate> m_certs = new ArrayList<>();
+
+		/** Number of issuers fetched for the chain */
+		private int m_iFetched;
+
+		/** Whether building has finished */
+		private boolean m_bDone;
+
+		/**
+		 * Construct a Path, starting from the end entity certificate of the given ones.
+		 *
+		 * @param certs The certificates of the chain, in any order
+		 */
+		private Path(X509Certificate[] certs)
+		{
+			m_available = Arrays.asList(certs);
+			m_certs.add(getEndEntity(certs));
+		}
+
+		/**
+		 * Get the topmost certificate of the chain built so far.
+		 *
+		 * @return The certificate
+		 */
+		private X509Certificate getTop()
+		{
+			return m_certs.get(m_certs.size() - 1);
+		}
+
+		/**
+		 * Get the end entity certificate of a chain: the first certificate that is not the issuer of another one,
+		 * preferring ones that are not CA certificates, as an intermediate may be disconnected from the end entity
+		 * when the issuers between them are missing.
+		 *
+		 * @param certs The certificates of the chain, in any order
+		 * @return The end entity certificate, or the first certificate if every certificate issues another
+		 */
+		private static X509Certificate getEndEntity(X509Certificate[] certs)
+		{
+			X509Certificate endEntity = null;
+			for (X509Certificate cert : certs)
+			{
+				boolean bIssuer = false;
+				for (X509Certificate other : certs)
+				{
+					if (other != cert && other.getIssuerX500Principal().equals(cert.getSubjectX500Principal()))
+					{
+						bIssuer = true;
+						break;
+					}
+				}
+				if (!bIssuer)
+				{
+					if (cert.getBasicConstraints() == -1)
+					{
+						return cert;
+					}
+					if (endEntity == null)
+					{
+						endEntity = cert;
+					}
+				}
+			}
+			return endEntity == null ? certs[0] : endEntity;
+		}
+	}
+}
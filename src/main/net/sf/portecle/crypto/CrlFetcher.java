@@ -0,0 +1,310 @@
+/*
+ * CrlFetcher.java
+ * This file is part of Portecle, a multipurpose keystore and certificate tool.
+ *
+ * Copyright © 2026 The Portecle Project
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.sf.portecle.crypto;
+
+import static net.sf.portecle.FPortecle.RB;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Fetches CRLs from CRL distribution points for revocation checks of many certificates. Certificates issued by the
+ * same CA usually share their distribution points, so concurrent requests for the same URL are coalesced into one
+ * download that is parsed once, and the parsed CRL is handed to every waiting request. Parsed CRLs are kept for later
+ * requests until their next update, or for the lifetime of the fetcher if they do not specify one. Failed downloads
+ * are not kept; the requests waiting for them all get the failure, and later requests try again. Should the thread
+ * doing a download be interrupted, the requests waiting for it try again instead.
+ * <p>
+ * CRLs are loaded with {@link X509CertUtil#loadCRL(URL)}, so they are also kept in the download cache across
+ * fetchers. The number of downloads in flight at the same time is capped.
+ * </p>
+ */
+public final class CrlFetcher
+{
+	/** Logger */
+	private static final Logger LOG = Logger.getLogger(CrlFetcher.class.getCanonicalName());
+
+	/** Default maximum number of downloads in flight */
+	public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+
+	/** Fetcher thread number, for thread names */
+	private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+	/** Maximum number of downloads in flight */
+	private final int m_iMaxInFlight;
+
+	/** Permits for downloads in flight */
+	private final Semaphore m_inFlight;
+
+	/** Downloads in flight and parsed CRLs, by URL */
+	private final ConcurrentMap<String, Future<X509CRL>> m_crls = new ConcurrentHashMap<>();
+
+	/**
+	 * Construct a CrlFetcher with the default limit of downloads in flight.
+	 */
+	public CrlFetcher()
+	{
+		this(DEFAULT_MAX_IN_FLIGHT);
+	}
+
+	/**
+	 * Construct a CrlFetcher.
+	 *
+	 * @param iMaxInFlight Maximum number of downloads in flight
+	 */
+	public CrlFetcher(int iMaxInFlight)
+	{
+		if (iMaxInFlight < 1)
+		{
+			throw new IllegalArgumentException("Maximum downloads in flight must be >= 1");
+		}
+		m_iMaxInFlight = iMaxInFlight;
+		m_inFlight = new Semaphore(iMaxInFlight);
+	}
+
+	/**
+	 * Fetch a CRL. If the CRL is already being downloaded, waits for that download instead of starting another one,
+	 * and starts one after all should the downloading thread be interrupted.
+	 *
+	 * @param url The URL to fetch the CRL from
+	 * @return The CRL
+	 * @throws CryptoException If the CRL could not be parsed
+	 * @throws IOException If the CRL could not be downloaded, or if this thread was interrupted
+	 */
+	public X509CRL fetch(final URL url)
+	    throws CryptoException, IOException
+	{
+		String sKey = url.toExternalForm();
+		while (true)
+		{
+			Future<X509CRL> download = m_crls.get(sKey);
+			boolean bKept = download != null && download.isDone();
+			boolean bOwner = false;
+			if (download == null)
+			{
+				FutureTask<X509CRL> task = new FutureTask<>(new Callable<X509CRL>()
+				{
+					@Override
+					public X509CRL call()
+					    throws CryptoException, IOException, InterruptedException
+					{
+						m_inFlight.acquire();
+						try
+						{
+							return X509CertUtil.loadCRL(url);
+						}
+						finally
+						{
+							m_inFlight.release();
+						}
+					}
+				});
+				download = m_crls.putIfAbsent(sKey, task);
+				if (download == null)
+				{
+					// Ours; download on this thread while others wait for it
+					download = task;
+					bOwner = true;
+					task.run();
+				}
+			}
+
+			X509CRL crl;
+			try
+			{
+				crl = download.get();
+			}
+			catch (InterruptedException ex)
+			{
+				Thread.currentThread().interrupt();
+				InterruptedIOException iioe = new InterruptedIOException(url.toExternalForm());
+				iioe.initCause(ex);
+				throw iioe;
+			}
+			catch (ExecutionException ex)
+			{
+				m_crls.remove(sKey, download);
+				Throwable cause = ex.getCause();
+				if (cause instanceof CryptoException)
+				{
+					throw (CryptoException) cause;
+				}
+				if (cause instanceof IOException)
+				{
+					throw (IOException) cause;
+				}
+				if (cause instanceof InterruptedException)
+				{
+					if (!bOwner)
+					{
+						// The downloading thread was interrupted, not this one; try again
+						continue;
+					}
+					Thread.currentThread().interrupt();
+					InterruptedIOException iioe = new InterruptedIOException(url.toExternalForm());
+					iioe.initCause(cause);
+					throw iioe;
+				}
+				throw new CryptoException(RB.getString("NoLoadCrl.exception.message"), cause);
+			}
+
+			// Kept CRL past its next update; fetch again
+			Date nextUpdate = crl.getNextUpdate();
+			if (bKept && nextUpdate != null && nextUpdate.before(new Date()))
+			{
+				m_crls.remove(sKey, download);
+				continue;
+			}
+			return crl;
+		}
+	}
+
+	/**
+	 * Fetch the CRLs of a number of certificates concurrently. For each certificate, its CRL distribution points are
+	 * tried in order until a CRL is fetched.
+	 *
+	 * @param certs The certificates
+	 * @return The CRLs in certificate order; null for certificates without CRL distribution points or whose CRLs
+	 *         could not be fetched
+	 * @throws InterruptedException If interrupted while waiting for the fetches to finish
+	 */
+	public List<X509CRL> fetchAll(Collection<X509Certificate> certs)
+	    throws InterruptedException
+	{
+		List<X509CRL> crls = new ArrayList<>(certs.size());
+		if (certs.isEmpty())
+		{
+			return crls;
+		}
+
+		List<Callable<X509CRL>> tasks = new ArrayList<>(certs.size());
+		for (final X509Certificate cert : certs)
+		{
+			tasks.add(new Callable<X509CRL>()
+			{
+				@Override
+				public X509CRL call()
+				{
+					return fetch(cert);
+				}
+			});
+		}
+
+		ThreadFactory threadFactory = new ThreadFactory()
+		{
+			@Override
+			public Thread newThread(Runnable r)
+			{
+				Thread thread = new Thread(r, "portecle-crl-fetch-" + THREAD_NUMBER.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+		// Requests coalescing on the same download wait without a permit, so more threads than permits keep the
+		// downloads of other URLs going meanwhile
+		ExecutorService executor =
+		    Executors.newFixedThreadPool(Math.min(m_iMaxInFlight * 2, tasks.size()), threadFactory);
+		try
+		{
+			for (Future<X509CRL> future : executor.invokeAll(tasks))
+			{
+				try
+				{
+					crls.add(future.get());
+				}
+				catch (ExecutionException ex)
+				{
+					// The tasks catch everything they expect; anything else is a bug
+					throw new IllegalStateException(ex.getCause());
+				}
+			}
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+		return crls;
+	}
+
+	/**
+	 * Fetch the CRL of a certificate, trying its CRL distribution points in order.
+	 *
+	 * @param cert The certificate
+	 * @return The CRL, or null if the certificate has no CRL distribution points or none of them could be fetched
+	 */
+	private X509CRL fetch(X509Certificate cert)
+	{
+		List<String> uris;
+		try
+		{
+			uris = X509Ext.getCrlDistributionPointUris(cert);
+		}
+		catch (IOException ex)
+		{
+			LOG.log(Level.FINE, "Could not decode CRL distribution points", ex);
+			return null;
+		}
+
+		for (String sUri : uris)
+		{
+			try
+			{
+				return fetch(new URL(sUri));
+			}
+			catch (MalformedURLException ex)
+			{
+				// For example LDAP
+				LOG.log(Level.FINE, "Unsupported CRL distribution point " + sUri, ex);
+			}
+			catch (CryptoException | IOException ex)
+			{
+				if (Thread.currentThread().isInterrupted())
+				{
+					return null;
+				}
+				LOG.log(Level.FINE, "Could not fetch CRL from " + sUri, ex);
+			}
+		}
+		return null;
+	}
+}
@@ -22,7 +22,7 @@
 package net.sf.portecle.crypto;
 
 /**
- * Digest type. Enum constant names are compatible with JCA standard names.
+ * Digest type.
  *
  * @see <a href="https://docs.oracle.com/javase/8/docs/technotes/guides/security/StandardNames.html">JCA Standard
  *      Names</a>
@@ -30,7 +30,78 @@ package net.sf.portecle.crypto;
 public enum DigestType
 {
 	/** MD5 Digest Type */
-	MD5,
+	MD5("MD5", 16),
 	/** SHA-1 Digest Type */
-	SHA1;
+	SHA1("SHA-1", 20),
+	/** SHA-256 Digest Type */
+	SHA256("SHA-256", 32),
+	/** SHA-512 Digest Type */
+	SHA512("SHA-512", 64);
+
+	/** JCA standard algorithm name */
+	private final String m_sAlgorithm;
+
+	/** Digest length in bytes */
+	private final int m_iLength;
+
+	/**
+	 * Construct a DigestType.
+	 *
+	 * @param sAlgorithm JCA standard algorithm name
+	 * @param iLength Digest length in bytes
+	 */
+	private DigestType(String sAlgorithm, int iLength)
+	{
+		m_sAlgorithm = sAlgorithm;
+		m_iLength = iLength;
+	}
+
+	/**
+	 * Get the JCA standard algorithm name.
+	 *
+	 * @return Algorithm name
+	 */
+	public String getAlgorithm()
+	{
+		return m_sAlgorithm;
+	}
+
+	/**
+	 * Get the digest length.
+	 *
+	 * @return Digest length in bytes
+	 */
+	public int getLength()
+	{
+		return m_iLength;
+	}
+
+	/**
+	 * Get the digest type producing digests of the given length.
+	 *
+	 * @param iLength Digest length in bytes
+	 * @return Digest type, or null if none matches
+	 */
+	public static DigestType valueOfLength(int iLength)
+	{
+		for (DigestType digestType : values())
+		{
+			if (digestType.m_iLength == iLength)
+			{
+				return digestType;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Get a String representation of the digest type.
+	 *
+	 * @return String representation of the digest type
+	 */
+	@Override
+	public String toString()
+	{
+		return m_sAlgorithm;
+	}
 }
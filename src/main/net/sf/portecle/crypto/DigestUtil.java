@@ -23,16 +23,52 @@ package net.sf.portecle.crypto;
 
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
 import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 import net.sf.portecle.FPortecle;
 import net.sf.portecle.StringUtil;
 
+import org.bouncycastle.util.encoders.Base64;
+
 /**
  * Provides utility methods for the creation of message digests.
  */
 public final class DigestUtil
 {
+	/** Size of the chunks in which the message is fed to each digest in turn */
+	private static final int CHUNK_SIZE = 8192;
+
+	/** Per thread message digest instances, reused across calls */
+	private static final ThreadLocal<Map<DigestType, MessageDigest>> DIGESTS =
+	    new ThreadLocal<Map<DigestType, MessageDigest>>()
+	    {
+		    @Override
+		    protected Map<DigestType, MessageDigest> initialValue()
+		    {
+			    return new EnumMap<>(DigestType.class);
+		    }
+	    };
+
+	/** Optional algorithm label preceding a pasted fingerprint, e.g. "SHA256 Fingerprint=" or "sha-1:" */
+	private static final Pattern FINGERPRINT_LABEL =
+	    Pattern.compile("^(?i)(md5|sha-?(1|256|512))(\\s*fingerprint)?\\s*[:=]\\s*");
+
+	/** Separators accepted between the hex digits of a pasted fingerprint */
+	private static final Pattern HEX_SEPARATORS = Pattern.compile("[\\s:.-]+");
+
+	/** Hex digits */
+	private static final Pattern HEX_DIGITS = Pattern.compile("[0-9a-fA-F]+");
+
 	/**
 	 * Private to prevent construction.
 	 */
@@ -52,23 +88,165 @@ public final class DigestUtil
 	public static String getMessageDigest(byte[] bMessage, DigestType digestType)
 	    throws CryptoException
 	{
-		// Create message digest object using the supplied algorithm
-		MessageDigest messageDigest;
+		return getMessageDigests(bMessage, digestType).get(digestType);
+	}
+
+	/**
+	 * Get several digests of a message as formatted Strings, computed in one pass over the message.
+	 *
+	 * @param bMessage The message to digest
+	 * @param digestTypes The message digest algorithms
+	 * @return The message digests by algorithm
+	 * @throws CryptoException If there was a problem generating the message digests
+	 */
+	public static Map<DigestType, String> getMessageDigests(byte[] bMessage, DigestType... digestTypes)
+	    throws CryptoException
+	{
+		Set<DigestType> types = EnumSet.noneOf(DigestType.class);
+		Collections.addAll(types, digestTypes);
+
+		MessageDigest[] messageDigests = new MessageDigest[types.size()];
+		int i = 0;
+		for (DigestType digestType : types)
+		{
+			messageDigests[i++] = getMessageDigestInstance(digestType);
+		}
+
+		// Feed the message to all digests chunk by chunk while it is in cache
+		for (int iOffset = 0; iOffset < bMessage.length; iOffset += CHUNK_SIZE)
+		{
+			int iLen = Math.min(CHUNK_SIZE, bMessage.length - iOffset);
+			for (MessageDigest messageDigest : messageDigests)
+			{
+				messageDigest.update(bMessage, iOffset, iLen);
+			}
+		}
+
+		// Create and format raw message digests
+		Map<DigestType, String> digests = new EnumMap<>(DigestType.class);
+		i = 0;
+		for (DigestType digestType : types)
+		{
+			byte[] bFingerPrint = messageDigests[i++].digest();
+			digests.put(digestType, StringUtil.toHex(bFingerPrint, 2, ":").toString());
+		}
+		return digests;
+	}
+
+	/**
+	 * Get fingerprints of a certificate as formatted Strings. Fingerprints of X.509 certificates are computed once per
+	 * certificate and digest algorithm, and cached in its {@link CertificateInfo}.
+	 *
+	 * @param cert The certificate
+	 * @param digestTypes The message digest algorithms
+	 * @return The fingerprints by algorithm; may contain additional, previously computed ones
+	 * @throws CryptoException If there was a problem encoding the certificate or generating the message digests
+	 */
+	public static Map<DigestType, String> getFingerprints(Certificate cert, DigestType... digestTypes)
+	    throws CryptoException
+	{
+		if (cert instanceof X509Certificate)
+		{
+			return CertificateInfo.getInstance((X509Certificate) cert).getFingerprints(digestTypes);
+		}
+
 		try
 		{
-			messageDigest = MessageDigest.getInstance(digestType.name());
+			return getMessageDigests(cert.getEncoded(), digestTypes);
+		}
+		catch (CertificateEncodingException ex)
+		{
+			throw new CryptoException(FPortecle.RB.getString("NoDerEncode.exception.message"), ex);
 		}
-		catch (NoSuchAlgorithmException ex)
+	}
+
+	/**
+	 * Get a fingerprint of a certificate as a formatted String, cached as in
+	 * {@link #getFingerprints(Certificate, DigestType...)}.
+	 *
+	 * @param cert The certificate
+	 * @param digestType The message digest algorithm
+	 * @return The fingerprint
+	 * @throws CryptoException If there was a problem encoding the certificate or generating the message digest
+	 */
+	public static String getFingerprint(Certificate cert, DigestType digestType)
+	    throws CryptoException
+	{
+		return getFingerprints(cert, digestType).get(digestType);
+	}
+
+	/**
+	 * Normalize a fingerprint in any of the common notations to the hex digits of its digest. Accepted are hex with
+	 * or without colon, space, dash, or dot separators and in either case, as well as Base64 as used by OpenSSH, each
+	 * optionally preceded by an algorithm label such as "SHA256:" or "SHA1 Fingerprint=".
+	 *
+	 * @param sFingerprint The fingerprint
+	 * @return Upper case hex digits without separators, or null if the fingerprint is not recognized or its length
+	 *         does not match any supported digest type
+	 */
+	public static String normalizeFingerprint(String sFingerprint)
+	{
+		String sValue = FINGERPRINT_LABEL.matcher(sFingerprint.trim()).replaceFirst("");
+
+		String sHex = HEX_SEPARATORS.matcher(sValue).replaceAll("");
+		if (HEX_DIGITS.matcher(sHex).matches() && sHex.length() % 2 == 0 &&
+		    DigestType.valueOfLength(sHex.length() / 2) != null)
 		{
-			throw new CryptoException(
-			    MessageFormat.format(FPortecle.RB.getString("NoCreateDigest.exception.message"), digestType), ex);
+			return sHex.toUpperCase(Locale.ENGLISH);
 		}
 
-		// Create raw message digest
-		byte[] bFingerPrint = messageDigest.digest(bMessage);
+		String sBase64 = sValue.replaceAll("[\\s=]+", "");
+		while (sBase64.length() % 4 != 0)
+		{
+			sBase64 += "=";
+		}
+		byte[] bDigest;
+		try
+		{
+			bDigest = Base64.decode(sBase64);
+		}
+		catch (RuntimeException ex)
+		{
+			// Not Base64 either
+			return null;
+		}
+		if (DigestType.valueOfLength(bDigest.length) == null)
+		{
+			return null;
+		}
+		return StringUtil.toHex(bDigest, 0, bDigest.length, 0, "").toString();
+	}
 
-		// Return the formatted message digest
-		StringBuilder sb = StringUtil.toHex(bFingerPrint, 2, ":");
-		return sb.toString();
+	/**
+	 * Get a reset message digest instance from the current thread's pool.
+	 *
+	 * @param digestType The message digest algorithm
+	 * @return The message digest instance
+	 * @throws CryptoException If there was a problem creating the message digest
+	 */
+	private static MessageDigest getMessageDigestInstance(DigestType digestType)
+	    throws CryptoException
+	{
+		Map<DigestType, MessageDigest> pool = DIGESTS.get();
+		MessageDigest messageDigest = pool.get(digestType);
+		if (messageDigest == null)
+		{
+			// Create message digest object using the supplied algorithm
+			try
+			{
+				messageDigest = MessageDigest.getInstance(digestType.getAlgorithm());
+			}
+			catch (NoSuchAlgorithmException ex)
+			{
+				throw new CryptoException(
+				    MessageFormat.format(FPortecle.RB.getString("NoCreateDigest.exception.message"), digestType), ex);
+			}
+			pool.put(digestType, messageDigest);
+		}
+		else
+		{
+			messageDigest.reset();
+		}
+		return messageDigest;
 	}
 }
@@ -0,0 +1,43 @@
+/*
+ * ExtensionRenderer.java
+ * This file is part of Portecle, a multipurpose keystore and certificate tool.
+ *
+ * Copyright © 2026 The Portecle Project
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.sf.portecle.crypto;
+
+import java.io.IOException;
+import java.text.ParseException;
+
+/**
+ * Interface for decoding the value of an X.509 extension for display. Decoders are registered per extension OID with
+ * {@link X509Ext#registerRenderer(String, String, ExtensionRenderer)}.
+ */
+public interface ExtensionRenderer
+{
+	/**
+	 * Decode an extension value.
+	 *
+	 * @param bValue The extension's octet string value
+	 * @return Decoded extension value
+	 * @throws IOException If an I/O problem occurs
+	 * @throws ParseException If a date formatting problem occurs
+	 */
+	ExtensionValue decode(byte[] bValue)
+	    throws IOException, ParseException;
+}
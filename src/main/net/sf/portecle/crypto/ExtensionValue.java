@@ -0,0 +1,494 @@
+/*
+ * ExtensionValue.java
+ * This file is part of Portecle, a multipurpose keystore and certificate tool.
+ *
+ * Copyright © 2026 The Portecle Project
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+
+package net.sf.portecle.crypto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import net.sf.portecle.crypto.X509Ext.LinkClass;
+
+/**
+ * Immutable tree of a decoded X.509 extension value. Each node has an optional label and value, optionally linked to
+ * a URL, and any number of child nodes. Labels and values are plain text; the HTML, plain text, and JSON renderings
+ * take care of escaping.
+ * <p>
+ * Nodes standing for an object identifier or a general name carry it as data too, see {@link #getOid()} and
+ * {@link #getGeneralNameType()}, so that callers need not parse the displayed text.
+ * </p>
+ */
+public final class ExtensionValue
+{
+	/** Text indentation unit */
+	private static final String INDENT = "  ";
+
+	/** Label, null if none */
+	private final String m_sLabel;
+
+	/** Value, null if none */
+	private final String m_sValue;
+
+	/** Link URL for the value, null if none */
+	private final String m_sHref;
+
+	/** Link class, null if none */
+	private final LinkClass m_linkClass;
+
+	/** Object identifier the value stands for, null if none */
+	private final String m_sOid;
+
+	/** General name type (tag number) if the node is a general name, -1 otherwise */
+	private final int m_iGeneralNameType;
+
+	/** Whether the value is preformatted text whose line breaks and spacing matter */
+	private final boolean m_bPreformatted;
+
+	/** Child nodes */
+	private final List<ExtensionValue> m_children;
+
+	/**
+	 * Construct an ExtensionValue.
+	 *
+	 * @param sLabel Label, null if none
+	 * @param sValue Value, null if none
+	 * @param sHref Link URL for the value, null if none
+	 * @param linkClass Link class, null if none
+	 * @param sOid Object identifier the value stands for, null if none
+	 * @param iGeneralNameType General name type if the node is a general name, -1 otherwise
+	 * @param bPreformatted Whether the value is preformatted text
+	 * @param children Child nodes
+	 */
+	private ExtensionValue(String sLabel, String sValue, String sHref, LinkClass linkClass, String sOid,
+	    int iGeneralNameType, boolean bPreformatted, List<ExtensionValue> children)
+	{
+		m_sLabel = sLabel;
+		m_sValue = sValue;
+		m_sHref = sHref;
+		m_linkClass = linkClass;
+		m_sOid = sOid;
+		m_iGeneralNameType = iGeneralNameType;
+		m_bPreformatted = bPreformatted;
+		m_children = Collections.unmodifiableList(new ArrayList<>(children));
+	}
+
+	/**
+	 * Create a leaf node.
+	 *
+	 * @param sLabel Label, null if none
+	 * @param sValue Value, null if none
+	 * @return The node
+	 */
+	public static ExtensionValue leaf(String sLabel, String sValue)
+	{
+		return new ExtensionValue(sLabel, sValue, null, null, null, -1, false,
+		    Collections.<ExtensionValue> emptyList());
+	}
+
+	/**
+	 * Create a leaf node with preformatted text as its value, such as a hex dump.
+	 *
+	 * @param sLabel Label, null if none
+	 * @param sValue Value
+	 * @return The node
+	 */
+	public static ExtensionValue preformatted(String sLabel, String sValue)
+	{
+		return new ExtensionValue(sLabel, sValue, null, null, null, -1, true, Collections.<ExtensionValue> emptyList());
+	}
+
+	/**
+	 * Create a leaf node with a linked value.
+	 *
+	 * @param sLabel Label, null if none
+	 * @param sValue Value
+	 * @param sHref Link URL
+	 * @param linkClass Link class, null if none
+	 * @return The node
+	 */
+	public static ExtensionValue link(String sLabel, String sValue, String sHref, LinkClass linkClass)
+	{
+		return new ExtensionValue(sLabel, sValue, sHref, linkClass, null, -1, false,
+		    Collections.<ExtensionValue> emptyList());
+	}
+
+	/**
+	 * Create a leaf node for a general name.
+	 *
+	 * @param sLabel Label, null if none
+	 * @param sValue The name as text
+	 * @param sHref Link URL, null if none
+	 * @param linkClass Link class, null if none
+	 * @param iType General name type (tag number)
+	 * @return The node
+	 */
+	public static ExtensionValue generalName(String sLabel, String sValue, String sHref, LinkClass linkClass,
+	    int iType)
+	{
+		return new ExtensionValue(sLabel, sValue, sHref, linkClass, null, iType, false,
+		    Collections.<ExtensionValue> emptyList());
+	}
+
+	/**
+	 * Create a node with children.
+	 *
+	 * @param sLabel Label, null if none
+	 * @param sValue Value, null if none
+	 * @param children Child nodes
+	 * @return The node
+	 */
+	public static ExtensionValue node(String sLabel, String sValue, List<ExtensionValue> children)
+	{
+		return new ExtensionValue(sLabel, sValue, null, null, null, -1, false, children);
+	}
+
+	/**
+	 * Create a node whose value stands for an object identifier.
+	 *
+	 * @param sLabel Label, null if none
+	 * @param sValue Value, for example the name of the object identifier
+	 * @param sOid The object identifier
+	 * @param children Child nodes
+	 * @return The node
+	 */
+	public static ExtensionValue oid(String sLabel, String sValue, String sOid, List<ExtensionValue> children)
+	{
+		return new ExtensionValue(sLabel, sValue, null, null, sOid, -1, false, children);
+	}
+
+	/**
+	 * Get the label.
+	 *
+	 * @return Label, null if none
+	 */
+	public String getLabel()
+	{
+		return m_sLabel;
+	}
+
+	/**
+	 * Get the value.
+	 *
+	 * @return Value, null if none
+	 */
+	public String getValue()
+	{
+		return m_sValue;
+	}
+
+	/**
+	 * Get the link URL of the value.
+	 *
+	 * @return Link URL, null if none
+	 */
+	public String getHref()
+	{
+		return m_sHref;
+	}
+
+	/**
+	 * Get the link class of the value.
+	 *
+	 * @return Link class, null if none
+	 */
+	public LinkClass getLinkClass()
+	{
+		return m_linkClass;
+	}
+
+	/**
+	 * Get the object identifier the value stands for.
+	 *
+	 * @return Object identifier, null if none
+	 */
+	public String getOid()
+	{
+		return m_sOid;
+	}
+
+	/**
+	 * Get the general name type of the node. For URIs, the value is the URI.
+	 *
+	 * @return General name type (tag number), -1 if the node is not a general name
+	 */
+	public int getGeneralNameType()
+	{
+		return m_iGeneralNameType;
+	}
+
+	/**
+	 * Is the value preformatted text whose line breaks and spacing matter?
+	 *
+	 * @return True if it is, false otherwise
+	 */
+	public boolean isPreformatted()
+	{
+		return m_bPreformatted;
+	}
+
+	/**
+	 * Get the child nodes.
+	 *
+	 * @return Unmodifiable list of child nodes
+	 */
+	public List<ExtensionValue> getChildren()
+	{
+		return m_children;
+	}
+
+	/**
+	 * Render as HTML. The top node's children are rendered as a list.
+	 *
+	 * @return HTML string
+	 */
+	public String toHtml()
+	{
+		StringBuilder sb = new StringBuilder();
+		appendHtml(sb);
+		return sb.toString();
+	}
+
+	/**
+	 * Append the HTML rendering of this node.
+	 *
+	 * @param sb Buffer to append to
+	 */
+	private void appendHtml(StringBuilder sb)
+	{
+		if (m_sLabel != null)
+		{
+			sb.append(X509Ext.escapeHtml(m_sLabel));
+			if (m_sValue != null || !m_children.isEmpty())
+			{
+				sb.append(": ");
+			}
+		}
+		if (m_sValue != null)
+		{
+			if (m_sHref != null)
+			{
+				sb.append(X509Ext.getLink(m_sHref, X509Ext.escapeHtml(m_sValue), m_linkClass));
+			}
+			else if (m_bPreformatted)
+			{
+				String sTag = (m_sValue.indexOf('\n') == -1) ? "tt" : "pre";
+				sb.append('<').append(sTag).append('>').append(X509Ext.escapeHtml(m_sValue)).append("</").append(
+				    sTag).append('>');
+			}
+			else
+			{
+				sb.append(X509Ext.escapeHtml(m_sValue));
+			}
+		}
+		if (!m_children.isEmpty())
+		{
+			sb.append("<ul>");
+			for (ExtensionValue child : m_children)
+			{
+				sb.append("<li>");
+				child.appendHtml(sb);
+				sb.append("</li>");
+			}
+			sb.append("</ul>");
+		}
+	}
+
+	/**
+	 * Render as indented plain text, one node per line.
+	 *
+	 * @return Plain text string
+	 */
+	public String toText()
+	{
+		StringBuilder sb = new StringBuilder();
+		appendText(sb, (m_sLabel == null && m_sValue == null) ? -1 : 0);
+		return sb.toString();
+	}
+
+	/**
+	 * Append the plain text rendering of this node.
+	 *
+	 * @param sb Buffer to append to
+	 * @param iDepth Indentation depth, -1 for a top node without a line of its own
+	 */
+	private void appendText(StringBuilder sb, int iDepth)
+	{
+		if (iDepth >= 0)
+		{
+			for (int i = 0; i < iDepth; i++)
+			{
+				sb.append(INDENT);
+			}
+			if (m_sLabel != null)
+			{
+				sb.append(m_sLabel);
+				if (m_sValue != null)
+				{
+					sb.append(": ");
+				}
+			}
+			if (m_sValue != null)
+			{
+				// Keep continuation lines of multi-line values at this depth
+				sb.append(m_sValue.replace("\n", "\n" + indent(iDepth)));
+			}
+			sb.append('\n');
+		}
+		for (ExtensionValue child : m_children)
+		{
+			child.appendText(sb, iDepth + 1);
+		}
+	}
+
+	/**
+	 * Render as JSON. Each node is an object with optional "label", "value", "href", "oid", "generalNameType", and
+	 * "children" members.
+	 *
+	 * @return JSON string
+	 */
+	public String toJson()
+	{
+		StringBuilder sb = new StringBuilder();
+		appendJson(sb);
+		return sb.toString();
+	}
+
+	/**
+	 * Append the JSON rendering of this node.
+	 *
+	 * @param sb Buffer to append to
+	 */
+	private void appendJson(StringBuilder sb)
+	{
+		sb.append('{');
+		boolean bFirst = true;
+		if (m_sLabel != null)
+		{
+			bFirst = appendJsonMember(sb, bFirst, "label", m_sLabel);
+		}
+		if (m_sValue != null)
+		{
+			bFirst = appendJsonMember(sb, bFirst, "value", m_sValue);
+		}
+		if (m_sHref != null)
+		{
+			bFirst = appendJsonMember(sb, bFirst, "href", m_sHref);
+		}
+		if (m_sOid != null)
+		{
+			bFirst = appendJsonMember(sb, bFirst, "oid", m_sOid);
+		}
+		if (m_iGeneralNameType != -1)
+		{
+			if (!bFirst)
+			{
+				sb.append(',');
+			}
+			sb.append("\"generalNameType\":").append(m_iGeneralNameType);
+			bFirst = false;
+		}
+		if (!m_children.isEmpty())
+		{
+			if (!bFirst)
+			{
+				sb.append(',');
+			}
+			sb.append("\"children\":[");
+			for (int i = 0, len = m_children.size(); i < len; i++)
+			{
+				if (i != 0)
+				{
+					sb.append(',');
+				}
+				m_children.get(i).appendJson(sb);
+			}
+			sb.append(']');
+		}
+		sb.append('}');
+	}
+
+	/**
+	 * Append a JSON string member.
+	 *
+	 * @param sb Buffer to append to
+	 * @param bFirst Whether this is the first member of the object
+	 * @param sName Member name
+	 * @param sValue Member value
+	 * @return False, i.e. whether the next member will be the first one
+	 */
+	private static boolean appendJsonMember(StringBuilder sb, boolean bFirst, String sName, String sValue)
+	{
+		if (!bFirst)
+		{
+			sb.append(',');
+		}
+		sb.append('"').append(sName).append("\":\"");
+		for (int i = 0, len = sValue.length(); i < len; i++)
+		{
+			char c = sValue.charAt(i);
+			switch (c)
+			{
+				case '"':
+					sb.append("\\\"");
+					break;
+				case '\\':
+					sb.append("\\\\");
+					break;
+				case '\n':
+					sb.append("\\n");
+					break;
+				case '\r':
+					sb.append("\\r");
+					break;
+				case '\t':
+					sb.append("\\t");
+					break;
+				default:
+					if (c < 0x20)
+					{
+						sb.append(String.format("\\u%04x", (int) c));
+					}
+					else
+					{
+						sb.append(c);
+					}
+			}
+		}
+		sb.append('"');
+		return false;
+	}
+
+	/**
+	 * Get indentation for a depth.
+	 *
+	 * @param iDepth Indentation depth
+	 * @return Indentation string
+	 */
+	private static String indent(int iDepth)
+	{
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < iDepth; i++)
+		{
+			sb.append(INDENT);
+		}
+		return sb.toString();
+	}
+}
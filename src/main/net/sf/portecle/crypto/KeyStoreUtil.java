@@ -30,6 +30,7 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.security.GeneralSecurityException;
 import java.security.KeyPair;
 import java.security.KeyStore;
@@ -304,6 +305,48 @@ public final class KeyStoreUtil
 	 */
 	public static KeyStore loadKeyStore(File fKeyStore, char[] cPassword, KeyStoreType keyStoreType)
 	    throws CryptoException, FileNotFoundException
+	{
+		try (FileInputStream fis = new FileInputStream(fKeyStore))
+		{
+			return loadKeyStore(fis, cPassword, keyStoreType);
+		}
+		catch (FileNotFoundException ex)
+		{
+			throw ex;
+		}
+		catch (IOException ex)
+		{
+			throw new CryptoException(
+			    MessageFormat.format(RB.getString("NoLoadKeystore.exception.message"), keyStoreType), ex);
+		}
+	}
+
+	/**
+	 * Load a Keystore from its encoding accessed by a password.
+	 *
+	 * @param bKeyStore The keystore, for example as fetched from an URL
+	 * @param cPassword Password of the keystore
+	 * @param keyStoreType The type of the keystore to open
+	 * @return The keystore
+	 * @throws CryptoException Problem encountered loading the keystore
+	 */
+	public static KeyStore loadKeyStore(byte[] bKeyStore, char[] cPassword, KeyStoreType keyStoreType)
+	    throws CryptoException
+	{
+		return loadKeyStore(new ByteArrayInputStream(bKeyStore), cPassword, keyStoreType);
+	}
+
+	/**
+	 * Load a Keystore from a stream accessed by a password.
+	 *
+	 * @param in Stream to load keystore from
+	 * @param cPassword Password of the keystore
+	 * @param keyStoreType The type of the keystore to open
+	 * @return The keystore
+	 * @throws CryptoException Problem encountered loading the keystore
+	 */
+	private static KeyStore loadKeyStore(InputStream in, char[] cPassword, KeyStoreType keyStoreType)
+	    throws CryptoException
 	{
 		KeyStore keyStore;
 		try
@@ -316,13 +359,9 @@ public final class KeyStoreUtil
 			    MessageFormat.format(RB.getString("NoCreateKeystore.exception.message"), keyStoreType), ex);
 		}
 
-		try (FileInputStream fis = new FileInputStream(fKeyStore))
-		{
-			keyStore.load(fis, cPassword);
-		}
-		catch (FileNotFoundException ex)
+		try
 		{
-			throw ex;
+			keyStore.load(in, cPassword);
 		}
 		// BC 1.58 workarounds for https://www.bouncycastle.org/jira/browse/BJA-691
 		// * ClassCastException: trying to open PKCS #12 as BCFKS
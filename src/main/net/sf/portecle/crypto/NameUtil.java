@@ -21,8 +21,17 @@
 
 package net.sf.portecle.crypto;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import javax.security.auth.x500.X500Principal;
 
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.x500.AttributeTypeAndValue;
 import org.bouncycastle.asn1.x500.RDN;
 import org.bouncycastle.asn1.x500.X500Name;
 import org.bouncycastle.asn1.x500.style.BCStyle;
@@ -32,6 +41,20 @@ import org.bouncycastle.asn1.x500.style.BCStyle;
  */
 public final class NameUtil
 {
+	/** Maximum number of parsed names to cache */
+	private static final int PARSED_CACHE_SIZE = 1024;
+
+	/** Recently parsed names by DER encoding, least recently used ones evicted first */
+	private static final Map<EncodedKey, ParsedName> PARSED =
+	    Collections.synchronizedMap(new LinkedHashMap<EncodedKey, ParsedName>(16, 0.75f, true)
+	    {
+		    @Override
+		    protected boolean removeEldestEntry(Map.Entry<EncodedKey, ParsedName> eldest)
+		    {
+			    return size() > PARSED_CACHE_SIZE;
+		    }
+	    });
+
 	/**
 	 * Private to prevent construction.
 	 */
@@ -75,6 +98,217 @@ public final class NameUtil
 			return null;
 		}
 
-		return getCommonName(X500Name.getInstance(name.getEncoded()));
+		return getParsedName(name).getCommonName();
+	}
+
+	/**
+	 * Gets the parsed view of the given X500Principal. Parsed names are cached by encoding, so equal names, such as
+	 * the issuer of many certificates, share one instance while it is cached.
+	 *
+	 * @param name the X.500 principal
+	 * @return the parsed name
+	 */
+	public static ParsedName getParsedName(X500Principal name)
+	{
+		EncodedKey key = new EncodedKey(name.getEncoded());
+		ParsedName parsed = PARSED.get(key);
+		if (parsed == null)
+		{
+			parsed = new ParsedName(X500Name.getInstance(key.m_bEncoded));
+			PARSED.put(key, parsed);
+		}
+		return parsed;
+	}
+
+	/**
+	 * Immutable parsed view of an X.500 name, giving direct access to its attribute values.
+	 */
+	public static final class ParsedName
+	{
+		/** The name */
+		private final X500Name m_name;
+
+		/** Attribute values by type, in name order */
+		private final Map<ASN1ObjectIdentifier, List<String>> m_values;
+
+		/**
+		 * Construct a ParsedName.
+		 *
+		 * @param name the X.500 name
+		 */
+		private ParsedName(X500Name name)
+		{
+			m_name = name;
+
+			Map<ASN1ObjectIdentifier, List<String>> values = new LinkedHashMap<>();
+			for (RDN rdn : name.getRDNs())
+			{
+				for (AttributeTypeAndValue atv : rdn.getTypesAndValues())
+				{
+					List<String> typeValues = values.get(atv.getType());
+					if (typeValues == null)
+					{
+						typeValues = new ArrayList<>(1);
+						values.put(atv.getType(), typeValues);
+					}
+					typeValues.add(atv.getValue().toString());
+				}
+			}
+			for (Map.Entry<ASN1ObjectIdentifier, List<String>> entry : values.entrySet())
+			{
+				entry.setValue(Collections.unmodifiableList(entry.getValue()));
+			}
+			m_values = Collections.unmodifiableMap(values);
+		}
+
+		/**
+		 * Gets the X.500 name.
+		 *
+		 * @return the X.500 name
+		 */
+		public X500Name getX500Name()
+		{
+			return m_name;
+		}
+
+		/**
+		 * Gets all values of an attribute type.
+		 *
+		 * @param type the attribute type
+		 * @return the values in name order, empty if none
+		 */
+		public List<String> getValues(ASN1ObjectIdentifier type)
+		{
+			List<String> typeValues = m_values.get(type);
+			return (typeValues == null) ? Collections.<String> emptyList() : typeValues;
+		}
+
+		/**
+		 * Gets the first value of an attribute type.
+		 *
+		 * @param type the attribute type
+		 * @return the value, null if not found
+		 */
+		public String getValue(ASN1ObjectIdentifier type)
+		{
+			List<String> typeValues = m_values.get(type);
+			return (typeValues == null) ? null : typeValues.get(0);
+		}
+
+		/**
+		 * Gets the common name (CN).
+		 *
+		 * @return the common name, null if not found
+		 */
+		public String getCommonName()
+		{
+			return getValue(BCStyle.CN);
+		}
+
+		/**
+		 * Gets the organization (O).
+		 *
+		 * @return the organization, null if not found
+		 */
+		public String getOrganization()
+		{
+			return getValue(BCStyle.O);
+		}
+
+		/**
+		 * Gets the organizational unit (OU).
+		 *
+		 * @return the organizational unit, null if not found
+		 */
+		public String getOrganizationalUnit()
+		{
+			return getValue(BCStyle.OU);
+		}
+
+		/**
+		 * Gets the locality (L).
+		 *
+		 * @return the locality, null if not found
+		 */
+		public String getLocality()
+		{
+			return getValue(BCStyle.L);
+		}
+
+		/**
+		 * Gets the state or province (ST).
+		 *
+		 * @return the state or province, null if not found
+		 */
+		public String getState()
+		{
+			return getValue(BCStyle.ST);
+		}
+
+		/**
+		 * Gets the country (C).
+		 *
+		 * @return the country, null if not found
+		 */
+		public String getCountry()
+		{
+			return getValue(BCStyle.C);
+		}
+
+		/**
+		 * Gets the email address (E).
+		 *
+		 * @return the email address, null if not found
+		 */
+		public String getEmailAddress()
+		{
+			return getValue(BCStyle.EmailAddress);
+		}
+
+		/**
+		 * Gets the string representation of the name.
+		 *
+		 * @return the name as a string
+		 */
+		@Override
+		public String toString()
+		{
+			return m_name.toString();
+		}
+	}
+
+	/**
+	 * Cache key of a DER encoded name.
+	 */
+	private static final class EncodedKey
+	{
+		/** The encoding */
+		private final byte[] m_bEncoded;
+
+		/** Hash code */
+		private final int m_iHashCode;
+
+		/**
+		 * Construct an EncodedKey.
+		 *
+		 * @param bEncoded the encoding
+		 */
+		private EncodedKey(byte[] bEncoded)
+		{
+			m_bEncoded = bEncoded;
+			m_iHashCode = Arrays.hashCode(bEncoded);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return m_iHashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			return obj instanceof EncodedKey && Arrays.equals(m_bEncoded, ((EncodedKey) obj).m_bEncoded);
+		}
 	}
 }
@@ -74,7 +74,7 @@ import org.bouncycastle.pkcs.PKCS10CertificationRequest;
 import org.bouncycastle.pkcs.PKCSException;
 import org.bouncycastle.pkcs.jcajce.JcaPKCS10CertificationRequestBuilder;
 
-import net.sf.portecle.NetUtil;
+import net.sf.portecle.DownloadCache;
 
 /**
  * Provides utility methods relating to X509 Certificates, CRLs and CSRs.
@@ -102,7 +102,8 @@ public final class X509CertUtil
 	}
 
 	/**
-	 * Load one or more certificates from the specified URL, trying a built in list of certification encodings.
+	 * Load one or more certificates from the specified URL, trying a built in list of certification encodings. Remote
+	 * certificates are fetched through the {@link DownloadCache}.
 	 *
 	 * @param url The URL to load certificates from
 	 * @param exceptions Collection where exceptions occurred will be added
@@ -112,14 +113,24 @@ public final class X509CertUtil
 	public static X509Certificate[] loadCertificates(URL url, Collection<Exception> exceptions)
 	    throws IOException
 	{
-		URL downloadedUrl = NetUtil.download(url);
+		return loadCertificates(DownloadCache.getDefault().fetch(url), exceptions);
+	}
 
+	/**
+	 * Load one or more certificates from the specified content, trying a built in list of certification encodings.
+	 *
+	 * @param bContent The content to load certificates from
+	 * @param exceptions Collection where exceptions occurred will be added
+	 * @return The certificates, or null if the content could not be loaded with any of the encodings
+	 */
+	/* package private */static X509Certificate[] loadCertificates(byte[] bContent, Collection<Exception> exceptions)
+	{
 		X509Certificate[] certs = null;
 		for (String certType : new String[] { PKCS7_ENCODING, PKIPATH_ENCODING, null, OPENSSL_PEM_ENCODING })
 		{
 			try
 			{
-				certs = loadCertificates(downloadedUrl, certType);
+				certs = loadCertificates(bContent, certType);
 				break; // Success!
 			}
 			catch (Exception e)
@@ -132,22 +143,20 @@ public final class X509CertUtil
 	}
 
 	/**
-	 * Load one or more certificates from the specified URL.
+	 * Load one or more certificates from the specified content.
 	 *
-	 * @param url The URL to load certificates from
+	 * @param bContent The content to load certificates from
 	 * @param encoding The certification path encoding. If null, treat as a normal certificate, not certification path.
 	 *            Use one of the <code>*_ENCODING</code> constants here.
 	 * @return The certificates
 	 * @throws CryptoException Problem encountered while loading the certificate(s)
 	 */
-	private static X509Certificate[] loadCertificates(URL url, String encoding)
+	private static X509Certificate[] loadCertificates(byte[] bContent, String encoding)
 	    throws CryptoException
 	{
-		// TODO: connect/read timeouts
-
 		Collection certs;
 
-		try (InputStream in = NetUtil.openGetStream(url))
+		try (InputStream in = new ByteArrayInputStream(bContent))
 		{
 			if (OPENSSL_PEM_ENCODING.equals(encoding))
 			{
@@ -209,7 +218,8 @@ public final class X509CertUtil
 	}
 
 	/**
-	 * Load a CRL from the specified URL.
+	 * Load a CRL from the specified URL. Remote CRLs are fetched through the {@link DownloadCache}, and kept there
+	 * until their next update at most.
 	 *
 	 * @param url The URL to load CRL from
 	 * @return The CRL
@@ -221,10 +231,16 @@ public final class X509CertUtil
 	public static X509CRL loadCRL(URL url)
 	    throws CryptoException, IOException
 	{
-		try (InputStream in = NetUtil.openGetStream(url))
+		DownloadCache cache = DownloadCache.getDefault();
+		try (InputStream in = new ByteArrayInputStream(cache.fetch(url)))
 		{
 			CertificateFactory cf = CertificateFactory.getInstance(X509_CERT_TYPE);
-			return (X509CRL) cf.generateCRL(in);
+			X509CRL crl = (X509CRL) cf.generateCRL(in);
+			if (crl.getNextUpdate() != null)
+			{
+				cache.setContentExpiration(url, crl.getNextUpdate().getTime());
+			}
+			return crl;
 		}
 		catch (GeneralSecurityException ex)
 		{
@@ -246,7 +262,8 @@ public final class X509CertUtil
 	    throws CryptoException, IOException
 	{
 		// TODO: handle DER encoded requests too?
-		try (PEMParser pr = new PEMParser(new InputStreamReader(NetUtil.openGetStream(url))))
+		try (PEMParser pr =
+		    new PEMParser(new InputStreamReader(new ByteArrayInputStream(DownloadCache.getDefault().fetch(url)))))
 		{
 			PKCS10CertificationRequest csr = (PKCS10CertificationRequest) pr.readObject();
 			ContentVerifierProvider prov = new JcaContentVerifierProviderBuilder().build(csr.getSubjectPublicKeyInfo());
@@ -386,14 +403,7 @@ public final class X509CertUtil
 	public static byte[] getCertEncodedDer(X509Certificate cert)
 	    throws CryptoException
 	{
-		try
-		{
-			return cert.getEncoded();
-		}
-		catch (CertificateException ex)
-		{
-			throw new CryptoException(RB.getString("NoDerEncode.exception.message"), ex);
-		}
+		return CertificateInfo.getInstance(cert).getEncoded();
 	}
 
 	/**
@@ -753,7 +763,7 @@ public final class X509CertUtil
 	 * @param signingCert The signing certificate
 	 * @throws CryptoException If there was a problem verifying the signature.
 	 */
-	private static boolean verifyCertificate(X509Certificate signedCert, X509Certificate signingCert)
+	/* package private */static boolean verifyCertificate(X509Certificate signedCert, X509Certificate signingCert)
 	    throws CryptoException
 	{
 		try
@@ -797,6 +807,52 @@ public final class X509CertUtil
 		return establishTrust(ksCerts, cert);
 	}
 
+	/**
+	 * Check whether or not a trust path exists between the supplied X.509 certificate and and the supplied keystores
+	 * based on the trusted certificates contained therein, fetching intermediate certificates missing from the
+	 * keystores from the CA issuers locations of the certificates' Authority Information Access extensions.
+	 *
+	 * @return The trust chain, or null if trust could not be established
+	 * @param cert The certificate
+	 * @param keyStores The keystores
+	 * @param completer Completer to fetch missing intermediate certificates with
+	 * @throws CryptoException If there is a problem establishing trust
+	 */
+	public static X509Certificate[] establishTrust(KeyStore[] keyStores, X509Certificate cert,
+	    ChainCompleter completer)
+	    throws CryptoException
+	{
+		ArrayList<X509Certificate> ksCerts = new ArrayList<>();
+		for (KeyStore ks : keyStores)
+		{
+			ksCerts.addAll(extractCertificates(ks));
+		}
+
+		X509Certificate[] trustChain = establishTrust(ksCerts, cert);
+		if (trustChain != null)
+		{
+			return trustChain;
+		}
+
+		// Complete the chain up to a keystore certificate, and establish trust from the first fetched intermediate
+		// whose issuer is in the keystores
+		X509Certificate[] completed = completer.complete(new X509Certificate[] { cert }, ksCerts);
+		for (int i = 1; i < completed.length; i++)
+		{
+			X509Certificate[] tmpChain = establishTrust(ksCerts, completed[i]);
+			if (tmpChain != null)
+			{
+				trustChain = new X509Certificate[i + tmpChain.length];
+				System.arraycopy(completed, 0, trustChain, 0, i);
+				System.arraycopy(tmpChain, 0, trustChain, i, tmpChain.length);
+				return trustChain;
+			}
+		}
+
+		// No chain of trust
+		return null;
+	}
+
 	/**
 	 * Check whether or not a trust path exists between the supplied X.509 certificate and and the supplied comparison
 	 * certificates based on the trusted certificates contained therein, i.e. that a chain of trust exists between the
@@ -850,7 +906,7 @@ public final class X509CertUtil
 	 * @return The extracted certificates
 	 * @throws CryptoException If a problem is encountered extracting the certificates
 	 */
-	private static Collection<X509Certificate> extractCertificates(KeyStore keyStore)
+	public static Collection<X509Certificate> extractCertificates(KeyStore keyStore)
 	    throws CryptoException
 	{
 		try
@@ -885,6 +941,7 @@ public final class X509CertUtil
 	public static String matchCertificate(KeyStore keyStore, X509Certificate cert)
 	    throws CryptoException
 	{
+		CertificateInfo info = CertificateInfo.getInstance(cert);
 		try
 		{
 			for (Enumeration<String> en = keyStore.aliases(); en.hasMoreElements();)
@@ -894,7 +951,7 @@ public final class X509CertUtil
 				{
 					X509Certificate compCert = X509CertUtil.convertCertificate(keyStore.getCertificate(sAlias));
 
-					if (cert.equals(compCert))
+					if (info.isEncodingEqual(CertificateInfo.getInstance(compCert)))
 					{
 						return sAlias;
 					}
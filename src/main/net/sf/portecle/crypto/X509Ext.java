@@ -26,21 +26,27 @@ import static net.sf.portecle.FPortecle.RB;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.lang.reflect.Method;
 import java.math.BigInteger;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.text.DateFormat;
+import java.security.cert.X509Certificate;
 import java.text.MessageFormat;
 import java.text.NumberFormat;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
-import java.util.MissingResourceException;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.bouncycastle.asn1.ASN1BitString;
 import org.bouncycastle.asn1.ASN1Boolean;
 import org.bouncycastle.asn1.ASN1Encodable;
 import org.bouncycastle.asn1.ASN1GeneralizedTime;
@@ -49,6 +55,7 @@ import org.bouncycastle.asn1.ASN1ObjectIdentifier;
 import org.bouncycastle.asn1.ASN1OctetString;
 import org.bouncycastle.asn1.ASN1Primitive;
 import org.bouncycastle.asn1.ASN1Sequence;
+import org.bouncycastle.asn1.ASN1Set;
 import org.bouncycastle.asn1.ASN1String;
 import org.bouncycastle.asn1.ASN1TaggedObject;
 import org.bouncycastle.asn1.DERBitString;
@@ -83,6 +90,7 @@ import org.bouncycastle.asn1.x509.ReasonFlags;
 import org.bouncycastle.asn1.x509.SubjectKeyIdentifier;
 import org.bouncycastle.asn1.x509.X509ObjectIdentifiers;
 
+import net.sf.portecle.DateUtil;
 import net.sf.portecle.StringUtil;
 
 /**
@@ -158,6 +166,82 @@ public class X509Ext
 	// No info available
 	// private static final String DELTA_INFORMATION_OID = "2.5.29.53";
 
+	/** Extension renderers by OID */
+	private static final ConcurrentMap<ASN1ObjectIdentifier, ExtensionRenderer> RENDERERS =
+	    new ConcurrentHashMap<>();
+
+	/** Extension names by OID, cached as they are looked up */
+	private static final ConcurrentMap<String, String> NAMES = new ConcurrentHashMap<>();
+
+	/** Maximum nesting depth of ASN.1 structures dumped by stringify */
+	private static final int STRINGIFY_MAX_DEPTH = 64;
+
+	/** Maximum length of stringify output in characters */
+	private static final int STRINGIFY_MAX_LENGTH = 256 * 1024;
+
+	/** Marker for truncated stringify output */
+	private static final String TRUNCATED = "...";
+
+	/** Maximum number of decoded extension values to cache */
+	private static final int DECODED_CACHE_SIZE = 256;
+
+	/** Recently decoded extension values by OID, renderer, and value, least recently used ones evicted first */
+	private static final Map<DecodedKey, ExtensionValue> DECODED =
+	    Collections.synchronizedMap(new LinkedHashMap<DecodedKey, ExtensionValue>(16, 0.75f, true)
+	    {
+		    @Override
+		    protected boolean removeEldestEntry(Map.Entry<DecodedKey, ExtensionValue> eldest)
+		    {
+			    return size() > DECODED_CACHE_SIZE;
+		    }
+	    });
+
+	static
+	{
+		RENDERERS.put(X509ObjectIdentifiers.commonName, BuiltInRenderer.COMMON_NAME);
+		RENDERERS.put(Extension.subjectKeyIdentifier, BuiltInRenderer.SUBJECT_KEY_IDENTIFIER);
+		RENDERERS.put(Extension.keyUsage, BuiltInRenderer.KEY_USAGE);
+		RENDERERS.put(Extension.privateKeyUsagePeriod, BuiltInRenderer.PRIVATE_KEY_USAGE_PERIOD);
+		RENDERERS.put(Extension.issuerAlternativeName, BuiltInRenderer.ALTERNATIVE_NAME);
+		RENDERERS.put(Extension.subjectAlternativeName, BuiltInRenderer.ALTERNATIVE_NAME);
+		RENDERERS.put(Extension.basicConstraints, BuiltInRenderer.BASIC_CONSTRAINTS);
+		RENDERERS.put(Extension.cRLNumber, BuiltInRenderer.CRL_NUMBER);
+		RENDERERS.put(Extension.reasonCode, BuiltInRenderer.REASON_CODE);
+		RENDERERS.put(Extension.instructionCode, BuiltInRenderer.HOLD_INSTRUCTION_CODE);
+		RENDERERS.put(Extension.invalidityDate, BuiltInRenderer.INVALIDITY_DATE);
+		RENDERERS.put(Extension.deltaCRLIndicator, BuiltInRenderer.DELTA_CRL_INDICATOR);
+		RENDERERS.put(Extension.certificateIssuer, BuiltInRenderer.CERTIFICATE_ISSUER);
+		RENDERERS.put(Extension.policyMappings, BuiltInRenderer.POLICY_MAPPINGS);
+		RENDERERS.put(Extension.authorityKeyIdentifier, BuiltInRenderer.AUTHORITY_KEY_IDENTIFIER);
+		RENDERERS.put(Extension.policyConstraints, BuiltInRenderer.POLICY_CONSTRAINTS);
+		RENDERERS.put(Extension.extendedKeyUsage, BuiltInRenderer.EXTENDED_KEY_USAGE);
+		RENDERERS.put(Extension.inhibitAnyPolicy, BuiltInRenderer.INHIBIT_ANY_POLICY);
+		RENDERERS.put(MiscObjectIdentifiers.entrustVersionExtension, BuiltInRenderer.ENTRUST_VERSION);
+		RENDERERS.put(PKCSObjectIdentifiers.pkcs_9_at_smimeCapabilities, BuiltInRenderer.SMIME_CAPABILITIES);
+		RENDERERS.put(MicrosoftObjectIdentifiers.microsoftCaVersion, BuiltInRenderer.MICROSOFT_CA_VERSION);
+		RENDERERS.put(MicrosoftObjectIdentifiers.microsoftPrevCaCertHash, BuiltInRenderer.MICROSOFT_PREV_CA_CERT_HASH);
+		RENDERERS.put(MicrosoftObjectIdentifiers.microsoftCertTemplateV2, BuiltInRenderer.MICROSOFT_CERT_TEMPLATE_V2);
+		RENDERERS.put(MicrosoftObjectIdentifiers.microsoftCrlNextPublish, BuiltInRenderer.MICROSOFT_CRL_NEXT_PUBLISH);
+		RENDERERS.put(Extension.authorityInfoAccess, BuiltInRenderer.INFORMATION_ACCESS);
+		RENDERERS.put(Extension.subjectInfoAccess, BuiltInRenderer.INFORMATION_ACCESS);
+		RENDERERS.put(Extension.logoType, BuiltInRenderer.LOGOTYPE);
+		RENDERERS.put(MiscObjectIdentifiers.novellSecurityAttribs, BuiltInRenderer.NOVELL_SECURITY_ATTRIBUTES);
+		RENDERERS.put(MiscObjectIdentifiers.netscapeCertType, BuiltInRenderer.NETSCAPE_CERT_TYPE);
+		RENDERERS.put(MiscObjectIdentifiers.netscapeSSLServerName, BuiltInRenderer.ASN1_OBJECT_STRING);
+		RENDERERS.put(MiscObjectIdentifiers.netscapeCertComment, BuiltInRenderer.ASN1_OBJECT_STRING);
+		RENDERERS.put(MiscObjectIdentifiers.verisignDnbDunsNumber, BuiltInRenderer.ASN1_OBJECT_STRING);
+		RENDERERS.put(MicrosoftObjectIdentifiers.microsoftCertTemplateV1, BuiltInRenderer.ASN1_OBJECT_STRING);
+		RENDERERS.put(MiscObjectIdentifiers.netscapeCApolicyURL, BuiltInRenderer.NETSCAPE_BROWSER_URL);
+		RENDERERS.put(MiscObjectIdentifiers.netscapeBaseURL, BuiltInRenderer.NETSCAPE_CRL_URL);
+		RENDERERS.put(MiscObjectIdentifiers.netscapeRenewalURL, BuiltInRenderer.NETSCAPE_CRL_URL);
+		RENDERERS.put(MiscObjectIdentifiers.netscapeRevocationURL, BuiltInRenderer.NETSCAPE_CRL_URL);
+		RENDERERS.put(MiscObjectIdentifiers.netscapeCARevocationURL, BuiltInRenderer.NETSCAPE_CRL_URL);
+		RENDERERS.put(Extension.cRLDistributionPoints, BuiltInRenderer.CRL_DISTRIBUTION_POINTS);
+		RENDERERS.put(Extension.certificatePolicies, BuiltInRenderer.CERTIFICATE_POLICIES);
+		// TODO
+		RENDERERS.put(MicrosoftObjectIdentifiers.microsoftAppPolicies, BuiltInRenderer.UNKNOWN);
+	}
+
 	/** Extension name or OID if unknown */
 	private final String m_sName;
 
@@ -170,6 +254,9 @@ public class X509Ext
 	/** Critical extension? */
 	private final boolean m_bCritical;
 
+	/** Decoded extension value, lazily initialized */
+	private volatile ExtensionValue m_decoded;
+
 	/**
 	 * Construct a new immutable X509Ext.
 	 *
@@ -185,7 +272,7 @@ public class X509Ext
 
 		m_bCritical = bCritical;
 
-		m_sName = getRes(m_Oid.getId(), "UnrecognisedExtension");
+		m_sName = getExtensionName(m_Oid.getId());
 	}
 
 	/**
@@ -238,170 +325,344 @@ public class X509Ext
 	public String getStringValue()
 	    throws IOException, ParseException
 	{
-		// Get octet string from extension
-		byte[] bOctets = ((ASN1OctetString) ASN1Primitive.fromByteArray(m_bValue)).getOctets();
+		return getDecodedValue().toHtml();
+	}
 
-		// Octet string processed differently depending on extension type
-		if (m_Oid.equals(X509ObjectIdentifiers.commonName))
-		{
-			return getCommonNameStringValue(bOctets);
-		}
-		else if (m_Oid.equals(Extension.subjectKeyIdentifier))
-		{
-			return getSubjectKeyIdentifierStringValue(bOctets);
-		}
-		else if (m_Oid.equals(Extension.keyUsage))
-		{
-			return getKeyUsageStringValue(bOctets);
-		}
-		else if (m_Oid.equals(Extension.privateKeyUsagePeriod))
-		{
-			return getPrivateKeyUsagePeriod(bOctets);
-		}
-		else if (m_Oid.equals(Extension.issuerAlternativeName) || m_Oid.equals(Extension.subjectAlternativeName))
-		{
-			return getAlternativeName(bOctets);
-		}
-		else if (m_Oid.equals(Extension.basicConstraints))
-		{
-			return getBasicConstraintsStringValue(bOctets);
-		}
-		else if (m_Oid.equals(Extension.cRLNumber))
-		{
-			return getCrlNumberStringValue(bOctets);
-		}
-		else if (m_Oid.equals(Extension.reasonCode))
-		{
-			return getReasonCodeStringValue(bOctets);
-		}
-		else if (m_Oid.equals(Extension.instructionCode))
-		{
-			return getHoldInstructionCodeStringValue(bOctets);
-		}
-		else if (m_Oid.equals(Extension.invalidityDate))
-		{
-			return getInvalidityDateStringValue(bOctets);
-		}
-		else if (m_Oid.equals(Extension.deltaCRLIndicator))
-		{
-			return getDeltaCrlIndicatorStringValue(bOctets);
-		}
-		else if (m_Oid.equals(Extension.certificateIssuer))
-		{
-			return getCertificateIssuerStringValue(bOctets);
-		}
-		else if (m_Oid.equals(Extension.policyMappings))
-		{
-			return getPolicyMappingsStringValue(bOctets);
-		}
-		else if (m_Oid.equals(Extension.authorityKeyIdentifier))
-		{
-			return getAuthorityKeyIdentifierStringValue(bOctets);
-		}
-		else if (m_Oid.equals(Extension.policyConstraints))
-		{
-			return getPolicyConstraintsStringValue(bOctets);
-		}
-		else if (m_Oid.equals(Extension.extendedKeyUsage))
-		{
-			return getExtendedKeyUsageStringValue(bOctets);
-		}
-		else if (m_Oid.equals(Extension.inhibitAnyPolicy))
-		{
-			return getInhibitAnyPolicyStringValue(bOctets);
-		}
-		else if (m_Oid.equals(MiscObjectIdentifiers.entrustVersionExtension))
-		{
-			return getEntrustVersionExtensionStringValue(bOctets);
-		}
-		else if (m_Oid.equals(PKCSObjectIdentifiers.pkcs_9_at_smimeCapabilities))
-		{
-			return getSmimeCapabilitiesStringValue(bOctets);
-		}
-		else if (m_Oid.equals(MicrosoftObjectIdentifiers.microsoftCaVersion))
-		{
-			return getMicrosoftCAVersionStringValue(bOctets);
-		}
-		else if (m_Oid.equals(MicrosoftObjectIdentifiers.microsoftPrevCaCertHash))
-		{
-			return getMicrosoftPreviousCACertificateHashStringValue(bOctets);
-		}
-		else if (m_Oid.equals(MicrosoftObjectIdentifiers.microsoftCertTemplateV2))
-		{
-			return getMicrosoftCertificateTemplateV2StringValue(bOctets);
-		}
-		else if (m_Oid.equals(MicrosoftObjectIdentifiers.microsoftAppPolicies))
-		{
-			return getUnknownOidStringValue(bOctets); // TODO
-		}
-		else if (m_Oid.equals(MicrosoftObjectIdentifiers.microsoftCrlNextPublish))
-		{
-			return getMicrosoftCrlNextPublish(bOctets);
-		}
-		else if (m_Oid.equals(Extension.authorityInfoAccess) || m_Oid.equals(Extension.subjectInfoAccess))
+	/**
+	 * Get the decoded extension value. The value is decoded only once per extension, and recently decoded values are
+	 * shared between extensions with the same OID and value.
+	 *
+	 * @return Decoded extension value
+	 * @throws IOException If an I/O problem occurs
+	 * @throws ParseException If a date formatting problem occurs
+	 */
+	public ExtensionValue getDecodedValue()
+	    throws IOException, ParseException
+	{
+		ExtensionValue decoded = m_decoded;
+		if (decoded == null)
 		{
-			return getInformationAccessStringValue(bOctets);
+			// Octet string processed differently depending on extension type
+			ExtensionRenderer renderer = RENDERERS.get(m_Oid);
+
+			// TODO:
+			// - CERTIFICATE_POLICIES_OLD_OID
+			// - AUTHORITY_KEY_IDENTIFIER_OLD_OID
+			// - BASIC_CONSTRAINTS_OLD_0_OID
+
+			// Don't know how to process the extension
+			// and clear text
+			if (renderer == null)
+			{
+				renderer = BuiltInRenderer.UNKNOWN;
+			}
+
+			decoded = decode(m_Oid, m_bValue, renderer);
+			m_decoded = decoded;
 		}
-		else if (m_Oid.equals(Extension.logoType))
+		return decoded;
+	}
+
+	/**
+	 * Decode an extension value with a renderer, or get it from the recently decoded values.
+	 *
+	 * @param oid Extension object identifier
+	 * @param bValue Extension value, DER encoded octet string; not to be modified afterwards
+	 * @param renderer The renderer
+	 * @return Decoded extension value
+	 * @throws IOException If an I/O problem occurs
+	 * @throws ParseException If a date formatting problem occurs
+	 */
+	private static ExtensionValue decode(ASN1ObjectIdentifier oid, byte[] bValue, ExtensionRenderer renderer)
+	    throws IOException, ParseException
+	{
+		DecodedKey key = new DecodedKey(oid, renderer, bValue);
+		ExtensionValue decoded = DECODED.get(key);
+		if (decoded == null)
 		{
-			return getLogotypeStringValue(bOctets);
+			// Get octet string from extension
+			byte[] bOctets = ((ASN1OctetString) ASN1Primitive.fromByteArray(bValue)).getOctets();
+			decoded = renderer.decode(bOctets);
+			DECODED.put(key, decoded);
 		}
-		else if (m_Oid.equals(MiscObjectIdentifiers.novellSecurityAttribs))
+		return decoded;
+	}
+
+	/**
+	 * Register a renderer for an extension, replacing any previously registered renderer for the same OID. Can be
+	 * used to add support for private extensions, or to override the built in rendering of known ones. Values of
+	 * extensions instantiated before the registration that have already been decoded are not affected.
+	 *
+	 * @param sOid Extension object identifier
+	 * @param sName Extension name, or null to look it up from resources as for built in extensions
+	 * @param renderer The renderer
+	 */
+	public static void registerRenderer(String sOid, String sName, ExtensionRenderer renderer)
+	{
+		ASN1ObjectIdentifier oid = new ASN1ObjectIdentifier(sOid);
+		if (sName != null)
 		{
-			return getNovellSecurityAttributesStringValue(bOctets);
+			NAMES.put(oid.getId(), sName);
 		}
-		else if (m_Oid.equals(MiscObjectIdentifiers.netscapeCertType))
+		RENDERERS.put(oid, renderer);
+		DECODED.clear();
+	}
+
+	/**
+	 * Get the CA issuers URIs of a certificate, from its Authority Information Access extension.
+	 *
+	 * @param cert The certificate
+	 * @return The CA issuers URIs in the order they appear in the extension, empty if there are none
+	 * @throws IOException If the extension could not be decoded
+	 */
+	public static List<String> getCaIssuersUris(X509Certificate cert)
+	    throws IOException
+	{
+		return getUris(cert, Extension.authorityInfoAccess, BuiltInRenderer.INFORMATION_ACCESS, LinkClass.CERTIFICATE);
+	}
+
+	/**
+	 * Get the CRL distribution point URIs of a certificate, from its CRL Distribution Points extension. Only
+	 * distribution points with a full name are included.
+	 *
+	 * @param cert The certificate
+	 * @return The CRL distribution point URIs in the order they appear in the extension, empty if there are none
+	 * @throws IOException If the extension could not be decoded
+	 */
+	public static List<String> getCrlDistributionPointUris(X509Certificate cert)
+	    throws IOException
+	{
+		return getUris(cert, Extension.cRLDistributionPoints, BuiltInRenderer.CRL_DISTRIBUTION_POINTS, LinkClass.CRL);
+	}
+
+	/**
+	 * Get the URIs of a certificate extension linking to a kind of resource, from the built in decoding of the
+	 * extension, so that renderers registered for it do not affect the result. The decoding is shared with the
+	 * recently decoded values.
+	 *
+	 * @param cert The certificate
+	 * @param oid Extension object identifier
+	 * @param renderer The built in renderer of the extension
+	 * @param linkClass The kind of resource
+	 * @return The URIs in the order they appear in the extension, empty if there are none
+	 * @throws IOException If the extension could not be decoded
+	 */
+	private static List<String> getUris(X509Certificate cert, ASN1ObjectIdentifier oid, BuiltInRenderer renderer,
+	    LinkClass linkClass)
+	    throws IOException
+	{
+		byte[] bValue = cert.getExtensionValue(oid.getId());
+		if (bValue == null)
 		{
-			return getNetscapeCertificateTypeStringValue(bOctets);
+			return Collections.emptyList();
 		}
-		else if (m_Oid.equals(MiscObjectIdentifiers.netscapeSSLServerName) ||
-		    m_Oid.equals(MiscObjectIdentifiers.netscapeCertComment) ||
-		    m_Oid.equals(MiscObjectIdentifiers.verisignDnbDunsNumber) ||
-		    m_Oid.equals(MicrosoftObjectIdentifiers.microsoftCertTemplateV1))
+
+		List<String> uris = new ArrayList<>();
+		try
 		{
-			return getASN1ObjectString(bOctets);
+			addUris(uris, decode(oid, bValue, renderer), linkClass);
 		}
-		else if (m_Oid.equals(MiscObjectIdentifiers.netscapeCApolicyURL))
+		catch (ClassCastException | IllegalArgumentException | ParseException ex)
 		{
-			return getNetscapeExtensionURLValue(bOctets, LinkClass.BROWSER);
+			// Malformed structure
+			throw new IOException(ex);
 		}
-		else if (m_Oid.equals(MiscObjectIdentifiers.netscapeBaseURL) ||
-		    m_Oid.equals(MiscObjectIdentifiers.netscapeRenewalURL) ||
-		    m_Oid.equals(MiscObjectIdentifiers.netscapeRevocationURL) ||
-		    m_Oid.equals(MiscObjectIdentifiers.netscapeCARevocationURL))
+		return uris;
+	}
+
+	/**
+	 * Add the URI general names of a decoded extension value tree linking to a kind of resource.
+	 *
+	 * @param uris URIs to add to
+	 * @param value The decoded extension value
+	 * @param linkClass The kind of resource
+	 */
+	private static void addUris(List<String> uris, ExtensionValue value, LinkClass linkClass)
+	{
+		if (value.getGeneralNameType() == GeneralName.uniformResourceIdentifier && value.getLinkClass() == linkClass)
 		{
-			return getNetscapeExtensionURLValue(bOctets, LinkClass.CRL);
+			uris.add(value.getValue());
 		}
-		else if (m_Oid.equals(Extension.cRLDistributionPoints))
+		for (ExtensionValue child : value.getChildren())
 		{
-			return getCrlDistributionPointsStringValue(bOctets);
+			addUris(uris, child, linkClass);
 		}
-		else if (m_Oid.equals(Extension.certificatePolicies))
+	}
+
+	/**
+	 * Get the name of an extension.
+	 *
+	 * @param sOid Extension object identifier
+	 * @return Extension name
+	 */
+	private static String getExtensionName(String sOid)
+	{
+		String sName = NAMES.get(sOid);
+		if (sName == null)
 		{
-			return getCertificatePoliciesStringValue(bOctets);
+			sName = getRes(sOid, "UnrecognisedExtension");
+			NAMES.putIfAbsent(sOid, sName);
 		}
+		return sName;
+	}
 
-		// TODO:
-		// - CERTIFICATE_POLICIES_OLD_OID
-		// - AUTHORITY_KEY_IDENTIFIER_OLD_OID
-		// - BASIC_CONSTRAINTS_OLD_0_OID
-
-		// Don't know how to process the extension
-		// and clear text
-		else
-		{
-			return getUnknownOidStringValue(bOctets);
+	/**
+	 * Renderers for the extensions supported out of the box.
+	 */
+	private static enum BuiltInRenderer
+	    implements ExtensionRenderer
+	{
+		/** Common Name */
+		COMMON_NAME,
+		/** Subject Key Identifier */
+		SUBJECT_KEY_IDENTIFIER,
+		/** Key Usage */
+		KEY_USAGE,
+		/** Private Key Usage Period */
+		PRIVATE_KEY_USAGE_PERIOD,
+		/** Issuer and Subject Alternative Name */
+		ALTERNATIVE_NAME,
+		/** Basic Constraints */
+		BASIC_CONSTRAINTS,
+		/** CRL Number */
+		CRL_NUMBER,
+		/** Reason Code */
+		REASON_CODE,
+		/** Hold Instruction Code */
+		HOLD_INSTRUCTION_CODE,
+		/** Invalidity Date */
+		INVALIDITY_DATE,
+		/** Delta CRL Indicator */
+		DELTA_CRL_INDICATOR,
+		/** Certificate Issuer */
+		CERTIFICATE_ISSUER,
+		/** Policy Mappings */
+		POLICY_MAPPINGS,
+		/** Authority Key Identifier */
+		AUTHORITY_KEY_IDENTIFIER,
+		/** Policy Constraints */
+		POLICY_CONSTRAINTS,
+		/** Extended Key Usage */
+		EXTENDED_KEY_USAGE,
+		/** Inhibit Any Policy */
+		INHIBIT_ANY_POLICY,
+		/** Entrust Version Extension */
+		ENTRUST_VERSION,
+		/** S/MIME Capabilities */
+		SMIME_CAPABILITIES,
+		/** Microsoft CA Version */
+		MICROSOFT_CA_VERSION,
+		/** Microsoft Previous CA Certificate Hash */
+		MICROSOFT_PREV_CA_CERT_HASH,
+		/** Microsoft Certificate Template V2 */
+		MICROSOFT_CERT_TEMPLATE_V2,
+		/** Microsoft CRL Next Publish */
+		MICROSOFT_CRL_NEXT_PUBLISH,
+		/** Authority and Subject Information Access */
+		INFORMATION_ACCESS,
+		/** Logotype */
+		LOGOTYPE,
+		/** Novell Security Attributes */
+		NOVELL_SECURITY_ATTRIBUTES,
+		/** Netscape Certificate Type */
+		NETSCAPE_CERT_TYPE,
+		/** Extensions whose value is a single ASN.1 string */
+		ASN1_OBJECT_STRING,
+		/** Netscape URL extensions linking to a web page */
+		NETSCAPE_BROWSER_URL,
+		/** Netscape URL extensions linking to a CRL */
+		NETSCAPE_CRL_URL,
+		/** CRL Distribution Points */
+		CRL_DISTRIBUTION_POINTS,
+		/** Certificate Policies */
+		CERTIFICATE_POLICIES,
+		/** Unrecognised extensions, hex/clear text dump */
+		UNKNOWN;
+
+		@Override
+		public ExtensionValue decode(byte[] bValue)
+		    throws IOException, ParseException
+		{
+			switch (this)
+			{
+				case COMMON_NAME:
+					return decodeCommonName(bValue);
+				case SUBJECT_KEY_IDENTIFIER:
+					return decodeSubjectKeyIdentifier(bValue);
+				case KEY_USAGE:
+					return decodeKeyUsage(bValue);
+				case PRIVATE_KEY_USAGE_PERIOD:
+					return decodePrivateKeyUsagePeriod(bValue);
+				case ALTERNATIVE_NAME:
+					return decodeAlternativeName(bValue);
+				case BASIC_CONSTRAINTS:
+					return decodeBasicConstraints(bValue);
+				case CRL_NUMBER:
+					return decodeCrlNumber(bValue);
+				case REASON_CODE:
+					return decodeReasonCode(bValue);
+				case HOLD_INSTRUCTION_CODE:
+					return decodeHoldInstructionCode(bValue);
+				case INVALIDITY_DATE:
+					return decodeInvalidityDate(bValue);
+				case DELTA_CRL_INDICATOR:
+					return decodeDeltaCrlIndicator(bValue);
+				case CERTIFICATE_ISSUER:
+					return decodeCertificateIssuer(bValue);
+				case POLICY_MAPPINGS:
+					return decodePolicyMappings(bValue);
+				case AUTHORITY_KEY_IDENTIFIER:
+					return decodeAuthorityKeyIdentifier(bValue);
+				case POLICY_CONSTRAINTS:
+					return decodePolicyConstraints(bValue);
+				case EXTENDED_KEY_USAGE:
+					return decodeExtendedKeyUsage(bValue);
+				case INHIBIT_ANY_POLICY:
+					return decodeInhibitAnyPolicy(bValue);
+				case ENTRUST_VERSION:
+					return decodeEntrustVersionExtension(bValue);
+				case SMIME_CAPABILITIES:
+					return decodeSmimeCapabilities(bValue);
+				case MICROSOFT_CA_VERSION:
+					return decodeMicrosoftCAVersion(bValue);
+				case MICROSOFT_PREV_CA_CERT_HASH:
+					return decodeMicrosoftPreviousCACertificateHash(bValue);
+				case MICROSOFT_CERT_TEMPLATE_V2:
+					return decodeMicrosoftCertificateTemplateV2(bValue);
+				case MICROSOFT_CRL_NEXT_PUBLISH:
+					return decodeMicrosoftCrlNextPublish(bValue);
+				case INFORMATION_ACCESS:
+					return decodeInformationAccess(bValue);
+				case LOGOTYPE:
+					return decodeLogotype(bValue);
+				case NOVELL_SECURITY_ATTRIBUTES:
+					return decodeNovellSecurityAttributes(bValue);
+				case NETSCAPE_CERT_TYPE:
+					return decodeNetscapeCertificateType(bValue);
+				case ASN1_OBJECT_STRING:
+					return decodeASN1ObjectString(bValue);
+				case NETSCAPE_BROWSER_URL:
+					return decodeNetscapeExtensionURL(bValue, LinkClass.BROWSER);
+				case NETSCAPE_CRL_URL:
+					return decodeNetscapeExtensionURL(bValue, LinkClass.CRL);
+				case CRL_DISTRIBUTION_POINTS:
+					return decodeCrlDistributionPoints(bValue);
+				case CERTIFICATE_POLICIES:
+					return decodeCertificatePolicies(bValue);
+				default:
+					return decodeUnknownOid(bValue);
+			}
 		}
 	}
 
 	/**
-	 * Get unknown OID extension value as a string.
+	 * Decode unknown OID extension value.
 	 *
 	 * @param bValue The octet string value
-	 * @return Extension value as a string (hex/clear text dump)
+	 * @return Decoded extension value (hex/clear text dump)
 	 * @throws IOException If an I/O error occurs
 	 */
-	private String getUnknownOidStringValue(byte[] bValue)
+	private static ExtensionValue decodeUnknownOid(byte[] bValue)
 	    throws IOException
 	{
 		ByteArrayInputStream bais = null;
@@ -411,7 +672,6 @@ public class X509Ext
 		{
 			// Divide dump into 16 byte lines
 			StringBuilder strBuff = new StringBuilder();
-			strBuff.append("<pre>");
 
 			bais = new ByteArrayInputStream(bValue);
 			byte[] bLine = new byte[nBytes];
@@ -419,11 +679,15 @@ public class X509Ext
 
 			while ((iRead = bais.read(bLine)) != -1)
 			{
-				strBuff.append(escapeHtml(getHexClearDump(bLine, iRead)));
+				strBuff.append(getHexClearDump(bLine, iRead));
 			}
 
-			strBuff.append("</pre>");
-			return strBuff.toString();
+			// No line break after the last line
+			if (strBuff.length() != 0)
+			{
+				strBuff.setLength(strBuff.length() - 1);
+			}
+			return ExtensionValue.preformatted(null, strBuff.toString());
 		}
 		finally
 		{
@@ -442,20 +706,20 @@ public class X509Ext
 	}
 
 	/**
-	 * Get Common Name (2.5.4.3) extension value as a string.
+	 * Decode Common Name (2.5.4.3) extension value.
 	 *
 	 * @param bValue The octet string value
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 * @throws IOException If an I/O problem occurs
 	 */
-	private String getCommonNameStringValue(byte[] bValue)
+	private static ExtensionValue decodeCommonName(byte[] bValue)
 	    throws IOException
 	{
-		return stringify(ASN1Primitive.fromByteArray(bValue));
+		return ExtensionValue.leaf(null, stringify(ASN1Primitive.fromByteArray(bValue)));
 	}
 
 	/**
-	 * Get Subject Key Identifier (2.5.29.14) extension value as a string.
+	 * Decode Subject Key Identifier (2.5.29.14) extension value.
 	 *
 	 * <pre>
 	 * SubjectKeyIdentifier ::= KeyIdentifier
@@ -463,15 +727,15 @@ public class X509Ext
 	 * </pre>
 	 *
 	 * @param bValue The octet string value
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 */
-	private String getSubjectKeyIdentifierStringValue(byte[] bValue)
+	private static ExtensionValue decodeSubjectKeyIdentifier(byte[] bValue)
 	{
 		SubjectKeyIdentifier ski = SubjectKeyIdentifier.getInstance(bValue);
 		byte[] bKeyIdent = ski.getKeyIdentifier();
 
 		// Output as a hex string
-		return convertToHexString(bKeyIdent);
+		return ExtensionValue.preformatted(null, convertToHexString(bKeyIdent));
 	}
 
 	/** Key usages */
@@ -480,7 +744,7 @@ public class X509Ext
 	    KeyUsage.cRLSign, KeyUsage.encipherOnly, KeyUsage.decipherOnly };
 
 	/**
-	 * Get Key Usage (2.5.29.15) extension value as a string.
+	 * Decode Key Usage (2.5.29.15) extension value.
 	 *
 	 * <pre>
 	 * KeyUsage ::= BIT STRING {
@@ -496,30 +760,26 @@ public class X509Ext
 	 * </pre>
 	 *
 	 * @param bValue The octet string value
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 * @throws IOException If an I/O problem occurs
 	 */
-	private String getKeyUsageStringValue(byte[] bValue)
+	private static ExtensionValue decodeKeyUsage(byte[] bValue)
 	    throws IOException
 	{
 		int val = ((DERBitString) ASN1Primitive.fromByteArray(bValue)).intValue();
-		StringBuilder strBuff = new StringBuilder();
+		List<ExtensionValue> usages = new ArrayList<>();
 		for (int type : KEY_USAGES)
 		{
 			if ((val & type) == type)
 			{
-				if (strBuff.length() != 0)
-				{
-					strBuff.append("<br><br>");
-				}
-				strBuff.append(RB.getString("KeyUsage." + type));
+				usages.add(ExtensionValue.leaf(null, toText(RB.getString("KeyUsage." + type))));
 			}
 		}
-		return strBuff.toString();
+		return ExtensionValue.node(null, null, usages);
 	}
 
 	/**
-	 * Get Private Key Usage Period (2.5.29.16) extension value as a string.
+	 * Decode Private Key Usage Period (2.5.29.16) extension value.
 	 *
 	 * <pre>
 	 * PrivateKeyUsagePeriod ::= SEQUENCE {
@@ -528,38 +788,34 @@ public class X509Ext
 	 * </pre>
 	 *
 	 * @param bValue The octet string value
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 * @throws ParseException If a date formatting problem occurs
 	 */
-	private String getPrivateKeyUsagePeriod(byte[] bValue)
+	private static ExtensionValue decodePrivateKeyUsagePeriod(byte[] bValue)
 	    throws ParseException
 	{
 		PrivateKeyUsagePeriod pkup = PrivateKeyUsagePeriod.getInstance(bValue);
 
-		StringBuilder strBuff = new StringBuilder();
+		List<ExtensionValue> values = new ArrayList<>(2);
 		ASN1GeneralizedTime dTime;
 
 		if ((dTime = pkup.getNotBefore()) != null)
 		{
-			strBuff.append(
-			    MessageFormat.format(RB.getString("PrivateKeyUsagePeriodNotBefore"), formatGeneralizedTime(dTime)));
+			values.add(ExtensionValue.leaf(null,
+			    formatText(RB.getString("PrivateKeyUsagePeriodNotBefore"), formatGeneralizedTime(dTime))));
 		}
 
 		if ((dTime = pkup.getNotAfter()) != null)
 		{
-			if (strBuff.length() != 0)
-			{
-				strBuff.append("<br><br>");
-			}
-			strBuff.append(
-			    MessageFormat.format(RB.getString("PrivateKeyUsagePeriodNotAfter"), formatGeneralizedTime(dTime)));
+			values.add(ExtensionValue.leaf(null,
+			    formatText(RB.getString("PrivateKeyUsagePeriodNotAfter"), formatGeneralizedTime(dTime))));
 		}
 
-		return strBuff.toString();
+		return ExtensionValue.node(null, null, values);
 	}
 
 	/**
-	 * Get Subject Alternative Name (2.5.29.17) or Issuer Alternative Name (2.5.29.18) extension value as a string.
+	 * Decode Subject Alternative Name (2.5.29.17) or Issuer Alternative Name (2.5.29.18) extension value.
 	 *
 	 * <pre>
 	 * SubjectAltName ::= GeneralNames
@@ -568,17 +824,17 @@ public class X509Ext
 	 * </pre>
 	 *
 	 * @param bValue The octet string value
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 * @throws IOException If an I/O problem occurs
 	 */
-	private String getAlternativeName(byte[] bValue)
+	private static ExtensionValue decodeAlternativeName(byte[] bValue)
 	    throws IOException
 	{
-		return getGeneralNamesString(GeneralNames.getInstance(bValue), LinkClass.BROWSER);
+		return decodeGeneralNames(null, GeneralNames.getInstance(bValue), LinkClass.BROWSER);
 	}
 
 	/**
-	 * Get Basic Constraints (2.5.29.19) extension value as a string.
+	 * Decode Basic Constraints (2.5.29.19) extension value.
 	 *
 	 * <pre>
 	 * BasicConstraints ::= SEQUENCE {
@@ -587,44 +843,44 @@ public class X509Ext
 	 * </pre>
 	 *
 	 * @param bValue The octet string value
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 */
-	private String getBasicConstraintsStringValue(byte[] bValue)
+	private static ExtensionValue decodeBasicConstraints(byte[] bValue)
 	{
 		BasicConstraints bc = BasicConstraints.getInstance(bValue);
-		StringBuilder strBuff = new StringBuilder();
+		List<ExtensionValue> values = new ArrayList<>(2);
 
-		strBuff.append(RB.getString(bc.isCA() ? "SubjectIsCa" : "SubjectIsNotCa"));
-		strBuff.append("<br><br>");
+		values.add(ExtensionValue.leaf(null, toText(RB.getString(bc.isCA() ? "SubjectIsCa" : "SubjectIsNotCa"))));
 
 		BigInteger pathLen = bc.getPathLenConstraint();
 		if (pathLen != null)
 		{
-			strBuff.append(MessageFormat.format(RB.getString("PathLengthConstraint"), pathLen));
+			values.add(ExtensionValue.leaf(null, formatText(RB.getString("PathLengthConstraint"), pathLen)));
 		}
 
-		return strBuff.toString();
+		return ExtensionValue.node(null, null, values);
 	}
 
 	/**
-	 * Get CRL Number (2.5.29.20) extension value as a string.
+	 * Decode CRL Number (2.5.29.20) extension value.
 	 *
 	 * <pre>
 	 * CRLNumber ::= INTEGER (0..MAX)
 	 * </pre>
 	 *
 	 * @param bValue The octet string value
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 * @throws IOException If an I/O problem occurs
 	 */
-	private String getCrlNumberStringValue(byte[] bValue)
+	private static ExtensionValue decodeCrlNumber(byte[] bValue)
 	    throws IOException
 	{
-		return NumberFormat.getInstance().format(((ASN1Integer) ASN1Primitive.fromByteArray(bValue)).getValue());
+		return ExtensionValue.leaf(null,
+		    NumberFormat.getInstance().format(((ASN1Integer) ASN1Primitive.fromByteArray(bValue)).getValue()));
 	}
 
 	/**
-	 * Get Reason Code (2.5.29.21) extension value as a string.
+	 * Decode Reason Code (2.5.29.21) extension value.
 	 *
 	 * <pre>
 	 * ReasonCode ::= { CRLReason }
@@ -642,60 +898,60 @@ public class X509Ext
 	 * </pre>
 	 *
 	 * @param bValue The octet string value
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 * @throws IOException If an I/O problem occurs
 	 */
-	private String getReasonCodeStringValue(byte[] bValue)
+	private static ExtensionValue decodeReasonCode(byte[] bValue)
 	    throws IOException
 	{
 		int iRc = CRLReason.getInstance(ASN1Primitive.fromByteArray(bValue)).getValue().intValue();
 		String sRc = getRes("CrlReason." + iRc, "UnrecognisedCrlReasonString");
-		return MessageFormat.format(sRc, iRc);
+		return ExtensionValue.leaf(null, formatText(sRc, iRc));
 	}
 
 	/**
-	 * Get Hold Instruction Code (2.5.29.23) extension value as a string.
+	 * Decode Hold Instruction Code (2.5.29.23) extension value.
 	 *
 	 * <pre>
 	 * HoldInstructionCode ::= OBJECT IDENTIFER
 	 * </pre>
 	 *
 	 * @param bValue The octet string value
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 * @throws IOException If an I/O problem occurs
 	 */
-	private String getHoldInstructionCodeStringValue(byte[] bValue)
+	private static ExtensionValue decodeHoldInstructionCode(byte[] bValue)
 	    throws IOException
 	{
 		String sHoldIns = ASN1Primitive.fromByteArray(bValue).toString();
 		String res = getRes(sHoldIns, "UnrecognisedHoldInstructionCode");
-		return MessageFormat.format(res, escapeHtml(sHoldIns));
+		return ExtensionValue.oid(null, formatText(res, sHoldIns), sHoldIns, Collections.<ExtensionValue> emptyList());
 	}
 
 	/**
-	 * Get Invalidity Date (2.5.29.24) extension value as a string.
+	 * Decode Invalidity Date (2.5.29.24) extension value.
 	 *
 	 * <pre>
 	 * InvalidityDate ::=  GeneralizedTime
 	 * </pre>
 	 *
 	 * @param bValue The octet string value
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 * @throws IOException If an I/O problem occurs
 	 * @throws ParseException If a date formatting problem occurs
 	 */
-	private String getInvalidityDateStringValue(byte[] bValue)
+	private static ExtensionValue decodeInvalidityDate(byte[] bValue)
 	    throws IOException, ParseException
 	{
 		// Get invalidity date
 		ASN1GeneralizedTime invalidityDate = (ASN1GeneralizedTime) ASN1Primitive.fromByteArray(bValue);
 
 		// Format invalidity date for display
-		return formatGeneralizedTime(invalidityDate);
+		return ExtensionValue.leaf(null, formatGeneralizedTime(invalidityDate));
 	}
 
 	/**
-	 * Get Delta CRL Indicator (2.5.29.27) extension value as a string.
+	 * Decode Delta CRL Indicator (2.5.29.27) extension value.
 	 *
 	 * <pre>
 	 * BaseCRLNumber ::= CRLNumber
@@ -703,10 +959,10 @@ public class X509Ext
 	 * </pre>
 	 *
 	 * @param bValue The octet string value
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 * @throws IOException If an I/O problem occurs
 	 */
-	private String getDeltaCrlIndicatorStringValue(byte[] bValue)
+	private static ExtensionValue decodeDeltaCrlIndicator(byte[] bValue)
 	    throws IOException
 	{
 		// Get CRL number
@@ -714,11 +970,11 @@ public class X509Ext
 
 		// Convert to and return hex string representation of number
 		// TODO: why not just a number
-		return convertToHexString(derInt);
+		return ExtensionValue.preformatted(null, convertToHexString(derInt));
 	}
 
 	/**
-	 * Get Certificate Issuer (2.5.29.29) extension value as a string.
+	 * Decode Certificate Issuer (2.5.29.29) extension value.
 	 *
 	 * <pre>
 	 * certificateIssuer ::= GeneralNames
@@ -726,17 +982,18 @@ public class X509Ext
 	 * </pre>
 	 *
 	 * @param bValue The octet string value
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 * @throws IOException If an I/O problem occurs
 	 */
-	private String getCertificateIssuerStringValue(byte[] bValue)
+	private static ExtensionValue decodeCertificateIssuer(byte[] bValue)
 	    throws IOException
 	{
-		return getGeneralNamesString(GeneralNames.getInstance(ASN1Primitive.fromByteArray(bValue)), LinkClass.BROWSER);
+		return decodeGeneralNames(null, GeneralNames.getInstance(ASN1Primitive.fromByteArray(bValue)),
+		    LinkClass.BROWSER);
 	}
 
 	/**
-	 * Get Policy Mappings (2.5.29.33) extension value as a string.
+	 * Decode Policy Mappings (2.5.29.33) extension value.
 	 *
 	 * <pre>
 	 * PolicyMappings ::= SEQUENCE SIZE (1..MAX) OF SEQUENCE {
@@ -746,16 +1003,16 @@ public class X509Ext
 	 * </pre>
 	 *
 	 * @param bValue The octet string value
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 * @throws IOException If an I/O problem occurs
 	 */
-	private String getPolicyMappingsStringValue(byte[] bValue)
+	private static ExtensionValue decodePolicyMappings(byte[] bValue)
 	    throws IOException
 	{
 		// Get sequence of policy mappings
 		ASN1Sequence policyMappings = (ASN1Sequence) ASN1Primitive.fromByteArray(bValue);
 
-		StringBuilder strBuff = new StringBuilder("<ul>");
+		List<ExtensionValue> mappings = new ArrayList<>(policyMappings.size());
 
 		// Get each policy mapping
 		for (int i = 0, len = policyMappings.size(); i < len; i++)
@@ -763,36 +1020,32 @@ public class X509Ext
 			ASN1Sequence policyMapping = (ASN1Sequence) policyMappings.getObjectAt(i);
 			int pmLen = policyMapping.size();
 
-			strBuff.append("<li>");
-			strBuff.append(MessageFormat.format(RB.getString("PolicyMapping"), i + 1));
+			List<ExtensionValue> policies = new ArrayList<>(2);
 
 			if (pmLen > 0)
 			{
-				ASN1ObjectIdentifier issuerDomainPolicy = (ASN1ObjectIdentifier) policyMapping.getObjectAt(0);
-
-				strBuff.append("<ul><li>");
-				strBuff.append(MessageFormat.format(RB.getString("IssuerDomainPolicy"), issuerDomainPolicy.getId()));
-				strBuff.append("</li></ul>");
+				String sIssuerDomainPolicy = ((ASN1ObjectIdentifier) policyMapping.getObjectAt(0)).getId();
+				policies.add(
+				    ExtensionValue.oid(null, formatText(RB.getString("IssuerDomainPolicy"), sIssuerDomainPolicy),
+				        sIssuerDomainPolicy, Collections.<ExtensionValue> emptyList()));
 			}
 
 			if (pmLen > 1)
 			{
-				ASN1ObjectIdentifier subjectDomainPolicy = (ASN1ObjectIdentifier) policyMapping.getObjectAt(1);
-
-				strBuff.append("<ul><li>");
-				strBuff.append(MessageFormat.format(RB.getString("SubjectDomainPolicy"), subjectDomainPolicy.getId()));
-				strBuff.append("</li></ul>");
+				String sSubjectDomainPolicy = ((ASN1ObjectIdentifier) policyMapping.getObjectAt(1)).getId();
+				policies.add(
+				    ExtensionValue.oid(null, formatText(RB.getString("SubjectDomainPolicy"), sSubjectDomainPolicy),
+				        sSubjectDomainPolicy, Collections.<ExtensionValue> emptyList()));
 			}
 
-			strBuff.append("</li>");
+			mappings.add(ExtensionValue.node(null, formatText(RB.getString("PolicyMapping"), i + 1), policies));
 		}
-		strBuff.append("</ul>");
 
-		return strBuff.toString();
+		return ExtensionValue.node(null, null, mappings);
 	}
 
 	/**
-	 * Get Authority Key Identifier (2.5.29.35) extension value as a string.
+	 * Decode Authority Key Identifier (2.5.29.35) extension value.
 	 *
 	 * <pre>
 	 * AuthorityKeyIdentifier ::= SEQUENCE {
@@ -805,54 +1058,41 @@ public class X509Ext
 	 * </pre>
 	 *
 	 * @param bValue The octet string value
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 * @throws IOException If an I/O problem occurs
 	 */
-	private String getAuthorityKeyIdentifierStringValue(byte[] bValue)
+	private static ExtensionValue decodeAuthorityKeyIdentifier(byte[] bValue)
 	    throws IOException
 	{
 		AuthorityKeyIdentifier aki = AuthorityKeyIdentifier.getInstance(bValue);
 
-		StringBuilder strBuff = new StringBuilder();
+		List<ExtensionValue> values = new ArrayList<>(3);
 
 		byte[] keyIdentifier = aki.getKeyIdentifier();
 		if (keyIdentifier != null)
 		{
-			strBuff.append(RB.getString("KeyIdentifier"));
-			strBuff.append(": ");
-			strBuff.append(convertToHexString(keyIdentifier));
-			strBuff.append("<br>");
+			values.add(
+			    ExtensionValue.preformatted(toText(RB.getString("KeyIdentifier")), convertToHexString(keyIdentifier)));
 		}
 
 		GeneralNames authorityCertIssuer;
 		if ((authorityCertIssuer = aki.getAuthorityCertIssuer()) != null)
 		{
-			if (strBuff.length() != 0)
-			{
-				strBuff.append("<br>");
-			}
-			strBuff.append("<ul><li>");
-			strBuff.append(RB.getString("CertificateIssuer"));
-			strBuff.append(": ");
-			strBuff.append(getGeneralNamesString(authorityCertIssuer, LinkClass.BROWSER));
-			strBuff.append("</li></ul>");
+			values.add(decodeGeneralNames(toText(RB.getString("CertificateIssuer")), authorityCertIssuer,
+			    LinkClass.BROWSER));
 		}
 
 		BigInteger serialNo;
 		if ((serialNo = aki.getAuthorityCertSerialNumber()) != null)
 		{
-			if (strBuff.length() != 0)
-			{
-				strBuff.append("<br>");
-			}
-			strBuff.append(MessageFormat.format(RB.getString("CertificateSerialNumber"), serialNo));
+			values.add(ExtensionValue.leaf(null, formatText(RB.getString("CertificateSerialNumber"), serialNo)));
 		}
 
-		return strBuff.toString();
+		return ExtensionValue.node(null, null, values);
 	}
 
 	/**
-	 * Get Policy Constraints (2.5.29.36) extension value as a string.
+	 * Decode Policy Constraints (2.5.29.36) extension value.
 	 *
 	 * <pre>
 	 * PolicyConstraints ::= SEQUENCE {
@@ -862,16 +1102,16 @@ public class X509Ext
 	 * </pre>
 	 *
 	 * @param bValue The octet string value
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 * @throws IOException If an I/O problem occurs
 	 */
-	private String getPolicyConstraintsStringValue(byte[] bValue)
+	private static ExtensionValue decodePolicyConstraints(byte[] bValue)
 	    throws IOException
 	{
 		// Get sequence of policy constraint
 		ASN1Sequence policyConstraints = (ASN1Sequence) ASN1Primitive.fromByteArray(bValue);
 
-		StringBuilder strBuff = new StringBuilder();
+		List<ExtensionValue> values = new ArrayList<>(2);
 
 		for (int i = 0, len = policyConstraints.size(); i < len; i++)
 		{
@@ -882,28 +1122,20 @@ public class X509Ext
 			switch (policyConstraint.getTagNo())
 			{
 				case 0: // Require Explicit Policy Skip Certs
-					if (strBuff.length() != 0)
-					{
-						strBuff.append("<br><br>");
-					}
-					strBuff.append(MessageFormat.format(RB.getString("RequireExplicitPolicy"), iSkipCerts));
+					values.add(
+					    ExtensionValue.leaf(null, formatText(RB.getString("RequireExplicitPolicy"), iSkipCerts)));
 					break;
 				case 1: // Inhibit Policy Mapping Skip Certs
-					if (strBuff.length() != 0)
-					{
-						strBuff.append("<br><br>");
-					}
-					strBuff.append(MessageFormat.format(RB.getString("InhibitPolicyMapping"), iSkipCerts));
+					values.add(ExtensionValue.leaf(null, formatText(RB.getString("InhibitPolicyMapping"), iSkipCerts)));
 					break;
 			}
 		}
 
-		return strBuff.toString();
-
+		return ExtensionValue.node(null, null, values);
 	}
 
 	/**
-	 * Get Extended Key Usage (2.5.29.37) extension value as a string.
+	 * Decode Extended Key Usage (2.5.29.37) extension value.
 	 *
 	 * <pre>
 	 * ExtendedKeyUsage ::= SEQUENCE SIZE (1..MAX) OF KeyPurposeId
@@ -911,31 +1143,27 @@ public class X509Ext
 	 * </pre>
 	 *
 	 * @param bValue The octet string value
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 */
-	private String getExtendedKeyUsageStringValue(byte[] bValue)
+	private static ExtensionValue decodeExtendedKeyUsage(byte[] bValue)
 	{
-		StringBuilder strBuff = new StringBuilder();
-
 		ExtendedKeyUsage eku = ExtendedKeyUsage.getInstance(bValue);
 		KeyPurposeId[] usages = eku.getUsages();
 
+		List<ExtensionValue> values = new ArrayList<>(usages.length);
 		for (KeyPurposeId usage : usages)
 		{
-			if (strBuff.length() != 0)
-			{
-				strBuff.append("<br><br>");
-			}
 			String sOid = usage.getId();
 			String sEku = getRes(sOid, "UnrecognisedExtKeyUsageString");
-			strBuff.append(MessageFormat.format(sEku, sOid));
+			values.add(ExtensionValue.oid(null, toText(MessageFormat.format(sEku, sOid)), sOid,
+			    Collections.<ExtensionValue> emptyList()));
 		}
 
-		return strBuff.toString();
+		return ExtensionValue.node(null, null, values);
 	}
 
 	/**
-	 * Get Inhibit Any Policy (2.5.29.54) extension value as a string.
+	 * Decode Inhibit Any Policy (2.5.29.54) extension value.
 	 *
 	 * <pre>
 	 * InhibitAnyPolicy ::= SkipCerts
@@ -943,10 +1171,10 @@ public class X509Ext
 	 * </pre>
 	 *
 	 * @param bValue The octet string value
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 * @throws IOException If an I/O problem occurs
 	 */
-	private String getInhibitAnyPolicyStringValue(byte[] bValue)
+	private static ExtensionValue decodeInhibitAnyPolicy(byte[] bValue)
 	    throws IOException
 	{
 		// Get skip certs integer
@@ -955,28 +1183,28 @@ public class X509Ext
 		int iSkipCerts = skipCerts.getValue().intValue();
 
 		// Return inhibit any policy extension
-		return MessageFormat.format(RB.getString("InhibitAnyPolicy"), iSkipCerts);
+		return ExtensionValue.leaf(null, formatText(RB.getString("InhibitAnyPolicy"), iSkipCerts));
 	}
 
 	/**
-	 * Get Entrust Version Extension (1.2.840.113533.7.65.0) extension value as a string.
+	 * Decode Entrust Version Extension (1.2.840.113533.7.65.0) extension value.
 	 *
 	 * @param bValue The octet string value
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 * @throws IOException If an I/O problem occurs
 	 */
-	private String getEntrustVersionExtensionStringValue(byte[] bValue)
+	private static ExtensionValue decodeEntrustVersionExtension(byte[] bValue)
 	    throws IOException
 	{
 		// SEQUENCE encapsulated in a OCTET STRING
 		ASN1Sequence as = (ASN1Sequence) ASN1Primitive.fromByteArray(bValue);
 		// Also has BIT STRING, ignored here
 		// https://www.mail-archive.com/openssl-dev@openssl.org/msg06546.html
-		return escapeHtml(((DERGeneralString) as.getObjectAt(0)).getString());
+		return ExtensionValue.leaf(null, ((DERGeneralString) as.getObjectAt(0)).getString());
 	}
 
 	/**
-	 * Get Microsoft certificate template name V2 (1.3.6.1.4.1.311.20.7) extension value as a string.
+	 * Decode Microsoft certificate template name V2 (1.3.6.1.4.1.311.20.7) extension value.
 	 *
 	 * <pre>
 	 * CertificateTemplate ::= SEQUENCE {
@@ -990,95 +1218,94 @@ public class X509Ext
 	 * @see <a href="https://groups.google.com/groups?selm=OXFILYELDHA.1908%40TK2MSFTNGP11.phx.gbl">https://groups
 	 *      .google.com/groups?selm=OXFILYELDHA.1908%40TK2MSFTNGP11.phx.gbl</a>
 	 * @param bValue The octet string value
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 * @throws IOException If an I/O problem occurs
 	 */
-	private String getMicrosoftCertificateTemplateV2StringValue(byte[] bValue)
+	private static ExtensionValue decodeMicrosoftCertificateTemplateV2(byte[] bValue)
 	    throws IOException
 	{
 		ASN1Sequence seq = (ASN1Sequence) ASN1Primitive.fromByteArray(bValue);
-		StringBuilder sb = new StringBuilder();
+		List<ExtensionValue> values = new ArrayList<>(3);
 
-		sb.append(RB.getString("MsftCertTemplateId"));
-		sb.append(": ");
-		sb.append(((ASN1ObjectIdentifier) seq.getObjectAt(0)).getId());
-		sb.append("<br><br>");
+		String sTemplateId = ((ASN1ObjectIdentifier) seq.getObjectAt(0)).getId();
+		values.add(ExtensionValue.oid(toText(RB.getString("MsftCertTemplateId")), sTemplateId, sTemplateId,
+		    Collections.<ExtensionValue> emptyList()));
 
 		ASN1Integer derInt = (ASN1Integer) seq.getObjectAt(1);
-		sb.append(MessageFormat.format(RB.getString("MsftCertTemplateMajorVer"), derInt.getValue()));
+		values.add(ExtensionValue.leaf(null, formatText(RB.getString("MsftCertTemplateMajorVer"), derInt.getValue())));
 
-		if ((derInt = (ASN1Integer) seq.getObjectAt(2)) != null)
+		if (seq.size() > 2)
 		{
-			sb.append("<br><br>");
-			sb.append(MessageFormat.format(RB.getString("MsftCertTemplateMinorVer"), derInt.getValue()));
+			derInt = (ASN1Integer) seq.getObjectAt(2);
+			values.add(
+			    ExtensionValue.leaf(null, formatText(RB.getString("MsftCertTemplateMinorVer"), derInt.getValue())));
 		}
 
-		return sb.toString();
+		return ExtensionValue.node(null, null, values);
 	}
 
 	/**
-	 * Get Microsoft CA Version (1.3.6.1.4.1.311.21.1) extension value as a string.
+	 * Decode Microsoft CA Version (1.3.6.1.4.1.311.21.1) extension value.
 	 *
 	 * @see <a href="https://msdn.microsoft.com/en-us/library/windows/desktop/aa376550.aspx">MSDN </a>
 	 * @param bValue The octet string value
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 * @throws IOException If an I/O problem occurs
 	 */
-	private String getMicrosoftCAVersionStringValue(byte[] bValue)
+	private static ExtensionValue decodeMicrosoftCAVersion(byte[] bValue)
 	    throws IOException
 	{
 		int ver = ((ASN1Integer) ASN1Primitive.fromByteArray(bValue)).getValue().intValue();
 		String certIx = String.valueOf(ver & 0xffff); // low 16 bits
 		String keyIx = String.valueOf(ver >> 16); // high 16 bits
-		StringBuilder sb = new StringBuilder();
-		sb.append(MessageFormat.format(RB.getString("MsftCaVersionCert"), certIx));
-		sb.append("<br><br>");
-		sb.append(MessageFormat.format(RB.getString("MsftCaVersionKey"), keyIx));
-		return sb.toString();
+		List<ExtensionValue> values = new ArrayList<>(2);
+		values.add(ExtensionValue.leaf(null, formatText(RB.getString("MsftCaVersionCert"), certIx)));
+		values.add(ExtensionValue.leaf(null, formatText(RB.getString("MsftCaVersionKey"), keyIx)));
+		return ExtensionValue.node(null, null, values);
 	}
 
 	/**
-	 * Get Microsoft Previous CA Certificate Hash (1.3.6.1.4.1.311.21.2) extension value as a string.
+	 * Decode Microsoft Previous CA Certificate Hash (1.3.6.1.4.1.311.21.2) extension value.
 	 *
 	 * @see <a href="https://support.microsoft.com/help/287547">Microsoft support</a>
 	 * @param bValue The octet string value
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 * @throws IOException If an I/O problem occurs
 	 */
-	private String getMicrosoftPreviousCACertificateHashStringValue(byte[] bValue)
+	private static ExtensionValue decodeMicrosoftPreviousCACertificateHash(byte[] bValue)
 	    throws IOException
 	{
 		DEROctetString derOctetStr = (DEROctetString) ASN1Primitive.fromByteArray(bValue);
 		byte[] bKeyIdent = derOctetStr.getOctets();
 
-		return convertToHexString(bKeyIdent);
+		return ExtensionValue.preformatted(null, convertToHexString(bKeyIdent));
 	}
 
 	/**
-	 * Get Microsoft CRL Next Publish (1.3.6.1.4.1.311.21.4) extension value as a string.
+	 * Decode Microsoft CRL Next Publish (1.3.6.1.4.1.311.21.4) extension value.
 	 *
 	 * @param bValue The octet string value
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 * @throws IOException If an I/O problem occurs
 	 */
-	private String getMicrosoftCrlNextPublish(byte[] bValue)
+	private static ExtensionValue decodeMicrosoftCrlNextPublish(byte[] bValue)
 	    throws IOException
 	{
 		DERUTCTime time = (DERUTCTime) ASN1Primitive.fromByteArray(bValue);
 		String date = time.getAdjustedTime();
 		try
 		{
-			date = DateFormat.getDateTimeInstance(DateFormat.MEDIUM, DateFormat.LONG).format(time.getAdjustedDate());
+			date = DateUtil.formatDateTime(time.getAdjustedDate());
 		}
 		catch (ParseException e)
 		{
 			// Ignored
 		}
-		return escapeHtml(date);
+		return ExtensionValue.leaf(null, date);
 	}
 
 	/**
-	 * Get S/MIME capabilities (1.2.840.113549.1.9.15) extension value as a string.
+	 * Decode S/MIME capabilities (1.2.840.113549.1.9.15) extension value.
 	 *
 	 * <pre>
 	 * SMIMECapability ::= SEQUENCE {
@@ -1089,17 +1316,17 @@ public class X509Ext
 	 *
 	 * @see <a href="https://tools.ietf.org/html/rfc2633">RFC 2633</a>
 	 * @param bValue The octet string value
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 * @throws IOException If an I/O problem occurs
 	 */
-	private String getSmimeCapabilitiesStringValue(byte[] bValue)
+	private static ExtensionValue decodeSmimeCapabilities(byte[] bValue)
 	    throws IOException
 	{
 		SMIMECapabilities caps = SMIMECapabilities.getInstance(ASN1Primitive.fromByteArray(bValue));
 
-		String sParams = RB.getString("SmimeParameters");
+		String sParams = toText(RB.getString("SmimeParameters"));
 
-		StringBuilder sb = new StringBuilder();
+		List<ExtensionValue> values = new ArrayList<>();
 
 		for (Object o : caps.getCapabilities(null))
 		{
@@ -1109,52 +1336,36 @@ public class X509Ext
 			String sCapId = cap.getCapabilityID().getId();
 			String sCap = getRes(sCapId, "UnrecognisedSmimeCapability");
 
-			if (sb.length() != 0)
+			List<ExtensionValue> params = new ArrayList<>(1);
+			ASN1Encodable param;
+			if ((param = cap.getParameters()) != null)
 			{
-				sb.append("<br>");
+				params.add(ExtensionValue.leaf(sParams, stringify(param)));
 			}
-			sb.append("<ul><li>");
-			sb.append(MessageFormat.format(sCap, sCapId));
 
-			ASN1Encodable params;
-			if ((params = cap.getParameters()) != null)
-			{
-				sb.append("<ul><li>");
-				sb.append(sParams);
-				sb.append(": ");
-				sb.append(stringify(params));
-				sb.append("</li></ul>");
-			}
-
-			sb.append("</li></ul>");
+			values.add(ExtensionValue.oid(null, formatText(sCap, sCapId), sCapId, params));
 		}
 
-		return sb.toString();
+		return ExtensionValue.node(null, null, values);
 	}
 
 	/**
-	 * Get Authority Information Access (1.3.6.1.5.5.7.1.1) or Subject Information Access (1.3.6.1.5.5.7.1.11) extension
-	 * value as a string.
+	 * Decode Authority Information Access (1.3.6.1.5.5.7.1.1) or Subject Information Access (1.3.6.1.5.5.7.1.11)
+	 * extension value.
 	 *
 	 * @param bValue The octet string value
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 * @throws IOException If an I/O problem occurs
 	 */
-	private String getInformationAccessStringValue(byte[] bValue)
+	private static ExtensionValue decodeInformationAccess(byte[] bValue)
 	    throws IOException
 	{
 		AuthorityInformationAccess access = AuthorityInformationAccess.getInstance(bValue);
 
-		StringBuilder sb = new StringBuilder();
-
 		AccessDescription[] accDescs = access.getAccessDescriptions();
+		List<ExtensionValue> values = new ArrayList<>(accDescs.length);
 		for (AccessDescription accDesc : accDescs)
 		{
-			if (sb.length() != 0)
-			{
-				sb.append("<br>");
-			}
-
 			String accOid = accDesc.getAccessMethod().toString();
 			String accMeth = getRes(accOid, "UnrecognisedAccessMethod");
 
@@ -1168,31 +1379,28 @@ public class X509Ext
 				linkClass = LinkClass.CERTIFICATE;
 			}
 
-			sb.append("<ul><li>");
-			sb.append(MessageFormat.format(accMeth, accOid));
-			sb.append(": <ul><li>");
-			sb.append(getGeneralNameString(accDesc.getAccessLocation(), linkClass));
-			sb.append("</li></ul></li></ul>");
+			values.add(ExtensionValue.oid(toText(MessageFormat.format(accMeth, accOid)), null, accOid,
+			    Collections.singletonList(decodeGeneralName(accDesc.getAccessLocation(), linkClass))));
 		}
 
-		return sb.toString();
+		return ExtensionValue.node(null, null, values);
 	}
 
 	/**
-	 * Get Logotype (1.3.6.1.5.5.7.1.12) extension value as a string.
+	 * Decode Logotype (1.3.6.1.5.5.7.1.12) extension value.
 	 *
 	 * @see <a href="https://tools.ietf.org/html/rfc3709">RFC 3709</a>
 	 * @param bValue The octet string value
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 * @throws IOException If an I/O problem occurs
 	 */
-	private String getLogotypeStringValue(byte[] bValue)
+	private static ExtensionValue decodeLogotype(byte[] bValue)
 	    throws IOException
 	{
 		// TODO: work-in-progress (localization, test certificates for stuff...)
 
 		ASN1Sequence logos = (ASN1Sequence) ASN1Primitive.fromByteArray(bValue);
-		StringBuilder sb = new StringBuilder();
+		List<ExtensionValue> values = new ArrayList<>(logos.size());
 
 		for (int i = 0, len = logos.size(); i < len; i++)
 		{
@@ -1200,34 +1408,26 @@ public class X509Ext
 			switch (derTag.getTagNo())
 			{
 				case 0:
-					sb.append(RB.getString("CommunityLogos"));
 					// TODO
-					sb.append("<br>");
-					sb.append(stringify(derTag.getObject()));
+					values.add(
+					    ExtensionValue.leaf(toText(RB.getString("CommunityLogos")), stringify(derTag.getObject())));
 					break;
 				case 1:
-					sb.append("<ul><li>");
-					sb.append(RB.getString("IssuerLogo"));
 					DERTaggedObject ltInfo = (DERTaggedObject) derTag.getObject();
+					ExtensionValue info;
 					switch (ltInfo.getTagNo())
 					{
 						case 0: // LogotypeData
-							sb.append("<ul><li>");
-							sb.append("Data");
 							ASN1Sequence ltData = (ASN1Sequence) ltInfo.getObject();
+							List<ExtensionValue> data = new ArrayList<>(2);
 							if (ltData.size() > 0)
 							{
-								sb.append("<ul><li>");
 								ASN1Sequence ltImage = (ASN1Sequence) ltData.getObjectAt(0);
-								sb.append("Image");
-
 								ASN1Sequence ltDetails = (ASN1Sequence) ltImage.getObjectAt(0);
-								sb.append("<ul><li>");
-								sb.append("Details");
-								sb.append("<ul>");
+								List<ExtensionValue> details = new ArrayList<>();
 
 								String sMediaType = ((ASN1String) ltDetails.getObjectAt(0)).getString();
-								sb.append("<li>Media type: ").append(escapeHtml(sMediaType)).append("</li>");
+								details.add(ExtensionValue.leaf("Media type", sMediaType));
 
 								ASN1Sequence ltHash = (ASN1Sequence) ltDetails.getObjectAt(1);
 								for (int j = 0, jlen = ltHash.size(); j < jlen; j++)
@@ -1237,120 +1437,96 @@ public class X509Ext
 									String algId = ha.getObjectAt(0).toString();
 									// TODO: ha.getObjectAt(1) = parameters
 									String hashAlg = getRes(algId, "UnrecognisedHashAlgorithm");
-									sb.append("<li>Hash (");
-									sb.append(MessageFormat.format(hashAlg, algId));
-									sb.append("): ");
 									byte[] bHashValue = ((DEROctetString) haav.getObjectAt(1)).getOctets();
-									sb.append(convertToHexString(bHashValue));
-									sb.append("</li>");
+									details.add(ExtensionValue.preformatted("Hash (" + formatText(hashAlg, algId) + ")",
+									    convertToHexString(bHashValue)));
 								}
 
 								ASN1Sequence ltURI = (ASN1Sequence) ltDetails.getObjectAt(2);
 								for (int j = 0, jlen = ltURI.size(); j < jlen; j++)
 								{
 									String sUri = ((ASN1String) ltURI.getObjectAt(j)).getString();
-									String eUri = escapeHtml(sUri);
-									sb.append("<li>URI: ");
-									sb.append(getLink(sUri, eUri, LinkClass.BROWSER));
-									sb.append("<br>");
-									sb.append("<img src=\"").append(eUri).append("\" alt=\"").append(eUri).append(
-									    "\">");
-									sb.append("</li>");
+									details.add(ExtensionValue.link("URI", sUri, sUri, LinkClass.BROWSER));
 								}
 								if (ltImage.size() > 1)
 								{
-									// TODO (in particular width and height for the <img> tag, without
-									// dimensions there are some problems when the pane first shows a small
-									// "broken" image and then loads the actual one into its dimensions but
-									// fails to update the layout
-									sb.append("<li>Image info: ");
-									sb.append(stringify(ltImage.getObjectAt(1)));
-									sb.append("</li>");
+									// TODO: decode width and height
+									details.add(ExtensionValue.leaf("Image info", stringify(ltImage.getObjectAt(1))));
 								}
-								sb.append("</ul></li>");
+								data.add(ExtensionValue.node("Image", null,
+								    Collections.singletonList(ExtensionValue.node("Details", null, details))));
 
 								if (ltData.size() > 1)
 								{
 									// TODO
-									sb.append("<li>Audio: ");
-									sb.append(stringify(ltData.getObjectAt(1)));
-									sb.append("</li>");
+									data.add(ExtensionValue.leaf("Audio", stringify(ltData.getObjectAt(1))));
 								}
-								sb.append("</ul>");
 							}
-							sb.append("</li></ul></li></ul>");
+							info = ExtensionValue.node("Data", null, data);
 							break;
 						case 1: // LogotypeReference
 							// TODO
-							sb.append("Reference: ");
-							sb.append(stringify(ltInfo.getObject()));
+							info = ExtensionValue.leaf("Reference", stringify(ltInfo.getObject()));
 							break;
 						default: // Unknown
-							sb.append(stringify(ltInfo));
+							info = ExtensionValue.leaf(null, stringify(ltInfo));
 					}
+					values.add(
+					    ExtensionValue.node(toText(RB.getString("IssuerLogo")), null, Collections.singletonList(info)));
 					break;
 				case 2:
-					sb.append(RB.getString("SubjectLogo"));
 					// TODO
-					sb.append("<br>");
-					sb.append(stringify(derTag.getObject()));
+					values.add(ExtensionValue.leaf(toText(RB.getString("SubjectLogo")), stringify(derTag.getObject())));
 					break;
 				case 3:
-					sb.append(RB.getString("OtherLogos"));
 					// TODO
-					sb.append("<br>");
-					sb.append(stringify(derTag.getObject()));
+					values.add(ExtensionValue.leaf(toText(RB.getString("OtherLogos")), stringify(derTag.getObject())));
 					break;
 				default: // Unknown
-					sb.append(stringify(derTag));
+					values.add(ExtensionValue.leaf(null, stringify(derTag)));
 			}
 		}
-		return sb.toString();
+		return ExtensionValue.node(null, null, values);
 	}
 
 	/**
-	 * Get Novell Security Attributes (2.16.840.1.113719.1.9.4.1) extension value as a string.
+	 * Decode Novell Security Attributes (2.16.840.1.113719.1.9.4.1) extension value.
 	 *
 	 * @see <a href="https://www.novell.com/documentation/developer/ncslib/npki_enu/data/a2uetmm.html">Novell Security
 	 *      Attributes Extension</a>
 	 * @param bValue The octet string value
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 * @throws IOException If an I/O problem occurs
 	 */
-	private String getNovellSecurityAttributesStringValue(byte[] bValue)
+	private static ExtensionValue decodeNovellSecurityAttributes(byte[] bValue)
 	    throws IOException
 	{
 		// TODO...
 
 		ASN1Sequence attrs = (ASN1Sequence) ASN1Primitive.fromByteArray(bValue);
-		StringBuilder sb = new StringBuilder();
+		List<ExtensionValue> values = new ArrayList<>();
 
 		// "Novell Security Attribute(tm)"
 		String sTM = ((ASN1String) attrs.getObjectAt(2)).getString();
-		sb.append(escapeHtml(sTM));
-		sb.append("<br>");
+		values.add(ExtensionValue.leaf(null, sTM));
 
 		// OCTET STRING of size 2, 1st is major version, 2nd is minor version
 		byte[] bVer = ((DEROctetString) attrs.getObjectAt(0)).getOctets();
-		sb.append("Major version: ").append(Byte.toString(bVer[0]));
-		sb.append(", minor version: ").append(Byte.toString(bVer[1]));
-		sb.append("<br>");
+		values.add(ExtensionValue.leaf(null,
+		    "Major version: " + Byte.toString(bVer[0]) + ", minor version: " + Byte.toString(bVer[1])));
 
 		// Nonverified Subscriber Information
 		boolean bNSI = ((ASN1Boolean) attrs.getObjectAt(1)).isTrue();
-		sb.append("Nonverified Subscriber Information: ").append(bNSI);
-		sb.append("<br>");
+		values.add(ExtensionValue.leaf("Nonverified Subscriber Information", String.valueOf(bNSI)));
 
 		// URI reference
 		String sUri = ((ASN1String) attrs.getObjectAt(3)).getString();
-		sb.append("URI: ");
-		sb.append(getLink(sUri, escapeHtml(sUri), LinkClass.BROWSER));
+		values.add(ExtensionValue.link("URI", sUri, sUri, LinkClass.BROWSER));
 
 		// GLB Extensions (GLB ~ "Greatest Lower Bound")
 
-		sb.append("<ul>");
 		ASN1Sequence glbs = (ASN1Sequence) attrs.getObjectAt(4);
-		sb.append("<li>GLB extensions:<ul>");
+		List<ExtensionValue> glbValues = new ArrayList<>(4);
 
 		/*
 		 * TODO: verify that we can do getObjectAt(n) or if we need to examine tag numbers of the tagged objects
@@ -1358,31 +1534,27 @@ public class X509Ext
 
 		// Key quality
 		ASN1Sequence keyq = (ASN1Sequence) ((ASN1TaggedObject) glbs.getObjectAt(0)).getObject();
-		sb.append("<li>").append(RB.getString("NovellKeyQuality"));
-		sb.append("<ul>").append(getNovellQualityAttr(keyq)).append("</ul></li>");
+		glbValues.add(ExtensionValue.node(null, toText(RB.getString("NovellKeyQuality")), getNovellQualityAttr(keyq)));
 
 		// Crypto process quality
 		ASN1Sequence cpq = (ASN1Sequence) ((ASN1TaggedObject) glbs.getObjectAt(1)).getObject();
-		sb.append("<li>").append(RB.getString("NovellCryptoProcessQuality"));
-		sb.append("<ul>").append(getNovellQualityAttr(cpq)).append("</ul></li>");
+		glbValues.add(
+		    ExtensionValue.node(null, toText(RB.getString("NovellCryptoProcessQuality")), getNovellQualityAttr(cpq)));
 
 		// Certificate class
 		ASN1Sequence cclass = (ASN1Sequence) ((ASN1TaggedObject) glbs.getObjectAt(2)).getObject();
-		sb.append("<li>").append(RB.getString("NovellCertClass"));
-		sb.append(": ");
 		BigInteger sv = ((ASN1Integer) cclass.getObjectAt(0)).getValue();
-		String sc = getRes("NovellCertClass." + sv, "UnregocnisedNovellCertClass");
-		sb.append(MessageFormat.format(sc, sv));
-		sb.append("</li>");
+		String sc = getRes("NovellCertClass." + sv, "UnrecognisedNovellCertClass");
+		glbValues.add(ExtensionValue.leaf(null, toText(RB.getString("NovellCertClass")) + ' ' + formatText(sc, sv)));
 
 		boolean valid = true;
 		if (cclass.size() > 1)
 		{
 			valid = ((ASN1Boolean) cclass.getObjectAt(1)).isTrue();
 		}
-		sb.append("<li>");
-		sb.append(RB.getString("NovellCertClassValid." + valid));
-		sb.append("</li></ul>");
+		glbValues.add(ExtensionValue.leaf(null, toText(RB.getString("NovellCertClassValid." + valid))));
+
+		values.add(ExtensionValue.node("GLB extensions", null, glbValues));
 
 		// Enterprise ID
 		/*
@@ -1393,10 +1565,10 @@ public class X509Ext
 		 * Hmm... I thought this would be a sequence of sequences, // but the following throws a ClassCastException...?
 		 * // ASN1Sequence eLabel = (ASN1Sequence) eLabels.getObjectAt(i); }
 		 */
-		sb.append(RB.getString("NovellEnterpriseID"));
-		sb.append(' ').append(RB.getString("DecodeNotImplemented")); // TODO
+		values.add(ExtensionValue.leaf(null,
+		    toText(RB.getString("NovellEnterpriseID")) + ' ' + toText(RB.getString("DecodeNotImplemented")))); // TODO
 
-		return sb.toString();
+		return ExtensionValue.node(null, null, values);
 	}
 
 	/**
@@ -1405,21 +1577,18 @@ public class X509Ext
 	 * @param seq the quality attribute
 	 * @return the decoded quality attribute
 	 */
-	private CharSequence getNovellQualityAttr(ASN1Sequence seq)
+	private static List<ExtensionValue> getNovellQualityAttr(ASN1Sequence seq)
 	{
-		StringBuilder res = new StringBuilder();
+		List<ExtensionValue> res = new ArrayList<>(4);
 
 		boolean enforceQuality = ((ASN1Boolean) seq.getObjectAt(0)).isTrue();
-		res.append("<li>").append(RB.getString("NovellQualityEnforce"));
-		res.append(' ').append(enforceQuality).append("</li>");
+		res.add(ExtensionValue.leaf(null, toText(RB.getString("NovellQualityEnforce")) + ' ' + enforceQuality));
 
 		ASN1Sequence compusecQ = (ASN1Sequence) seq.getObjectAt(1);
 		int clen = compusecQ.size();
 		if (clen > 0)
 		{
-			res.append("<li>");
-			res.append(RB.getString("NovellCompusecQuality"));
-			res.append("<ul>");
+			List<ExtensionValue> criteria = new ArrayList<>(clen);
 
 			for (int i = 0; i < clen; i++)
 			{
@@ -1428,8 +1597,7 @@ public class X509Ext
 				ASN1Integer tmp = (ASN1Integer) cqPair.getObjectAt(0);
 				long type = tmp.getValue().longValue();
 				String csecCriteria = getRes("NovellCompusecQuality." + type, "UnrecognisedNovellCompusecQuality");
-				csecCriteria = MessageFormat.format(csecCriteria, tmp.getValue());
-				res.append("<li>").append(csecCriteria);
+				csecCriteria = formatText(csecCriteria, tmp.getValue());
 
 				tmp = (ASN1Integer) cqPair.getObjectAt(1);
 				String csecRating;
@@ -1441,20 +1609,18 @@ public class X509Ext
 				{
 					csecRating = RB.getString("UnrecognisedNovellQualityRating");
 				}
-				csecRating = MessageFormat.format(csecRating, tmp.getValue());
-				res.append("<ul><li>").append(RB.getString("NovellQualityRating"));
-				res.append(' ').append(csecRating).append("</li></ul>");
+				csecRating = formatText(csecRating, tmp.getValue());
 
-				res.append("</li>");
+				criteria.add(ExtensionValue.node(null, csecCriteria, Collections.singletonList(
+				    ExtensionValue.leaf(null, toText(RB.getString("NovellQualityRating")) + ' ' + csecRating))));
 			}
 
-			res.append("</ul></li>");
+			res.add(ExtensionValue.node(null, toText(RB.getString("NovellCompusecQuality")), criteria));
 		}
 
 		// ASN1Sequence cryptoQ = (ASN1Sequence) seq.getObjectAt(2);
-		res.append("<li>").append(RB.getString("NovellCryptoQuality"));
-		res.append(' ').append(RB.getString("DecodeNotImplemented")); // TODO
-		res.append("</li>");
+		res.add(ExtensionValue.leaf(null,
+		    toText(RB.getString("NovellCryptoQuality")) + ' ' + toText(RB.getString("DecodeNotImplemented")))); // TODO
 		/*
 		 * TODO for (int i = 0, len = cryptoQ.size(); i < len; i++) { ASN1Sequence cqPair = (ASN1Sequence)
 		 * cryptoQ.getObjectAt(i); ASN1Integer cryptoModuleCriteria = (ASN1Integer) cqPair.getObjectAt(0); ASN1Integer
@@ -1463,9 +1629,8 @@ public class X509Ext
 
 		BigInteger ksqv = ((ASN1Integer) seq.getObjectAt(3)).getValue();
 		String ksq = getRes("NovellKeyStorageQuality." + ksqv, "UnrecognisedNovellKeyStorageQuality");
-		res.append("<li>").append(RB.getString("NovellKeyStorageQuality"));
-		res.append(": ").append(MessageFormat.format(ksq, ksqv));
-		res.append("</li>");
+		res.add(
+		    ExtensionValue.leaf(null, toText(RB.getString("NovellKeyStorageQuality")) + ' ' + formatText(ksq, ksqv)));
 
 		return res;
 	}
@@ -1476,167 +1641,138 @@ public class X509Ext
 	    NetscapeCertType.smimeCA, NetscapeCertType.objectSigningCA };
 
 	/**
-	 * Get Netscape Certificate Type (2.16.840.1.113730.1.1) extension value as a string.
+	 * Decode Netscape Certificate Type (2.16.840.1.113730.1.1) extension value.
 	 *
 	 * @param bValue The octet string value
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 * @throws IOException If an I/O problem occurs
 	 */
-	private String getNetscapeCertificateTypeStringValue(byte[] bValue)
+	private static ExtensionValue decodeNetscapeCertificateType(byte[] bValue)
 	    throws IOException
 	{
 		int val = new NetscapeCertType((DERBitString) ASN1Primitive.fromByteArray(bValue)).intValue();
-		StringBuilder strBuff = new StringBuilder();
+		List<ExtensionValue> types = new ArrayList<>();
 		for (int type : NETSCAPE_CERT_TYPES)
 		{
 			if ((val & type) == type)
 			{
-				if (strBuff.length() != 0)
-				{
-					strBuff.append("<br><br>");
-				}
-				strBuff.append(RB.getString("NetscapeCertificateType." + type));
+				types.add(ExtensionValue.leaf(null, toText(RB.getString("NetscapeCertificateType." + type))));
 			}
 		}
-		return strBuff.toString();
+		return ExtensionValue.node(null, null, types);
 	}
 
 	/**
-	 * Get extension value for any Netscape certificate extension URL value.
+	 * Decode extension value for any Netscape certificate extension URL value.
 	 *
 	 * @param bValue The octet string value
 	 * @param linkClass link class
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 * @throws IOException If an I/O problem occurs
 	 */
-	private String getNetscapeExtensionURLValue(byte[] bValue, LinkClass linkClass)
+	private static ExtensionValue decodeNetscapeExtensionURL(byte[] bValue, LinkClass linkClass)
 	    throws IOException
 	{
 		String sUrl = ASN1Primitive.fromByteArray(bValue).toString();
-		return getLink(sUrl, escapeHtml(sUrl), linkClass).toString();
+		return ExtensionValue.link(null, sUrl, sUrl, linkClass);
 	}
 
 	/**
-	 * Get extension value for CRL Distribution Points as a string.
+	 * Decode extension value for CRL Distribution Points.
 	 *
 	 * @param bValue The octet string value
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 * @throws IOException If an I/O problem occurs
 	 */
-	private String getCrlDistributionPointsStringValue(byte[] bValue)
+	private static ExtensionValue decodeCrlDistributionPoints(byte[] bValue)
 	    throws IOException
 	{
 		CRLDistPoint dps = CRLDistPoint.getInstance(bValue);
 		DistributionPoint[] points = dps.getDistributionPoints();
 
-		StringBuilder sb = new StringBuilder();
-		sb.append("<ul>");
+		List<ExtensionValue> values = new ArrayList<>();
 
 		for (DistributionPoint point : points)
 		{
 			DistributionPointName dpn;
 			if ((dpn = point.getDistributionPoint()) != null)
 			{
-				sb.append("<li>");
 				switch (dpn.getType())
 				{
 					case DistributionPointName.FULL_NAME:
-						sb.append(RB.getString("CrlDistributionPoint.0.0"));
-						sb.append(": ");
-						sb.append(getGeneralNamesString((GeneralNames) dpn.getName(), LinkClass.CRL));
+						values.add(decodeGeneralNames(toText(RB.getString("CrlDistributionPoint.0.0")),
+						    (GeneralNames) dpn.getName(), LinkClass.CRL));
 						break;
 					case DistributionPointName.NAME_RELATIVE_TO_CRL_ISSUER:
-						sb.append(RB.getString("CrlDistributionPoint.0.1"));
-						sb.append(": ");
 						// TODO: need better decode?
-						sb.append(stringify(dpn.getName()));
+						values.add(ExtensionValue.leaf(toText(RB.getString("CrlDistributionPoint.0.1")),
+						    stringify(dpn.getName())));
 						break;
 					default:
-						sb.append(RB.getString("UnknownCrlDistributionPointName"));
-						sb.append(": ");
-						sb.append(stringify(dpn.getName()));
+						values.add(ExtensionValue.leaf(toText(RB.getString("UnknownCrlDistributionPointName")),
+						    stringify(dpn.getName())));
 						break;
 				}
-				sb.append("</li>");
 			}
 
 			ReasonFlags flags;
 			if ((flags = point.getReasons()) != null)
 			{
-				sb.append("<li>");
-				sb.append(RB.getString("CrlDistributionPoint.1"));
-				sb.append(": ");
 				// TODO: decode
-				sb.append(stringify(flags));
-				sb.append("</li>");
+				values.add(ExtensionValue.leaf(toText(RB.getString("CrlDistributionPoint.1")), stringify(flags)));
 			}
 
 			GeneralNames issuer;
 			if ((issuer = point.getCRLIssuer()) != null)
 			{
-				sb.append("<li>");
-				sb.append(RB.getString("CrlDistributionPoint.2"));
-				sb.append(": ");
-				sb.append(getGeneralNamesString(issuer, LinkClass.CRL));
-				sb.append("</li>");
+				// Names the issuer, not where to get the CRL from
+				values.add(
+				    decodeGeneralNames(toText(RB.getString("CrlDistributionPoint.2")), issuer, LinkClass.BROWSER));
 			}
 		}
 
-		sb.append("</ul>");
-		return sb.toString();
+		return ExtensionValue.node(null, null, values);
 	}
 
 	/**
-	 * Get extension value for Certificate Policies as a string.
+	 * Decode extension value for Certificate Policies.
 	 *
 	 * @see <a href="https://tools.ietf.org/html/rfc3280">RFC 3280</a>
 	 * @param bValue The octet string value
-	 * @return Extension value as a string
+	 * @return Decoded extension value
 	 * @throws IOException If an I/O problem occurs
 	 */
-	private String getCertificatePoliciesStringValue(byte[] bValue)
+	private static ExtensionValue decodeCertificatePolicies(byte[] bValue)
 	    throws IOException
 	{
 		ASN1Sequence pSeq = (ASN1Sequence) ASN1Primitive.fromByteArray(bValue);
-		StringBuilder sb = new StringBuilder();
+		List<ExtensionValue> policies = new ArrayList<>(pSeq.size());
 
 		for (int i = 0, len = pSeq.size(); i < len; i++)
 		{
 			PolicyInformation pi = PolicyInformation.getInstance(pSeq.getObjectAt(i));
 			String piId = pi.getPolicyIdentifier().getId();
 
-			sb.append("<ul><li>");
-			sb.append(RB.getString("PolicyIdentifier"));
-			sb.append(": ");
-			sb.append(MessageFormat.format(getRes(piId, "UnrecognisedPolicyIdentifier"), piId));
+			List<ExtensionValue> qualifiers = new ArrayList<>();
 
 			ASN1Sequence pQuals;
 			if ((pQuals = pi.getPolicyQualifiers()) != null)
 			{
-				sb.append("<ul>");
-
 				for (int j = 0, plen = pQuals.size(); j < plen; j++)
 				{
 					ASN1Sequence pqi = (ASN1Sequence) pQuals.getObjectAt(j);
 					ASN1Encodable pqId = pqi.getObjectAt(0);
 					String spqId = pqId.toString();
-
-					sb.append("<li>");
-					sb.append(MessageFormat.format(getRes(spqId, "UnrecognisedPolicyQualifier"), spqId));
-					sb.append(": ");
+					String sQualifier =
+					    toText(MessageFormat.format(getRes(spqId, "UnrecognisedPolicyQualifier"), spqId));
 
 					ASN1Encodable d = pqi.getObjectAt(1);
-					sb.append("<ul>");
+					List<ExtensionValue> qValues = new ArrayList<>();
 					if (pqId.equals(PolicyQualifierId.id_qt_cps))
 					{
 						// cPSuri
 						String sUri = ((ASN1String) d).getString();
-
-						sb.append("<li>");
-						sb.append(RB.getString("CpsUri"));
-						sb.append(": ");
-						sb.append(getLink(sUri, escapeHtml(sUri), LinkClass.BROWSER));
-						sb.append("</li>");
+						qValues.add(ExtensionValue.link(toText(RB.getString("CpsUri")), sUri, sUri, LinkClass.BROWSER));
 					}
 					else if (pqId.equals(PolicyQualifierId.id_qt_unotice))
 					{
@@ -1653,17 +1789,16 @@ public class X509Ext
 							if (de instanceof ASN1String)
 							{
 								// explicitText
-								sb.append("<li>");
-								sb.append(RB.getString("ExplicitText"));
-								sb.append(": ");
-								sb.append(stringify(de));
-								sb.append("</li>");
+								qValues.add(
+								    ExtensionValue.leaf(toText(RB.getString("ExplicitText")), stringify(de)));
 							}
 							else if (de instanceof ASN1Sequence)
 							{
 								// noticeRef
 								ASN1Sequence nr = (ASN1Sequence) de;
-								String orgstr = stringify(nr.getObjectAt(0));
+								List<ExtensionValue> nrValues = new ArrayList<>(2);
+								nrValues.add(ExtensionValue.leaf(toText(RB.getString("NoticeRefOrganization")),
+								    stringify(nr.getObjectAt(0))));
 								ASN1Sequence nrs = (ASN1Sequence) nr.getObjectAt(1);
 								StringBuilder nrstr = new StringBuilder();
 								for (int m = 0, nlen = nrs.size(); m < nlen; m++)
@@ -1674,45 +1809,33 @@ public class X509Ext
 										nrstr.append(", ");
 									}
 								}
-								sb.append("<li>");
-								sb.append(RB.getString("NoticeRef"));
-								sb.append(": ");
-								sb.append(RB.getString("NoticeRefOrganization"));
-								sb.append(": ");
-								sb.append(orgstr);
 								if (nrstr.length() != 0)
 								{
-									sb.append(", ");
-									sb.append(RB.getString("NoticeRefNumber"));
-									sb.append(": ");
-									sb.append(nrstr);
+									nrValues.add(
+									    ExtensionValue.leaf(toText(RB.getString("NoticeRefNumber")), nrstr.toString()));
 								}
-								sb.append("</li>");
+								qValues.add(ExtensionValue.node(toText(RB.getString("NoticeRef")), null, nrValues));
 							}
 							// else TODO
 						}
 					}
 					else
 					{
-						sb.append(stringify(d));
+						qValues.add(ExtensionValue.leaf(null, stringify(d)));
 					}
-					sb.append("</ul></li>");
+					qualifiers.add(ExtensionValue.oid(sQualifier, null, spqId, qValues));
 				}
-				sb.append("</ul></li>");
 			}
 
-			sb.append("</ul>");
-			if (i != len - 1)
-			{
-				sb.append("<br>");
-			}
+			String sPolicy = toText(MessageFormat.format(getRes(piId, "UnrecognisedPolicyIdentifier"), piId));
+			policies.add(ExtensionValue.oid(toText(RB.getString("PolicyIdentifier")), sPolicy, piId, qualifiers));
 		}
 
-		return sb.toString();
+		return ExtensionValue.node(null, null, policies);
 	}
 
 	/**
-	 * Get the supplied general name as a string ([general name type]=[general name]).
+	 * Decode the supplied general name.
 	 *
 	 * <pre>
 	 * GeneralName ::= CHOICE {
@@ -1740,14 +1863,13 @@ public class X509Ext
 	 * </pre>
 	 *
 	 * @param generalName The general name
-	 * @param linkClass
-	 * @return General name string
-	 * @throws IOException
+	 * @param linkClass Link class for URIs
+	 * @return Decoded general name, labeled with its type
+	 * @throws IOException If an I/O problem occurs
 	 */
-	private String getGeneralNameString(GeneralName generalName, LinkClass linkClass)
+	private static ExtensionValue decodeGeneralName(GeneralName generalName, LinkClass linkClass)
 	    throws IOException
 	{
-		StringBuilder strBuff = new StringBuilder();
 		int tagNo = generalName.getTagNo();
 
 		switch (tagNo)
@@ -1756,49 +1878,39 @@ public class X509Ext
 				ASN1Sequence other = (ASN1Sequence) generalName.getName();
 				String sOid = ((ASN1ObjectIdentifier) other.getObjectAt(0)).getId();
 				String sVal = stringify(other.getObjectAt(1));
-				try
+				String sLabel;
+				if (RB.containsKey(sOid))
 				{
-					strBuff.append(RB.getString(sOid));
+					sLabel = RB.getString(sOid);
 				}
-				catch (MissingResourceException e)
+				else
 				{
-					strBuff.append(MessageFormat.format(RB.getString("GeneralName." + tagNo), sOid));
+					sLabel = MessageFormat.format(RB.getString("GeneralName." + tagNo), sOid);
 				}
-				strBuff.append(": ");
-				strBuff.append(sVal);
-				break;
+				return ExtensionValue.generalName(toText(sLabel), sVal, null, null, tagNo);
 
 			case GeneralName.rfc822Name:
 				String sRfc822 = generalName.getName().toString();
 				String urlEnc = URLEncoder.encode(sRfc822, StandardCharsets.UTF_8.name());
-				strBuff.append(RB.getString("GeneralName." + tagNo));
-				strBuff.append(": ");
-				strBuff.append(getLink("mailto:" + urlEnc, escapeHtml(sRfc822), null));
-				break;
+				return ExtensionValue.generalName(toText(RB.getString("GeneralName." + tagNo)), sRfc822,
+				    "mailto:" + urlEnc, null, tagNo);
 
 			case GeneralName.dNSName:
 			case GeneralName.registeredID:
 			case GeneralName.x400Address: // TODO: verify formatting
 			case GeneralName.ediPartyName: // TODO: verify formatting
-				strBuff.append(RB.getString("GeneralName." + tagNo));
-				strBuff.append(": ");
-				strBuff.append(escapeHtml(generalName.getName()));
-				break;
+				return ExtensionValue.generalName(toText(RB.getString("GeneralName." + tagNo)),
+				    generalName.getName().toString(), null, null, tagNo);
 
 			case GeneralName.directoryName:
-				ASN1Encodable name = generalName.getName();
-				strBuff.append(RB.getString("GeneralName." + tagNo));
-				strBuff.append(": ");
 				// TODO: make E=foo@bar.com mail links
-				strBuff.append(escapeHtml(name));
-				break;
+				return ExtensionValue.generalName(toText(RB.getString("GeneralName." + tagNo)),
+				    generalName.getName().toString(), null, null, tagNo);
 
 			case GeneralName.uniformResourceIdentifier:
 				String sUri = generalName.getName().toString();
-				strBuff.append(RB.getString("GeneralName." + tagNo));
-				strBuff.append(": ");
-				strBuff.append(getLink(sUri, escapeHtml(sUri), linkClass));
-				break;
+				return ExtensionValue.generalName(toText(RB.getString("GeneralName." + tagNo)), sUri, sUri, linkClass,
+				    tagNo);
 
 			case GeneralName.iPAddress:
 				ASN1OctetString ipAddress = (ASN1OctetString) generalName.getName();
@@ -1818,57 +1930,50 @@ public class X509Ext
 					}
 				}
 
-				strBuff.append(RB.getString("GeneralName." + tagNo));
-				strBuff.append(": ");
-				strBuff.append(escapeHtml(sbIpAddress));
-				break;
+				return ExtensionValue.generalName(toText(RB.getString("GeneralName." + tagNo)),
+				    sbIpAddress.toString(), null, null, tagNo);
 
 			default: // Unsupported general name type
-				strBuff.append(
-				    MessageFormat.format(RB.getString("UnrecognizedGeneralNameType"), generalName.getTagNo()));
-				strBuff.append(": ");
-				strBuff.append(escapeHtml(generalName.getName()));
-				break;
+				return ExtensionValue.generalName(
+				    toText(MessageFormat.format(RB.getString("UnrecognizedGeneralNameType"), generalName.getTagNo())),
+				    String.valueOf(generalName.getName()), null, null, tagNo);
 		}
-
-		return strBuff.toString();
 	}
 
+
+
 	/**
-	 * Get a formatted string value for the supplied general names object.
+	 * Decode the supplied general names object.
 	 *
+	 * @param sLabel Label for the decoded names, null if none
 	 * @param generalNames General names
-	 * @param linkClass
-	 * @return Formatted string
-	 * @throws IOException
+	 * @param linkClass Link class for URIs
+	 * @return Decoded general names, one child per name
+	 * @throws IOException If an I/O problem occurs
 	 */
-	private String getGeneralNamesString(GeneralNames generalNames, LinkClass linkClass)
+	private static ExtensionValue decodeGeneralNames(String sLabel, GeneralNames generalNames, LinkClass linkClass)
 	    throws IOException
 	{
 		GeneralName[] names = generalNames.getNames();
-		StringBuilder strBuff = new StringBuilder();
-		strBuff.append("<ul>");
+		List<ExtensionValue> values = new ArrayList<>(names.length);
 		for (GeneralName name : names)
 		{
-			strBuff.append("<li>");
-			strBuff.append(getGeneralNameString(name, linkClass));
-			strBuff.append("</li>");
+			values.add(decodeGeneralName(name, linkClass));
 		}
-		strBuff.append("</ul>");
-		return strBuff.toString();
+		return ExtensionValue.node(sLabel, null, values);
 	}
 
 	/**
-	 * Get basic ASN.1 object as string.
+	 * Decode basic ASN.1 object extension value.
 	 *
-	 * @param bValue
-	 * @throws IOException
-	 * @return
+	 * @param bValue The octet string value
+	 * @return Decoded extension value
+	 * @throws IOException If an I/O problem occurs
 	 */
-	private String getASN1ObjectString(byte[] bValue)
+	private static ExtensionValue decodeASN1ObjectString(byte[] bValue)
 	    throws IOException
 	{
-		return escapeHtml(ASN1Primitive.fromByteArray(bValue));
+		return ExtensionValue.leaf(null, ASN1Primitive.fromByteArray(bValue).toString());
 	}
 
 	/**
@@ -1878,22 +1983,17 @@ public class X509Ext
 	 * @return Formatted string
 	 * @throws ParseException If there is a problem formatting the generalized time
 	 */
-	private String formatGeneralizedTime(ASN1GeneralizedTime time)
+	private static String formatGeneralizedTime(ASN1GeneralizedTime time)
 	    throws ParseException
 	{
 		// Get generalized time as a string
 		String sTime = time.getTime();
 
-		// Setup date formatter with expected date format of string
-		DateFormat dateFormat = new SimpleDateFormat("yyyyMMddHHmmssz");
-
-		// Create date object from string using formatter
-		Date date = dateFormat.parse(sTime);
+		// Create date object from string using expected date format of string
+		Date date = DateUtil.parse("yyyyMMddHHmmssz", sTime);
 
 		// Re-format date - include time zone
-		sTime = DateFormat.getDateTimeInstance(DateFormat.MEDIUM, DateFormat.LONG).format(date);
-
-		return escapeHtml(sTime);
+		return DateUtil.formatDateTime(date);
 	}
 
 	/**
@@ -1903,19 +2003,10 @@ public class X509Ext
 	 * @param iLen Bytes in array
 	 * @return Hex dump
 	 */
-	private String getHexClearDump(byte[] bytes, int iLen)
+	private static String getHexClearDump(byte[] bytes, int iLen)
 	{
 		// Buffer for hex
-		StringBuilder sbHex;
-		if (iLen == bytes.length)
-		{
-			sbHex = StringUtil.toHex(bytes, 2, " ");
-		}
-		else
-		{
-			byte[] tmp = Arrays.copyOfRange(bytes, 0, iLen);
-			sbHex = StringUtil.toHex(tmp, 2, " ");
-		}
+		StringBuilder sbHex = StringUtil.toHex(bytes, 0, iLen, 2, " ");
 
 		// Buffer for clear text
 		StringBuilder sbClr = new StringBuilder(iLen);
@@ -1967,69 +2058,169 @@ public class X509Ext
 	 */
 	private static String convertToHexString(Object obj)
 	{
-		StringBuilder strBuff = StringUtil.toHex(obj, 4, " ");
-		strBuff.insert(0, "<tt>");
-		strBuff.append("</tt>");
-		return strBuff.toString();
+		return StringUtil.toHex(obj, 4, " ").toString();
 	}
 
 	/**
-	 * Gets a HTML escaped string representation of the given object.
+	 * Gets a string representation of the given object. Structures nested deeper than
+	 * {@link #STRINGIFY_MAX_DEPTH} levels and output beyond {@link #STRINGIFY_MAX_LENGTH} characters are truncated.
 	 *
 	 * @param obj Object
 	 * @return String representation of <code>obj</code>
 	 */
 	private static String stringify(Object obj)
 	{
+		if (obj == null)
+		{
+			return null;
+		}
+		StringBuilder sb = new StringBuilder();
+		appendStringified(sb, obj, 0);
+		return sb.toString();
+	}
+
+	/**
+	 * Appends a string representation of the given object.
+	 *
+	 * @param sb Buffer to append to
+	 * @param obj Object
+	 * @param iDepth Nesting depth of <code>obj</code>
+	 * @return True if all of <code>obj</code> was appended, false if the output was truncated
+	 */
+	private static boolean appendStringified(StringBuilder sb, Object obj, int iDepth)
+	{
+		if (iDepth > STRINGIFY_MAX_DEPTH || sb.length() >= STRINGIFY_MAX_LENGTH)
+		{
+			sb.append(TRUNCATED);
+			return false;
+		}
+
 		if (obj instanceof ASN1String)
 		{
-			return escapeHtml(((ASN1String) obj).getString());
+			return appendTruncated(sb, ((ASN1String) obj).getString());
 		}
 		// TODO: why not ASN1Integer as number?
-		else if (obj instanceof ASN1Integer || obj instanceof byte[])
+		else if (obj instanceof ASN1Integer)
+		{
+			sb.append(convertToHexString(obj));
+			return true;
+		}
+		else if (obj instanceof byte[])
+		{
+			return appendHex(sb, (byte[]) obj);
+		}
+		else if (obj instanceof ASN1OctetString)
 		{
-			return convertToHexString(obj);
+			return appendHex(sb, ((ASN1OctetString) obj).getOctets());
+		}
+		else if (obj instanceof ASN1BitString)
+		{
+			return appendHex(sb, ((ASN1BitString) obj).getOctets());
 		}
 		else if (obj instanceof ASN1TaggedObject)
 		{
 			ASN1TaggedObject tagObj = (ASN1TaggedObject) obj;
 			// Note: "[", _not_ '[' ...
-			return "[" + tagObj.getTagNo() + "] " + stringify(tagObj.getObject());
+			sb.append("[").append(tagObj.getTagNo()).append("] ");
+			return appendStringified(sb, tagObj.getObject(), iDepth + 1);
 		}
 		else if (obj instanceof ASN1Sequence)
 		{
-			ASN1Sequence aObj = (ASN1Sequence) obj;
-			StringBuilder tmp = new StringBuilder("[");
-			for (int i = 0, len = aObj.size(); i < len; i++)
+			return appendStringified(sb, ((ASN1Sequence) obj).getObjects(), iDepth);
+		}
+		else if (obj instanceof ASN1Set)
+		{
+			return appendStringified(sb, ((ASN1Set) obj).getObjects(), iDepth);
+		}
+		else if (obj instanceof Enumeration)
+		{
+			Enumeration<?> objects = (Enumeration<?>) obj;
+			sb.append('[');
+			for (boolean bFirst = true; objects.hasMoreElements(); bFirst = false)
 			{
-				tmp.append(stringify(aObj.getObjectAt(i)));
-				if (i != len - 1)
+				if (!bFirst)
 				{
-					tmp.append(", ");
+					sb.append(", ");
+				}
+				if (!appendStringified(sb, objects.nextElement(), iDepth + 1))
+				{
+					return false;
 				}
 			}
-			return tmp.append("]").toString();
+			sb.append(']');
+			return true;
 		}
 		else
 		{
-			String hex = null;
-			try
-			{
-				Method method = obj.getClass().getMethod("getOctets", (Class[]) null);
-				hex = convertToHexString(method.invoke(obj, (Object[]) null));
-			}
-			catch (Exception e)
-			{
-				// Ignore
-			}
-			if (hex == null && obj != null)
-			{
-				hex = escapeHtml(obj.toString());
-			}
-			return hex;
+			return appendTruncated(sb, obj);
 		}
 	}
 
+	/**
+	 * Appends a string representation of the given object, truncated to fit in
+	 * {@link #STRINGIFY_MAX_LENGTH} characters.
+	 *
+	 * @param sb Buffer to append to
+	 * @param obj Object
+	 * @return True if all of <code>obj</code> was appended, false if the output was truncated
+	 */
+	private static boolean appendTruncated(StringBuilder sb, Object obj)
+	{
+		String sValue = String.valueOf(obj);
+		int iRemaining = STRINGIFY_MAX_LENGTH - sb.length();
+		if (sValue.length() > iRemaining)
+		{
+			sb.append(sValue, 0, Math.max(iRemaining, 0)).append(TRUNCATED);
+			return false;
+		}
+		sb.append(sValue);
+		return true;
+	}
+
+	/**
+	 * Appends a hex string representation of the given bytes, truncated to fit in {@link #STRINGIFY_MAX_LENGTH}
+	 * characters. Only the part of the bytes that fits is converted.
+	 *
+	 * @param sb Buffer to append to
+	 * @param bytes Bytes
+	 * @return True if all of <code>bytes</code> was appended, false if the output was truncated
+	 */
+	private static boolean appendHex(StringBuilder sb, byte[] bytes)
+	{
+		// Two hex characters plus a separator every four characters per byte
+		int iMaxBytes = Math.max(STRINGIFY_MAX_LENGTH - sb.length(), 0) * 2 / 5;
+		if (bytes.length > iMaxBytes)
+		{
+			sb.append(convertToHexString(Arrays.copyOf(bytes, iMaxBytes))).append(TRUNCATED);
+			return false;
+		}
+		sb.append(convertToHexString(bytes));
+		return true;
+	}
+
+	/**
+	 * Converts a resource string that may contain HTML character entities to plain text.
+	 *
+	 * @param sRes The resource string
+	 * @return Plain text string
+	 */
+	private static String toText(String sRes)
+	{
+		return sRes.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"").replace("&amp;", "&");
+	}
+
+	/**
+	 * Formats a resource string that may contain HTML character entities with arguments, as plain text.
+	 *
+	 * @param sRes The resource string, a {@link MessageFormat} pattern
+	 * @param args The arguments
+	 * @return Plain text string
+	 */
+	private static String formatText(String sRes, Object... args)
+	{
+		return MessageFormat.format(toText(sRes), args);
+	}
+
 	/**
 	 * Gets a resource string, with fall back.
 	 *
@@ -2039,17 +2230,16 @@ public class X509Ext
 	 */
 	private static String getRes(String key, String fallback)
 	{
-		try
-		{
-			return RB.getString(key);
-		}
-		catch (MissingResourceException e)
-		{
-			return RB.getString(fallback);
-		}
+		return RB.getString(RB.containsKey(key) ? key : fallback);
 	}
 
-	private static String escapeHtml(Object source)
+	/**
+	 * Gets a HTML escaped string representation of the given object.
+	 *
+	 * @param source Object
+	 * @return HTML escaped string, empty if <code>source</code> is null
+	 */
+	/* package private */static String escapeHtml(Object source)
 	{
 		if (source == null)
 		{
@@ -2070,7 +2260,7 @@ public class X509Ext
 	 * @param linkClass link class
 	 * @return
 	 */
-	private static CharSequence getLink(String href, String content, LinkClass linkClass)
+	/* package private */static CharSequence getLink(String href, String content, LinkClass linkClass)
 	{
 		StringBuilder sb = new StringBuilder("<a href=\"");
 		sb.append(escapeHtml(href));
@@ -2086,4 +2276,59 @@ public class X509Ext
 		sb.append("</a>");
 		return sb;
 	}
+
+	/**
+	 * Key of the decoded extension value cache.
+	 */
+	private static final class DecodedKey
+	{
+		/** Extension object identifier */
+		private final ASN1ObjectIdentifier m_oid;
+
+		/** The renderer decoding the value */
+		private final ExtensionRenderer m_renderer;
+
+		/** Extension value */
+		private final byte[] m_bValue;
+
+		/** Hash code */
+		private final int m_iHashCode;
+
+		/**
+		 * Construct a DecodedKey.
+		 *
+		 * @param oid Extension object identifier
+		 * @param renderer The renderer decoding the value
+		 * @param bValue Extension value, not copied
+		 */
+		private DecodedKey(ASN1ObjectIdentifier oid, ExtensionRenderer renderer, byte[] bValue)
+		{
+			m_oid = oid;
+			m_renderer = renderer;
+			m_bValue = bValue;
+			m_iHashCode = 31 * (31 * oid.hashCode() + System.identityHashCode(renderer)) + Arrays.hashCode(bValue);
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+			{
+				return true;
+			}
+			if (!(obj instanceof DecodedKey))
+			{
+				return false;
+			}
+			DecodedKey other = (DecodedKey) obj;
+			return m_oid.equals(other.m_oid) && m_renderer == other.m_renderer &&
+			    Arrays.equals(m_bValue, other.m_bValue);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return m_iHashCode;
+		}
+	}
 }